@@ -0,0 +1,93 @@
+package com.synapticloop.panl.server.handler;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import com.synapticloop.panl.server.handler.helper.ResponseSectionHelper;
+import com.synapticloop.panl.util.Constants;
+import org.apache.http.protocol.BasicHttpContext;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Benchmarks for the request hot path of the collection request handler -
+ * parsing the LPSE URI, building the Solr query, and parsing the (fixture)
+ * Solr response into the Panl JSON response.</p>
+ *
+ * <p>The LPSE URI is parsed with the LPSE token cache turned off (the
+ * <code>parseLpse</code> and <code>buildRequest</code> benchmarks) and with a
+ * warm cache (the <code>parseLpseWarm</code> and <code>buildRequestWarm</code>
+ * benchmarks), where every invocation is a cache hit.</p>
+ *
+ * @author synapticloop
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollectionRequestHandlerBenchmark {
+
+	@Benchmark public void parseLpse(PanlFixtureState state, Blackhole blackhole) {
+		blackhole.consume(state.collectionRequestHandler.parseLpse(state.requestPath, state.queryParameters));
+	}
+
+	@Benchmark public void buildRequest(PanlFixtureState state, Blackhole blackhole) throws Exception {
+		blackhole.consume(state.collectionRequestHandler.buildRequest(
+				state.requestPath,
+				state.queryParameters,
+				new BasicHttpContext(),
+				ResponseSectionHelper.ALL));
+	}
+
+	@Benchmark public void parseLpseWarm(WarmTokenCacheState state, Blackhole blackhole) {
+		blackhole.consume(state.collectionRequestHandler.parseLpse(state.requestPath, state.queryParameters));
+	}
+
+	@Benchmark public void buildRequestWarm(WarmTokenCacheState state, Blackhole blackhole) throws Exception {
+		blackhole.consume(state.collectionRequestHandler.buildRequest(
+				state.requestPath,
+				state.queryParameters,
+				new BasicHttpContext(),
+				ResponseSectionHelper.ALL));
+	}
+
+	@Benchmark public void parseResponse(PanlFixtureState state, Blackhole blackhole) {
+		blackhole.consume(state.collectionRequestHandler.parseResponse(state.panlRequestBean, state.queryResponse, 0L, null));
+	}
+
+	/**
+	 * <p>The fixture state with the LPSE token cache turned on (at the default
+	 * size), the cache is warmed by the request that is built in the
+	 * setup.</p>
+	 */
+	@State(Scope.Benchmark)
+	public static class WarmTokenCacheState extends PanlFixtureState {
+		@Override protected int getLpseTokenCacheMaxEntries() {
+			return (Constants.DEFAULT_VALUE_LPSE_TOKEN_CACHE_MAX_ENTRIES);
+		}
+	}
+}
@@ -0,0 +1,157 @@
+package com.synapticloop.panl.server.handler;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import com.synapticloop.panl.server.handler.bean.PanlQueryParametersBean;
+import com.synapticloop.panl.server.handler.bean.PanlRequestBean;
+import com.synapticloop.panl.server.handler.bean.PanlRequestPathBean;
+import com.synapticloop.panl.server.handler.helper.ResponseSectionHelper;
+import com.synapticloop.panl.server.handler.properties.CollectionProperties;
+import com.synapticloop.panl.server.handler.properties.PanlProperties;
+import com.synapticloop.panl.util.Constants;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.solr.client.solrj.impl.XMLResponseParser;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.util.NamedList;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * <p>The shared benchmark state for a sample collection - the collection
+ * request handler, the request that is being benchmarked, and the fixture
+ * Solr response for that request.</p>
+ *
+ * <p>The collection properties are the sample properties from the
+ * <code>src/dist/sample/panl</code> directory, and the fixture Solr responses
+ * (in the <code>fixtures</code> resource directory) are XML responses which
+ * were generated from the sample data in the <code>src/dist/sample/data</code>
+ * directory (see <code>./gradlew generateFixtures</code>).  No
+ * Solr server is contacted.</p>
+ *
+ * <p>The LPSE token cache is turned off, so that the benchmarks that parse
+ * the LPSE URI measure the parsing, rather than a cache lookup (the first
+ * request would otherwise populate the cache for every invocation after it).
+ * The warm token cache is benchmarked with the
+ * {@link CollectionRequestHandlerBenchmark.WarmTokenCacheState}.</p>
+ *
+ * @author synapticloop
+ */
+@State(Scope.Benchmark)
+public class PanlFixtureState {
+	@Param({ "book-store", "book-store-filtered", "mechanical-pencils", "mechanical-pencils-filtered" })
+	public String fixture;
+
+	public CollectionRequestHandler collectionRequestHandler;
+	public PanlRequestPathBean requestPath;
+	public PanlQueryParametersBean queryParameters;
+	public QueryResponse queryResponse;
+	public PanlRequestBean panlRequestBean;
+
+	@Setup public void setup() throws Exception {
+		String collection;
+		String uri;
+		String fixtureName;
+		switch (fixture) {
+			case "book-store":
+				collection = "book-store";
+				uri = "/book-store/default/";
+				fixtureName = "default";
+				break;
+			case "book-store-filtered":
+				collection = "book-store";
+				uri = "/book-store/default/Author+Michael+Connelly/a/";
+				fixtureName = "author-michael-connelly";
+				break;
+			case "mechanical-pencils":
+				collection = "mechanical-pencils";
+				uri = "/mechanical-pencils/default/";
+				fixtureName = "default";
+				break;
+			case "mechanical-pencils-filtered":
+				collection = "mechanical-pencils";
+				uri = "/mechanical-pencils/default/Manufactured+by+Koh-i-Noor+Company/b/";
+				fixtureName = "brand-koh-i-noor";
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown fixture '" + fixture + "'.");
+		}
+
+		PanlProperties panlProperties = new PanlProperties(loadProperties("/" + collection + "/panl.properties"));
+		Properties properties = loadProperties("/" + collection + "/" + collection + ".panl.properties");
+		properties.setProperty(
+				Constants.Property.Panl.PANL_LPSE_TOKEN_CACHE_MAX_ENTRIES,
+				Integer.toString(getLpseTokenCacheMaxEntries()));
+
+		CollectionProperties collectionProperties = new CollectionProperties(
+				collection,
+				collection,
+				properties,
+				null);
+
+		this.collectionRequestHandler = new CollectionRequestHandler(
+				collection,
+				collection,
+				panlProperties,
+				collectionProperties);
+
+		this.requestPath = new PanlRequestPathBean(uri);
+		this.queryParameters = PanlQueryParametersBean.EMPTY;
+
+		try (InputStream inputStream = PanlFixtureState.class.getResourceAsStream("/fixtures/" + collection + "/" + fixtureName + ".xml")) {
+			NamedList<Object> namedList = new XMLResponseParser().processResponse(inputStream, "UTF-8");
+			this.queryResponse = new QueryResponse(namedList, null);
+		}
+
+		this.panlRequestBean = collectionRequestHandler.buildRequest(
+				requestPath,
+				queryParameters,
+				new BasicHttpContext(),
+				ResponseSectionHelper.ALL);
+	}
+
+	/**
+	 * <p>Return the maximum number of entries in the LPSE token cache, by
+	 * default 0, i.e. the cache is turned off.</p>
+	 *
+	 * @return The maximum number of entries in the LPSE token cache
+	 */
+	protected int getLpseTokenCacheMaxEntries() {
+		return (0);
+	}
+
+	private static Properties loadProperties(String resource) throws IOException {
+		Properties properties = new Properties();
+		try (InputStream inputStream = PanlFixtureState.class.getResourceAsStream(resource)) {
+			properties.load(inputStream);
+		}
+		return (properties);
+	}
+}
@@ -0,0 +1,109 @@
+package com.synapticloop.panl.server.handler.processor;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import com.synapticloop.panl.server.handler.PanlFixtureState;
+import com.synapticloop.panl.server.handler.properties.CollectionProperties;
+import com.synapticloop.panl.server.handler.tokeniser.token.LpseToken;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Benchmarks for each of the processors that generate the sections of the
+ * Panl JSON response, run against the fixture Solr responses of the sample
+ * collections.</p>
+ *
+ * @author synapticloop
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProcessorBenchmark {
+	private ActiveProcessor activeProcessor;
+	private AvailableProcessor availableProcessor;
+	private CanonicalURIProcessor canonicalURIProcessor;
+	private FieldsProcessor fieldsProcessor;
+	private PaginationProcessor paginationProcessor;
+	private QueryOperandProcessor queryOperandProcessor;
+	private SearchFieldsProcessor searchFieldsProcessor;
+	private SortingProcessor sortingProcessor;
+
+	private Map<String, List<LpseToken>> panlTokenMap;
+	private String fieldSet;
+
+	@Setup public void setup(PanlFixtureState state) {
+		CollectionProperties collectionProperties = state.collectionRequestHandler.getCollectionProperties();
+
+		this.activeProcessor = new ActiveProcessor(collectionProperties);
+		this.availableProcessor = new AvailableProcessor(collectionProperties);
+		this.canonicalURIProcessor = new CanonicalURIProcessor(collectionProperties);
+		this.fieldsProcessor = new FieldsProcessor(collectionProperties);
+		this.paginationProcessor = new PaginationProcessor(collectionProperties);
+		this.queryOperandProcessor = new QueryOperandProcessor(collectionProperties);
+		this.searchFieldsProcessor = new SearchFieldsProcessor(collectionProperties);
+		this.sortingProcessor = new SortingProcessor(collectionProperties);
+
+		this.panlTokenMap = state.panlRequestBean.getPanlTokenMap();
+		this.fieldSet = state.panlRequestBean.getFieldSet();
+	}
+
+	@Benchmark public Object active() {
+		return (activeProcessor.processToObject(panlTokenMap));
+	}
+
+	@Benchmark public Object available(PanlFixtureState state) {
+		return (availableProcessor.processToObject(panlTokenMap, state.queryResponse));
+	}
+
+	@Benchmark public Object canonicalURI() {
+		return (canonicalURIProcessor.processToString(panlTokenMap));
+	}
+
+	@Benchmark public Object fields() {
+		return (fieldsProcessor.processToObject(panlTokenMap, fieldSet));
+	}
+
+	@Benchmark public Object pagination(PanlFixtureState state) {
+		return (paginationProcessor.processToObject(panlTokenMap, state.queryResponse));
+	}
+
+	@Benchmark public Object queryOperand() {
+		return (queryOperandProcessor.processToObject(panlTokenMap));
+	}
+
+	@Benchmark public Object searchFields() {
+		return (searchFieldsProcessor.processToObject(panlTokenMap));
+	}
+
+	@Benchmark public Object sorting() {
+		return (sortingProcessor.processToObject(panlTokenMap));
+	}
+}
@@ -0,0 +1,122 @@
+package com.synapticloop.panl.server.handler.tokeniser;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import com.synapticloop.panl.server.handler.CollectionRequestHandler;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.StringTokenizer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Microbenchmarks for tokenising an LPSE path and looking up the multi
+ * character LPSE codes.</p>
+ *
+ * <p>The <code>baseline</code> benchmarks are the previous implementations -
+ * a substring per token (as the <code>java.util.StringTokenizer</code> does)
+ * and building, URL decoding and looking up every partial LPSE code in a
+ * map - the others use the <code>LpseTokeniser</code> and the
+ * <code>LpseCodeTrie</code>.  Run with the GC profiler
+ * (<code>-prof gc</code>) to see the allocation rate.</p>
+ *
+ * @author synapticloop
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LpseTokeniserBenchmark {
+	private static final int LPSE_LENGTH = 2;
+
+	// an LPSE path with a query, page, sort and two character facet codes
+	private static final String LPSE_PATH = "qp[sb+]abacadaeafagahaiajakalamanaoapaqarasatau";
+
+	private final Map<String, String> lpseCodeMap = new HashMap<>();
+	private final LpseCodeTrie<String> lpseCodeTrie = new LpseCodeTrie<>();
+
+	@Setup public void setup() {
+		for (String lpseCode : new String[] { "q", "p", "s", "n", "o" }) {
+			lpseCodeMap.put(lpseCode, lpseCode);
+			lpseCodeTrie.put(lpseCode, lpseCode);
+		}
+
+		for (char c = 'a'; c <= 'z'; c++) {
+			for (char d = 'a'; d <= 'z'; d++) {
+				String lpseCode = new String(new char[] { c, d });
+				lpseCodeMap.put(lpseCode, lpseCode);
+				lpseCodeTrie.put(lpseCode, lpseCode);
+			}
+		}
+	}
+
+	@Benchmark public void baselineTokenise(Blackhole blackhole) {
+		StringTokenizer stringTokenizer = new StringTokenizer(LPSE_PATH, CollectionRequestHandler.CODES_AND_METADATA, true);
+		while (stringTokenizer.hasMoreTokens()) {
+			blackhole.consume(stringTokenizer.nextToken());
+		}
+	}
+
+	@Benchmark public void tokenise(Blackhole blackhole) {
+		LpseTokeniser lpseTokeniser = new LpseTokeniser(LPSE_PATH, CollectionRequestHandler.CODES_AND_METADATA, true);
+		while (lpseTokeniser.hasMoreTokens()) {
+			blackhole.consume(lpseTokeniser.nextToken());
+		}
+	}
+
+	@Benchmark public void baselineLookup(Blackhole blackhole) {
+		LpseTokeniser lpseTokeniser = new LpseTokeniser(LPSE_PATH, CollectionRequestHandler.CODES_AND_METADATA, true);
+		while (lpseTokeniser.hasMoreTokens()) {
+			String lpseCode = lpseTokeniser.nextToken();
+			String value = lpseCodeMap.get(lpseCode);
+			if (null == value) {
+				StringBuilder lpseCodeBuilder = new StringBuilder(lpseCode);
+				while (lpseCodeBuilder.length() < LPSE_LENGTH && lpseTokeniser.hasMoreTokens()) {
+					lpseCodeBuilder.append(URLDecoder.decode(lpseTokeniser.nextToken(), StandardCharsets.UTF_8));
+				}
+				value = lpseCodeMap.get(lpseCodeBuilder.toString());
+			}
+			blackhole.consume(value);
+		}
+	}
+
+	@Benchmark public void lookup(Blackhole blackhole) {
+		LpseTokeniser lpseTokeniser = new LpseTokeniser(LPSE_PATH, CollectionRequestHandler.CODES_AND_METADATA, true);
+		while (lpseTokeniser.hasMoreTokens()) {
+			String lpseCode = lpseTokeniser.nextToken();
+			String value = lpseCodeMap.get(lpseCode);
+			if (null == value) {
+				value = lpseCodeTrie.find(lpseCode, lpseTokeniser, LPSE_LENGTH);
+			}
+			blackhole.consume(value);
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package com.synapticloop.panl.util;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Benchmarks for encoding the LPSE URI path values, which is done for
+ * every value of every facet in the Panl JSON response.</p>
+ *
+ * @author synapticloop
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PanlLPSEHelperBenchmark {
+	// values that need no encoding, values with spaces and reserved characters,
+	// and multibyte values
+	@Param({ "Koh-i-Noor", "Manufactured by Caran d'Ache Company", "Caf\u00e9 cr\u00e8me/Stift+Crayon \u00c4\u00d6\u00dc" })
+	public String value;
+
+	@Benchmark public String encodeURIPath() {
+		return (PanlLPSEHelper.encodeURIPath(value));
+	}
+
+	@Benchmark public String encodeURLParameter() {
+		return (PanlLPSEHelper.encodeURLParameter(value));
+	}
+}
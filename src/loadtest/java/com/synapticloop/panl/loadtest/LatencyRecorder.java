@@ -0,0 +1,97 @@
+package com.synapticloop.panl.loadtest;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import java.util.Arrays;
+
+/**
+ * <p>Records every latency value so that exact percentiles can be reported.
+ * A recorder is only written to by a single thread, the recorders from each
+ * thread are merged once the run has finished.</p>
+ *
+ * @author synapticloop
+ */
+public class LatencyRecorder {
+	private long[] values = new long[1024];
+	private int numValues = 0;
+
+	/**
+	 * <p>Record a value.</p>
+	 *
+	 * @param value The value to record
+	 */
+	public void record(long value) {
+		if (numValues == values.length) {
+			values = Arrays.copyOf(values, values.length * 2);
+		}
+		values[numValues++] = value;
+	}
+
+	/**
+	 * <p>Add all the values from the other recorder to this one.</p>
+	 *
+	 * @param other The recorder to merge in
+	 */
+	public void merge(LatencyRecorder other) {
+		if (numValues + other.numValues > values.length) {
+			values = Arrays.copyOf(values, Math.max(values.length * 2, numValues + other.numValues));
+		}
+		System.arraycopy(other.values, 0, values, numValues, other.numValues);
+		numValues += other.numValues;
+	}
+
+	/**
+	 * <p>Return the sorted values - this should only be called once all the
+	 * values have been recorded.</p>
+	 *
+	 * @return The sorted values
+	 */
+	public long[] getSortedValues() {
+		long[] sortedValues = Arrays.copyOf(values, numValues);
+		Arrays.sort(sortedValues);
+		return (sortedValues);
+	}
+
+	public int getNumValues() {
+		return (numValues);
+	}
+
+	/**
+	 * <p>Return the value at the percentile (nearest rank) of the sorted
+	 * values.</p>
+	 *
+	 * @param sortedValues The sorted values
+	 * @param percentile The percentile (between 0 and 100)
+	 *
+	 * @return The value at the percentile, or 0 if there are no values
+	 */
+	public static long getPercentile(long[] sortedValues, double percentile) {
+		if (sortedValues.length == 0) {
+			return (0);
+		}
+		int rank = (int) Math.ceil(percentile / 100.0 * sortedValues.length);
+		return (sortedValues[Math.min(Math.max(rank, 1), sortedValues.length) - 1]);
+	}
+}
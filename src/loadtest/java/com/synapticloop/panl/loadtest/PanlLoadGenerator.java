@@ -0,0 +1,296 @@
+package com.synapticloop.panl.loadtest;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>Replay a corpus of URIs against a Panl server at a configurable
+ * concurrency and (optionally) a fixed request rate.</p>
+ *
+ * <p>If a request rate is set, then the requests are scheduled at fixed
+ * intervals and the latency of a request is measured from the time that it
+ * was scheduled to be sent, not the time that it was actually sent.  If the
+ * server cannot keep up, the time that the requests spend waiting for a free
+ * connection is included in the latency (i.e. there is no coordinated
+ * omission).  If no request rate is set, then each of the concurrent workers
+ * sends its next request as soon as the previous one has completed.</p>
+ *
+ * <p>Every request has a timeout, a request that times out is counted as an
+ * error, and its latency (i.e. the timeout) is included in the latency
+ * percentiles.</p>
+ *
+ * <p>The <code>timings</code> block of every successful Panl response that
+ * was not served from the Panl response cache is recorded, so that the time
+ * spent in each of the Panl phases is reported.  Cached responses are left
+ * out, as they do not go through the phases, and would skew the per phase
+ * numbers towards zero.</p>
+ *
+ * @author synapticloop
+ */
+public class PanlLoadGenerator {
+	private static final Logger LOGGER = LoggerFactory.getLogger(PanlLoadGenerator.class);
+
+	private static final String JSON_KEY_PANL = "panl";
+	private static final String JSON_KEY_TIMINGS = "timings";
+	private static final String JSON_KEY_PANL_CACHED = "panl_cached";
+
+	private final String baseUrl;
+	private final List<String> corpus;
+	private final int concurrency;
+	private final int requestsPerSecond;
+	private final int warmupSeconds;
+	private final int durationSeconds;
+	private final Duration requestTimeout;
+
+	private final HttpClient httpClient;
+	private final AtomicLong sequence = new AtomicLong();
+
+	/**
+	 * <p>Instantiate the load generator.</p>
+	 *
+	 * @param baseUrl The base URL of the Panl server, e.g.
+	 * 		<code>http://localhost:8181</code>
+	 * @param corpus The URIs to replay, in order, looping back to the start
+	 * @param concurrency The number of concurrent requests
+	 * @param requestsPerSecond The request rate, or 0 to send requests as fast
+	 * 		as the concurrency allows
+	 * @param warmupSeconds The number of seconds to send requests before
+	 * 		starting to record the results
+	 * @param durationSeconds The number of seconds to record the results for
+	 * @param requestTimeoutSeconds The number of seconds to wait for a
+	 * 		response, after which the request is counted as an error
+	 * @param connectTimeoutSeconds The number of seconds to wait for a
+	 * 		connection to the Panl server
+	 */
+	public PanlLoadGenerator(
+			String baseUrl,
+			List<String> corpus,
+			int concurrency,
+			int requestsPerSecond,
+			int warmupSeconds,
+			int durationSeconds,
+			int requestTimeoutSeconds,
+			int connectTimeoutSeconds) {
+		this.baseUrl = baseUrl;
+		this.corpus = corpus;
+		this.concurrency = concurrency;
+		this.requestsPerSecond = requestsPerSecond;
+		this.warmupSeconds = warmupSeconds;
+		this.durationSeconds = durationSeconds;
+		this.requestTimeout = Duration.ofSeconds(requestTimeoutSeconds);
+		this.httpClient = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofSeconds(connectTimeoutSeconds))
+				.build();
+	}
+
+	/**
+	 * <p>Run the load, blocking until it has finished.</p>
+	 *
+	 * @return The report of the recorded results
+	 *
+	 * @throws InterruptedException If the run was interrupted
+	 */
+	public PanlLoadReport run() throws InterruptedException {
+		long startNanos = System.nanoTime();
+		long measureStartNanos = startNanos + TimeUnit.SECONDS.toNanos(warmupSeconds);
+		long endNanos = measureStartNanos + TimeUnit.SECONDS.toNanos(durationSeconds);
+		long intervalNanos = requestsPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / requestsPerSecond : 0;
+
+		LOGGER.info("Replaying {} URIs against {} with a concurrency of {} at {} for {}s (after a {}s warmup)",
+				corpus.size(),
+				baseUrl,
+				concurrency,
+				requestsPerSecond > 0 ? requestsPerSecond + " requests/s" : "the maximum rate",
+				durationSeconds,
+				warmupSeconds);
+
+		List<Worker> workers = new ArrayList<>();
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < concurrency; i++) {
+			Worker worker = new Worker(startNanos, measureStartNanos, endNanos, intervalNanos);
+			Thread thread = new Thread(worker, "panl-load-" + i);
+			workers.add(worker);
+			threads.add(thread);
+			thread.start();
+		}
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		LatencyRecorder latencies = new LatencyRecorder();
+		Map<Integer, Long> statusCodes = new TreeMap<>();
+		Map<String, LatencyRecorder> timings = new TreeMap<>();
+		long numExceptions = 0;
+		long numTimeouts = 0;
+		for (Worker worker : workers) {
+			latencies.merge(worker.latencies);
+			worker.statusCodes.forEach((statusCode, count) -> statusCodes.merge(statusCode, count, Long::sum));
+			worker.timings.forEach((key, recorder) -> timings.computeIfAbsent(key, k -> new LatencyRecorder()).merge(recorder));
+			numExceptions += worker.numExceptions;
+			numTimeouts += worker.numTimeouts;
+		}
+
+		return (new PanlLoadReport(
+				TimeUnit.SECONDS.toNanos(durationSeconds),
+				concurrency,
+				requestsPerSecond,
+				latencies,
+				statusCodes,
+				numExceptions,
+				numTimeouts,
+				timings));
+	}
+
+	/**
+	 * <p>A worker which sends requests until the end of the run, recording the
+	 * results in its own (unshared) recorders.</p>
+	 */
+	private class Worker implements Runnable {
+		private final long startNanos;
+		private final long measureStartNanos;
+		private final long endNanos;
+		private final long intervalNanos;
+
+		private final LatencyRecorder latencies = new LatencyRecorder();
+		private final Map<Integer, Long> statusCodes = new TreeMap<>();
+		private final Map<String, LatencyRecorder> timings = new TreeMap<>();
+		private long numExceptions = 0;
+		private long numTimeouts = 0;
+
+		private Worker(long startNanos, long measureStartNanos, long endNanos, long intervalNanos) {
+			this.startNanos = startNanos;
+			this.measureStartNanos = measureStartNanos;
+			this.endNanos = endNanos;
+			this.intervalNanos = intervalNanos;
+		}
+
+		@Override public void run() {
+			while (true) {
+				long requestNumber = sequence.getAndIncrement();
+
+				long scheduledNanos;
+				if (intervalNanos > 0) {
+					scheduledNanos = startNanos + requestNumber * intervalNanos;
+					long waitNanos;
+					while ((waitNanos = scheduledNanos - System.nanoTime()) > 0) {
+						LockSupport.parkNanos(waitNanos);
+					}
+				} else {
+					scheduledNanos = System.nanoTime();
+				}
+
+				if (scheduledNanos >= endNanos) {
+					return;
+				}
+
+				String uri = corpus.get((int) (requestNumber % corpus.size()));
+				boolean isMeasured = scheduledNanos >= measureStartNanos;
+
+				try {
+					HttpRequest httpRequest = HttpRequest.newBuilder(URI.create(baseUrl + uri))
+							.timeout(requestTimeout)
+							.GET()
+							.build();
+					HttpResponse<String> httpResponse = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString());
+					long latencyNanos = System.nanoTime() - scheduledNanos;
+
+					if (isMeasured) {
+						latencies.record(latencyNanos);
+						statusCodes.merge(httpResponse.statusCode(), 1L, Long::sum);
+						if (httpResponse.statusCode() == 200) {
+							recordTimings(httpResponse.body());
+						}
+					}
+				} catch (HttpTimeoutException e) {
+					// this includes the connect timeout
+					if (isMeasured) {
+						latencies.record(System.nanoTime() - scheduledNanos);
+						numTimeouts++;
+					}
+				} catch (Exception e) {
+					if (e instanceof InterruptedException) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+					if (isMeasured) {
+						numExceptions++;
+					}
+				}
+			}
+		}
+
+		/**
+		 * <p>Record the values of the Panl <code>timings</code> block, unless the
+		 * response was served from the Panl response cache.</p>
+		 *
+		 * @param body The response body
+		 */
+		private void recordTimings(String body) {
+			JSONObject panlObject;
+			try {
+				panlObject = new JSONObject(body).optJSONObject(JSON_KEY_PANL);
+			} catch (JSONException e) {
+				// not a Panl JSON response - there are no timings to record
+				return;
+			}
+
+			if (null == panlObject) {
+				return;
+			}
+
+			JSONObject timingsObject = panlObject.optJSONObject(JSON_KEY_TIMINGS);
+			if (null == timingsObject || timingsObject.optBoolean(JSON_KEY_PANL_CACHED, false)) {
+				return;
+			}
+
+			for (String key : timingsObject.keySet()) {
+				Object value = timingsObject.get(key);
+				if (value instanceof Number) {
+					timings.computeIfAbsent(key, k -> new LatencyRecorder()).record(((Number) value).longValue());
+				}
+			}
+		}
+	}
+}
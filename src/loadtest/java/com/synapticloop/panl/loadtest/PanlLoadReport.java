@@ -0,0 +1,212 @@
+package com.synapticloop.panl.loadtest;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import org.json.JSONObject;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>The results of a load test run - the latency percentiles, throughput,
+ * error rate, and the per phase Panl timings.</p>
+ *
+ * @author synapticloop
+ */
+public class PanlLoadReport {
+	private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+	private static final String[] PERCENTILE_NAMES = { "p50", "p90", "p99", "p999" };
+
+	private final long durationNanos;
+	private final int concurrency;
+	private final int requestsPerSecond;
+	private final long[] sortedLatencies;
+	private final Map<Integer, Long> statusCodes;
+	private final long numExceptions;
+	private final long numTimeouts;
+	private final Map<String, LatencyRecorder> timings;
+
+	private final long numRequests;
+	private final long numErrors;
+
+	/**
+	 * <p>Instantiate the report.</p>
+	 *
+	 * @param durationNanos The measured duration of the run
+	 * @param concurrency The number of concurrent requests
+	 * @param requestsPerSecond The target request rate, or 0 if there was none
+	 * @param latencies The recorded latencies in nanoseconds
+	 * @param statusCodes The number of responses for each HTTP status code
+	 * @param numExceptions The number of requests that failed without a
+	 * 		response
+	 * @param numTimeouts The number of requests that timed out (these are
+	 * 		included in the latencies)
+	 * @param timings The recorded values of each Panl timings key, for the
+	 * 		responses that were not served from the Panl response cache
+	 */
+	public PanlLoadReport(
+			long durationNanos,
+			int concurrency,
+			int requestsPerSecond,
+			LatencyRecorder latencies,
+			Map<Integer, Long> statusCodes,
+			long numExceptions,
+			long numTimeouts,
+			Map<String, LatencyRecorder> timings) {
+		this.durationNanos = durationNanos;
+		this.concurrency = concurrency;
+		this.requestsPerSecond = requestsPerSecond;
+		this.sortedLatencies = latencies.getSortedValues();
+		this.statusCodes = statusCodes;
+		this.numExceptions = numExceptions;
+		this.numTimeouts = numTimeouts;
+		this.timings = timings;
+
+		long numErrorResponses = 0;
+		for (Map.Entry<Integer, Long> entry : statusCodes.entrySet()) {
+			if (entry.getKey() != 200) {
+				numErrorResponses += entry.getValue();
+			}
+		}
+		this.numErrors = numErrorResponses + numExceptions + numTimeouts;
+		this.numRequests = sortedLatencies.length + numExceptions;
+	}
+
+	public double getThroughput() {
+		return ((sortedLatencies.length - numTimeouts) / (durationNanos / (double) TimeUnit.SECONDS.toNanos(1)));
+	}
+
+	public double getErrorRate() {
+		if (numRequests == 0) {
+			return (0);
+		}
+		return (numErrors / (double) numRequests);
+	}
+
+	/**
+	 * <p>Return the latency at the percentile in milliseconds.</p>
+	 *
+	 * @param percentile The percentile (between 0 and 100)
+	 *
+	 * @return The latency in milliseconds
+	 */
+	public double getLatencyMillis(double percentile) {
+		return (LatencyRecorder.getPercentile(sortedLatencies, percentile) / 1_000_000.0);
+	}
+
+	/**
+	 * <p>Return the report as a JSON object, for comparing runs between
+	 * releases.</p>
+	 *
+	 * @return The report as a JSON object
+	 */
+	public JSONObject toJSONObject() {
+		JSONObject jsonObject = new JSONObject();
+		jsonObject.put("duration_seconds", durationNanos / (double) TimeUnit.SECONDS.toNanos(1));
+		jsonObject.put("concurrency", concurrency);
+		jsonObject.put("target_requests_per_second", requestsPerSecond);
+		jsonObject.put("num_requests", numRequests);
+		jsonObject.put("throughput", getThroughput());
+		jsonObject.put("num_errors", numErrors);
+		jsonObject.put("num_exceptions", numExceptions);
+		jsonObject.put("num_timeouts", numTimeouts);
+		jsonObject.put("error_rate", getErrorRate());
+
+		JSONObject statusCodesObject = new JSONObject();
+		statusCodes.forEach((statusCode, count) -> statusCodesObject.put(Integer.toString(statusCode), count));
+		jsonObject.put("status_codes", statusCodesObject);
+
+		JSONObject latencyObject = new JSONObject();
+		for (int i = 0; i < PERCENTILES.length; i++) {
+			latencyObject.put(PERCENTILE_NAMES[i], getLatencyMillis(PERCENTILES[i]));
+		}
+		latencyObject.put("max", sortedLatencies.length == 0 ? 0 : sortedLatencies[sortedLatencies.length - 1] / 1_000_000.0);
+		jsonObject.put("latency_millis", latencyObject);
+
+		JSONObject timingsObject = new JSONObject();
+		for (Map.Entry<String, LatencyRecorder> entry : timings.entrySet()) {
+			long[] sortedValues = entry.getValue().getSortedValues();
+			JSONObject timingObject = new JSONObject();
+			timingObject.put("mean", getMean(sortedValues));
+			for (int i = 0; i < PERCENTILES.length; i++) {
+				timingObject.put(PERCENTILE_NAMES[i], LatencyRecorder.getPercentile(sortedValues, PERCENTILES[i]));
+			}
+			timingsObject.put(entry.getKey(), timingObject);
+		}
+		jsonObject.put("timings", timingsObject);
+
+		return (jsonObject);
+	}
+
+	/**
+	 * <p>Return the report as human-readable text.</p>
+	 *
+	 * @return The report text
+	 */
+	public String toText() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("%n                  ~ ~ ~ * ~ ~ ~%n%n"));
+		sb.append(String.format("         Concurrency: %d%n", concurrency));
+		sb.append(String.format("         Target rate: %s%n", requestsPerSecond > 0 ? requestsPerSecond + " requests/s" : "maximum"));
+		sb.append(String.format("            Requests: %d%n", numRequests));
+		sb.append(String.format("          Throughput: %.1f requests/s%n", getThroughput()));
+		sb.append(String.format("              Errors: %d (%.3f%%), of which %d timed out and %d had no response%n", numErrors, getErrorRate() * 100, numTimeouts, numExceptions));
+		for (Map.Entry<Integer, Long> entry : statusCodes.entrySet()) {
+			sb.append(String.format("         HTTP status: %d x %d%n", entry.getKey(), entry.getValue()));
+		}
+
+		sb.append(String.format("%n     Latency (ms)%n"));
+		for (int i = 0; i < PERCENTILES.length; i++) {
+			sb.append(String.format("%20s: %.3f%n", PERCENTILE_NAMES[i], getLatencyMillis(PERCENTILES[i])));
+		}
+
+		if (!timings.isEmpty()) {
+			sb.append(String.format("%n     Panl timings (responses not served from the cache)%n"));
+			sb.append(String.format("%32s %10s %8s %8s %8s %8s%n", "", "mean", "p50", "p90", "p99", "p999"));
+			for (Map.Entry<String, LatencyRecorder> entry : timings.entrySet()) {
+				long[] sortedValues = entry.getValue().getSortedValues();
+				sb.append(String.format("%32s %10.3f", entry.getKey(), getMean(sortedValues)));
+				for (double percentile : PERCENTILES) {
+					sb.append(String.format(" %8d", LatencyRecorder.getPercentile(sortedValues, percentile)));
+				}
+				sb.append(String.format("%n"));
+			}
+		}
+
+		sb.append(String.format("%n                  ~ ~ ~ * ~ ~ ~%n"));
+		return (sb.toString());
+	}
+
+	private static double getMean(long[] values) {
+		if (values.length == 0) {
+			return (0);
+		}
+		double sum = 0;
+		for (long value : values) {
+			sum += value;
+		}
+		return (sum / values.length);
+	}
+}
@@ -0,0 +1,180 @@
+package com.synapticloop.panl.loadtest;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>The load testing harness for a running Panl server, with two
+ * commands:</p>
+ *
+ * <ul>
+ *   <li><code>crawl</code> - crawl the facet graph of the seed collections to
+ *   build a corpus of canonical URIs, see {@link PanlUriCrawler}</li>
+ *   <li><code>replay</code> - replay the corpus against the Panl server and
+ *   report the latency percentiles, throughput, error rate and Panl timings,
+ *   see {@link PanlLoadGenerator}</li>
+ * </ul>
+ *
+ * <p>Run with (for example, against the fake Solr server configuration)</p>
+ *
+ * <pre>
+ * ./gradlew panlLoadTest -PloadTestArgs="crawl -seeds /book-store/default,/mechanical-pencils/default"
+ * ./gradlew panlLoadTest -PloadTestArgs="replay -concurrency 32 -rate 2000 -duration 60"
+ * </pre>
+ *
+ * <p>Every request times out after <code>-timeout</code> seconds (default
+ * 10), and the connection to the Panl server after
+ * <code>-connecttimeout</code> seconds (default 5).  A replayed request that
+ * times out is counted as an error.</p>
+ *
+ * <p>The corpus is a text file with one URI per line, so that the same corpus
+ * can be replayed against different releases.</p>
+ *
+ * @author synapticloop
+ */
+public class PanlLoadTest {
+	private static final Logger LOGGER = LoggerFactory.getLogger(PanlLoadTest.class);
+
+	public static final String CMD_VALUE_CRAWL = "crawl";
+	public static final String CMD_VALUE_REPLAY = "replay";
+
+	public static final String CMD_OPTION_BASE = "-base";
+	public static final String CMD_OPTION_SEEDS = "-seeds";
+	public static final String CMD_OPTION_DEPTH = "-depth";
+	public static final String CMD_OPTION_MAX = "-max";
+	public static final String CMD_OPTION_CORPUS = "-corpus";
+	public static final String CMD_OPTION_CONCURRENCY = "-concurrency";
+	public static final String CMD_OPTION_RATE = "-rate";
+	public static final String CMD_OPTION_WARMUP = "-warmup";
+	public static final String CMD_OPTION_DURATION = "-duration";
+	public static final String CMD_OPTION_REPORT = "-report";
+	public static final String CMD_OPTION_TIMEOUT = "-timeout";
+	public static final String CMD_OPTION_CONNECT_TIMEOUT = "-connecttimeout";
+
+	public static final String DEFAULT_BASE = "http://localhost:8181";
+	public static final String DEFAULT_DEPTH = "3";
+	public static final String DEFAULT_MAX = "10000";
+	public static final String DEFAULT_CORPUS = "build/loadtest/corpus.txt";
+	public static final String DEFAULT_CONCURRENCY = "16";
+	public static final String DEFAULT_RATE = "0";
+	public static final String DEFAULT_WARMUP = "10";
+	public static final String DEFAULT_DURATION = "60";
+	public static final String DEFAULT_REPORT = "build/loadtest/report.json";
+	public static final String DEFAULT_TIMEOUT = "10";
+	public static final String DEFAULT_CONNECT_TIMEOUT = "5";
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 1 || !(CMD_VALUE_CRAWL.equals(args[0]) || CMD_VALUE_REPLAY.equals(args[0]))) {
+			throw new IllegalArgumentException("Could not determine command, should be one of '" + CMD_VALUE_CRAWL + "' or '" + CMD_VALUE_REPLAY + "'");
+		}
+
+		Map<String, String> options = new HashMap<>();
+		for (int i = 1; i < args.length; i += 2) {
+			if (i + 1 == args.length) {
+				throw new IllegalArgumentException("Found a command line option of '" + args[i] + "' without a value");
+			}
+			options.put(args[i], args[i + 1]);
+		}
+
+		String baseUrl = options.getOrDefault(CMD_OPTION_BASE, DEFAULT_BASE);
+		Path corpusPath = Paths.get(options.getOrDefault(CMD_OPTION_CORPUS, DEFAULT_CORPUS));
+		int requestTimeoutSeconds = Integer.parseInt(options.getOrDefault(CMD_OPTION_TIMEOUT, DEFAULT_TIMEOUT));
+		int connectTimeoutSeconds = Integer.parseInt(options.getOrDefault(CMD_OPTION_CONNECT_TIMEOUT, DEFAULT_CONNECT_TIMEOUT));
+		if (requestTimeoutSeconds <= 0 || connectTimeoutSeconds <= 0) {
+			throw new IllegalArgumentException("The '" + CMD_OPTION_TIMEOUT + "' and '" + CMD_OPTION_CONNECT_TIMEOUT + "' must be greater than 0.");
+		}
+
+		if (CMD_VALUE_CRAWL.equals(args[0])) {
+			String seeds = options.get(CMD_OPTION_SEEDS);
+			if (null == seeds) {
+				throw new IllegalArgumentException("Mandatory command line option of '" + CMD_OPTION_SEEDS + "' missing.");
+			}
+
+			List<String> seedUris = new ArrayList<>();
+			for (String seed : seeds.split(",")) {
+				seedUris.add(seed.trim());
+			}
+
+			PanlUriCrawler panlUriCrawler = new PanlUriCrawler(
+					baseUrl,
+					Integer.parseInt(options.getOrDefault(CMD_OPTION_DEPTH, DEFAULT_DEPTH)),
+					Integer.parseInt(options.getOrDefault(CMD_OPTION_MAX, DEFAULT_MAX)),
+					requestTimeoutSeconds,
+					connectTimeoutSeconds);
+
+			List<String> corpus = panlUriCrawler.crawl(seedUris);
+			createParentDirectories(corpusPath);
+			Files.write(corpusPath, corpus, StandardCharsets.UTF_8);
+			LOGGER.info("Wrote {} canonical URIs to the corpus '{}'", corpus.size(), corpusPath.toAbsolutePath());
+		} else {
+			List<String> corpus = new ArrayList<>();
+			for (String line : Files.readAllLines(corpusPath, StandardCharsets.UTF_8)) {
+				if (!line.isBlank()) {
+					corpus.add(line.trim());
+				}
+			}
+			if (corpus.isEmpty()) {
+				throw new IllegalArgumentException("The corpus '" + corpusPath + "' has no URIs, run the '" + CMD_VALUE_CRAWL + "' command first.");
+			}
+
+			PanlLoadGenerator panlLoadGenerator = new PanlLoadGenerator(
+					baseUrl,
+					corpus,
+					Integer.parseInt(options.getOrDefault(CMD_OPTION_CONCURRENCY, DEFAULT_CONCURRENCY)),
+					Integer.parseInt(options.getOrDefault(CMD_OPTION_RATE, DEFAULT_RATE)),
+					Integer.parseInt(options.getOrDefault(CMD_OPTION_WARMUP, DEFAULT_WARMUP)),
+					Integer.parseInt(options.getOrDefault(CMD_OPTION_DURATION, DEFAULT_DURATION)),
+					requestTimeoutSeconds,
+					connectTimeoutSeconds);
+
+			PanlLoadReport panlLoadReport = panlLoadGenerator.run();
+			LOGGER.info(panlLoadReport.toText());
+
+			Path reportPath = Paths.get(options.getOrDefault(CMD_OPTION_REPORT, DEFAULT_REPORT));
+			createParentDirectories(reportPath);
+			Files.writeString(reportPath, panlLoadReport.toJSONObject().toString(2), StandardCharsets.UTF_8);
+			LOGGER.info("Wrote the report to '{}'", reportPath.toAbsolutePath());
+		}
+	}
+
+	private static void createParentDirectories(Path path) throws IOException {
+		Path parent = path.toAbsolutePath().getParent();
+		if (null != parent) {
+			Files.createDirectories(parent);
+		}
+	}
+}
@@ -0,0 +1,282 @@
+package com.synapticloop.panl.loadtest;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * <p>Crawl the facet graph of one or more Panl collections to build a
+ * realistic corpus of canonical URIs to replay against a Panl server.</p>
+ *
+ * <p>Starting from the seed URIs (e.g. <code>/book-store/default</code>) the
+ * crawler breadth first follows the links in each Panl response:</p>
+ *
+ * <ul>
+ *   <li>The <code>available</code> facet values (the <code>before</code> +
+ *   <code>encoded</code> + <code>after</code> URIs)</li>
+ *   <li>The <code>active</code> remove and inverse URIs</li>
+ *   <li>The sorting URIs and the next and previous page URIs</li>
+ * </ul>
+ *
+ * <p>The canonical URI of every response is added to the corpus, so that the
+ * same page reached by different links is only added once.  This is the same
+ * approach as the <code>SiteSpiderTest</code> in the
+ * <code>testIntegrationSpider</code> source set.</p>
+ *
+ * @author synapticloop
+ */
+public class PanlUriCrawler {
+	private static final Logger LOGGER = LoggerFactory.getLogger(PanlUriCrawler.class);
+
+	private static final String JSON_KEY_PANL = "panl";
+	private static final String JSON_KEY_AVAILABLE = "available";
+	private static final String JSON_KEY_FACETS = "facets";
+	private static final String JSON_KEY_URIS = "uris";
+	private static final String JSON_KEY_BEFORE = "before";
+	private static final String JSON_KEY_AFTER = "after";
+	private static final String JSON_KEY_VALUES = "values";
+	private static final String JSON_KEY_ENCODED = "encoded";
+	private static final String JSON_KEY_ENCODED_MULTI = "encoded_multi";
+	private static final String JSON_KEY_CANONICAL_URI = "canonical_uri";
+	private static final String JSON_KEY_NEXT = "next";
+	private static final String JSON_KEY_PREVIOUS = "previous";
+	private static final String JSON_KEY_SUFFIX_URI = "_uri";
+
+	private final String baseUrl;
+	private final int maxDepth;
+	private final int maxUris;
+	private final Duration requestTimeout;
+	private final HttpClient httpClient;
+
+	/**
+	 * <p>Instantiate the crawler.</p>
+	 *
+	 * @param baseUrl The base URL of the Panl server, e.g.
+	 * 		<code>http://localhost:8181</code>
+	 * @param maxDepth The maximum number of links to follow from a seed URI
+	 * @param maxUris The maximum number of canonical URIs in the corpus
+	 * @param requestTimeoutSeconds The number of seconds to wait for a
+	 * 		response, after which the URI is skipped
+	 * @param connectTimeoutSeconds The number of seconds to wait for a
+	 * 		connection to the Panl server
+	 */
+	public PanlUriCrawler(String baseUrl, int maxDepth, int maxUris, int requestTimeoutSeconds, int connectTimeoutSeconds) {
+		this.baseUrl = baseUrl;
+		this.maxDepth = maxDepth;
+		this.maxUris = maxUris;
+		this.requestTimeout = Duration.ofSeconds(requestTimeoutSeconds);
+		this.httpClient = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofSeconds(connectTimeoutSeconds))
+				.build();
+	}
+
+	/**
+	 * <p>Crawl the facet graph from the seed URIs.</p>
+	 *
+	 * @param seedUris The collection and field set URIs to start from, e.g.
+	 * 		<code>/book-store/default</code>
+	 *
+	 * @return The corpus of canonical URIs (including the collection and field
+	 * 		set), in the order that they were found
+	 *
+	 * @throws IOException If a Panl response could not be retrieved
+	 * @throws InterruptedException If the crawl was interrupted
+	 */
+	public List<String> crawl(List<String> seedUris) throws IOException, InterruptedException {
+		Set<String> corpus = new LinkedHashSet<>();
+		Set<String> seenUris = new HashSet<>();
+
+		for (String seedUri : seedUris) {
+			// the URIs in the Panl response are relative to the collection and
+			// field set
+			String collectionUri = seedUri.endsWith("/") ? seedUri.substring(0, seedUri.length() - 1) : seedUri;
+
+			Deque<String> currentLevel = new ArrayDeque<>();
+			currentLevel.add(collectionUri + "/");
+			seenUris.add(collectionUri + "/");
+
+			for (int depth = 0; depth <= maxDepth && !currentLevel.isEmpty(); depth++) {
+				Deque<String> nextLevel = new ArrayDeque<>();
+				while (!currentLevel.isEmpty()) {
+					if (corpus.size() >= maxUris) {
+						return (new ArrayList<>(corpus));
+					}
+
+					String uri = currentLevel.poll();
+					JSONObject panlObject = fetchPanlObject(uri);
+					if (null == panlObject) {
+						continue;
+					}
+
+					String canonicalUri = panlObject.optString(JSON_KEY_CANONICAL_URI, null);
+					corpus.add(null == canonicalUri ? uri : collectionUri + canonicalUri);
+
+					if (depth < maxDepth) {
+						for (String link : getLinks(panlObject)) {
+							String linkUri = collectionUri + link;
+							if (seenUris.add(linkUri)) {
+								nextLevel.add(linkUri);
+							}
+						}
+					}
+				}
+
+				LOGGER.info("Crawled {} to depth {}, corpus now has {} canonical URIs.", collectionUri, depth, corpus.size());
+				currentLevel = nextLevel;
+			}
+		}
+
+		return (new ArrayList<>(corpus));
+	}
+
+	/**
+	 * <p>Retrieve the <code>panl</code> JSON object for the URI.</p>
+	 *
+	 * @param uri The URI to retrieve
+	 *
+	 * @return The Panl JSON object, or null if the response was not successful
+	 * 		(or timed out)
+	 *
+	 * @throws IOException If the response could not be retrieved
+	 * @throws InterruptedException If the request was interrupted
+	 */
+	private JSONObject fetchPanlObject(String uri) throws IOException, InterruptedException {
+		HttpRequest httpRequest = HttpRequest.newBuilder(URI.create(baseUrl + uri))
+				.timeout(requestTimeout)
+				.GET()
+				.build();
+
+		HttpResponse<String> httpResponse;
+		try {
+			httpResponse = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString());
+		} catch (HttpTimeoutException e) {
+			LOGGER.warn("Skipping URI '{}', the request timed out after {}s", uri, requestTimeout.getSeconds());
+			return (null);
+		}
+
+		if (httpResponse.statusCode() != 200) {
+			LOGGER.warn("Skipping URI '{}', status code was {}", uri, httpResponse.statusCode());
+			return (null);
+		}
+
+		return (new JSONObject(httpResponse.body()).optJSONObject(JSON_KEY_PANL));
+	}
+
+	/**
+	 * <p>Return all the links (relative to the collection and field set) from
+	 * the Panl response.</p>
+	 *
+	 * @param panlObject The Panl JSON object
+	 *
+	 * @return The links
+	 */
+	private List<String> getLinks(JSONObject panlObject) {
+		List<String> links = new ArrayList<>();
+
+		JSONObject availableObject = panlObject.optJSONObject(JSON_KEY_AVAILABLE);
+		if (null != availableObject) {
+			JSONArray facets = availableObject.optJSONArray(JSON_KEY_FACETS);
+			if (null != facets) {
+				for (int i = 0; i < facets.length(); i++) {
+					JSONObject facet = facets.getJSONObject(i);
+					JSONObject uris = facet.optJSONObject(JSON_KEY_URIS);
+					JSONArray values = facet.optJSONArray(JSON_KEY_VALUES);
+					if (null == uris || null == values) {
+						continue;
+					}
+
+					String before = uris.optString(JSON_KEY_BEFORE, "");
+					String after = uris.optString(JSON_KEY_AFTER, "");
+					for (int j = 0; j < values.length(); j++) {
+						JSONObject value = values.getJSONObject(j);
+						String encoded = value.optString(JSON_KEY_ENCODED_MULTI, null);
+						if (null == encoded) {
+							encoded = value.optString(JSON_KEY_ENCODED, null);
+						}
+						if (null != encoded) {
+							links.add(before + encoded + after);
+						}
+					}
+				}
+			}
+		}
+
+		// the active, sorting, and pagination URIs - the available facets were
+		// handled above
+		for (String key : panlObject.keySet()) {
+			if (!JSON_KEY_AVAILABLE.equals(key)) {
+				addUriLinks(panlObject.get(key), links);
+			}
+		}
+
+		return (links);
+	}
+
+	/**
+	 * <p>Recursively add all the URI values (keys ending with
+	 * <code>_uri</code>, and the next and previous page URIs) to the list of
+	 * links.</p>
+	 *
+	 * @param object The JSON object or array to search
+	 * @param links The links to add to
+	 */
+	private void addUriLinks(Object object, List<String> links) {
+		if (object instanceof JSONObject) {
+			JSONObject jsonObject = (JSONObject) object;
+			for (String key : jsonObject.keySet()) {
+				Object value = jsonObject.get(key);
+				if (value instanceof String) {
+					if ((key.endsWith(JSON_KEY_SUFFIX_URI) && !JSON_KEY_CANONICAL_URI.equals(key)) ||
+							JSON_KEY_NEXT.equals(key) ||
+							JSON_KEY_PREVIOUS.equals(key)) {
+						String link = (String) value;
+						if (link.startsWith("/")) {
+							links.add(link);
+						}
+					}
+				} else {
+					addUriLinks(value, links);
+				}
+			}
+		} else if (object instanceof JSONArray) {
+			for (Object value : (JSONArray) object) {
+				addUriLinks(value, links);
+			}
+		}
+	}
+}
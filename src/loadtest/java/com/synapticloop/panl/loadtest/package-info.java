@@ -0,0 +1,10 @@
+/**
+ * <p>The package for the load testing harness, which crawls the facet graph
+ * of a running Panl server to build a corpus of canonical URIs, and then
+ * replays the corpus to measure the latency and throughput.</p>
+ *
+ * @since 1.0
+ * @author synapticloop
+ * @version 1.0
+ */
+package com.synapticloop.panl.loadtest;
@@ -0,0 +1,229 @@
+package com.synapticloop.panl.loadtest.solr;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import org.apache.solr.client.solrj.impl.XMLResponseParser;
+import org.apache.solr.common.util.JavaBinCodec;
+import org.apache.solr.common.util.NamedList;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>A fixture Solr response, held in both the XML format that it was saved in
+ * and the javabin format that SolrJ requests by default.  Both formats are
+ * encoded once, when the fixture is loaded, so that serving a response does no
+ * more than copy the bytes.</p>
+ *
+ * <p>The fixture is keyed on the query parameters that change the response -
+ * the query (<code>q</code>), the filter queries (<code>fq</code>, in any
+ * order), and the <code>start</code> and <code>rows</code> - which are read
+ * from the parameters that are echoed in the <code>responseHeader</code> of
+ * the response (i.e. the response __MUST__ be recorded with
+ * <code>echoParams=explicit</code>, or <code>all</code>).</p>
+ *
+ * @author synapticloop
+ */
+public class FakeSolrFixture {
+	public static final String PARAMETER_Q = "q";
+	public static final String PARAMETER_FQ = "fq";
+	public static final String PARAMETER_START = "start";
+	public static final String PARAMETER_ROWS = "rows";
+
+	public static final String DEFAULT_START = "0";
+	public static final String DEFAULT_ROWS = "10";
+
+	private static final String KEY_RESPONSE_HEADER = "responseHeader";
+	private static final String KEY_PARAMS = "params";
+
+	private final String collection;
+	private final String name;
+	private final String key;
+	private final byte[] xmlBytes;
+	private final byte[] javabinBytes;
+
+	/**
+	 * <p>Instantiate a fixture from the XML response.</p>
+	 *
+	 * @param collection The name of the Solr collection
+	 * @param name The name of the fixture
+	 * @param xmlBytes The XML response
+	 *
+	 * @throws IOException If the response could not be converted to javabin
+	 */
+	public FakeSolrFixture(String collection, String name, byte[] xmlBytes) throws IOException {
+		this.collection = collection;
+		this.name = name;
+		this.xmlBytes = xmlBytes;
+
+		NamedList<Object> namedList = new XMLResponseParser().processResponse(
+				new ByteArrayInputStream(xmlBytes),
+				StandardCharsets.UTF_8.name());
+
+		this.key = getKey(collection, getEchoedParams(namedList));
+
+		ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+		new JavaBinCodec().marshal(namedList, byteArrayOutputStream);
+		this.javabinBytes = byteArrayOutputStream.toByteArray();
+	}
+
+	/**
+	 * <p>Load a fixture from an XML response file, the collection is the name of
+	 * the directory that the file is in, and the name of the fixture is the
+	 * file name without the <code>.xml</code> extension.</p>
+	 *
+	 * @param path The path to the XML response
+	 *
+	 * @return The loaded fixture
+	 *
+	 * @throws IOException If the file could not be read or converted
+	 */
+	public static FakeSolrFixture load(Path path) throws IOException {
+		String fileName = path.getFileName().toString();
+		return (new FakeSolrFixture(
+				path.getParent().getFileName().toString(),
+				fileName.substring(0, fileName.length() - FakeSolrServer.FIXTURE_EXTENSION.length()),
+				Files.readAllBytes(path)));
+	}
+
+	/**
+	 * <p>Return the key for the query parameters of a request to the
+	 * collection - the filter queries are sorted, as the order that they are
+	 * sent in does not change the response.</p>
+	 *
+	 * @param collection The name of the Solr collection
+	 * @param query The query, or null if there was none
+	 * @param filterQueries The filter queries
+	 * @param start The start, or null for the Solr default
+	 * @param rows The number of rows, or null for the Solr default
+	 *
+	 * @return The key
+	 */
+	public static String getKey(String collection, String query, List<String> filterQueries, String start, String rows) {
+		List<String> sortedFilterQueries = new ArrayList<>(filterQueries);
+		Collections.sort(sortedFilterQueries);
+
+		StringBuilder stringBuilder = new StringBuilder(collection)
+				.append("?")
+				.append(PARAMETER_Q)
+				.append("=")
+				.append(null == query ? "" : query);
+		for (String filterQuery : sortedFilterQueries) {
+			stringBuilder.append("&")
+			             .append(PARAMETER_FQ)
+			             .append("=")
+			             .append(filterQuery);
+		}
+		stringBuilder.append("&")
+		             .append(PARAMETER_START)
+		             .append("=")
+		             .append(null == start ? DEFAULT_START : start)
+		             .append("&")
+		             .append(PARAMETER_ROWS)
+		             .append("=")
+		             .append(null == rows ? DEFAULT_ROWS : rows);
+		return (stringBuilder.toString());
+	}
+
+	/**
+	 * <p>Return the key for the parameters that were echoed in the response
+	 * header.</p>
+	 *
+	 * @param collection The name of the Solr collection
+	 * @param params The echoed parameters, or null if none were echoed
+	 *
+	 * @return The key
+	 */
+	private static String getKey(String collection, NamedList<?> params) {
+		if (null == params) {
+			return (getKey(collection, null, Collections.emptyList(), null, null));
+		}
+
+		List<String> filterQueries = new ArrayList<>();
+		for (Object value : params.getAll(PARAMETER_FQ)) {
+			if (value instanceof List) {
+				for (Object filterQuery : (List<?>) value) {
+					filterQueries.add(String.valueOf(filterQuery));
+				}
+			} else if (null != value) {
+				filterQueries.add(String.valueOf(value));
+			}
+		}
+
+		return (getKey(
+				collection,
+				getEchoedValue(params, PARAMETER_Q),
+				filterQueries,
+				getEchoedValue(params, PARAMETER_START),
+				getEchoedValue(params, PARAMETER_ROWS)));
+	}
+
+	private static String getEchoedValue(NamedList<?> params, String name) {
+		Object value = params.get(name);
+		if (value instanceof List) {
+			List<?> values = (List<?>) value;
+			value = values.isEmpty() ? null : values.get(0);
+		}
+		return (null == value ? null : String.valueOf(value));
+	}
+
+	private static NamedList<?> getEchoedParams(NamedList<Object> namedList) {
+		Object responseHeader = namedList.get(KEY_RESPONSE_HEADER);
+		if (responseHeader instanceof NamedList) {
+			Object params = ((NamedList<?>) responseHeader).get(KEY_PARAMS);
+			if (params instanceof NamedList) {
+				return ((NamedList<?>) params);
+			}
+		}
+		return (null);
+	}
+
+	public String getCollection() {
+		return (collection);
+	}
+
+	public String getName() {
+		return (name);
+	}
+
+	public String getKey() {
+		return (key);
+	}
+
+	public byte[] getXmlBytes() {
+		return (xmlBytes);
+	}
+
+	public byte[] getJavabinBytes() {
+		return (javabinBytes);
+	}
+}
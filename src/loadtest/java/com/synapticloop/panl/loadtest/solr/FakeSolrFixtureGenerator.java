@@ -0,0 +1,706 @@
+package com.synapticloop.panl.loadtest.solr;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>Generate the synthetic fake Solr server fixtures (see
+ * {@link FakeSolrFixtures}) from the sample data
+ * (<code>src/dist/sample/data</code>) and the sample Panl collection
+ * properties (<code>src/dist/sample/panl</code>).</p>
+ *
+ * <p>These fixtures are <strong>synthetic</strong> - they are NOT recorded
+ * from a Solr server:</p>
+ *
+ * <ul>
+ *   <li>the <code>responseHeader</code> params are written in the shape that
+ *   Panl sends for the default (no LPSE path) query, and a single facet filter
+ *   query,</li>
+ *   <li>the documents are the first <code>solr.numrows.default</code>
+ *   documents of the sample data (in file order, no scoring),</li>
+ *   <li>the facet counts and the stats (for the range facets) are computed
+ *   here from the sample data, not by Solr,</li>
+ *   <li>the <code>QTime</code> is always 0 (i.e. not measured), and</li>
+ *   <li>the MoreLikeThis fixture ranks the documents by the same author
+ *   first, and then in file order - it is NOT the Solr MoreLikeThis
+ *   ranking.</li>
+ * </ul>
+ *
+ * <p>They are good enough to exercise the Panl request and response
+ * processing, however for realistic fixtures, record the responses from a
+ * Solr server loaded with the sample data (see {@link FakeSolrRecorder}).</p>
+ *
+ * <p>Run from the project directory with</p>
+ *
+ * <pre>
+ * ./gradlew generateFixtures
+ * </pre>
+ *
+ * @author synapticloop
+ */
+public class FakeSolrFixtureGenerator {
+	private static final Logger LOGGER = LoggerFactory.getLogger(FakeSolrFixtureGenerator.class);
+
+	public static final String CMD_OPTION_SAMPLE = "-sample";
+	public static final String CMD_OPTION_FIXTURES = "-fixtures";
+
+	public static final String DEFAULT_SAMPLE_DIRECTORY = "src/dist/sample";
+
+	public static final String GENERATED_COMMENT = "<!-- SYNTHETIC - generated by FakeSolrFixtureGenerator (./gradlew generateFixtures), not recorded from Solr -->";
+
+	private static final Pattern PATTERN_FIELD = Pattern.compile("panl\\.(facet|field)\\.(.+)$");
+
+	private static final String TYPE_BOOL = "solr.BoolField";
+	private static final String TYPE_INT = "solr.IntPointField";
+	private static final String TYPE_LONG = "solr.LongPointField";
+	private static final String TYPE_FLOAT = "solr.FloatPointField";
+	private static final String TYPE_DOUBLE = "solr.DoublePointField";
+
+	private final Path sampleDirectory;
+	private final Path fixturesDirectory;
+
+	/**
+	 * <p>Instantiate the generator.</p>
+	 *
+	 * @param sampleDirectory The sample directory, with the <code>data</code>
+	 * 		and <code>panl</code> sub-directories
+	 * @param fixturesDirectory The fixtures directory to write the fixtures to
+	 */
+	public FakeSolrFixtureGenerator(Path sampleDirectory, Path fixturesDirectory) {
+		this.sampleDirectory = sampleDirectory;
+		this.fixturesDirectory = fixturesDirectory;
+	}
+
+	/**
+	 * <p>Generate all of the fixtures in the repository.</p>
+	 *
+	 * @throws IOException If the sample data could not be read, or a fixture
+	 * 		could not be written
+	 */
+	public void generateAll() throws IOException {
+		generate("book-store", null, null, "default.xml");
+		generate("book-store", "author", "Michael Connelly", "author-michael-connelly.xml");
+		generate("mechanical-pencils", null, null, "default.xml");
+		generate("mechanical-pencils", "brand", "Koh-i-Noor", "brand-koh-i-noor.xml");
+		generateMoreLikeThis("book-store", "mlt.xml");
+	}
+
+	/**
+	 * <p>Generate the fixture for the default query, optionally with a single
+	 * facet filter query.</p>
+	 *
+	 * @param collection The name of the sample collection
+	 * @param filterField The Solr field to filter on, or null for no filter
+	 * @param filterValue The value to filter on, or null for no filter
+	 * @param fixtureName The file name of the fixture
+	 *
+	 * @throws IOException If the sample data could not be read, or the fixture
+	 * 		could not be written
+	 */
+	public void generate(String collection, String filterField, String filterValue, String fixtureName) throws IOException {
+		Map<String, String> properties = getProperties(collection);
+		CollectionFields collectionFields = new CollectionFields(properties);
+
+		Map<String, String> nameToCode = new HashMap<>();
+		for (Map.Entry<String, String> entry : collectionFields.codeToName.entrySet()) {
+			nameToCode.put(entry.getValue(), entry.getKey());
+		}
+
+		List<JSONObject> documents = getDocuments(collection);
+		Set<String> active = new HashSet<>();
+		if (null != filterField) {
+			List<JSONObject> filteredDocuments = new ArrayList<>();
+			for (JSONObject document : documents) {
+				for (Object value : getValues(document, filterField)) {
+					if (toPythonString(value).equals(filterValue)) {
+						filteredDocuments.add(document);
+						break;
+					}
+				}
+			}
+			documents = filteredDocuments;
+			active.add(nameToCode.get(filterField));
+		}
+
+		int rows = Integer.parseInt(properties.get("solr.numrows.default"));
+		int facetLimit = Integer.parseInt(properties.get("solr.facet.limit"));
+		List<String> fieldList = getFieldList(properties.get("panl.results.fields.default"));
+
+		List<String> facetFields = new ArrayList<>();
+		for (String code : collectionFields.facets) {
+			String name = collectionFields.codeToName.get(code);
+			if (collectionFields.unique.contains(name)) {
+				continue;
+			}
+
+			List<String> when = collectionFields.when.get(name);
+			if (null != when && when.stream().noneMatch(active::contains)) {
+				continue;
+			}
+			facetFields.add(name);
+		}
+
+		List<String> lines = new ArrayList<>(getResponseHeaderStart());
+		lines.add("    <str name=\"q\">*:*</str>");
+		lines.add("    <str name=\"q.op\">OR</str>");
+		lines.add("    <str name=\"facet.limit\">" + properties.get("solr.facet.limit") + "</str>");
+		lines.add("    <str name=\"facet.mincount\">" + properties.get("solr.facet.min.count") + "</str>");
+		lines.add("    <str name=\"facet\">true</str>");
+		lines.add("    <str name=\"fl\">" + String.join(",", fieldList) + "</str>");
+		lines.add("    <str name=\"start\">0</str>");
+		lines.add("    <str name=\"rows\">" + rows + "</str>");
+		lines.add("    <str name=\"wt\">xml</str>");
+		lines.add("    <str name=\"version\">2.2</str>");
+		if (null != filterField) {
+			lines.add("    <str name=\"fq\">" + escape(filterField + ":\"" + filterValue + "\"") + "</str>");
+		}
+		lines.add("    <arr name=\"facet.field\">");
+		for (String facetField : facetFields) {
+			lines.add("      <str>" + escape(facetField) + "</str>");
+		}
+		lines.add("    </arr>");
+		if (!collectionFields.ranges.isEmpty()) {
+			lines.add("    <str name=\"stats\">true</str>");
+			lines.add("    <arr name=\"stats.field\">");
+			for (String range : collectionFields.ranges) {
+				lines.add("      <str>" + escape(range) + "</str>");
+			}
+			lines.add("    </arr>");
+		}
+		lines.add("  </lst>");
+		lines.add("</lst>");
+		lines.add("<result name=\"response\" numFound=\"" + documents.size() + "\" start=\"0\" numFoundExact=\"true\">");
+		addDocuments(lines, collectionFields, documents.subList(0, Math.min(rows, documents.size())), fieldList);
+		lines.add("</result>");
+
+		lines.add("<lst name=\"facet_counts\">");
+		lines.add("  <lst name=\"facet_queries\"/>");
+		lines.add("  <lst name=\"facet_fields\">");
+		for (String facetField : facetFields) {
+			addFacetCounts(lines, collectionFields, documents, facetField, facetLimit);
+		}
+		lines.add("  </lst>");
+		lines.add("  <lst name=\"facet_ranges\"/>");
+		lines.add("  <lst name=\"facet_intervals\"/>");
+		lines.add("  <lst name=\"facet_heatmaps\"/>");
+		lines.add("</lst>");
+
+		if (!collectionFields.ranges.isEmpty()) {
+			lines.add("<lst name=\"stats\">");
+			lines.add("  <lst name=\"stats_fields\">");
+			for (String range : collectionFields.ranges) {
+				addStats(lines, documents, range);
+			}
+			lines.add("  </lst>");
+			lines.add("</lst>");
+		}
+		lines.add("</response>");
+
+		write(collection, fixtureName, lines);
+	}
+
+	/**
+	 * <p>Generate the MoreLikeThis fixture for the first document of the sample
+	 * data, which ranks the documents by the same author first, and then the
+	 * rest of the documents in file order.</p>
+	 *
+	 * @param collection The name of the sample collection
+	 * @param fixtureName The file name of the fixture
+	 *
+	 * @throws IOException If the sample data could not be read, or the fixture
+	 * 		could not be written
+	 */
+	public void generateMoreLikeThis(String collection, String fixtureName) throws IOException {
+		Map<String, String> properties = getProperties(collection);
+		CollectionFields collectionFields = new CollectionFields(properties);
+
+		List<JSONObject> documents = getDocuments(collection);
+		int rows = Integer.parseInt(properties.get("solr.numrows.morelikethis"));
+		List<String> fieldList = getFieldList(properties.get("panl.results.fields.morelikethis"));
+
+		JSONObject firstDocument = documents.get(0);
+		List<String> author = getPythonStrings(getValues(firstDocument, "author"));
+		List<JSONObject> matchedDocuments = new ArrayList<>();
+		List<JSONObject> otherDocuments = new ArrayList<>();
+		for (JSONObject document : documents.subList(1, documents.size())) {
+			if (getPythonStrings(getValues(document, "author")).equals(author)) {
+				matchedDocuments.add(document);
+			} else {
+				otherDocuments.add(document);
+			}
+		}
+		matchedDocuments.addAll(otherDocuments);
+
+		String query = "{!mlt qf=" + properties.get("panl.mlt.qf") + " mintf=0 mindf=0 minwl=0 boost=true}" + toPythonString(firstDocument.opt("id"));
+
+		List<String> lines = new ArrayList<>(getResponseHeaderStart());
+		lines.add("    <str name=\"q\">" + escape(query) + "</str>");
+		lines.add("    <str name=\"fl\">" + String.join(",", fieldList) + "</str>");
+		lines.add("    <str name=\"rows\">" + rows + "</str>");
+		lines.add("    <str name=\"wt\">xml</str>");
+		lines.add("    <str name=\"version\">2.2</str>");
+		lines.add("  </lst>");
+		lines.add("</lst>");
+		lines.add("<result name=\"response\" numFound=\"" + (documents.size() - 1) + "\" start=\"0\" numFoundExact=\"true\">");
+		addDocuments(lines, collectionFields, matchedDocuments.subList(0, Math.min(rows, matchedDocuments.size())), fieldList);
+		lines.add("</result>");
+		lines.add("</response>");
+
+		write(collection, fixtureName, lines);
+	}
+
+	private static List<String> getResponseHeaderStart() {
+		return (List.of(
+				"<?xml version=\"1.0\" encoding=\"UTF-8\"?>",
+				GENERATED_COMMENT,
+				"<response>",
+				"",
+				"<lst name=\"responseHeader\">",
+				"  <int name=\"status\">0</int>",
+				"  <int name=\"QTime\">0</int>",
+				"  <lst name=\"params\">"));
+	}
+
+	private static void addDocuments(List<String> lines, CollectionFields collectionFields, List<JSONObject> documents, List<String> fieldList) {
+		for (JSONObject document : documents) {
+			lines.add("  <doc>");
+			for (String field : fieldList) {
+				List<Object> values = getValues(document, field);
+				if (values.isEmpty()) {
+					continue;
+				}
+
+				String type = collectionFields.types.get(field);
+				if (collectionFields.multi.contains(field)) {
+					lines.add("    <arr name=" + quoteAttribute(field) + ">");
+					for (Object value : values) {
+						String[] formatted = format(type, value);
+						lines.add("      <" + formatted[0] + ">" + escape(formatted[1]) + "</" + formatted[0] + ">");
+					}
+					lines.add("    </arr>");
+				} else {
+					String[] formatted = format(type, values.get(0));
+					lines.add("    <" + formatted[0] + " name=" + quoteAttribute(field) + ">" + escape(formatted[1]) + "</" + formatted[0] + ">");
+				}
+			}
+			lines.add("  </doc>");
+		}
+	}
+
+	private static void addFacetCounts(List<String> lines, CollectionFields collectionFields, List<JSONObject> documents, String facetField, int facetLimit) {
+		String type = collectionFields.types.get(facetField);
+		Map<String, Integer> counts = new LinkedHashMap<>();
+		for (JSONObject document : documents) {
+			Set<String> documentValues = new LinkedHashSet<>();
+			for (Object value : getValues(document, facetField)) {
+				documentValues.add(format(type, value)[1]);
+			}
+			for (String documentValue : documentValues) {
+				counts.merge(documentValue, 1, Integer::sum);
+			}
+		}
+
+		boolean isNumeric = TYPE_INT.equals(type) || TYPE_LONG.equals(type) || TYPE_FLOAT.equals(type) || TYPE_DOUBLE.equals(type);
+		List<Map.Entry<String, Integer>> items = new ArrayList<>(counts.entrySet());
+		if (isNumeric) {
+			items.sort(Comparator.comparingDouble(entry -> Double.parseDouble(entry.getKey())));
+		} else {
+			items.sort(Map.Entry.comparingByKey());
+		}
+
+		// a stable sort, so the values with the same count stay in value order
+		if (!collectionFields.facetSort.contains(facetField)) {
+			items.sort(Comparator.comparingInt(entry -> -entry.getValue()));
+		}
+
+		lines.add("    <lst name=" + quoteAttribute(facetField) + ">");
+		for (Map.Entry<String, Integer> item : items.subList(0, Math.min(facetLimit, items.size()))) {
+			lines.add("      <int name=" + quoteAttribute(item.getKey()) + ">" + item.getValue() + "</int>");
+		}
+		lines.add("    </lst>");
+	}
+
+	private static void addStats(List<String> lines, List<JSONObject> documents, String field) {
+		List<Double> values = new ArrayList<>();
+		int missing = 0;
+		for (JSONObject document : documents) {
+			List<Object> documentValues = getValues(document, field);
+			if (documentValues.isEmpty()) {
+				missing++;
+			}
+			for (Object value : documentValues) {
+				values.add(toPythonFloat(value));
+			}
+		}
+
+		int count = values.size();
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+		double sum = 0.0d;
+		double sumOfSquares = 0.0d;
+		for (double value : values) {
+			min = Math.min(min, value);
+			max = Math.max(max, value);
+			sum += value;
+			sumOfSquares += value * value;
+		}
+		double mean = sum / count;
+		double stddev = count > 1 ? Math.sqrt((sumOfSquares - sum * sum / count) / (count - 1)) : 0.0d;
+
+		lines.add("    <lst name=" + quoteAttribute(field) + ">");
+		lines.add("      <double name=\"min\">" + toPythonRepr(min) + "</double>");
+		lines.add("      <double name=\"max\">" + toPythonRepr(max) + "</double>");
+		lines.add("      <long name=\"count\">" + count + "</long>");
+		lines.add("      <long name=\"missing\">" + missing + "</long>");
+		lines.add("      <double name=\"sum\">" + toPythonRepr(sum) + "</double>");
+		lines.add("      <double name=\"sumOfSquares\">" + toPythonRepr(sumOfSquares) + "</double>");
+		lines.add("      <double name=\"mean\">" + toPythonRepr(mean) + "</double>");
+		lines.add("      <double name=\"stddev\">" + toPythonRepr(stddev) + "</double>");
+		lines.add("    </lst>");
+	}
+
+	private void write(String collection, String fixtureName, List<String> lines) throws IOException {
+		Path fixturePath = fixturesDirectory.resolve(collection).resolve(fixtureName);
+		Files.createDirectories(fixturePath.getParent());
+		Files.writeString(fixturePath, String.join("\n", lines) + "\n", StandardCharsets.UTF_8);
+		LOGGER.info("Generated the fixture '{}'", fixturePath);
+	}
+
+	private Map<String, String> getProperties(String collection) throws IOException {
+		return (parseProperties(Files.readString(
+				sampleDirectory.resolve("panl").resolve(collection).resolve(collection + ".panl.properties"),
+				StandardCharsets.UTF_8)));
+	}
+
+	private List<JSONObject> getDocuments(String collection) throws IOException {
+		JSONArray jsonArray = new JSONArray(Files.readString(
+				sampleDirectory.resolve("data").resolve(collection + ".json"),
+				StandardCharsets.UTF_8));
+		List<JSONObject> documents = new ArrayList<>();
+		for (int i = 0; i < jsonArray.length(); i++) {
+			documents.add(jsonArray.getJSONObject(i));
+		}
+		return (documents);
+	}
+
+	/**
+	 * <p>Parse the properties, keeping the order that they were defined in (a
+	 * property that is defined more than once keeps its first position), as
+	 * the order of the facets in the fixtures follows the order of the
+	 * properties file.</p>
+	 *
+	 * @param content The content of the properties file
+	 *
+	 * @return The properties in the order that they were defined
+	 */
+	static Map<String, String> parseProperties(String content) {
+		Map<String, String> properties = new LinkedHashMap<>();
+		StringBuilder buffer = new StringBuilder();
+		for (String line : content.split("\n", -1)) {
+			if (buffer.length() == 0 && (line.startsWith("#") || line.isBlank())) {
+				continue;
+			}
+
+			if (line.endsWith("\\") && !line.endsWith("\\\\")) {
+				String continued = line.substring(0, line.length() - 1);
+				buffer.append(buffer.length() == 0 ? continued : continued.strip());
+				continue;
+			}
+
+			buffer.append(buffer.length() == 0 ? line : line.strip());
+			String property = buffer.toString();
+			int indexOf = property.indexOf('=');
+			if (indexOf == -1) {
+				properties.put(property.strip(), "");
+			} else {
+				properties.put(property.substring(0, indexOf).strip(), property.substring(indexOf + 1).stripLeading());
+			}
+			buffer.setLength(0);
+		}
+		return (properties);
+	}
+
+	private static List<String> getFieldList(String fields) {
+		List<String> fieldList = new ArrayList<>();
+		for (String field : fields.split(",", -1)) {
+			fieldList.add(field.strip());
+		}
+		return (fieldList);
+	}
+
+	private static List<Object> getValues(JSONObject document, String field) {
+		Object value = document.opt(field);
+		List<Object> values = new ArrayList<>();
+		if (null == value || JSONObject.NULL.equals(value)) {
+			return (values);
+		}
+
+		if (value instanceof JSONArray) {
+			JSONArray jsonArray = (JSONArray) value;
+			for (int i = 0; i < jsonArray.length(); i++) {
+				values.add(jsonArray.get(i));
+			}
+		} else {
+			values.add(value);
+		}
+		return (values);
+	}
+
+	private static List<String> getPythonStrings(List<Object> values) {
+		List<String> strings = new ArrayList<>();
+		for (Object value : values) {
+			strings.add(toPythonString(value));
+		}
+		return (strings);
+	}
+
+	/**
+	 * <p>Format the value for the Solr field type, returning the XML element
+	 * name and the formatted value.</p>
+	 *
+	 * @param type The Solr field type, or null if the field is not typed
+	 * @param value The value to format
+	 *
+	 * @return The XML element name and the formatted value
+	 */
+	private static String[] format(String type, Object value) {
+		if (TYPE_BOOL.equals(type)) {
+			boolean isTrue = Boolean.TRUE.equals(value) || "true".equals(value);
+			return (new String[] { "bool", isTrue ? "true" : "false" });
+		} else if (TYPE_INT.equals(type)) {
+			return (new String[] { "int", toPythonInt(value).toString() });
+		} else if (TYPE_LONG.equals(type)) {
+			return (new String[] { "long", toPythonInt(value).toString() });
+		} else if (TYPE_FLOAT.equals(type)) {
+			return (new String[] { "float", toPythonRepr(toPythonFloat(value)) });
+		} else if (TYPE_DOUBLE.equals(type)) {
+			return (new String[] { "double", toPythonRepr(toPythonFloat(value)) });
+		}
+		return (new String[] { "str", toPythonString(value) });
+	}
+
+	private static BigInteger toPythonInt(Object value) {
+		if (value instanceof Boolean) {
+			return ((Boolean) value ? BigInteger.ONE : BigInteger.ZERO);
+		} else if (value instanceof BigDecimal) {
+			return (((BigDecimal) value).toBigInteger());
+		} else if (value instanceof Double || value instanceof Float) {
+			return (BigDecimal.valueOf(((Number) value).doubleValue()).toBigInteger());
+		} else if (value instanceof Number) {
+			return (new BigInteger(value.toString()));
+		}
+		return (new BigInteger(value.toString().strip()));
+	}
+
+	private static double toPythonFloat(Object value) {
+		if (value instanceof Boolean) {
+			return ((Boolean) value ? 1.0d : 0.0d);
+		} else if (value instanceof Number) {
+			return (((Number) value).doubleValue());
+		}
+		return (Double.parseDouble(value.toString().strip()));
+	}
+
+	/**
+	 * <p>Return the value as it would be converted to a string by the JSON
+	 * value in Python, i.e. decimals are floats, and booleans are
+	 * <code>True</code> and <code>False</code>, so that the fixtures are the
+	 * same as the ones that were generated before.</p>
+	 *
+	 * @param value The JSON value
+	 *
+	 * @return The string value
+	 */
+	private static String toPythonString(Object value) {
+		if (null == value || JSONObject.NULL.equals(value)) {
+			return ("None");
+		} else if (value instanceof Boolean) {
+			return ((Boolean) value ? "True" : "False");
+		} else if (value instanceof BigDecimal || value instanceof Double || value instanceof Float) {
+			return (toPythonRepr(((Number) value).doubleValue()));
+		}
+		return (value.toString());
+	}
+
+	/**
+	 * <p>Return the shortest representation of the double, in the same format
+	 * as the Python <code>repr()</code> of a float (e.g. <code>4.0</code>,
+	 * <code>0.001</code>, <code>1e-05</code>, <code>1e+16</code>).</p>
+	 *
+	 * @param value The value to represent
+	 *
+	 * @return The Python representation of the value
+	 */
+	static String toPythonRepr(double value) {
+		if (Double.isNaN(value)) {
+			return ("nan");
+		} else if (Double.isInfinite(value)) {
+			return (value > 0 ? "inf" : "-inf");
+		} else if (value == 0.0d) {
+			return (1.0d / value < 0 ? "-0.0" : "0.0");
+		}
+
+		BigDecimal bigDecimal = new BigDecimal(Double.toString(value)).stripTrailingZeros();
+		double absolute = Math.abs(value);
+		if (absolute >= 1e-4 && absolute < 1e16) {
+			String plain = bigDecimal.toPlainString();
+			return (plain.contains(".") ? plain : plain + ".0");
+		}
+
+		String digits = bigDecimal.unscaledValue().abs().toString();
+		int exponent = digits.length() - 1 - bigDecimal.scale();
+		String mantissa = digits.length() == 1 ? digits : digits.charAt(0) + "." + digits.substring(1);
+		return ((value < 0 ? "-" : "") +
+				mantissa +
+				"e" +
+				(exponent < 0 ? "-" : "+") +
+				(Math.abs(exponent) < 10 ? "0" : "") +
+				Math.abs(exponent));
+	}
+
+	/**
+	 * <p>Escape the XML text content.</p>
+	 *
+	 * @param text The text to escape
+	 *
+	 * @return The escaped text
+	 */
+	static String escape(String text) {
+		return (text
+				.replace("&", "&amp;")
+				.replace(">", "&gt;")
+				.replace("<", "&lt;"));
+	}
+
+	/**
+	 * <p>Escape and quote an XML attribute value, using single quotes if the
+	 * value contains a double quote (and no single quote).</p>
+	 *
+	 * @param value The attribute value
+	 *
+	 * @return The quoted attribute value
+	 */
+	static String quoteAttribute(String value) {
+		String escaped = escape(value)
+				.replace("\n", "&#10;")
+				.replace("\r", "&#13;")
+				.replace("\t", "&#9;");
+		if (escaped.contains("\"")) {
+			if (escaped.contains("'")) {
+				return ("\"" + escaped.replace("\"", "&quot;") + "\"");
+			}
+			return ("'" + escaped + "'");
+		}
+		return ("\"" + escaped + "\"");
+	}
+
+	/**
+	 * <p>The Panl fields of a sample collection, looked up by their Solr field
+	 * name.</p>
+	 */
+	private static class CollectionFields {
+		private final List<String> facets = new ArrayList<>();
+		private final Map<String, String> codeToName = new LinkedHashMap<>();
+		private final Map<String, String> types = new HashMap<>();
+		private final Set<String> multi = new HashSet<>();
+		private final Set<String> facetSort = new HashSet<>();
+		private final Set<String> ranges = new TreeSet<>();
+		private final Map<String, List<String>> when = new HashMap<>();
+		private final List<String> unique = new ArrayList<>();
+
+		private CollectionFields(Map<String, String> properties) {
+			for (Map.Entry<String, String> entry : properties.entrySet()) {
+				Matcher matcher = PATTERN_FIELD.matcher(entry.getKey());
+				if (matcher.matches()) {
+					String code = matcher.group(2);
+					codeToName.put(code, entry.getValue());
+					if ("facet".equals(matcher.group(1))) {
+						facets.add(code);
+					}
+				}
+			}
+
+			for (Map.Entry<String, String> entry : codeToName.entrySet()) {
+				String code = entry.getKey();
+				String name = entry.getValue();
+				types.put(name, properties.get("panl.type." + code));
+				if ("true".equals(properties.get("panl.multivalue." + code))) {
+					multi.add(name);
+				}
+				if ("index".equals(properties.get("panl.facetsort." + code))) {
+					facetSort.add(name);
+				}
+				if ("true".equals(properties.get("panl.range.facet." + code))) {
+					ranges.add(name);
+				}
+				if (properties.containsKey("panl.when." + code)) {
+					when.put(name, List.of(properties.get("panl.when." + code).split(",", -1)));
+				}
+			}
+
+			for (String key : properties.keySet()) {
+				if (key.startsWith("panl.uniquekey.")) {
+					unique.add(codeToName.get(key.substring("panl.uniquekey.".length())));
+				}
+			}
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		Map<String, String> options = new HashMap<>();
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			options.put(args[i], args[i + 1]);
+		}
+
+		Path sampleDirectory = Paths.get(options.getOrDefault(CMD_OPTION_SAMPLE, DEFAULT_SAMPLE_DIRECTORY));
+		Path fixturesDirectory = Paths.get(options.getOrDefault(CMD_OPTION_FIXTURES, FakeSolrServer.DEFAULT_FIXTURES_DIRECTORY));
+
+		new FakeSolrFixtureGenerator(sampleDirectory, fixturesDirectory).generateAll();
+	}
+}
@@ -0,0 +1,150 @@
+package com.synapticloop.panl.loadtest.solr;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * <p>The fixture Solr responses, looked up by the key of the query parameters
+ * (see {@link FakeSolrFixture#getKey(String, String, java.util.List, String,
+ * String)}), or by the collection and fixture name.</p>
+ *
+ * <p>The fixtures directory has a sub-directory for each Solr collection,
+ * containing the XML responses for that collection:</p>
+ *
+ * <pre>
+ * fixtures/&lt;collection&gt;/default.xml
+ * fixtures/&lt;collection&gt;/mlt.xml
+ * fixtures/&lt;collection&gt;/&lt;any name&gt;.xml
+ * </pre>
+ *
+ * <p>The <code>default</code> and <code>mlt</code> fixtures are served when no
+ * fixture has the same key as the request.  Fixtures may be added while the
+ * server is running (i.e. when they are recorded).</p>
+ *
+ * @author synapticloop
+ */
+public class FakeSolrFixtures {
+	private static final Logger LOGGER = LoggerFactory.getLogger(FakeSolrFixtures.class);
+
+	public static final String FIXTURE_NAME_DEFAULT = "default";
+	public static final String FIXTURE_NAME_MLT = "mlt";
+
+	private final Map<String, FakeSolrFixture> fixturesByKey = new ConcurrentHashMap<>();
+	private final Map<String, FakeSolrFixture> fixturesByName = new ConcurrentHashMap<>();
+
+	/**
+	 * <p>Load all the fixtures (<code>*.xml</code> files) from the collection
+	 * sub-directories of the fixtures directory.</p>
+	 *
+	 * @param fixturesDirectory The directory containing the collection
+	 * 		sub-directories
+	 *
+	 * @return The loaded fixtures
+	 *
+	 * @throws IOException If a directory or a fixture could not be read
+	 */
+	public static FakeSolrFixtures load(Path fixturesDirectory) throws IOException {
+		FakeSolrFixtures fakeSolrFixtures = new FakeSolrFixtures();
+		try (Stream<Path> collectionPaths = Files.list(fixturesDirectory)) {
+			for (Path collectionPath : (Iterable<Path>) collectionPaths::iterator) {
+				if (!Files.isDirectory(collectionPath)) {
+					continue;
+				}
+
+				try (Stream<Path> paths = Files.list(collectionPath)) {
+					for (Path path : (Iterable<Path>) paths::iterator) {
+						if (path.getFileName().toString().endsWith(FakeSolrServer.FIXTURE_EXTENSION)) {
+							fakeSolrFixtures.add(FakeSolrFixture.load(path));
+						}
+					}
+				}
+			}
+		}
+		return (fakeSolrFixtures);
+	}
+
+	/**
+	 * <p>Add a fixture, if there is already a fixture with the same key, then
+	 * it is replaced.</p>
+	 *
+	 * @param fixture The fixture to add
+	 */
+	public void add(FakeSolrFixture fixture) {
+		FakeSolrFixture previousFixture = fixturesByKey.put(fixture.getKey(), fixture);
+		if (null != previousFixture) {
+			LOGGER.warn("Fixture '{}/{}' replaces '{}/{}', they have the same key '{}'.",
+					fixture.getCollection(),
+					fixture.getName(),
+					previousFixture.getCollection(),
+					previousFixture.getName(),
+					fixture.getKey());
+		}
+		fixturesByName.put(fixture.getCollection() + "/" + fixture.getName(), fixture);
+	}
+
+	/**
+	 * <p>Return the fixture with the key.</p>
+	 *
+	 * @param key The key of the query parameters
+	 *
+	 * @return The fixture, or null if there is none
+	 */
+	public FakeSolrFixture getByKey(String key) {
+		return (fixturesByKey.get(key));
+	}
+
+	/**
+	 * <p>Return the named fixture for the collection.</p>
+	 *
+	 * @param collection The name of the Solr collection
+	 * @param name The name of the fixture
+	 *
+	 * @return The fixture, or null if there is none
+	 */
+	public FakeSolrFixture getByName(String collection, String name) {
+		return (fixturesByName.get(collection + "/" + name));
+	}
+
+	/**
+	 * <p>Return the names (<code>&lt;collection&gt;/&lt;name&gt;</code>) of
+	 * all the fixtures, in order.</p>
+	 *
+	 * @return The fixture names
+	 */
+	public Set<String> getNames() {
+		return (new TreeSet<>(fixturesByName.keySet()));
+	}
+}
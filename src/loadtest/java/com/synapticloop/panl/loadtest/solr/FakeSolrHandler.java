@@ -0,0 +1,321 @@
+package com.synapticloop.panl.loadtest.solr;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import com.synapticloop.panl.server.handler.bean.PanlQueryParametersBean;
+import com.synapticloop.panl.server.handler.bean.PanlRequestPathBean;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.NameValuePair;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestHandler;
+import org.apache.http.util.EntityUtils;
+import org.apache.solr.common.util.JavaBinCodec;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Serve the fixture Solr responses for the request URI of</p>
+ *
+ * <pre>
+ * /solr/&lt;collection&gt;/&lt;handler&gt;?&lt;parameters&gt;
+ * </pre>
+ *
+ * <p>The response is looked up by the collection name and the query
+ * parameters that change the response - the query, the filter queries, and
+ * the start and rows (see {@link FakeSolrFixture}).  If there is no fixture
+ * for the parameters:</p>
+ *
+ * <ul>
+ *   <li>If a recorder was configured, the request is sent to the real Solr
+ *   server, and its response is recorded as a fixture and served.</li>
+ *   <li>Otherwise the request is counted as unmatched, and the collection's
+ *   <code>mlt</code> fixture (for the <code>/mlt</code> handler, or a
+ *   <code>/select</code> request with a <code>{!mlt}</code> query) or
+ *   <code>default</code> fixture is served in its place.</li>
+ * </ul>
+ *
+ * <p>The response is written in the javabin format if it was requested
+ * (<code>wt=javabin</code> - the SolrJ default), otherwise the fixture XML is
+ * returned.  The configured latency is added to every request, and the
+ * configured proportion of the requests will fail with a Solr server
+ * error.</p>
+ *
+ * @author synapticloop
+ */
+public class FakeSolrHandler implements HttpRequestHandler {
+	private static final Logger LOGGER = LoggerFactory.getLogger(FakeSolrHandler.class);
+
+	public static final String CONTENT_TYPE_JAVABIN = "application/octet-stream";
+	private static final ContentType CONTENT_TYPE_XML = ContentType.create("application/xml", StandardCharsets.UTF_8);
+
+	public static final String PARAMETER_WT = "wt";
+
+	public static final String WT_JAVABIN = "javabin";
+	public static final String WT_XML = "xml";
+
+	public static final String HANDLER_SELECT = "select";
+	public static final String HANDLER_MLT = "mlt";
+
+	private static final String MLT_QUERY_PREFIX = "{!mlt";
+
+	private final FakeSolrFixtures fixtures;
+	private final FakeSolrRecorder fakeSolrRecorder;
+	private final long latencyMillis;
+	private final long jitterMillis;
+	private final double errorRate;
+
+	private final LongAdder numRequests = new LongAdder();
+	private final LongAdder numErrors = new LongAdder();
+	private final LongAdder numUnmatched = new LongAdder();
+	private final LongAdder numRecorded = new LongAdder();
+
+	/**
+	 * <p>Instantiate the handler.</p>
+	 *
+	 * @param fixtures The fixture responses
+	 * @param fakeSolrRecorder The recorder for the requests that do not have a
+	 * 		fixture, or null to serve the default fixture in their place
+	 * @param latencyMillis The fixed latency, in milliseconds, to add to every
+	 * 		request
+	 * @param jitterMillis The maximum random latency, in milliseconds, to add
+	 * 		on top of the fixed latency
+	 * @param errorRate The proportion (between 0 and 1) of requests that will
+	 * 		be returned as a Solr server error
+	 */
+	public FakeSolrHandler(FakeSolrFixtures fixtures, FakeSolrRecorder fakeSolrRecorder, long latencyMillis, long jitterMillis, double errorRate) {
+		this.fixtures = fixtures;
+		this.fakeSolrRecorder = fakeSolrRecorder;
+		this.latencyMillis = latencyMillis;
+		this.jitterMillis = jitterMillis;
+		this.errorRate = errorRate;
+	}
+
+	@Override public void handle(HttpRequest request, HttpResponse response, HttpContext context) throws IOException {
+		numRequests.increment();
+
+		PanlRequestPathBean requestPath = new PanlRequestPathBean(request.getRequestLine().getUri());
+		PanlQueryParametersBean queryParameters = new PanlQueryParametersBean(requestPath.getQueryString());
+
+		// SolrJ may send the parameters as a form body rather than the query
+		// string
+		if (request instanceof HttpEntityEnclosingRequest) {
+			String body = EntityUtils.toString(((HttpEntityEnclosingRequest) request).getEntity(), StandardCharsets.UTF_8);
+			if (!body.isBlank()) {
+				queryParameters = new PanlQueryParametersBean(body);
+			}
+		}
+
+		String wt = queryParameters.getValue(PARAMETER_WT);
+		boolean isJavabin = WT_JAVABIN.equals(wt);
+		if (null != wt && !isJavabin && !WT_XML.equals(wt)) {
+			setErrorResponse(response, HttpStatus.SC_BAD_REQUEST, "Only the 'javabin' and 'xml' response writers are available, not '" + wt + "'.", false);
+			return;
+		}
+
+		// /solr/<collection>/<handler>
+		String collection = requestPath.getSegment(2);
+		String handler = requestPath.getSegment(3);
+
+		if (null == collection || !(HANDLER_SELECT.equals(handler) || HANDLER_MLT.equals(handler))) {
+			setErrorResponse(response, HttpStatus.SC_NOT_FOUND, "No fixture response for '" + requestPath.getPath() + "'.", isJavabin);
+			return;
+		}
+
+		FakeSolrFixture fixture;
+		try {
+			fixture = getFixture(collection, handler, queryParameters);
+		} catch (IOException e) {
+			LOGGER.error("Could not record the response for '{}'.", requestPath.getPath(), e);
+			setErrorResponse(response, HttpStatus.SC_BAD_GATEWAY, "Could not record the response for '" + requestPath.getPath() + "': " + e.getMessage(), isJavabin);
+			return;
+		}
+
+		if (null == fixture) {
+			setErrorResponse(response, HttpStatus.SC_NOT_FOUND, "No fixture response for '" + requestPath.getPath() + "'.", isJavabin);
+			return;
+		}
+
+		addLatency();
+
+		if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+			numErrors.increment();
+			setErrorResponse(response, HttpStatus.SC_INTERNAL_SERVER_ERROR, "Injected error for '" + fixture.getName() + "'.", isJavabin);
+			return;
+		}
+
+		if (isJavabin) {
+			response.setEntity(new ByteArrayEntity(fixture.getJavabinBytes(), ContentType.create(CONTENT_TYPE_JAVABIN)));
+		} else {
+			response.setEntity(new ByteArrayEntity(fixture.getXmlBytes(), CONTENT_TYPE_XML));
+		}
+		response.setStatusCode(HttpStatus.SC_OK);
+	}
+
+	/**
+	 * <p>Look up the fixture for the query parameters of the request,
+	 * recording it if there is a recorder, otherwise falling back to the
+	 * collection's <code>mlt</code> or <code>default</code> fixture.</p>
+	 *
+	 * @param collection The collection from the request URI
+	 * @param handler The Solr request handler from the request URI
+	 * @param queryParameters The request parameters
+	 *
+	 * @return The fixture, or null if there is none
+	 *
+	 * @throws IOException If the response could not be recorded
+	 */
+	private FakeSolrFixture getFixture(String collection, String handler, PanlQueryParametersBean queryParameters) throws IOException {
+		List<String> filterQueries = new ArrayList<>();
+		for (NameValuePair nameValuePair : queryParameters.getNameValuePairs()) {
+			if (FakeSolrFixture.PARAMETER_FQ.equals(nameValuePair.getName()) && null != nameValuePair.getValue()) {
+				filterQueries.add(nameValuePair.getValue());
+			}
+		}
+
+		String query = queryParameters.getValue(FakeSolrFixture.PARAMETER_Q);
+		String key = FakeSolrFixture.getKey(
+				collection,
+				query,
+				filterQueries,
+				queryParameters.getValue(FakeSolrFixture.PARAMETER_START),
+				queryParameters.getValue(FakeSolrFixture.PARAMETER_ROWS));
+
+		FakeSolrFixture fixture = fixtures.getByKey(key);
+		if (null != fixture) {
+			return (fixture);
+		}
+
+		if (null != fakeSolrRecorder) {
+			fixture = fakeSolrRecorder.record(collection, handler, queryParameters.getNameValuePairs());
+			fixtures.add(fixture);
+			numRecorded.increment();
+			return (fixture);
+		}
+
+		numUnmatched.increment();
+		LOGGER.debug("No fixture for key '{}', serving the fallback fixture.", key);
+
+		if (HANDLER_MLT.equals(handler) || (null != query && query.startsWith(MLT_QUERY_PREFIX))) {
+			return (fixtures.getByName(collection, FakeSolrFixtures.FIXTURE_NAME_MLT));
+		}
+		return (fixtures.getByName(collection, FakeSolrFixtures.FIXTURE_NAME_DEFAULT));
+	}
+
+	/**
+	 * <p>Sleep for the fixed latency plus a random amount of jitter.</p>
+	 */
+	private void addLatency() {
+		long sleepMillis = latencyMillis;
+		if (jitterMillis > 0) {
+			sleepMillis += ThreadLocalRandom.current().nextLong(jitterMillis + 1);
+		}
+
+		if (sleepMillis > 0) {
+			try {
+				Thread.sleep(sleepMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * <p>Set a Solr formatted error response.</p>
+	 *
+	 * @param response The response to set the error on
+	 * @param statusCode The HTTP status code
+	 * @param message The error message
+	 * @param isJavabin Whether to write the error in the javabin format
+	 *
+	 * @throws IOException If the error could not be encoded
+	 */
+	private void setErrorResponse(HttpResponse response, int statusCode, String message, boolean isJavabin) throws IOException {
+		response.setStatusCode(statusCode);
+
+		if (isJavabin) {
+			NamedList<Object> responseHeader = new SimpleOrderedMap<>();
+			responseHeader.add("status", statusCode);
+			responseHeader.add("QTime", 0);
+
+			NamedList<Object> error = new SimpleOrderedMap<>();
+			error.add("msg", message);
+			error.add("code", statusCode);
+
+			NamedList<Object> namedList = new NamedList<>();
+			namedList.add("responseHeader", responseHeader);
+			namedList.add("error", error);
+
+			ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+			new JavaBinCodec().marshal(namedList, byteArrayOutputStream);
+			response.setEntity(new ByteArrayEntity(byteArrayOutputStream.toByteArray(), ContentType.create(CONTENT_TYPE_JAVABIN)));
+		} else {
+			String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+					"<response>\n" +
+					"<lst name=\"responseHeader\"><int name=\"status\">" + statusCode + "</int><int name=\"QTime\">0</int></lst>\n" +
+					"<lst name=\"error\"><str name=\"msg\">" + escapeXml(message) + "</str><int name=\"code\">" + statusCode + "</int></lst>\n" +
+					"</response>\n";
+			response.setEntity(new ByteArrayEntity(xml.getBytes(StandardCharsets.UTF_8), CONTENT_TYPE_XML));
+		}
+	}
+
+	private static String escapeXml(String value) {
+		return (value
+				.replace("&", "&amp;")
+				.replace("<", "&lt;")
+				.replace(">", "&gt;")
+				.replace("\"", "&quot;"));
+	}
+
+	public long getNumRequests() {
+		return (numRequests.sum());
+	}
+
+	public long getNumErrors() {
+		return (numErrors.sum());
+	}
+
+	public long getNumUnmatched() {
+		return (numUnmatched.sum());
+	}
+
+	public long getNumRecorded() {
+		return (numRecorded.sum());
+	}
+}
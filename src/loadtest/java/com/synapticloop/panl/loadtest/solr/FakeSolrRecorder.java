@@ -0,0 +1,147 @@
+package com.synapticloop.panl.loadtest.solr;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import org.apache.http.NameValuePair;
+import org.apache.http.client.utils.URLEncodedUtils;
+import org.apache.http.message.BasicNameValuePair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Record the responses from a real Solr server as fixtures.  The request
+ * is sent to the Solr server with the XML response writer
+ * (<code>wt=xml</code>), and the parameters echoed in the response
+ * (<code>echoParams=explicit</code>), so that the fixture can be keyed on the
+ * parameters.  The response is saved in the collection's sub-directory of the
+ * fixtures directory as <code>recorded-&lt;hash of the key&gt;.xml</code>.</p>
+ *
+ * @author synapticloop
+ */
+public class FakeSolrRecorder {
+	private static final Logger LOGGER = LoggerFactory.getLogger(FakeSolrRecorder.class);
+
+	public static final String PARAMETER_ECHO_PARAMS = "echoParams";
+	public static final String ECHO_PARAMS_EXPLICIT = "explicit";
+
+	public static final String FIXTURE_PREFIX_RECORDED = "recorded-";
+
+	private final String solrUrl;
+	private final Path fixturesDirectory;
+	private final HttpClient httpClient;
+
+	/**
+	 * <p>Instantiate the recorder.</p>
+	 *
+	 * @param solrUrl The URL of the real Solr server, e.g.
+	 * 		<code>http://localhost:8984/solr</code>
+	 * @param fixturesDirectory The directory to save the recorded fixtures in
+	 */
+	public FakeSolrRecorder(String solrUrl, Path fixturesDirectory) {
+		this.solrUrl = solrUrl.endsWith("/") ? solrUrl.substring(0, solrUrl.length() - 1) : solrUrl;
+		this.fixturesDirectory = fixturesDirectory;
+		this.httpClient = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofSeconds(10))
+				.build();
+	}
+
+	/**
+	 * <p>Send the request to the real Solr server, and save the response as a
+	 * fixture.</p>
+	 *
+	 * @param collection The name of the Solr collection
+	 * @param handler The Solr request handler
+	 * @param nameValuePairs The request parameters
+	 *
+	 * @return The recorded fixture
+	 *
+	 * @throws IOException If the response could not be retrieved, was not
+	 * 		successful, or could not be saved
+	 */
+	public FakeSolrFixture record(String collection, String handler, List<NameValuePair> nameValuePairs) throws IOException {
+		List<NameValuePair> recordParameters = new ArrayList<>();
+		for (NameValuePair nameValuePair : nameValuePairs) {
+			String name = nameValuePair.getName();
+			if (!FakeSolrHandler.PARAMETER_WT.equals(name) && !PARAMETER_ECHO_PARAMS.equals(name)) {
+				recordParameters.add(nameValuePair);
+			}
+		}
+		recordParameters.add(new BasicNameValuePair(FakeSolrHandler.PARAMETER_WT, FakeSolrHandler.WT_XML));
+		recordParameters.add(new BasicNameValuePair(PARAMETER_ECHO_PARAMS, ECHO_PARAMS_EXPLICIT));
+
+		String uri = solrUrl + "/" + collection + "/" + handler + "?" + URLEncodedUtils.format(recordParameters, StandardCharsets.UTF_8);
+
+		HttpResponse<byte[]> httpResponse;
+		try {
+			httpResponse = httpClient.send(
+					HttpRequest.newBuilder(URI.create(uri)).GET().build(),
+					HttpResponse.BodyHandlers.ofByteArray());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted whilst recording '" + uri + "'.", e);
+		}
+
+		if (httpResponse.statusCode() != 200) {
+			throw new IOException("Could not record '" + uri + "', status code was " + httpResponse.statusCode() + ".");
+		}
+
+		// the name is only known once the key has been read from the response
+		FakeSolrFixture fixture = new FakeSolrFixture(collection, "", httpResponse.body());
+		String name = FIXTURE_PREFIX_RECORDED + getHash(fixture.getKey());
+
+		Path collectionDirectory = fixturesDirectory.resolve(collection);
+		Files.createDirectories(collectionDirectory);
+		Files.write(collectionDirectory.resolve(name + FakeSolrServer.FIXTURE_EXTENSION), httpResponse.body());
+
+		LOGGER.info("Recorded fixture '{}/{}' for key '{}'.", collection, name, fixture.getKey());
+		return (new FakeSolrFixture(collection, name, httpResponse.body()));
+	}
+
+	private static String getHash(String key) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8));
+			return (String.format("%040x", new BigInteger(1, digest)).substring(0, 16));
+		} catch (NoSuchAlgorithmException e) {
+			// SHA-1 is required to be supported by every Java platform
+			throw new IllegalStateException(e);
+		}
+	}
+}
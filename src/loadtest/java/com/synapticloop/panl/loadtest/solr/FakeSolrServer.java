@@ -0,0 +1,204 @@
+package com.synapticloop.panl.loadtest.solr;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import org.apache.http.impl.bootstrap.HttpServer;
+import org.apache.http.impl.bootstrap.ServerBootstrap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>A stand-in for a Solr server which serves fixture <code>/select</code>
+ * (and MLT) responses, so that the Panl server can be load tested on a single
+ * machine, measuring the Panl side latency and throughput without the noise
+ * of a real Solr server.</p>
+ *
+ * <p>The fixture responses are the XML responses in the fixtures directory
+ * (by default <code>src/loadtest/resources/fixtures</code>, see
+ * {@link FakeSolrFixtures} for the layout), see {@link FakeSolrHandler} for
+ * how a request is matched to a fixture.  The fixtures in the repository are
+ * <strong>synthetic</strong>, they were generated from the sample data in
+ * <code>src/dist/sample/data</code> by
+ * {@link FakeSolrFixtureGenerator} (see the
+ * <code>README.md</code> in the fixtures directory), and were not recorded
+ * from a Solr server.</p>
+ *
+ * <p>To record the responses from a real Solr server (loaded with the sample
+ * data), start the server with the <code>-record</code> option, every request
+ * that does not have a fixture is then sent to the real Solr server, and the
+ * response is saved as a fixture (see {@link FakeSolrRecorder}).  Crawling the
+ * Panl server through the fake Solr server records the responses for all of
+ * the requests that the crawl (and a replay of the crawled corpus) will
+ * make.</p>
+ *
+ * <p>The Panl server connects to this stand-in with the following
+ * <code>panl.properties</code> (see
+ * <code>src/loadtest/panl/panl.properties</code>):</p>
+ *
+ * <pre>
+ * solrj.client=HttpJdkSolrClient
+ * solr.search.server.url=http://localhost:8983/solr
+ * </pre>
+ *
+ * <p>The cloud clients are not supported as they require the cluster state,
+ * and the Http2SolrClient requires an HTTP/2 server.</p>
+ *
+ * <p>Run with</p>
+ *
+ * <pre>
+ * ./gradlew fakeSolr -PfakeSolrArgs="-latency 5 -jitter 10 -errorrate 0.01"
+ * ./gradlew fakeSolr -PfakeSolrArgs="-record http://localhost:8984/solr"
+ * </pre>
+ *
+ * @author synapticloop
+ */
+public class FakeSolrServer {
+	private static final Logger LOGGER = LoggerFactory.getLogger(FakeSolrServer.class);
+
+	public static final String FIXTURE_EXTENSION = ".xml";
+
+	public static final String CMD_OPTION_PORT = "-port";
+	public static final String CMD_OPTION_FIXTURES = "-fixtures";
+	public static final String CMD_OPTION_LATENCY = "-latency";
+	public static final String CMD_OPTION_JITTER = "-jitter";
+	public static final String CMD_OPTION_ERROR_RATE = "-errorrate";
+	public static final String CMD_OPTION_RECORD = "-record";
+
+	public static final String DEFAULT_PORT_NUMBER = "8983";
+	public static final String DEFAULT_FIXTURES_DIRECTORY = "src/loadtest/resources/fixtures";
+
+	public static final String URL_BINDING_SOLR = "/solr/*";
+
+	private final int portNumber;
+	private final FakeSolrHandler fakeSolrHandler;
+	private HttpServer httpServer;
+
+	/**
+	 * <p>Instantiate the fake Solr server.</p>
+	 *
+	 * @param portNumber The port number to listen on, or 0 for any free port
+	 * @param fixtures The fixture responses
+	 * @param fakeSolrRecorder The recorder for the requests that do not have a
+	 * 		fixture, or null to serve the default fixture in their place
+	 * @param latencyMillis The fixed latency to add to every request
+	 * @param jitterMillis The maximum random latency to add to every request
+	 * @param errorRate The proportion of requests that will be returned as a
+	 * 		Solr server error
+	 */
+	public FakeSolrServer(int portNumber, FakeSolrFixtures fixtures, FakeSolrRecorder fakeSolrRecorder, long latencyMillis, long jitterMillis, double errorRate) {
+		this.portNumber = portNumber;
+		this.fakeSolrHandler = new FakeSolrHandler(fixtures, fakeSolrRecorder, latencyMillis, jitterMillis, errorRate);
+	}
+
+	/**
+	 * <p>Start the server, this does not block.</p>
+	 *
+	 * @throws IOException If the server could not be started
+	 */
+	public void start() throws IOException {
+		httpServer = ServerBootstrap
+				.bootstrap()
+				.setListenerPort(portNumber)
+				.registerHandler(URL_BINDING_SOLR, fakeSolrHandler)
+				.create();
+
+		httpServer.start();
+		LOGGER.info("Fake Solr server started on port {}, serving {}", httpServer.getLocalPort(), URL_BINDING_SOLR);
+	}
+
+	/**
+	 * <p>Stop the server, logging the number of requests served.</p>
+	 */
+	public void stop() {
+		if (null != httpServer) {
+			httpServer.shutdown(1, TimeUnit.SECONDS);
+			LOGGER.info("Fake Solr server stopped, served {} requests ({} injected errors, {} recorded, {} unmatched and served the fallback fixture).",
+					fakeSolrHandler.getNumRequests(),
+					fakeSolrHandler.getNumErrors(),
+					fakeSolrHandler.getNumRecorded(),
+					fakeSolrHandler.getNumUnmatched());
+		}
+	}
+
+	/**
+	 * <p>Return the port that the server is listening on.</p>
+	 *
+	 * @return The port, or -1 if the server has not been started
+	 */
+	public int getLocalPort() {
+		if (null == httpServer) {
+			return (-1);
+		}
+		return (httpServer.getLocalPort());
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new HashMap<>();
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			options.put(args[i], args[i + 1]);
+		}
+
+		int portNumber = Integer.parseInt(options.getOrDefault(CMD_OPTION_PORT, DEFAULT_PORT_NUMBER));
+		Path fixturesDirectory = Paths.get(options.getOrDefault(CMD_OPTION_FIXTURES, DEFAULT_FIXTURES_DIRECTORY));
+		long latencyMillis = Long.parseLong(options.getOrDefault(CMD_OPTION_LATENCY, "0"));
+		long jitterMillis = Long.parseLong(options.getOrDefault(CMD_OPTION_JITTER, "0"));
+		double errorRate = Double.parseDouble(options.getOrDefault(CMD_OPTION_ERROR_RATE, "0"));
+		String recordSolrUrl = options.get(CMD_OPTION_RECORD);
+
+		if (latencyMillis < 0 || jitterMillis < 0) {
+			throw new IllegalArgumentException("The latency and jitter must not be negative.");
+		}
+		if (errorRate < 0 || errorRate > 1) {
+			throw new IllegalArgumentException("The error rate must be between 0 and 1, was " + errorRate + ".");
+		}
+
+		FakeSolrFixtures fixtures = FakeSolrFixtures.load(fixturesDirectory);
+		FakeSolrRecorder fakeSolrRecorder = null;
+		if (null != recordSolrUrl) {
+			fakeSolrRecorder = new FakeSolrRecorder(recordSolrUrl, fixturesDirectory);
+		}
+
+		LOGGER.info("Starting fake Solr server with:");
+		LOGGER.info("        -port {}", portNumber);
+		LOGGER.info("    -fixtures {}", fixturesDirectory.toAbsolutePath());
+		LOGGER.info("     -latency {}ms", latencyMillis);
+		LOGGER.info("      -jitter {}ms", jitterMillis);
+		LOGGER.info("   -errorrate {}", errorRate);
+		LOGGER.info("      -record {}", null == recordSolrUrl ? "(not recording)" : recordSolrUrl);
+		LOGGER.info("Loaded fixtures {}", fixtures.getNames());
+
+		FakeSolrServer fakeSolrServer = new FakeSolrServer(portNumber, fixtures, fakeSolrRecorder, latencyMillis, jitterMillis, errorRate);
+		fakeSolrServer.start();
+		Runtime.getRuntime().addShutdownHook(new Thread(fakeSolrServer::stop));
+		fakeSolrServer.httpServer.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+	}
+}
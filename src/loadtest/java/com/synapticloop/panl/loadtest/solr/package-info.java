@@ -0,0 +1,9 @@
+/**
+ * <p>The package for a stand-in Solr server which serves fixture responses,
+ * so that the Panl server can be load tested without a live Solr server.</p>
+ *
+ * @since 1.0
+ * @author synapticloop
+ * @version 1.0
+ */
+package com.synapticloop.panl.loadtest.solr;
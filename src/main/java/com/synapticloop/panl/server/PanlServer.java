@@ -34,9 +34,13 @@ import com.synapticloop.panl.server.handler.webapp.PanlResultsStaticHandler;
 import com.synapticloop.panl.server.handler.webapp.viewer.PanlResultsViewerHandler;
 import com.synapticloop.panl.server.handler.properties.PanlProperties;
 import com.synapticloop.panl.server.handler.properties.CollectionProperties;
+import com.synapticloop.panl.server.http.BaseHttpServer;
+import com.synapticloop.panl.server.http.PanlBlockingHttpServer;
+import com.synapticloop.panl.server.http.PanlNioHttpServer;
+import com.synapticloop.panl.server.metrics.PanlMetrics;
+import com.synapticloop.panl.server.metrics.PanlSlowRequestLog;
 import com.synapticloop.panl.util.Constants;
-import org.apache.http.impl.bootstrap.HttpServer;
-import org.apache.http.impl.bootstrap.ServerBootstrap;
+import org.apache.http.protocol.HttpRequestHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -93,7 +97,13 @@ public class PanlServer {
 	/**
 	 * <p>The HTTP Server instance</p>
 	 */
-	private HttpServer httpServer;
+	private BaseHttpServer httpServer;
+
+	/**
+	 * <p>The slow request log, which is only active if a slow request threshold
+	 * has been configured</p>
+	 */
+	private PanlSlowRequestLog panlSlowRequestLog;
 
 	/**
 	 * <p>Instantiate a new PanlServer instance.  This will parse the
@@ -249,72 +259,116 @@ public class PanlServer {
 	 */
 	public void start() throws PanlServerException {
 
-		ServerBootstrap bootstrap = ServerBootstrap
-				.bootstrap()
-				.setListenerPort(portNumber);
+		// the URI patterns and their handlers, which are dispatched by the
+		// PanlRequestHandlerMapper
+		Map<String, HttpRequestHandler> handlers = new LinkedHashMap<>();
+
+		// every handler (apart from the metrics handler) is instrumented, so
+		// that the requests, errors, and latencies are recorded, and slow requests
+		// are logged
+		panlSlowRequestLog = new PanlSlowRequestLog(
+				panlProperties.getSlowRequestMillis(),
+				panlProperties.getSlowRequestHandlerMillis(),
+				panlProperties.getSlowRequestPhaseMillis());
+		if (panlSlowRequestLog.getIsEnabled()) {
+			LOGGER.info("Slow request log enabled, default threshold of {}ms, handler thresholds of {}, phase thresholds of {}",
+					panlProperties.getSlowRequestMillis(),
+					panlProperties.getSlowRequestHandlerMillis(),
+					panlProperties.getSlowRequestPhaseMillis());
+		}
+
+		PanlMetrics panlMetrics = new PanlMetrics(collectionRequestHandlers, panlSlowRequestLog, panlProperties);
+		if (panlProperties.getHasLimiter()) {
+			LOGGER.info("Concurrency limiter enabled, initial limit of {}, minimum of {}, maximum of {}, latency tolerance of {}%",
+					panlProperties.getLimiterInitialLimit(),
+					panlProperties.getLimiterMinLimit(),
+					panlProperties.getLimiterMaxLimit(),
+					panlProperties.getLimiterLatencyTolerance());
+		}
+		if (panlProperties.getHasCircuitBreaker()) {
+			LOGGER.info("Solr circuit breaker enabled, failure rate of {}%, slow request rate of {}% over {}ms, window of {} requests, open for {} seconds",
+					panlProperties.getCircuitBreakerFailureRate(),
+					panlProperties.getCircuitBreakerSlowCallRate(),
+					panlProperties.getCircuitBreakerSlowCallMillis(),
+					panlProperties.getCircuitBreakerWindowSize(),
+					panlProperties.getCircuitBreakerOpenSeconds());
+		}
 
 		// register the default Panl handler which returns a 404
-		bootstrap.registerHandler("/*", new PanlDefaultHandler(panlProperties, collectionRequestHandlers));
+		handlers.put("/*", panlMetrics.instrument(
+				PanlMetrics.HANDLER_DEFAULT,
+				new PanlDefaultHandler(panlProperties, collectionRequestHandlers)));
 
 		// register the panl results viewer - if it enabled
 
 		if (panlProperties.getHasPanlResultsTestingUrls()) {
 			LOGGER.info("Panl testing URLs are active, binding the following:");
 
-			bootstrap.registerHandler("/webapp/static/*", new PanlResultsStaticHandler());
+			handlers.put("/webapp/static/*", panlMetrics.instrument(PanlMetrics.HANDLER_TESTING, new PanlResultsStaticHandler()));
 			LOGGER.info("Binding testing URL: /webapp/static/*");
 
 			// the simple search and querying webappp
-			bootstrap.registerHandler("/panl-results-viewer/*", new PanlResultsViewerHandler(collectionRequestHandlers));
+			handlers.put("/panl-results-viewer/*", panlMetrics.instrument(PanlMetrics.HANDLER_TESTING, new PanlResultsViewerHandler(collectionRequestHandlers)));
 			LOGGER.info("Binding testing URL: /panl-results-viewer/*");
-			bootstrap.registerHandler("/panl-results-viewer/script/", new PanlResultsViewerScriptHandler(collectionRequestHandlers));
+			handlers.put("/panl-results-viewer/script/", panlMetrics.instrument(PanlMetrics.HANDLER_TESTING, new PanlResultsViewerScriptHandler(collectionRequestHandlers)));
 			LOGGER.info("Binding testing URL: /panl-results-viewer/script/");
 
-			bootstrap.registerHandler("/panl-results-explainer/*", new PanlResultsExplainerHandler(collectionPropertiesList, collectionRequestHandlers));
+			handlers.put("/panl-results-explainer/*", panlMetrics.instrument(PanlMetrics.HANDLER_TESTING, new PanlResultsExplainerHandler(collectionPropertiesList, collectionRequestHandlers)));
 			LOGGER.info("Binding testing URL: /panl-results-explainer/*");
-			bootstrap.registerHandler("/panl-results-explainer/explain/*", new PanlResultsExplainerExplainHandler(collectionPropertiesList, collectionRequestHandlers));
+			handlers.put("/panl-results-explainer/explain/*", panlMetrics.instrument(PanlMetrics.HANDLER_TESTING, new PanlResultsExplainerExplainHandler(collectionPropertiesList, collectionRequestHandlers)));
 			LOGGER.info("Binding testing URL: /panl-results-explainer/explain/*");
 
-			bootstrap.registerHandler("/panl-single-page-search/*", new PanlSinglePageSearchHandler(collectionRequestHandlers));
+			handlers.put("/panl-single-page-search/*", panlMetrics.instrument(PanlMetrics.HANDLER_TESTING, new PanlSinglePageSearchHandler(collectionRequestHandlers)));
 			LOGGER.info("Binding testing URL: /panl-single-page-search/*");
 
 		}
 
 		// register the single page search handlers
 
-		bootstrap.registerHandler(
+		handlers.put(
 			PanlSinglePageHandler.PANL_URL_BINDING_SINGLE_PAGE + "*",
-			new PanlSinglePageHandler(
-				panlProperties,
-				collectionRequestHandlers));
+			panlMetrics.instrument(
+				PanlMetrics.HANDLER_SINGLE_PAGE,
+				new PanlSinglePageHandler(
+					panlProperties,
+					collectionRequestHandlers)));
 
 		LOGGER.info("Binding more facets handler to URI path {}*", PanlMoreFacetsHandler.PANL_URL_BINDING_MORE_FACETS);
-		bootstrap.registerHandler(
+		handlers.put(
 			PanlMoreFacetsHandler.PANL_URL_BINDING_MORE_FACETS + "*",
-			new PanlMoreFacetsHandler(
-				panlProperties,
-				collectionRequestHandlers));
+			panlMetrics.instrument(
+				PanlMetrics.HANDLER_MORE_FACETS,
+				new PanlMoreFacetsHandler(
+					panlProperties,
+					collectionRequestHandlers)));
 
 		LOGGER.info("Binding lookahead handler to URI path {}*", PanlLookaheadHandler.PANL_URL_BINDING_LOOKAHEAD);
-		bootstrap.registerHandler(
+		handlers.put(
 			PanlLookaheadHandler.PANL_URL_BINDING_LOOKAHEAD + "*",
-			new PanlLookaheadHandler(
-				panlProperties,
-				collectionRequestHandlers));
+			panlMetrics.instrument(
+				PanlMetrics.HANDLER_LOOKAHEAD,
+				new PanlLookaheadHandler(
+					panlProperties,
+					collectionRequestHandlers)));
 
 		LOGGER.info("Binding More Like This (MLT) handler to URI path {}*", PanlMoreLikeThisHandler.PANL_URL_BINDING_MORE_LIKE_THIS);
-		bootstrap.registerHandler(
+		handlers.put(
 				PanlMoreLikeThisHandler.PANL_URL_BINDING_MORE_LIKE_THIS + "*",
-				new PanlMoreLikeThisHandler(
+				panlMetrics.instrument(
+					PanlMetrics.HANDLER_MORE_LIKE_THIS,
+					new PanlMoreLikeThisHandler(
 						panlProperties,
-						collectionRequestHandlers));
+						collectionRequestHandlers)));
 
 
 		// finally register the collection and singlepagesearch handlers
 		for (CollectionRequestHandler collectionRequestHandler : collectionRequestHandlers) {
 			String solrCollection = collectionRequestHandler.getSolrCollection();
 			String panlCollectionUri = collectionRequestHandler.getPanlCollectionUri();
-			bootstrap.registerHandler("/" + panlCollectionUri + "/*", new PanlRequestHandler(panlProperties, collectionRequestHandler));
+			handlers.put("/" + panlCollectionUri + "/*", panlMetrics.instrument(
+					PanlMetrics.HANDLER_COLLECTION,
+					panlCollectionUri,
+					new PanlRequestHandler(panlProperties, collectionRequestHandler)));
 			LOGGER.info("Binding Solr collection of '{}' to Panl collection URI path /{}/*", solrCollection, panlCollectionUri);
 			for (String resultFieldsName : collectionRequestHandler.getResultFieldsNames()) {
 				LOGGER.info("Results will be available on /{}/{}/*", panlCollectionUri, resultFieldsName);
@@ -327,14 +381,31 @@ public class PanlServer {
 				panlCollectionUri);
 		}
 
-		// create the server
-		httpServer = bootstrap.create();
+		if (panlProperties.getHasPanlMetrics()) {
+			PanlMetricsHandler panlMetricsHandler = new PanlMetricsHandler(panlMetrics);
+			handlers.put(PanlMetricsHandler.PANL_URL_BINDING_METRICS, panlMetricsHandler);
+			handlers.put(PanlMetricsHandler.PANL_URL_BINDING_METRICS + "/*", panlMetricsHandler);
+			LOGGER.info("Binding metrics handler to URI path {}", PanlMetricsHandler.PANL_URL_BINDING_METRICS);
+		}
 
-		// Attempt to start the server
+		// Attempt to create and start the server
 		try {
+			PanlRequestHandlerMapper panlRequestHandlerMapper = new PanlRequestHandlerMapper(handlers);
+			if (panlProperties.getServerMode().equals(BaseHttpServer.SERVER_MODE_NIO)) {
+				httpServer = new PanlNioHttpServer(portNumber, panlProperties, panlRequestHandlerMapper);
+				// the asynchronous Solr responses are handed back to the worker pool,
+				// rather than being processed on the SolrJ client threads
+				for (CollectionRequestHandler collectionRequestHandler : collectionRequestHandlers) {
+					collectionRequestHandler.getPanlClient().setAsyncExecutor(httpServer.getWorkerExecutor());
+				}
+			} else {
+				httpServer = new PanlBlockingHttpServer(portNumber, panlProperties, panlRequestHandlerMapper);
+			}
+			panlMetrics.setHttpServer(httpServer);
+
 			httpServer.start();
-			LOGGER.info("Server started on port {}", httpServer.getLocalPort());
-			Runtime.getRuntime().addShutdownHook(new Thread(httpServer::stop));
+			LOGGER.info("Server started in {} mode on port {}", panlProperties.getServerMode(), httpServer.getLocalPort());
+			Runtime.getRuntime().addShutdownHook(new Thread(this::stop));
 			httpServer.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
 		} catch (Exception e) {
 			throw new PanlServerException("Could not start the server, message was: " + e.getMessage(), e);
@@ -342,9 +413,24 @@ public class PanlServer {
 	}
 
 	/**
-	 * <p>Stop the server.</p>
+	 * <p>Stop the server, stop the slow request log and the background snapshot
+	 * refreshes, and then close the shared SolrJ clients for all the
+	 * collections, releasing their connection pools and threads.</p>
 	 */
 	public void stop() {
-		httpServer.stop();
+		if (null != httpServer) {
+			httpServer.stop();
+		}
+
+		if (null != panlSlowRequestLog) {
+			panlSlowRequestLog.close();
+		}
+
+		for (CollectionRequestHandler collectionRequestHandler : collectionRequestHandlers) {
+			if (null != collectionRequestHandler.getPanlSnapshotCache()) {
+				collectionRequestHandler.getPanlSnapshotCache().close();
+			}
+			collectionRequestHandler.getPanlClient().close();
+		}
 	}
 }
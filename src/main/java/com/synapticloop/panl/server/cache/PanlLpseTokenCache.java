@@ -0,0 +1,150 @@
+package com.synapticloop.panl.server.cache;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import com.synapticloop.panl.server.handler.tokeniser.token.LpseToken;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>A bounded, least recently used (LRU), in-memory cache of the parsed LPSE
+ * tokens, keyed on the request URI path and query string.</p>
+ *
+ * <p>The cached token lists are unmodifiable and are shared between all
+ * requests with the same key, so the tokens __MUST__ be frozen (see
+ * {@link LpseToken#freeze()}) before they are put into the cache.</p>
+ *
+ * <p>The cache keeps hit, miss, and eviction counters which may be used for
+ * reporting.</p>
+ *
+ * @author synapticloop
+ */
+public class PanlLpseTokenCache {
+	private final int maxNumEntries;
+
+	private final LinkedHashMap<String, List<LpseToken>> cache;
+
+	private final LongAdder numHits = new LongAdder();
+	private final LongAdder numMisses = new LongAdder();
+	private final LongAdder numEvictions = new LongAdder();
+
+	/**
+	 * <p>Instantiate the parsed LPSE token cache.</p>
+	 *
+	 * @param maxNumEntries The maximum number of parsed LPSE paths to cache
+	 */
+	public PanlLpseTokenCache(int maxNumEntries) {
+		this.maxNumEntries = maxNumEntries;
+		this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override protected boolean removeEldestEntry(Map.Entry<String, List<LpseToken>> eldest) {
+				if (size() > PanlLpseTokenCache.this.maxNumEntries) {
+					numEvictions.increment();
+					return (true);
+				}
+				return (false);
+			}
+		};
+	}
+
+	/**
+	 * <p>Get the parsed LPSE tokens for the key, or null if they are not
+	 * cached.</p>
+	 *
+	 * @param key The cache key
+	 *
+	 * @return The unmodifiable list of parsed LPSE tokens, or null if not
+	 * 		cached
+	 */
+	public List<LpseToken> get(String key) {
+		List<LpseToken> lpseTokens;
+		synchronized (cache) {
+			lpseTokens = cache.get(key);
+		}
+
+		if (null == lpseTokens) {
+			numMisses.increment();
+		} else {
+			numHits.increment();
+		}
+		return (lpseTokens);
+	}
+
+	/**
+	 * <p>Put the parsed LPSE tokens into the cache, evicting the least
+	 * recently used entry if the cache is full.</p>
+	 *
+	 * @param key The cache key
+	 * @param lpseTokens The unmodifiable list of parsed LPSE tokens
+	 */
+	public void put(String key, List<LpseToken> lpseTokens) {
+		synchronized (cache) {
+			cache.put(key, lpseTokens);
+		}
+	}
+
+	/**
+	 * <p>Remove all entries from the cache.</p>
+	 */
+	public void clear() {
+		synchronized (cache) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * <p>Return the number of entries in the cache.</p>
+	 *
+	 * @return The number of entries in the cache
+	 */
+	public int getNumEntries() {
+		synchronized (cache) {
+			return (cache.size());
+		}
+	}
+
+	/**
+	 * <p>Return the maximum number of entries for this cache.</p>
+	 *
+	 * @return The maximum number of entries
+	 */
+	public int getMaxNumEntries() {
+		return (maxNumEntries);
+	}
+
+	public long getNumHits() {
+		return (numHits.sum());
+	}
+
+	public long getNumMisses() {
+		return (numMisses.sum());
+	}
+
+	public long getNumEvictions() {
+		return (numEvictions.sum());
+	}
+}
@@ -0,0 +1,340 @@
+package com.synapticloop.panl.server.cache;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>A size bounded, approximately least recently used (LRU), in-memory cache
+ * of the final JSON response strings with a time to live (TTL) for each of
+ * the entries.</p>
+ *
+ * <p>The size of the cache is bounded by the approximate number of bytes
+ * that the keys and values take up in memory (two bytes per character), once
+ * the maximum number of bytes is exceeded, the least recently used entries
+ * are evicted until the cache is back under the limit.  Entries that are
+ * older than the TTL are removed when they are next looked up.</p>
+ *
+ * <p>The entries are held in a <code>ConcurrentHashMap</code>, so that
+ * looking up a response never takes a lock - each entry records the time
+ * that it was last accessed, rather than the entries being re-ordered on
+ * every access.  Eviction is done by the thread that put the entry which
+ * took the cache over its limit, by scanning for the entry with the oldest
+ * access time, and only one thread evicts at a time.  As the entries may be
+ * accessed (or added) while they are being scanned, the eviction order, and
+ * the size bound, are approximate.</p>
+ *
+ * <p>If a stale period is set, entries that are older than the TTL are no
+ * longer returned by <code>get</code>, but are kept for the stale period, so
+ * that they may be served with <code>getStale</code> if the Solr server is
+ * unavailable.</p>
+ *
+ * <p>The cache keeps hit, miss, eviction, and expiry counters which may be
+ * used for reporting.</p>
+ *
+ * @author synapticloop
+ */
+public class PanlResponseCache {
+	private final long maxBytes;
+	private final long ttlNanos;
+	private final long staleNanos;
+
+	private final ConcurrentHashMap<String, CacheEntry> cache = new ConcurrentHashMap<>();
+	private final AtomicLong currentBytes = new AtomicLong();
+	private final ReentrantLock evictionLock = new ReentrantLock();
+
+	private final LongAdder numHits = new LongAdder();
+	private final LongAdder numMisses = new LongAdder();
+	private final LongAdder numEvictions = new LongAdder();
+	private final LongAdder numExpirations = new LongAdder();
+	private final LongAdder numStaleHits = new LongAdder();
+
+	/**
+	 * <p>Instantiate the response cache.</p>
+	 *
+	 * @param maxBytes The maximum (approximate) number of bytes that the cache
+	 *    may hold
+	 * @param ttlSeconds The number of seconds that an entry is valid for
+	 */
+	public PanlResponseCache(long maxBytes, long ttlSeconds) {
+		this(maxBytes, ttlSeconds, 0L);
+	}
+
+	/**
+	 * <p>Instantiate the response cache, keeping expired entries for the stale
+	 * period.</p>
+	 *
+	 * @param maxBytes The maximum (approximate) number of bytes that the cache
+	 *    may hold
+	 * @param ttlSeconds The number of seconds that an entry is valid for
+	 * @param staleSeconds The number of seconds after the TTL that an expired
+	 *    entry may still be served if the Solr server is unavailable
+	 */
+	public PanlResponseCache(long maxBytes, long ttlSeconds, long staleSeconds) {
+		this.maxBytes = maxBytes;
+		this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+		this.staleNanos = TimeUnit.SECONDS.toNanos(staleSeconds);
+	}
+
+	/**
+	 * <p>Get the cached response for the key, or null if there is no cached
+	 * response, or the cached response has expired.</p>
+	 *
+	 * @param key The cache key
+	 *
+	 * @return The cached response, or null if it does not exist or has expired
+	 */
+	public String get(String key) {
+		CacheEntry cacheEntry = cache.get(key);
+		if (null == cacheEntry) {
+			numMisses.increment();
+			return (null);
+		}
+
+		long nowNanos = System.nanoTime();
+		long ageNanos = nowNanos - cacheEntry.createdNanos;
+		if (ageNanos >= ttlNanos) {
+			// keep it for the stale period, in case the Solr server is unavailable
+			if (ageNanos >= ttlNanos + staleNanos && remove(key, cacheEntry)) {
+				numExpirations.increment();
+			}
+			numMisses.increment();
+			return (null);
+		}
+
+		cacheEntry.lastAccessNanos = nowNanos;
+		numHits.increment();
+		return (cacheEntry.value);
+	}
+
+	/**
+	 * <p>Get the cached response for the key, even if it has expired, as long
+	 * as it is within the stale period.  This is used to serve a response when
+	 * the Solr server is unavailable.</p>
+	 *
+	 * @param key The cache key
+	 *
+	 * @return The (possibly stale) cached response, or null if it does not
+	 *   exist or is older than the stale period
+	 */
+	public String getStale(String key) {
+		CacheEntry cacheEntry = cache.get(key);
+		if (null == cacheEntry || System.nanoTime() - cacheEntry.createdNanos >= ttlNanos + staleNanos) {
+			return (null);
+		}
+
+		numStaleHits.increment();
+		return (cacheEntry.value);
+	}
+
+	/**
+	 * <p>Put the response into the cache, evicting the least recently used
+	 * entries if the cache is over its maximum size.  If the entry on its own
+	 * is larger than the maximum size of the cache, it will not be cached.</p>
+	 *
+	 * @param key The cache key
+	 * @param value The response to cache
+	 */
+	public void put(String key, String value) {
+		long numBytes = getNumBytes(key, value);
+		if (numBytes > maxBytes) {
+			return;
+		}
+
+		CacheEntry previous = cache.put(key, new CacheEntry(value, numBytes, System.nanoTime()));
+		currentBytes.addAndGet((null == previous) ? numBytes : numBytes - previous.numBytes);
+
+		evict();
+	}
+
+	/**
+	 * <p>Evict the least recently used entries until the cache is back under
+	 * its maximum size.  If another thread is already evicting, then this
+	 * returns straight away, and the other thread will evict this thread's
+	 * entry as well.</p>
+	 */
+	private void evict() {
+		while (currentBytes.get() > maxBytes && evictionLock.tryLock()) {
+			try {
+				while (currentBytes.get() > maxBytes) {
+					Map.Entry<String, CacheEntry> eldest = null;
+					for (Map.Entry<String, CacheEntry> entry : cache.entrySet()) {
+						if (null == eldest || entry.getValue().lastAccessNanos - eldest.getValue().lastAccessNanos < 0) {
+							eldest = entry;
+						}
+					}
+
+					if (null == eldest) {
+						break;
+					}
+
+					if (remove(eldest.getKey(), eldest.getValue())) {
+						numEvictions.increment();
+					}
+				}
+			} finally {
+				evictionLock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * <p>Remove the entry from the cache, as long as it has not been replaced,
+	 * and release its bytes.</p>
+	 *
+	 * @param key The cache key
+	 * @param cacheEntry The entry to remove
+	 *
+	 * @return Whether the entry was removed
+	 */
+	private boolean remove(String key, CacheEntry cacheEntry) {
+		if (cache.remove(key, cacheEntry)) {
+			currentBytes.addAndGet(-cacheEntry.numBytes);
+			return (true);
+		}
+		return (false);
+	}
+
+	/**
+	 * <p>Remove all entries from the cache.</p>
+	 */
+	public void clear() {
+		for (Map.Entry<String, CacheEntry> entry : cache.entrySet()) {
+			remove(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * <p>Return the approximate number of bytes that the key and value will
+	 * take up in memory.</p>
+	 *
+	 * @param key The key
+	 * @param value The value
+	 *
+	 * @return The approximate number of bytes
+	 */
+	private static long getNumBytes(String key, String value) {
+		return (2L * (key.length() + value.length()));
+	}
+
+	/**
+	 * <p>Return the number of entries in the cache.</p>
+	 *
+	 * @return The number of entries in the cache
+	 */
+	public int getNumEntries() {
+		return (cache.size());
+	}
+
+	/**
+	 * <p>Return the approximate number of bytes that the cache is holding.</p>
+	 *
+	 * @return The approximate number of bytes held
+	 */
+	public long getCurrentBytes() {
+		return (currentBytes.get());
+	}
+
+	/**
+	 * <p>Return the maximum (approximate) number of bytes for this cache.</p>
+	 *
+	 * @return The maximum number of bytes
+	 */
+	public long getMaxBytes() {
+		return (maxBytes);
+	}
+
+	/**
+	 * <p>Return the number of lookups that returned a cached response.</p>
+	 *
+	 * @return The number of cache hits
+	 */
+	public long getNumHits() {
+		return (numHits.sum());
+	}
+
+	/**
+	 * <p>Return the number of lookups that did not return a cached response,
+	 * including those for expired entries.</p>
+	 *
+	 * @return The number of cache misses
+	 */
+	public long getNumMisses() {
+		return (numMisses.sum());
+	}
+
+	/**
+	 * <p>Return the number of entries that were evicted to keep the cache
+	 * under its maximum size.</p>
+	 *
+	 * @return The number of evictions
+	 */
+	public long getNumEvictions() {
+		return (numEvictions.sum());
+	}
+
+	/**
+	 * <p>Return the number of entries that were removed as they were older
+	 * than the TTL and the stale period.</p>
+	 *
+	 * @return The number of expirations
+	 */
+	public long getNumExpirations() {
+		return (numExpirations.sum());
+	}
+
+	/**
+	 * <p>Return the number of stale responses that were served as the Solr
+	 * server was unavailable.</p>
+	 *
+	 * @return The number of stale hits
+	 */
+	public long getNumStaleHits() {
+		return (numStaleHits.sum());
+	}
+
+	/**
+	 * <p>The cached value, with its size, creation time, and the time that it
+	 * was last accessed.</p>
+	 */
+	private static class CacheEntry {
+		private final String value;
+		private final long numBytes;
+		private final long createdNanos;
+		private volatile long lastAccessNanos;
+
+		private CacheEntry(String value, long numBytes, long createdNanos) {
+			this.value = value;
+			this.numBytes = numBytes;
+			this.createdNanos = createdNanos;
+			this.lastAccessNanos = createdNanos;
+		}
+	}
+}
@@ -0,0 +1,255 @@
+package com.synapticloop.panl.server.cache;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>A cache of precomputed response snapshots which are refreshed in the
+ * background on a fixed interval.  This is used for responses that do not
+ * depend on any user input (for example the single page configuration and
+ * the more facets response with no LPSE filters) which will only change when
+ * the underlying Solr index changes.</p>
+ *
+ * <p>Each snapshot is registered with the callable that generates it, the
+ * callable is invoked once when the snapshot is registered, and then again on
+ * every refresh.  If a refresh fails, then the previous snapshot will
+ * continue to be served.</p>
+ *
+ * <p>As a snapshot is served to many requests, it __MUST NOT__ include the
+ * timings of the request that generated it - the handler completes the
+ * snapshot with the timings of the request that it is served to.</p>
+ *
+ * <p><strong>NOTE:</strong> the callables are invoked on the background
+ * refresh thread, so they __MUST NOT__ reference anything that belongs to a
+ * single request.</p>
+ *
+ * @author synapticloop
+ */
+public class PanlSnapshotCache implements Closeable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(PanlSnapshotCache.class);
+
+	private final String name;
+	private final int maxNumSnapshots;
+	private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+	/**
+	 * <p>The lock that guards the registration of new snapshots, so that the
+	 * maximum number of snapshots is never exceeded</p>
+	 */
+	private final Object registrationLock = new Object();
+	private final ScheduledExecutorService scheduledExecutorService;
+
+	private final LongAdder numHits = new LongAdder();
+	private final LongAdder numMisses = new LongAdder();
+	private final LongAdder numRefreshes = new LongAdder();
+	private final LongAdder numRefreshFailures = new LongAdder();
+
+	/**
+	 * <p>Instantiate the snapshot cache and schedule the background
+	 * refresh.</p>
+	 *
+	 * @param name The name of the cache, used for logging and the name of the
+	 *    refresh thread
+	 * @param refreshSeconds The number of seconds between refreshes
+	 * @param maxNumSnapshots The maximum number of snapshots that will be
+	 *    registered, any further snapshots will not be cached
+	 */
+	public PanlSnapshotCache(String name, int refreshSeconds, int maxNumSnapshots) {
+		this.name = name;
+		this.maxNumSnapshots = maxNumSnapshots;
+
+		this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "panl-snapshot-" + name);
+			thread.setDaemon(true);
+			return (thread);
+		});
+
+		this.scheduledExecutorService.scheduleWithFixedDelay(
+				this::refresh,
+				refreshSeconds,
+				refreshSeconds,
+				TimeUnit.SECONDS);
+	}
+
+	/**
+	 * <p>Register a snapshot which will be generated in the background straight
+	 * away, and then refreshed on the interval.</p>
+	 *
+	 * @param key The key for the snapshot
+	 * @param snapshotCallable The callable that will generate the snapshot
+	 */
+	public void register(String key, Callable<String> snapshotCallable) {
+		Snapshot snapshot = new Snapshot(snapshotCallable);
+		if (snapshot == putIfRoom(key, snapshot)) {
+			scheduledExecutorService.execute(() -> refresh(key, snapshot));
+		}
+	}
+
+	/**
+	 * <p>Register the snapshot if there is no snapshot for the key, and the
+	 * maximum number of snapshots has not been reached.</p>
+	 *
+	 * @param key The key for the snapshot
+	 * @param snapshot The snapshot to register
+	 *
+	 * @return The snapshot that is registered for the key (which is the passed
+	 *    in snapshot if it was registered), or null if there is no room
+	 */
+	private Snapshot putIfRoom(String key, Snapshot snapshot) {
+		synchronized (registrationLock) {
+			Snapshot existing = snapshots.get(key);
+			if (null != existing) {
+				return (existing);
+			}
+
+			if (snapshots.size() >= maxNumSnapshots) {
+				return (null);
+			}
+
+			snapshots.put(key, snapshot);
+			return (snapshot);
+		}
+	}
+
+	/**
+	 * <p>Get the snapshot for the key.  If there is no snapshot available yet,
+	 * the callable is invoked on the calling thread, and (if there is room) the
+	 * snapshot is registered so that it will be refreshed in the background.
+	 * Any exception thrown by the callable is thrown to the caller, and the
+	 * snapshot will not be registered.</p>
+	 *
+	 * @param key The key for the snapshot
+	 * @param snapshotCallable The callable that will generate the snapshot
+	 *
+	 * @return The snapshot
+	 *
+	 * @throws Exception If there was no snapshot and the callable threw an
+	 *    exception
+	 */
+	public String get(String key, Callable<String> snapshotCallable) throws Exception {
+		Snapshot snapshot = snapshots.get(key);
+		if (null != snapshot) {
+			String value = snapshot.value;
+			if (null != value) {
+				numHits.increment();
+				return (value);
+			}
+		}
+
+		numMisses.increment();
+		String value = snapshotCallable.call();
+
+		if (null == snapshot) {
+			snapshot = putIfRoom(key, new Snapshot(snapshotCallable));
+		}
+
+		if (null != snapshot && null == snapshot.value) {
+			snapshot.value = value;
+		}
+
+		return (value);
+	}
+
+	/**
+	 * <p>Refresh all the registered snapshots.</p>
+	 */
+	public void refresh() {
+		for (Map.Entry<String, Snapshot> entry : snapshots.entrySet()) {
+			refresh(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * <p>Refresh a single snapshot, if the refresh fails, the previous value
+	 * will be retained.</p>
+	 *
+	 * @param key The key of the snapshot (used for logging)
+	 * @param snapshot The snapshot to refresh
+	 */
+	private void refresh(String key, Snapshot snapshot) {
+		try {
+			snapshot.value = snapshot.snapshotCallable.call();
+			numRefreshes.increment();
+		} catch (Exception e) {
+			numRefreshFailures.increment();
+			LOGGER.warn("[ {} ] Could not refresh the snapshot for '{}', message was '{}'", name, key, e.getMessage());
+		}
+	}
+
+	/**
+	 * <p>Return the number of registered snapshots.</p>
+	 *
+	 * @return The number of registered snapshots
+	 */
+	public int getNumSnapshots() {
+		return (snapshots.size());
+	}
+
+	public long getNumHits() {
+		return (numHits.sum());
+	}
+
+	public long getNumMisses() {
+		return (numMisses.sum());
+	}
+
+	public long getNumRefreshes() {
+		return (numRefreshes.sum());
+	}
+
+	public long getNumRefreshFailures() {
+		return (numRefreshFailures.sum());
+	}
+
+	/**
+	 * <p>Stop the background refresh.</p>
+	 */
+	@Override public void close() {
+		scheduledExecutorService.shutdownNow();
+	}
+
+	/**
+	 * <p>The snapshot value, and the callable that generates it.</p>
+	 */
+	private static class Snapshot {
+		private final Callable<String> snapshotCallable;
+		private volatile String value;
+
+		private Snapshot(Callable<String> snapshotCallable) {
+			this.snapshotCallable = snapshotCallable;
+		}
+	}
+}
@@ -0,0 +1,9 @@
+/**
+ * <p>The package for the in-memory caches that are used to reduce the number
+ * of requests that are sent through to the Solr server.</p>
+ *
+ * @since 1.0
+ * @author synapticloop
+ * @version 1.0
+ */
+package com.synapticloop.panl.server.cache;
@@ -0,0 +1,270 @@
+package com.synapticloop.panl.server.client;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>A circuit breaker for the requests from a single Panl client to its Solr
+ * server, so that an unhealthy Solr collection fails fast, rather than tying
+ * up the Panl server threads until the SolrJ client times out.</p>
+ *
+ * <p>The breaker has three states:</p>
+ *
+ * <ul>
+ *   <li><code>CLOSED</code> - requests are sent to the Solr server, and the
+ *   outcome of the last <code>windowSize</code> requests is recorded.  Once at
+ *   least <code>minimumNumCalls</code> requests have been recorded, if either
+ *   the percentage of failed requests or the percentage of slow requests
+ *   reaches its threshold, the breaker opens.</li>
+ *   <li><code>OPEN</code> - requests are rejected without being sent to the
+ *   Solr server until the open duration has passed.</li>
+ *   <li><code>HALF_OPEN</code> - a single probe request is sent to the Solr
+ *   server, all other requests are rejected.  If the probe succeeds (and is
+ *   not slow) the breaker closes, otherwise it opens again.</li>
+ * </ul>
+ *
+ * <p>All state changes are made while holding the lock on this breaker, which
+ * is only held for the (cheap) bookkeeping, never while waiting on the Solr
+ * server.</p>
+ *
+ * @author synapticloop
+ */
+public class PanlCircuitBreaker {
+	private static final Logger LOGGER = LoggerFactory.getLogger(PanlCircuitBreaker.class);
+
+	public static final int STATE_CLOSED = 0;
+	public static final int STATE_OPEN = 1;
+	public static final int STATE_HALF_OPEN = 2;
+
+	private final String solrCollection;
+	private final int failureRateThreshold;
+	private final int slowCallRateThreshold;
+	private final long slowCallNanos;
+	private final int minimumNumCalls;
+	private final long openNanos;
+
+	// the outcome of the last window size calls, as a ring buffer - these are
+	// guarded by this breaker
+	private final boolean[] failedCalls;
+	private final boolean[] slowCalls;
+	private int windowIndex = 0;
+	private int numCalls = 0;
+	private int numFailedCalls = 0;
+	private int numSlowCalls = 0;
+	private long openedNanos = 0L;
+	private boolean isProbeInFlight = false;
+
+	private volatile int state = STATE_CLOSED;
+
+	private final LongAdder numRejected = new LongAdder();
+	private final LongAdder numOpened = new LongAdder();
+
+	/**
+	 * <p>Instantiate the circuit breaker.</p>
+	 *
+	 * @param solrCollection The Solr collection that the breaker is for, which
+	 *   is only used for logging
+	 * @param failureRateThreshold The percentage of failed requests at which
+	 *   the breaker opens
+	 * @param slowCallRateThreshold The percentage of slow requests at which the
+	 *   breaker opens
+	 * @param slowCallMillis The number of milliseconds above which a request is
+	 *   slow
+	 * @param windowSize The number of most recent requests that the rates are
+	 *   calculated over
+	 * @param minimumNumCalls The minimum number of recorded requests before the
+	 *   rates are checked
+	 * @param openSeconds The number of seconds that the breaker stays open
+	 *   before a probe request is allowed through
+	 */
+	public PanlCircuitBreaker(
+			String solrCollection,
+			int failureRateThreshold,
+			int slowCallRateThreshold,
+			int slowCallMillis,
+			int windowSize,
+			int minimumNumCalls,
+			int openSeconds) {
+		this.solrCollection = solrCollection;
+		this.failureRateThreshold = failureRateThreshold;
+		this.slowCallRateThreshold = slowCallRateThreshold;
+		this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+		this.failedCalls = new boolean[Math.max(1, windowSize)];
+		this.slowCalls = new boolean[failedCalls.length];
+		this.minimumNumCalls = Math.min(failedCalls.length, Math.max(1, minimumNumCalls));
+		this.openNanos = TimeUnit.SECONDS.toNanos(openSeconds);
+	}
+
+	/**
+	 * <p>Return whether a request may be sent to the Solr server - if it may,
+	 * then <code>onResult</code> __MUST__ be called when the request
+	 * completes.</p>
+	 *
+	 * @return Whether the request is permitted
+	 */
+	public boolean tryAcquirePermission() {
+		// the common case is lock-free
+		if (state == STATE_CLOSED) {
+			return (true);
+		}
+
+		synchronized (this) {
+			if (state == STATE_CLOSED) {
+				return (true);
+			}
+
+			if (state == STATE_OPEN && System.nanoTime() - openedNanos >= openNanos) {
+				state = STATE_HALF_OPEN;
+			}
+
+			if (state == STATE_HALF_OPEN && !isProbeInFlight) {
+				isProbeInFlight = true;
+				return (true);
+			}
+		}
+
+		numRejected.increment();
+		return (false);
+	}
+
+	/**
+	 * <p>Record the outcome of a permitted request.</p>
+	 *
+	 * @param startNanos The nano time that the request was started
+	 * @param durationNanos The number of nanos that the request took
+	 * @param isFailed Whether the request failed
+	 */
+	public synchronized void onResult(long startNanos, long durationNanos, boolean isFailed) {
+		boolean isSlow = durationNanos >= slowCallNanos;
+
+		if (state != STATE_CLOSED) {
+			// only the probe can have been started after the breaker opened, any
+			// other request was sent before then and is ignored
+			if (state == STATE_HALF_OPEN && isProbeInFlight && startNanos - openedNanos >= 0) {
+				isProbeInFlight = false;
+				if (isFailed || isSlow) {
+					open();
+				} else {
+					LOGGER.info("[ Solr collection '{}' ] Closing the circuit breaker, the probe request succeeded", solrCollection);
+					close();
+				}
+			}
+			return;
+		}
+
+		if (numCalls == failedCalls.length) {
+			// remove the oldest outcome from the window
+			if (failedCalls[windowIndex]) {
+				numFailedCalls--;
+			}
+			if (slowCalls[windowIndex]) {
+				numSlowCalls--;
+			}
+		} else {
+			numCalls++;
+		}
+
+		failedCalls[windowIndex] = isFailed;
+		slowCalls[windowIndex] = isSlow;
+		if (isFailed) {
+			numFailedCalls++;
+		}
+		if (isSlow) {
+			numSlowCalls++;
+		}
+		windowIndex = (windowIndex + 1) % failedCalls.length;
+
+		if (numCalls >= minimumNumCalls &&
+				(numFailedCalls * 100 >= failureRateThreshold * numCalls ||
+						numSlowCalls * 100 >= slowCallRateThreshold * numCalls)) {
+			LOGGER.warn("[ Solr collection '{}' ] Opening the circuit breaker, {} of the last {} requests failed, {} were slow",
+					solrCollection,
+					numFailedCalls,
+					numCalls,
+					numSlowCalls);
+			open();
+		}
+	}
+
+	private void open() {
+		state = STATE_OPEN;
+		openedNanos = System.nanoTime();
+		numOpened.increment();
+	}
+
+	private void close() {
+		state = STATE_CLOSED;
+		windowIndex = 0;
+		numCalls = 0;
+		numFailedCalls = 0;
+		numSlowCalls = 0;
+	}
+
+	/**
+	 * <p>Return the number of whole seconds (at least one) until the breaker
+	 * will allow a probe request through, for use in the
+	 * <code>Retry-After</code> header.</p>
+	 *
+	 * @return The number of seconds until a request may be retried
+	 */
+	public synchronized int getRetryAfterSeconds() {
+		long remainingNanos = openNanos - (System.nanoTime() - openedNanos);
+		return ((int) Math.max(1L, TimeUnit.NANOSECONDS.toSeconds(remainingNanos + TimeUnit.SECONDS.toNanos(1) - 1)));
+	}
+
+	/**
+	 * <p>Return the current state of the breaker.</p>
+	 *
+	 * @return The state, one of <code>STATE_CLOSED</code>,
+	 *   <code>STATE_OPEN</code>, or <code>STATE_HALF_OPEN</code>
+	 */
+	public int getState() {
+		return (state);
+	}
+
+	/**
+	 * <p>Return the number of requests that were rejected without being sent to
+	 * the Solr server.</p>
+	 *
+	 * @return The number of rejected requests
+	 */
+	public long getNumRejected() {
+		return (numRejected.sum());
+	}
+
+	/**
+	 * <p>Return the number of times that the breaker has opened.</p>
+	 *
+	 * @return The number of times opened
+	 */
+	public long getNumOpened() {
+		return (numOpened.sum());
+	}
+}
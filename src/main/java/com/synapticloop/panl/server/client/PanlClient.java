@@ -24,24 +24,48 @@ package com.synapticloop.panl.server.client;
  * IN THE SOFTWARE.
  */
 
+import com.synapticloop.panl.exception.PanlCircuitOpenException;
+import com.synapticloop.panl.exception.PanlConcurrencyLimitException;
+import com.synapticloop.panl.server.handler.bean.PanlQueryParametersBean;
 import com.synapticloop.panl.server.handler.properties.PanlProperties;
 import com.synapticloop.panl.server.handler.properties.CollectionProperties;
-import org.apache.http.NameValuePair;
-import org.apache.http.client.utils.URLEncodedUtils;
+import com.synapticloop.panl.server.limiter.PanlConcurrencyPermit;
 import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.impl.Http2SolrClient;
+import org.apache.solr.client.solrj.request.QueryRequest;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.nio.charset.StandardCharsets;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * <p>The abstract Panl client used for connecting to the underying default
  * Solr server.</p>
- * 
+ *
+ * <p>The underlying SolrJ client is thread-safe and expensive to create (it
+ * holds the HTTP connection pool and the HTTP client threads), so a single
+ * instance is lazily created on the first request and then shared by all
+ * requests for this collection.  It is only released when this Panl client
+ * is closed, which happens when the Panl server is stopped.</p>
+ *
+ * <p>If the circuit breaker is enabled, the requests to the Solr server are
+ * guarded by it, so that an unhealthy Solr collection fails fast with a
+ * <code>PanlCircuitOpenException</code>, rather than tying up the Panl server
+ * threads until the SolrJ client times out.</p>
+ *
  * @author synapticloop
  */
-public abstract class PanlClient {
+public abstract class PanlClient implements Closeable {
 	public static final Logger LOGGER = LoggerFactory.getLogger(PanlClient.class);
 
 	protected final String solrCollection;
@@ -49,6 +73,33 @@ public abstract class PanlClient {
 	protected final CollectionProperties collectionProperties;
 	protected final String queryParameter;
 
+	/**
+	 * <p>The lock that guards the creation and closing of the shared client</p>
+	 */
+	private final Object clientLock = new Object();
+
+	/**
+	 * <p>The shared SolrJ client, lazily created on first use</p>
+	 */
+	private volatile SolrClient solrClient = null;
+
+	/**
+	 * <p>The coalescer for concurrent identical queries</p>
+	 */
+	private final PanlRequestCoalescer panlRequestCoalescer = new PanlRequestCoalescer();
+
+	/**
+	 * <p>The circuit breaker for the Solr requests, or null if it is not
+	 * enabled</p>
+	 */
+	private final PanlCircuitBreaker panlCircuitBreaker;
+
+	/**
+	 * <p>The executor that the asynchronous Solr responses are processed on, or
+	 * null if the requests are not sent asynchronously</p>
+	 */
+	private volatile Executor asyncExecutor = null;
+
 	/**
 	 * <p>Instantiate a new Panl Client which will return the </p>
 	 *
@@ -61,38 +112,450 @@ public abstract class PanlClient {
 		this.panlProperties = panlProperties;
 		this.collectionProperties = collectionProperties;
 		this.queryParameter = collectionProperties.getFormQueryRespondTo();
+
+		if (panlProperties.getHasCircuitBreaker()) {
+			this.panlCircuitBreaker = new PanlCircuitBreaker(
+					solrCollection,
+					panlProperties.getCircuitBreakerFailureRate(),
+					panlProperties.getCircuitBreakerSlowCallRate(),
+					panlProperties.getCircuitBreakerSlowCallMillis(),
+					panlProperties.getCircuitBreakerWindowSize(),
+					panlProperties.getCircuitBreakerMinimumCalls(),
+					panlProperties.getCircuitBreakerOpenSeconds());
+		} else {
+			this.panlCircuitBreaker = null;
+		}
 	}
 
 	/**
-	 * <p>Get the SolrJClient for this configuration.</p>
+	 * <p>Get the shared SolrJ client for this configuration, creating it on the
+	 * first invocation.</p>
+	 *
+	 * <p><strong>NOTE:</strong> The returned client is shared between all
+	 * requests and __MUST__ not be closed by the caller (i.e. do not use it in
+	 * a try-with-resources block).</p>
 	 *
 	 * @return The configured Solr Client
 	 */
-	public abstract SolrClient getClient();
+	public SolrClient getClient() {
+		SolrClient client = this.solrClient;
+		if (null == client) {
+			synchronized (clientLock) {
+				client = this.solrClient;
+				if (null == client) {
+					LOGGER.info("[ Solr collection '{}' ] Creating shared SolrJ client.", solrCollection);
+					client = createClient();
+					this.solrClient = client;
+				}
+			}
+		}
+		return (client);
+	}
+
+	/**
+	 * <p>Create a new SolrJ client for this configuration.  This is only
+	 * invoked once for the lifetime of this Panl client (unless it has been
+	 * closed).</p>
+	 *
+	 * @return The newly created Solr Client
+	 */
+	protected abstract SolrClient createClient();
 
 	/**
-	 * <p>Return the solr queryParameterString string from the URL - i.e. in the normal GET
-	 * method for parameters <code>q=search queryParameterString</code></p>
+	 * <p>Send the query to the Solr server asynchronously, returning a future
+	 * that will be completed with the Solr response.</p>
 	 *
-	 * <p>The key __MUST__ always be <code>q</code></p>
+	 * <p>If request coalescing is enabled (the default), then concurrent
+	 * identical queries will share the one in-flight request to the Solr server,
+	 * and the same <code>QueryResponse</code>, which __MUST__ not be modified.</p>
 	 *
-	 * @param queryParameterString The queryParameterString string
+	 * <p>The query is only sent asynchronously if the <code>solrj.async</code>
+	 * property is set to <code>true</code>, the shared client is a
+	 * Http2SolrClient (i.e. the <code>solrj.client</code> property is set to
+	 * <code>Http2SolrClient</code>) <strong>and</strong> an executor has been
+	 * set (i.e. the server is running in NIO mode), in which case the calling
+	 * thread is not blocked, and the future is completed on the executor, so
+	 * that the SolrJ client threads do not parse the response.  Otherwise,
+	 * the query is sent on the calling thread and the returned future is
+	 * already complete.</p>
 	 *
-	 * @return The Solr queryParameterString with the queryParameterString set
+	 * @param collection The Solr collection to query
+	 * @param solrQuery The Solr query to send
+	 *
+	 * @return The future that will be completed with the Solr response, or
+	 * 		exceptionally completed if there was an error (including a
+	 * 		<code>PanlCircuitOpenException</code> if the circuit breaker is open)
+	 *
+	 * @see PanlRequestCoalescer
 	 */
-	public SolrQuery getQuery(String queryParameterString) {
-		String thisQuery = "*:*";
+	public CompletableFuture<QueryResponse> queryAsync(String collection, SolrQuery solrQuery) {
+		if (panlProperties.getRequestCoalescing()) {
+			return (panlRequestCoalescer.execute(collection, solrQuery, () -> sendQuery(collection, solrQuery)));
+		} else {
+			return (sendQuery(collection, solrQuery));
+		}
+	}
 
-		boolean hasQuery = false;
-		// TODO - this should probably be using the parseKeywords utility
-		for (NameValuePair nameValuePair : URLEncodedUtils.parse(queryParameterString, StandardCharsets.UTF_8)) {
-			if(nameValuePair.getName().equals(queryParameter)) {
-				thisQuery = nameValuePair.getValue();
-				hasQuery = true;
-				break;
+	/**
+	 * <p>Send the query to the Solr server asynchronously (as per
+	 * <code>queryAsync(String, SolrQuery)</code>), once the concurrency permit
+	 * for the request has been acquired.  The time taken to send the query to,
+	 * and receive the response from, the Solr server is recorded to the permit,
+	 * unless the query was not sent as the circuit breaker is open.</p>
+	 *
+	 * @param collection The Solr collection to query
+	 * @param solrQuery The Solr query to send
+	 * @param panlConcurrencyPermit The concurrency permit for the request, or
+	 *   null if the request is not concurrency limited
+	 *
+	 * @return The future that will be completed with the Solr response, or
+	 * 		exceptionally completed if there was an error (including a
+	 * 		<code>PanlConcurrencyLimitException</code> if the concurrency limit has
+	 * 		been reached)
+	 *
+	 * @see PanlConcurrencyPermit
+	 */
+	public CompletableFuture<QueryResponse> queryAsync(String collection, SolrQuery solrQuery, PanlConcurrencyPermit panlConcurrencyPermit) {
+		if (null == panlConcurrencyPermit) {
+			return (queryAsync(collection, solrQuery));
+		}
+
+		try {
+			panlConcurrencyPermit.acquire();
+		} catch (PanlConcurrencyLimitException e) {
+			return (CompletableFuture.failedFuture(e));
+		}
+
+		long startNanos = System.nanoTime();
+		return (queryAsync(collection, solrQuery)
+				.whenComplete((queryResponse, throwable) -> recordSolrRequest(panlConcurrencyPermit, startNanos, throwable)));
+	}
+
+	/**
+	 * <p>Send the query to the Solr server synchronously, on the calling thread,
+	 * without coalescing it with identical queries.  This is used for the
+	 * requests which need the raw Solr response (e.g. the more like this
+	 * requests).</p>
+	 *
+	 * @param collection The Solr collection to query
+	 * @param solrQuery The Solr query to send
+	 *
+	 * @return The Solr response
+	 *
+	 * @throws SolrServerException If there was an error with the Solr server
+	 * @throws IOException If there was an error communicating with the Solr
+	 *   server
+	 * @throws PanlCircuitOpenException If the circuit breaker is open
+	 */
+	public QueryResponse query(String collection, SolrQuery solrQuery) throws SolrServerException, IOException, PanlCircuitOpenException {
+		return (query(collection, solrQuery, null));
+	}
+
+	/**
+	 * <p>Send the query to the Solr server synchronously (as per
+	 * <code>query(String, SolrQuery)</code>), once the concurrency permit for
+	 * the request has been acquired.  The time taken to send the query to, and
+	 * receive the response from, the Solr server is recorded to the permit,
+	 * unless the query was not sent as the circuit breaker is open.</p>
+	 *
+	 * @param collection The Solr collection to query
+	 * @param solrQuery The Solr query to send
+	 * @param panlConcurrencyPermit The concurrency permit for the request, or
+	 *   null if the request is not concurrency limited
+	 *
+	 * @return The Solr response
+	 *
+	 * @throws SolrServerException If there was an error with the Solr server
+	 * @throws IOException If there was an error communicating with the Solr
+	 *   server
+	 * @throws PanlCircuitOpenException If the circuit breaker is open
+	 * @throws PanlConcurrencyLimitException If the concurrency limit has been
+	 *   reached
+	 */
+	public QueryResponse query(
+			String collection,
+			SolrQuery solrQuery,
+			PanlConcurrencyPermit panlConcurrencyPermit) throws SolrServerException, IOException, PanlCircuitOpenException, PanlConcurrencyLimitException {
+
+		if (null != panlConcurrencyPermit) {
+			panlConcurrencyPermit.acquire();
+		}
+
+		long startNanos = System.nanoTime();
+		checkCircuitBreaker(collection);
+
+		Throwable throwable = null;
+		try {
+			return (getClient().query(collection, solrQuery));
+		} catch (SolrServerException | IOException | RuntimeException e) {
+			throwable = e;
+			throw e;
+		} finally {
+			recordResult(startNanos, throwable);
+			if (null != panlConcurrencyPermit) {
+				recordSolrRequest(panlConcurrencyPermit, startNanos, throwable);
+			}
+		}
+	}
+
+	/**
+	 * <p>Record the Solr request to the concurrency permit, unless it was not
+	 * sent as the circuit breaker is open.</p>
+	 *
+	 * @param panlConcurrencyPermit The concurrency permit for the request
+	 * @param startNanos The nano time that the request was started
+	 * @param throwable The exception that the request failed with, or null if
+	 *   it succeeded
+	 */
+	private static void recordSolrRequest(PanlConcurrencyPermit panlConcurrencyPermit, long startNanos, Throwable throwable) {
+		Throwable cause = throwable;
+		while (cause instanceof CompletionException && null != cause.getCause()) {
+			cause = cause.getCause();
+		}
+
+		if (cause instanceof PanlCircuitOpenException) {
+			return;
+		}
+
+		panlConcurrencyPermit.recordSolrRequest(startNanos, System.nanoTime() - startNanos, getIsFailure(cause));
+	}
+
+	/**
+	 * <p>Send the query to the Solr server, guarded by the circuit breaker (if
+	 * it is enabled).</p>
+	 *
+	 * @param collection The Solr collection to query
+	 * @param solrQuery The Solr query to send
+	 *
+	 * @return The future that will be completed with the Solr response
+	 */
+	private CompletableFuture<QueryResponse> sendQuery(String collection, SolrQuery solrQuery) {
+		if (null == panlCircuitBreaker) {
+			return (sendQueryToSolr(collection, solrQuery));
+		}
+
+		long startNanos = System.nanoTime();
+		try {
+			checkCircuitBreaker(collection);
+		} catch (PanlCircuitOpenException e) {
+			return (CompletableFuture.failedFuture(e));
+		}
+
+		CompletableFuture<QueryResponse> completableFuture;
+		try {
+			completableFuture = sendQueryToSolr(collection, solrQuery);
+		} catch (RuntimeException e) {
+			recordResult(startNanos, e);
+			throw e;
+		}
+		return (completableFuture.whenComplete((queryResponse, throwable) -> recordResult(startNanos, throwable)));
+	}
+
+	/**
+	 * <p>Check whether the circuit breaker (if it is enabled) permits a request
+	 * to be sent to the Solr server.</p>
+	 *
+	 * @param collection The Solr collection that is to be queried
+	 *
+	 * @throws PanlCircuitOpenException If the circuit breaker is open
+	 */
+	private void checkCircuitBreaker(String collection) throws PanlCircuitOpenException {
+		if (null != panlCircuitBreaker && !panlCircuitBreaker.tryAcquirePermission()) {
+			throw new PanlCircuitOpenException(
+					String.format("The circuit breaker for Solr collection '%s' is open, the request was not sent", collection),
+					panlCircuitBreaker.getRetryAfterSeconds());
+		}
+	}
+
+	/**
+	 * <p>Record the outcome of a request with the circuit breaker (if it is
+	 * enabled).</p>
+	 *
+	 * @param startNanos The nano time that the request was started
+	 * @param throwable The exception that the request failed with, or null if
+	 *   it succeeded
+	 */
+	private void recordResult(long startNanos, Throwable throwable) {
+		if (null != panlCircuitBreaker) {
+			panlCircuitBreaker.onResult(startNanos, System.nanoTime() - startNanos, getIsFailure(throwable));
+		}
+	}
+
+	/**
+	 * <p>Return whether the exception that a request completed with means that
+	 * the Solr server is unhealthy.  A Solr error with a 4xx code (e.g. an
+	 * invalid query) is a bad request, rather than a failure of the Solr
+	 * server, and a response that was rejected by the saturated worker pool was
+	 * returned by the Solr server.</p>
+	 *
+	 * @param throwable The exception, or null if the request succeeded
+	 *
+	 * @return Whether the request failed
+	 */
+	static boolean getIsFailure(Throwable throwable) {
+		Throwable cause = throwable;
+		while (cause instanceof CompletionException && null != cause.getCause()) {
+			cause = cause.getCause();
+		}
+
+		if (null == cause || cause instanceof RejectedExecutionException) {
+			return (false);
+		}
+
+		if (cause instanceof SolrException) {
+			int code = ((SolrException) cause).code();
+			return (code < 400 || code >= 500);
+		}
+		return (true);
+	}
+
+	/**
+	 * <p>Send the query to the Solr server, asynchronously if it is enabled and
+	 * supported by the client.</p>
+	 *
+	 * @param collection The Solr collection to query
+	 * @param solrQuery The Solr query to send
+	 *
+	 * @return The future that will be completed with the Solr response
+	 */
+	private CompletableFuture<QueryResponse> sendQueryToSolr(String collection, SolrQuery solrQuery) {
+		final SolrClient client = getClient();
+		final Executor executor = this.asyncExecutor;
+		CompletableFuture<QueryResponse> completableFuture = new CompletableFuture<>();
+		if (panlProperties.getSolrjAsync() && null != executor && client instanceof Http2SolrClient) {
+			((Http2SolrClient) client)
+					.requestAsync(new QueryRequest(solrQuery), collection)
+					.whenComplete((namedList, throwable) -> {
+						if (null != throwable) {
+							completableFuture.completeExceptionally(throwable);
+							return;
+						}
+
+						// hand the response over to a worker thread, if the worker pool is
+						// saturated the request fails (with a 503 response) rather than
+						// being processed on the Solr client I/O thread
+						try {
+							executor.execute(() -> {
+								try {
+									completableFuture.complete(new QueryResponse(namedList, client));
+								} catch (RuntimeException e) {
+									completableFuture.completeExceptionally(e);
+								}
+							});
+						} catch (RejectedExecutionException e) {
+							completableFuture.completeExceptionally(e);
+						}
+					});
+			return (completableFuture);
+		}
+
+		try {
+			completableFuture.complete(client.query(collection, solrQuery));
+		} catch (Exception e) {
+			completableFuture.completeExceptionally(e);
+		}
+		return (completableFuture);
+	}
+
+	/**
+	 * <p>Set the executor that the asynchronous Solr responses are processed
+	 * on.  The Solr requests are only sent asynchronously once this has been
+	 * set, as a thread that waits on the response may as well send the
+	 * request.  If the executor rejects a response, the request is completed
+	 * exceptionally with the <code>RejectedExecutionException</code>.</p>
+	 *
+	 * @param asyncExecutor The executor for the asynchronous Solr responses
+	 */
+	public void setAsyncExecutor(Executor asyncExecutor) {
+		this.asyncExecutor = asyncExecutor;
+	}
+
+	/**
+	 * <p>Return the request coalescer for this client.</p>
+	 *
+	 * @return The request coalescer
+	 */
+	public PanlRequestCoalescer getPanlRequestCoalescer() {
+		return (panlRequestCoalescer);
+	}
+
+	/**
+	 * <p>Return the circuit breaker for this client.</p>
+	 *
+	 * @return The circuit breaker, or null if it is not enabled
+	 */
+	public PanlCircuitBreaker getPanlCircuitBreaker() {
+		return (panlCircuitBreaker);
+	}
+
+	/**
+	 * <p>Return a new Http2SolrClient builder with the connection pool and
+	 * timeout values from the <code>panl.properties</code> file applied to it.
+	 * Any property that was not set is left at the SolrJ default.</p>
+	 *
+	 * @param solrUrl The Solr URL to connect to, or null if the URL will be
+	 *    set by the client that uses this builder
+	 *
+	 * @return The configured Http2SolrClient builder
+	 */
+	protected Http2SolrClient.Builder getHttp2SolrClientBuilder(String solrUrl) {
+		Http2SolrClient.Builder builder;
+		if (null == solrUrl) {
+			builder = new Http2SolrClient.Builder();
+		} else {
+			builder = new Http2SolrClient.Builder(solrUrl);
+		}
+
+		if (null != panlProperties.getSolrjConnectionTimeout()) {
+			builder.withConnectionTimeout(panlProperties.getSolrjConnectionTimeout(), TimeUnit.MILLISECONDS);
+		}
+		if (null != panlProperties.getSolrjIdleTimeout()) {
+			builder.withIdleTimeout(panlProperties.getSolrjIdleTimeout(), TimeUnit.MILLISECONDS);
+		}
+		if (null != panlProperties.getSolrjRequestTimeout()) {
+			builder.withRequestTimeout(panlProperties.getSolrjRequestTimeout(), TimeUnit.MILLISECONDS);
+		}
+		if (null != panlProperties.getSolrjMaxConnectionsPerHost()) {
+			builder.withMaxConnectionsPerHost(panlProperties.getSolrjMaxConnectionsPerHost());
+		}
+		return (builder);
+	}
+
+	/**
+	 * <p>Close the shared SolrJ client (if it was created), releasing the
+	 * connection pool and any threads.  Any subsequent call to
+	 * {@link #getClient()} will create a new client.</p>
+	 */
+	@Override
+	public void close() {
+		synchronized (clientLock) {
+			if (null != this.solrClient) {
+				try {
+					this.solrClient.close();
+				} catch (IOException e) {
+					LOGGER.warn("[ Solr collection '{}' ] Could not cleanly close the SolrJ client, message was '{}'",
+							solrCollection,
+							e.getMessage());
+				}
+				this.solrClient = null;
 			}
 		}
-		if(hasQuery) {
+	}
+
+	/**
+	 * <p>Return the solr query from the parsed query parameters - i.e. in the
+	 * normal GET method for parameters <code>q=search query</code></p>
+	 *
+	 * <p>The key __MUST__ always be <code>q</code></p>
+	 *
+	 * @param queryParameters The parsed query parameters
+	 *
+	 * @return The Solr query with the query set
+	 */
+	public SolrQuery getQuery(PanlQueryParametersBean queryParameters) {
+		// TODO - this should probably be using the parseKeywords utility
+		String thisQuery = queryParameters.getValue(queryParameter);
+		if(null != thisQuery) {
 			return(new SolrQuery("\"" + thisQuery.replaceAll("\"", "") + "\""));
 		} else {
 			return(new SolrQuery("*:*"));
@@ -0,0 +1,174 @@
+package com.synapticloop.panl.server.client;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.response.QueryResponse;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * <p>The request coalescer (a.k.a. 'single flight') ensures that concurrent
+ * identical Solr queries share a single outbound request to the Solr server,
+ * and the parsed Solr response.</p>
+ *
+ * <p>Queries are keyed on the Solr collection and the normalised Solr query
+ * parameters (the parameter names are sorted, the order of the values for
+ * each of the parameters is retained as it is significant).  Whilst a query
+ * is in-flight, any identical query will be given the same future, once the
+ * query completes, it is removed and the next identical query will be sent
+ * to the Solr server.</p>
+ *
+ * <p><strong>NOTE:</strong> The shared <code>QueryResponse</code> is only
+ * ever read by the Panl processors, it __MUST__ not be modified.</p>
+ *
+ * @author synapticloop
+ */
+public class PanlRequestCoalescer {
+	private final ConcurrentHashMap<String, CompletableFuture<QueryResponse>> inFlightRequests = new ConcurrentHashMap<>();
+
+	private final LongAdder numRequests = new LongAdder();
+	private final LongAdder numCoalescedRequests = new LongAdder();
+
+	/**
+	 * <p>Execute the request, or if an identical request is already in-flight,
+	 * return the in-flight request's future.</p>
+	 *
+	 * @param collection The Solr collection that the query is sent to
+	 * @param solrQuery The Solr query
+	 * @param requestSupplier The supplier that sends the query to the Solr
+	 *    server - this will only be invoked if there is no identical in-flight
+	 *    request
+	 *
+	 * @return The future which will complete with the Solr response
+	 */
+	public CompletableFuture<QueryResponse> execute(
+			String collection,
+			SolrQuery solrQuery,
+			Supplier<CompletableFuture<QueryResponse>> requestSupplier) {
+
+		numRequests.increment();
+
+		String key = getKey(collection, solrQuery);
+		CompletableFuture<QueryResponse> completableFuture = new CompletableFuture<>();
+		CompletableFuture<QueryResponse> inFlightFuture = inFlightRequests.putIfAbsent(key, completableFuture);
+		if (null != inFlightFuture) {
+			numCoalescedRequests.increment();
+			return (inFlightFuture);
+		}
+
+		try {
+			requestSupplier.get().whenComplete((queryResponse, throwable) -> {
+				// remove it first, so that any subsequent request will go to the Solr
+				// server rather than getting a response that has already completed
+				inFlightRequests.remove(key, completableFuture);
+				if (null != throwable) {
+					completableFuture.completeExceptionally(throwable);
+				} else {
+					completableFuture.complete(queryResponse);
+				}
+			});
+		} catch (RuntimeException e) {
+			inFlightRequests.remove(key, completableFuture);
+			completableFuture.completeExceptionally(e);
+		}
+
+		return (completableFuture);
+	}
+
+	/**
+	 * <p>Get the coalescing key for the query, which is the collection and the
+	 * normalised Solr parameters.</p>
+	 *
+	 * @param collection The Solr collection
+	 * @param solrQuery The Solr query
+	 *
+	 * @return The key for the query
+	 */
+	public static String getKey(String collection, SolrQuery solrQuery) {
+		List<String> parameterNames = new ArrayList<>();
+		Iterator<String> parameterNamesIterator = solrQuery.getParameterNamesIterator();
+		while (parameterNamesIterator.hasNext()) {
+			parameterNames.add(parameterNamesIterator.next());
+		}
+		parameterNames.sort(null);
+
+		StringBuilder sb = new StringBuilder(collection);
+		sb.append('?');
+		for (String parameterName : parameterNames) {
+			String[] values = solrQuery.getParams(parameterName);
+			if (null == values) {
+				continue;
+			}
+
+			// the value length is prefixed so that a value containing the separator
+			// characters cannot collide with a different set of parameters
+			for (String value : values) {
+				sb.append(parameterName)
+				  .append('=')
+				  .append(value.length())
+				  .append(':')
+				  .append(value)
+				  .append('&');
+			}
+		}
+		return (sb.toString());
+	}
+
+	/**
+	 * <p>Return the number of requests that are currently in-flight.</p>
+	 *
+	 * @return The number of in-flight requests
+	 */
+	public int getNumInFlightRequests() {
+		return (inFlightRequests.size());
+	}
+
+	/**
+	 * <p>Return the total number of requests that were passed to this
+	 * coalescer.</p>
+	 *
+	 * @return The total number of requests
+	 */
+	public long getNumRequests() {
+		return (numRequests.sum());
+	}
+
+	/**
+	 * <p>Return the number of requests that were served by an identical
+	 * in-flight request, rather than being sent to the Solr server.</p>
+	 *
+	 * @return The number of coalesced requests
+	 */
+	public long getNumCoalescedRequests() {
+		return (numCoalescedRequests.sum());
+	}
+}
@@ -79,11 +79,15 @@ public class PanlCloudHttp2SolrClient extends PanlClient {
 	}
 
 	@Override
-	public SolrClient getClient() {
+	protected SolrClient createClient() {
 		if (hasZookeeper) {
-			return (new CloudHttp2SolrClient.Builder(solrUrls, Optional.empty()).build());
+			return (new CloudHttp2SolrClient.Builder(solrUrls, Optional.empty())
+					.withInternalClientBuilder(getHttp2SolrClientBuilder(null))
+					.build());
 		} else {
-			return (new CloudHttp2SolrClient.Builder(solrUrls).build());
+			return (new CloudHttp2SolrClient.Builder(solrUrls)
+					.withInternalClientBuilder(getHttp2SolrClientBuilder(null))
+					.build());
 		}
 	}
 }
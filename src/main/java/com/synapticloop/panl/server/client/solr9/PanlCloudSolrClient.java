@@ -52,18 +52,30 @@ import com.synapticloop.panl.exception.PanlServerException;
 import com.synapticloop.panl.server.client.PanlClient;
 import com.synapticloop.panl.server.handler.properties.PanlProperties;
 import com.synapticloop.panl.server.handler.properties.CollectionProperties;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.impl.CloudSolrClient;
+import org.apache.solr.client.solrj.impl.HttpClientUtil;
+import org.apache.solr.common.params.ModifiableSolrParams;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 public class PanlCloudSolrClient extends PanlClient {
 	public static final String PREFIX_ZOOKEEPER = "zookeeper:";
 	private final List<String> solrUrls = new ArrayList<>();
 	private boolean hasZookeeper = false;
 
+	/**
+	 * <p>The underlying HTTP client with the configured connection pool, or
+	 * null if the SolrJ default is used - this is not closed by the cloud
+	 * client.</p>
+	 */
+	private volatile CloseableHttpClient httpClient = null;
+
 	public PanlCloudSolrClient(String solrCollection, PanlProperties panlProperties, CollectionProperties collectionProperties) throws PanlServerException {
 		super(solrCollection, panlProperties, collectionProperties);
 
@@ -79,11 +91,39 @@ public class PanlCloudSolrClient extends PanlClient {
 	}
 
 	@Override
-	public SolrClient getClient() {
+	protected SolrClient createClient() {
+		CloudSolrClient.Builder builder;
 		if (hasZookeeper) {
-			return (new CloudSolrClient.Builder(solrUrls, Optional.empty()).build());
+			builder = new CloudSolrClient.Builder(solrUrls, Optional.empty());
 		} else {
-			return (new CloudSolrClient.Builder(solrUrls).build());
+			builder = new CloudSolrClient.Builder(solrUrls);
+		}
+
+		// this client uses the Apache HTTP client, which has no idle timeout, and
+		// the socket (read) timeout is the closest to the request timeout
+		if (null != panlProperties.getSolrjConnectionTimeout()) {
+			builder.withConnectionTimeout(panlProperties.getSolrjConnectionTimeout(), TimeUnit.MILLISECONDS);
+		}
+		if (null != panlProperties.getSolrjRequestTimeout()) {
+			builder.withSocketTimeout(panlProperties.getSolrjRequestTimeout(), TimeUnit.MILLISECONDS);
+		}
+		if (null != panlProperties.getSolrjMaxConnectionsPerHost()) {
+			ModifiableSolrParams params = new ModifiableSolrParams();
+			params.set(HttpClientUtil.PROP_MAX_CONNECTIONS_PER_HOST, panlProperties.getSolrjMaxConnectionsPerHost());
+			this.httpClient = HttpClientUtil.createClient(params);
+			builder.withHttpClient(httpClient);
+		}
+
+		return (builder.build());
+	}
+
+	@Override
+	public void close() {
+		super.close();
+		CloseableHttpClient client = this.httpClient;
+		if (null != client) {
+			IOUtils.closeQuietly(client);
+			this.httpClient = null;
 		}
 	}
 }
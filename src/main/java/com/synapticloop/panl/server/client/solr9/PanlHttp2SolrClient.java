@@ -53,7 +53,6 @@ import com.synapticloop.panl.server.client.PanlClient;
 import com.synapticloop.panl.server.handler.properties.PanlProperties;
 import com.synapticloop.panl.server.handler.properties.CollectionProperties;
 import org.apache.solr.client.solrj.SolrClient;
-import org.apache.solr.client.solrj.impl.Http2SolrClient;
 
 public class PanlHttp2SolrClient extends PanlClient {
 	public PanlHttp2SolrClient(String solrCollection, PanlProperties panlProperties, CollectionProperties collectionProperties) throws PanlServerException {
@@ -61,7 +60,7 @@ public class PanlHttp2SolrClient extends PanlClient {
 	}
 
 	@Override
-	public SolrClient getClient() {
-		return(new Http2SolrClient.Builder(panlProperties.getSolrSearchServerUrl()).build());
+	protected SolrClient createClient() {
+		return(getHttp2SolrClientBuilder(panlProperties.getSolrSearchServerUrl()).build());
 	}
 }
@@ -55,13 +55,27 @@ import com.synapticloop.panl.server.handler.properties.CollectionProperties;
 import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.impl.HttpJdkSolrClient;
 
+import java.util.concurrent.TimeUnit;
+
 public class PanlHttpJdkSolrClient extends PanlClient {
 	public PanlHttpJdkSolrClient(String solrCollection, PanlProperties panlProperties, CollectionProperties collectionProperties) throws PanlServerException {
 		super(solrCollection, panlProperties, collectionProperties);
 	}
 
 	@Override
-	public SolrClient getClient() {
-		return(new HttpJdkSolrClient.Builder(panlProperties.getSolrSearchServerUrl()).build());
+	protected SolrClient createClient() {
+		HttpJdkSolrClient.Builder builder = new HttpJdkSolrClient.Builder(panlProperties.getSolrSearchServerUrl());
+		// the JDK HTTP client manages its own connection pool, so the maximum
+		// connections per host property does not apply to this client
+		if (null != panlProperties.getSolrjConnectionTimeout()) {
+			builder.withConnectionTimeout(panlProperties.getSolrjConnectionTimeout(), TimeUnit.MILLISECONDS);
+		}
+		if (null != panlProperties.getSolrjIdleTimeout()) {
+			builder.withIdleTimeout(panlProperties.getSolrjIdleTimeout(), TimeUnit.MILLISECONDS);
+		}
+		if (null != panlProperties.getSolrjRequestTimeout()) {
+			builder.withRequestTimeout(panlProperties.getSolrjRequestTimeout(), TimeUnit.MILLISECONDS);
+		}
+		return(builder.build());
 	}
 }
\ No newline at end of file
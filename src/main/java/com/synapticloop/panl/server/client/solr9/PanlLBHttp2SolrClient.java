@@ -52,21 +52,37 @@ import com.synapticloop.panl.exception.PanlServerException;
 import com.synapticloop.panl.server.client.PanlClient;
 import com.synapticloop.panl.server.handler.properties.PanlProperties;
 import com.synapticloop.panl.server.handler.properties.CollectionProperties;
+import org.apache.commons.io.IOUtils;
 import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.impl.Http2SolrClient;
 import org.apache.solr.client.solrj.impl.LBHttp2SolrClient;
 
 public class PanlLBHttp2SolrClient extends PanlClient {
+	/**
+	 * <p>The underlying HTTP client that the load balancing client delegates
+	 * to - this is not closed by the load balancing client.</p>
+	 */
+	private volatile Http2SolrClient http2SolrClient = null;
+
 	public PanlLBHttp2SolrClient(String solrCollection, PanlProperties panlProperties, CollectionProperties collectionProperties) throws PanlServerException {
 		super(solrCollection, panlProperties, collectionProperties);
 	}
 
 	@Override
-	public SolrClient getClient() {
+	protected SolrClient createClient() {
+		this.http2SolrClient = getHttp2SolrClientBuilder(panlProperties.getSolrSearchServerUrl()).build();
 		return (new LBHttp2SolrClient(
-				new Http2SolrClient.Builder(
-						panlProperties.getSolrSearchServerUrl())
-						.build(),
+				http2SolrClient,
 				panlProperties.getSolrSearchServerUrl()));
 	}
+
+	@Override
+	public void close() {
+		super.close();
+		Http2SolrClient client = this.http2SolrClient;
+		if (null != client) {
+			IOUtils.closeQuietly(client);
+			this.http2SolrClient = null;
+		}
+	}
 }
@@ -24,9 +24,13 @@ package com.synapticloop.panl.server.handler;
  * IN THE SOFTWARE.
  */
 
+import com.synapticloop.panl.exception.PanlCircuitOpenException;
+import com.synapticloop.panl.exception.PanlConcurrencyLimitException;
 import com.synapticloop.panl.server.handler.properties.PanlProperties;
 import com.synapticloop.panl.server.handler.webapp.util.ResourceHelper;
+import com.synapticloop.panl.server.http.BaseHttpServer;
 import com.synapticloop.panl.util.Constants;
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.entity.StringEntity;
@@ -34,6 +38,10 @@ import org.json.JSONArray;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
 /**
  * <p>The base response handler for all incoming requests to Panl</p>
  *
@@ -72,6 +80,12 @@ public abstract class BaseResponseHandler {
 	 * verbose messaging is set.  If so, it will add in the exception class and the
 	 * message of the exception.</p>
 	 *
+	 * <p>If the exception was caused by the circuit breaker for the Solr
+	 * collection being open, the concurrency limit being reached, or the
+	 * saturated worker pool rejecting the Solr response, then the server is
+	 * unavailable, rather than there being an error, and a 503 response with a
+	 * <code>Retry-After</code> header is set instead.</p>
+	 *
 	 * <p><strong>NOTE:</strong> This will set the response code and body, but not
 	 * return the actual response.</p>
 	 *
@@ -79,6 +93,21 @@ public abstract class BaseResponseHandler {
 	 * @param exception The exception that was thrown
 	 */
 	protected void set500ResponseMessage(HttpResponse response, Exception exception) {
+		Exception serviceUnavailableException = getServiceUnavailableException(exception);
+		if (serviceUnavailableException instanceof PanlCircuitOpenException) {
+			getLogger().debug("Service unavailable, message was '{}'", serviceUnavailableException.getMessage());
+			set503ResponseMessage(response, ((PanlCircuitOpenException) serviceUnavailableException).getRetryAfterSeconds());
+			return;
+		} else if (serviceUnavailableException instanceof PanlConcurrencyLimitException) {
+			getLogger().debug("Service unavailable, message was '{}'", serviceUnavailableException.getMessage());
+			set503ResponseMessage(response, ((PanlConcurrencyLimitException) serviceUnavailableException).getRetryAfterSeconds());
+			return;
+		} else if (serviceUnavailableException instanceof RejectedExecutionException) {
+			getLogger().debug("Service unavailable, the worker pool is saturated");
+			set503ResponseMessage(response, BaseHttpServer.RETRY_AFTER_SECONDS);
+			return;
+		}
+
 		getLogger().error("Internal server error, message was '{}'", exception.getMessage(), exception);
 		response.setStatusCode(HttpStatus.SC_INTERNAL_SERVER_ERROR);
 		JSONObject jsonObject = new JSONObject();
@@ -96,6 +125,51 @@ public abstract class BaseResponseHandler {
 		}
 	}
 
+	/**
+	 * <p>Return the circuit open, concurrency limit, or rejected execution
+	 * exception if it is anywhere in the cause chain of the exception.</p>
+	 *
+	 * @param exception The exception
+	 *
+	 * @return The circuit open, concurrency limit or rejected execution
+	 *   exception, or null if the exception was not caused by an open circuit
+	 *   breaker, the concurrency limit, or the saturated worker pool
+	 */
+	private static Exception getServiceUnavailableException(Throwable exception) {
+		Throwable cause = exception;
+		while (null != cause) {
+			if (cause instanceof PanlCircuitOpenException ||
+					cause instanceof PanlConcurrencyLimitException ||
+					cause instanceof RejectedExecutionException) {
+				return ((Exception) cause);
+			}
+			cause = cause.getCause();
+		}
+		return (null);
+	}
+
+	/**
+	 * <p>Unwrap the exception that caused an asynchronous request to complete
+	 * exceptionally, so that the original exception can be reported.</p>
+	 *
+	 * @param throwable The throwable that the future completed with
+	 *
+	 * @return The underlying exception
+	 */
+	protected Exception getCauseException(Throwable throwable) {
+		Throwable cause = throwable;
+		while ((cause instanceof CompletionException || cause instanceof ExecutionException) &&
+				null != cause.getCause()) {
+			cause = cause.getCause();
+		}
+
+		if (cause instanceof Exception) {
+			return ((Exception) cause);
+		} else {
+			return (new Exception(cause));
+		}
+	}
+
 	/**
 	 * <p>Set the response as a 404 status code, also checking to see whether
 	 * verbose messaging is set.  If so, it will add in the <code>valid_urls</code>
@@ -135,6 +209,27 @@ public abstract class BaseResponseHandler {
 	 * @param response The response object
 	 */
 	protected void set503ResponseMessage(HttpResponse response) {
+		setServiceUnavailableResponse(response);
+	}
+
+	/**
+	 * <p>Set the response as a 503 status code with a <code>Retry-After</code>
+	 * header, which is used to shed load when the server (or the Solr server)
+	 * is too busy to service the request.</p>
+	 *
+	 * <p><strong>NOTE:</strong> This will set the response code and body, but not
+	 * return it.</p>
+	 *
+	 * @param response The response object
+	 * @param retryAfterSeconds The number of seconds that the client should wait
+	 *   before retrying the request
+	 */
+	public static void set503ResponseMessage(HttpResponse response, int retryAfterSeconds) {
+		setServiceUnavailableResponse(response);
+		response.setHeader(HttpHeaders.RETRY_AFTER, Integer.toString(retryAfterSeconds));
+	}
+
+	private static void setServiceUnavailableResponse(HttpResponse response) {
 		response.setStatusCode(HttpStatus.SC_SERVICE_UNAVAILABLE);
 
 		JSONObject jsonObject = new JSONObject();
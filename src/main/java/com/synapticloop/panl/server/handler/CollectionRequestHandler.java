@@ -26,10 +26,18 @@ package com.synapticloop.panl.server.handler;
 
 import com.synapticloop.panl.exception.PanlNotFoundException;
 import com.synapticloop.panl.exception.PanlServerException;
+import com.synapticloop.panl.server.cache.PanlLpseTokenCache;
+import com.synapticloop.panl.server.cache.PanlResponseCache;
+import com.synapticloop.panl.server.cache.PanlSnapshotCache;
 import com.synapticloop.panl.server.client.PanlClient;
+import com.synapticloop.panl.server.handler.bean.PanlQueryParametersBean;
+import com.synapticloop.panl.server.handler.bean.PanlRequestBean;
+import com.synapticloop.panl.server.handler.bean.PanlRequestPathBean;
+import com.synapticloop.panl.server.handler.bean.PanlResponseBean;
 import com.synapticloop.panl.server.handler.fielderiser.field.facet.PanlFacetField;
 import com.synapticloop.panl.server.handler.fielderiser.field.facet.PanlRangeFacetField;
 import com.synapticloop.panl.server.handler.helper.CollectionHelper;
+import com.synapticloop.panl.server.handler.helper.ResponseSectionHelper;
 import com.synapticloop.panl.server.handler.processor.*;
 import com.synapticloop.panl.server.handler.tokeniser.token.param.QueryOperandLpseToken;
 import com.synapticloop.panl.server.handler.webapp.util.ResourceHelper;
@@ -41,12 +49,16 @@ import com.synapticloop.panl.server.handler.tokeniser.token.LpseToken;
 import com.synapticloop.panl.server.handler.tokeniser.token.param.NumRowsLpseToken;
 import com.synapticloop.panl.server.handler.tokeniser.token.param.PageNumLpseToken;
 import com.synapticloop.panl.server.handler.tokeniser.token.param.QueryLpseToken;
+import com.synapticloop.panl.server.limiter.PanlConcurrencyPermit;
+import com.synapticloop.panl.server.metrics.PanlMetrics;
+import com.synapticloop.panl.server.metrics.PanlPhaseMetrics;
+import com.synapticloop.panl.server.metrics.PanlRequestTrace;
 import com.synapticloop.panl.util.Constants;
-import org.apache.http.NameValuePair;
-import org.apache.http.client.utils.URLEncodedUtils;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.StringEntity;
 import org.apache.http.protocol.HttpContext;
-import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.response.FieldStatsInfo;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -56,8 +68,10 @@ import org.slf4j.LoggerFactory;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+import static com.synapticloop.panl.server.handler.helper.ResponseSectionHelper.hasSection;
 import static com.synapticloop.panl.server.handler.processor.Processor.*;
 
 /**
@@ -77,6 +91,10 @@ public class CollectionRequestHandler {
 	private final PanlProperties panlProperties;
 	private final PanlClient panlClient;
 	private final String panlCollectionUri;
+	private final PanlResponseCache panlResponseCache;
+	private final PanlSnapshotCache panlSnapshotCache;
+	private final PanlLpseTokenCache panlLpseTokenCache;
+	private final Map<String, PanlPhaseMetrics> phaseMetricsMap;
 
 	// These are the processors, which processes the Solr response and creates
 	// the Panl response object
@@ -131,6 +149,48 @@ public class CollectionRequestHandler {
 		this.fieldsProcessor = new FieldsProcessor(collectionProperties);
 		this.availableProcessor = new AvailableProcessor(collectionProperties);
 		this.canonicalURIProcessor = new CanonicalURIProcessor(collectionProperties);
+
+		if (collectionProperties.getResponseCacheMaxBytes() > 0) {
+			LOGGER.info("[ Solr collection '{}' ] Caching responses for Panl collection URI {} (max bytes {}, TTL {} seconds, stale {} seconds)",
+					solrCollection,
+					panlCollectionUri,
+					collectionProperties.getResponseCacheMaxBytes(),
+					collectionProperties.getResponseCacheTtlSeconds(),
+					collectionProperties.getResponseCacheStaleSeconds());
+			this.panlResponseCache = new PanlResponseCache(
+					collectionProperties.getResponseCacheMaxBytes(),
+					collectionProperties.getResponseCacheTtlSeconds(),
+					collectionProperties.getResponseCacheStaleSeconds());
+		} else {
+			this.panlResponseCache = null;
+		}
+
+		if (collectionProperties.getSnapshotRefreshSeconds() > 0) {
+			LOGGER.info("[ Solr collection '{}' ] Refreshing response snapshots for Panl collection URI {} every {} seconds",
+					solrCollection,
+					panlCollectionUri,
+					collectionProperties.getSnapshotRefreshSeconds());
+			this.panlSnapshotCache = new PanlSnapshotCache(
+					panlCollectionUri,
+					collectionProperties.getSnapshotRefreshSeconds(),
+					Constants.DEFAULT_VALUE_MAX_NUM_SNAPSHOTS);
+		} else {
+			this.panlSnapshotCache = null;
+		}
+
+		if (collectionProperties.getLpseTokenCacheMaxEntries() > 0) {
+			this.panlLpseTokenCache = new PanlLpseTokenCache(collectionProperties.getLpseTokenCacheMaxEntries());
+		} else {
+			this.panlLpseTokenCache = null;
+		}
+
+		// the phase metrics are all created up front, so that recording them
+		// is a lookup in an immutable map
+		Map<String, PanlPhaseMetrics> phaseMetricsTemp = new HashMap<>();
+		for (String handlerName : PanlMetrics.SOLR_HANDLER_NAMES) {
+			phaseMetricsTemp.put(handlerName, new PanlPhaseMetrics(handlerName, panlCollectionUri));
+		}
+		this.phaseMetricsMap = Map.copyOf(phaseMetricsTemp);
 	}
 
 
@@ -144,8 +204,12 @@ public class CollectionRequestHandler {
 	 * which, if it exists, will only return the details for that specific facet
 	 * code.</p>
 	 *
-	 * @param uri The URI of the request
-	 * @param query The query parameter
+	 * <p>If the Solr server could not be queried (e.g. the circuit breaker is
+	 * open, or the concurrency limit has been reached) and there is a stale
+	 * cached response, then that is returned instead.</p>
+	 *
+	 * @param requestPath The scanned path of the request
+	 * @param queryParameters The parsed query parameters
 	 * @param context The passed in HttpContext for this request - this will only
 	 *   be used for the more facets request
 	 *
@@ -153,12 +217,303 @@ public class CollectionRequestHandler {
 	 *
 	 * @throws PanlServerException If there was an error parsing or connecting to
 	 * the Solr server.
+	 * @throws PanlNotFoundException If the more facets LPSE code is unknown
 	 */
 	public String handleRequest(
-			String uri,
-			String query,
+			PanlRequestPathBean requestPath,
+			PanlQueryParametersBean queryParameters,
+			HttpContext context) throws PanlServerException, PanlNotFoundException {
+
+		PanlRequestBean panlRequestBean = buildRequest(requestPath, queryParameters, context, getResponseSections(queryParameters));
+
+		String cachedResponse = getCachedResponse(panlRequestBean);
+		if (null != cachedResponse) {
+			return (cachedResponse);
+		}
+
+		PanlResponseBean panlResponseBean;
+		try {
+			panlResponseBean = sendRequest(panlRequestBean, getPhaseMetrics(PanlMetrics.HANDLER_COLLECTION));
+		} catch (PanlServerException e) {
+			String staleResponse = getStaleResponse(panlRequestBean, e);
+			if (null != staleResponse) {
+				return (staleResponse);
+			}
+			throw e;
+		}
+
+		return (cacheResponse(panlRequestBean, panlResponseBean));
+	}
+
+	/**
+	 * <p>Handle the request, returning the typed response, with only the
+	 * requested sections generated.  This is used by the handlers that only
+	 * require part of the response (e.g. the available facets), so that the
+	 * response does not need to be serialised and parsed again, and the
+	 * unwanted sections are not generated.</p>
+	 *
+	 * <p>The response cache is not used for these requests.</p>
+	 *
+	 * @param requestPath The scanned path of the request
+	 * @param queryParameters The parsed query parameters
+	 * @param context The passed in HttpContext for this request - this will only
+	 *   be used for the more facets request
+	 * @param responseSections The bit mask of the sections to generate
+	 *
+	 * @return The response bean
+	 *
+	 * @throws PanlServerException If there was an error parsing or connecting to
+	 * the Solr server.
+	 * @throws PanlNotFoundException If the more facets LPSE code is unknown
+	 *
+	 * @see ResponseSectionHelper
+	 */
+	public PanlResponseBean getPanlResponse(
+			PanlRequestPathBean requestPath,
+			PanlQueryParametersBean queryParameters,
+			HttpContext context,
+			int responseSections) throws PanlServerException, PanlNotFoundException {
+
+		return (sendRequest(buildRequest(requestPath, queryParameters, context, responseSections), null));
+	}
+
+	/**
+	 * <p>Send the built request to the Solr server and parse the response.</p>
+	 *
+	 * @param panlRequestBean The parsed request and built Solr query
+	 * @param panlPhaseMetrics The phase metrics to record the request timings
+	 *   to, or null if the calling handler records its own timings
+	 *
+	 * @return The response bean
+	 *
+	 * @throws PanlServerException If there was an error connecting to the Solr
+	 * server or parsing the response
+	 */
+	private PanlResponseBean sendRequest(PanlRequestBean panlRequestBean, PanlPhaseMetrics panlPhaseMetrics) throws PanlServerException {
+		try {
+			long startNanos = System.nanoTime();
+			final QueryResponse solrQueryResponse = panlClient.queryAsync(
+					this.solrCollection,
+					panlRequestBean.getSolrQuery(),
+					panlRequestBean.getPanlConcurrencyPermit()).join();
+			long sendAndReceiveNanos = System.nanoTime() - startNanos;
+
+			return (parseResponse(panlRequestBean, solrQueryResponse, sendAndReceiveNanos, panlPhaseMetrics));
+		} catch (CompletionException e) {
+			Throwable cause = (null != e.getCause()) ? e.getCause() : e;
+			throw new PanlServerException("Could not query the Solr instance, message was: " + cause.getMessage(), cause);
+		} catch (Exception e) {
+			throw new PanlServerException("Could not query the Solr instance, message was: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * <p>Handle the request asynchronously.  The inbound request is parsed and
+	 * the Solr query is built on the calling thread, the query is then sent to
+	 * the Solr server and the response is parsed when the Solr response is
+	 * received.</p>
+	 *
+	 * <p>If asynchronous requests are not enabled (or not supported by the
+	 * configured SolrJ client), the query is sent on the calling thread, and the
+	 * returned future will already be complete.</p>
+	 *
+	 * <p>Unless the response is to be cached, the returned entity will stream
+	 * the JSON response directly to the HTTP output stream, rather than
+	 * building the response as a String.</p>
+	 *
+	 * <p>As with the synchronous request, a stale cached response is returned
+	 * if the Solr server could not be queried.</p>
+	 *
+	 * @param requestPath The scanned path of the request
+	 * @param queryParameters The parsed query parameters
+	 * @param context The passed in HttpContext for this request - this will only
+	 *   be used for the more facets request
+	 *
+	 * @return The future which will complete with the HTTP entity for the body
+	 *   of the request, or exceptionally with a PanlServerException if there was an
+	 *   error connecting to the Solr server.
+	 *
+	 * @throws PanlServerException If there was an error building the request.
+	 * @throws PanlNotFoundException If the more facets LPSE code is unknown
+	 *
+	 * @see PanlClient#queryAsync(String, SolrQuery)
+	 */
+	public CompletableFuture<HttpEntity> handleRequestAsync(
+			PanlRequestPathBean requestPath,
+			PanlQueryParametersBean queryParameters,
 			HttpContext context) throws PanlServerException, PanlNotFoundException {
 
+		PanlRequestBean panlRequestBean = buildRequest(requestPath, queryParameters, context, getResponseSections(queryParameters));
+
+		String cachedResponse = getCachedResponse(panlRequestBean);
+		if (null != cachedResponse) {
+			return (CompletableFuture.completedFuture(new StringEntity(cachedResponse, ResourceHelper.CONTENT_TYPE_JSON)));
+		}
+
+		final long startNanos = System.nanoTime();
+		return (panlClient.queryAsync(this.solrCollection, panlRequestBean.getSolrQuery(), panlRequestBean.getPanlConcurrencyPermit())
+				.handle((solrQueryResponse, throwable) -> {
+					if (null != throwable) {
+						Throwable cause = (throwable instanceof CompletionException) ? throwable.getCause() : throwable;
+						String staleResponse = getStaleResponse(panlRequestBean, cause);
+						if (null != staleResponse) {
+							return (new StringEntity(staleResponse, ResourceHelper.CONTENT_TYPE_JSON));
+						}
+
+						throw new CompletionException(
+								new PanlServerException("Could not query the Solr instance, message was: " + cause.getMessage(), cause));
+					}
+
+					PanlResponseBean panlResponseBean = parseResponse(
+							panlRequestBean,
+							solrQueryResponse,
+							System.nanoTime() - startNanos,
+							getPhaseMetrics(PanlMetrics.HANDLER_COLLECTION));
+					if (null == panlResponseCache) {
+						return (panlResponseBean.toHttpEntity());
+					}
+
+					return (new StringEntity(
+							cacheResponse(panlRequestBean, panlResponseBean),
+							ResourceHelper.CONTENT_TYPE_JSON));
+				}));
+	}
+
+	/**
+	 * <p>Get the bit mask of the response sections that were requested with the
+	 * <code>sections</code> query parameter, or all sections if the parameter
+	 * was not passed through.</p>
+	 *
+	 * @param queryParameters The parsed query parameters
+	 *
+	 * @return The bit mask of the requested response sections
+	 *
+	 * @see ResponseSectionHelper#getResponseSections(String)
+	 */
+	private int getResponseSections(PanlQueryParametersBean queryParameters) {
+		if (queryParameters.hasParameter(Constants.Parameter.Panl.SECTIONS)) {
+			return (ResponseSectionHelper.getResponseSections(queryParameters.getValue(Constants.Parameter.Panl.SECTIONS)));
+		}
+		return (ResponseSectionHelper.ALL);
+	}
+
+	/**
+	 * <p>Return the cached response for this request, or null if responses are
+	 * not cached for this collection, or there is no (valid) cached
+	 * response.</p>
+	 *
+	 * <p>The cached response is completed with the timings for this request
+	 * (which mark it as cached), and the cache hit is recorded to the phase
+	 * metrics, rather than the timings of the request that was cached.</p>
+	 *
+	 * @param panlRequestBean The parsed request
+	 *
+	 * @return The cached response, or null if there is none
+	 */
+	private String getCachedResponse(PanlRequestBean panlRequestBean) {
+		if (null == panlResponseCache) {
+			return (null);
+		}
+
+		long startNanos = System.nanoTime();
+		String cachedResponse = panlResponseCache.get(panlRequestBean.getCacheKey());
+		if (null == cachedResponse) {
+			return (null);
+		}
+		long cacheLookupNanos = System.nanoTime() - startNanos;
+
+		getPhaseMetrics(PanlMetrics.HANDLER_COLLECTION).recordCacheHit(
+				panlRequestBean.getParseRequestNanos(),
+				panlRequestBean.getBuildRequestNanos(),
+				cacheLookupNanos);
+
+		PanlRequestTrace panlRequestTrace = panlRequestBean.getPanlRequestTrace();
+		if (null != panlRequestTrace) {
+			panlRequestTrace.setPhases(panlRequestBean.getParseRequestNanos(), panlRequestBean.getBuildRequestNanos(), 0L, 0L);
+		}
+
+		return (PanlResponseBean.toCachedJsonString(
+				cachedResponse,
+				panlRequestBean.getParseRequestNanos(),
+				panlRequestBean.getBuildRequestNanos(),
+				cacheLookupNanos));
+	}
+
+	/**
+	 * <p>Return the stale cached response for this request, to be served as the
+	 * Solr server could not be queried (e.g. the circuit breaker is open), or
+	 * null if there is no cached response within the stale period.</p>
+	 *
+	 * @param panlRequestBean The parsed request
+	 * @param cause The reason that the Solr server could not be queried
+	 *
+	 * @return The stale cached response, or null if there is none
+	 */
+	private String getStaleResponse(PanlRequestBean panlRequestBean, Throwable cause) {
+		if (null == panlResponseCache) {
+			return (null);
+		}
+
+		long startNanos = System.nanoTime();
+		String staleResponse = panlResponseCache.getStale(panlRequestBean.getCacheKey());
+		if (null == staleResponse) {
+			return (null);
+		}
+
+		LOGGER.debug("[ Solr collection '{}' ] Serving a stale cached response, message was '{}'",
+				solrCollection,
+				cause.getMessage());
+		return (PanlResponseBean.toCachedJsonString(
+				staleResponse,
+				panlRequestBean.getParseRequestNanos(),
+				panlRequestBean.getBuildRequestNanos(),
+				System.nanoTime() - startNanos));
+	}
+
+	/**
+	 * <p>Cache the response (if responses are cached for this collection) and
+	 * return it.  The response is cached without its timings, which are
+	 * specific to this request.</p>
+	 *
+	 * @param panlRequestBean The parsed request
+	 * @param panlResponseBean The response to cache
+	 *
+	 * @return The JSON response
+	 */
+	private String cacheResponse(PanlRequestBean panlRequestBean, PanlResponseBean panlResponseBean) {
+		String cacheableResponse = panlResponseBean.toCacheableJsonString();
+		if (null != panlResponseCache) {
+			panlResponseCache.put(panlRequestBean.getCacheKey(), cacheableResponse);
+		}
+		return (panlResponseBean.toJsonString(cacheableResponse));
+	}
+
+	/**
+	 * <p>Parse the inbound request into the LPSE tokens and build the Solr
+	 * query that will be sent to the Solr server.</p>
+	 *
+	 * <p>This is package-private so that it can be benchmarked without a
+	 * running Solr server.</p>
+	 *
+	 * @param requestPath The scanned path of the request
+	 * @param queryParameters The parsed query parameters
+	 * @param context The passed in HttpContext for this request - this will only
+	 *   be used for the more facets request
+	 * @param responseSections The bit mask of the response sections to
+	 *   generate, facets, stats, and documents are only requested from the Solr
+	 *   server if the sections that use them are requested
+	 *
+	 * @return The Panl request bean which contains the built Solr query
+	 *
+	 * @throws PanlServerException If there was an error building the Solr query
+	 * @throws PanlNotFoundException If the more facets LPSE code is unknown
+	 */
+	PanlRequestBean buildRequest(
+			PanlRequestPathBean requestPath,
+			PanlQueryParametersBean queryParameters,
+			HttpContext context,
+			int responseSections) throws PanlServerException, PanlNotFoundException {
+
 		long startNanos = System.nanoTime();
 
 		// check to ensure that the more facets LPSE code is correct
@@ -171,10 +526,9 @@ public class CollectionRequestHandler {
 			}
 		}
 
-		String[] lpsePath = uri.split("/");
-		String fieldSet = lpsePath[2];
+		String fieldSet = requestPath.getSegment(2);
 
-		List<LpseToken> lpseTokens = parseLpse(uri, query);
+		List<LpseToken> lpseTokens = getParsedLpseTokens(requestPath, queryParameters);
 
 		long parseRequestNanos = System.nanoTime() - startNanos;
 
@@ -202,33 +556,21 @@ public class CollectionRequestHandler {
 				panlTokenMap.put(lpseCode, lpseTokenList);
 			}
 
+			// the number of rows and page number have already been normalised when
+			// the tokens were parsed
 			if (lpseToken instanceof NumRowsLpseToken) {
-				NumRowsLpseToken numRowsLpseToken = (NumRowsLpseToken) lpseToken;
-				numRows = numRowsLpseToken.getNumRows();
-
-				// if the number of rows is greater than the maximum number of rows,
-				// then set it to the maximum number of rows
-				if(numRows > collectionProperties.getMaxNumResultsPerPage()) {
-					numRows = collectionProperties.getMaxNumResultsPerPage();
-					numRowsLpseToken.setNumRows(numRows);
-				}
-
+				numRows = ((NumRowsLpseToken) lpseToken).getNumRows();
 			} else if (lpseToken instanceof PageNumLpseToken) {
-				// if we have a query string - we always reset the page number to the
-				// first page.
-				PageNumLpseToken pageNumLpseToken = (PageNumLpseToken) lpseToken;
-				if (!query.isBlank()) {
-					pageNumLpseToken.setPageNum(1);
-				}
-				pageNum = pageNumLpseToken.getPageNum();
+				pageNum = ((PageNumLpseToken) lpseToken).getPageNum();
 			}
 		}
 
 		boolean isMoreFacets = false;
+		boolean hasAvailable = hasSection(responseSections, ResponseSectionHelper.AVAILABLE);
 
-		try (SolrClient solrClient = panlClient.getClient()) {
+		try {
 			// we set the default query - to be overridden later if one exists
-			SolrQuery solrQuery = panlClient.getQuery(query);
+			SolrQuery solrQuery = panlClient.getQuery(queryParameters);
 			// set the operand - to be over-ridden later if it is in the URI path
 			solrQuery.setParam(Constants.Parameter.Solr.Q_OP, collectionProperties.getSolrDefaultQueryOperand());
 
@@ -273,7 +615,7 @@ public class CollectionRequestHandler {
 				if (!lpseField.getIsFacetSortByIndex()) {
 					solrQuery.add("f." + lpseField.getSolrFieldName() + ".facet.sort", "count");
 				}
-			} else {
+			} else if (hasAvailable) {
 				// no we need to go through all tokens and only return the ones that we
 				// need to be displayed
 
@@ -282,13 +624,17 @@ public class CollectionRequestHandler {
 				for (PanlFacetField facetIndexSortField : collectionProperties.getFacetIndexSortFields()) {
 					solrQuery.add("f." + facetIndexSortField.getSolrFieldName() + ".facet.sort", "index");
 				}
+			} else {
+				// the available facets were not requested, so there is no need for
+				// Solr to facet
+				solrQuery.setFacet(false);
 			}
 
 			boolean hasStats = false;
 			for (BaseField lpseField : collectionProperties.getLpseFields()) {
 				lpseField.applyToQuery(solrQuery, panlTokenMap, collectionProperties);
 
-				if (!isMoreFacets) {
+				if (!isMoreFacets && hasAvailable) {
 					if (lpseField instanceof PanlRangeFacetField) {
 						solrQuery.add(Constants.Parameter.Solr.STATS_FIELD, lpseField.getSolrFieldName());
 						if (!hasStats) {
@@ -311,60 +657,194 @@ public class CollectionRequestHandler {
 			solrQuery.setStart((pageNum - 1) * numRows);
 			solrQuery.setRows(numRows);
 
-			// this is done for the empty fieldset
-			if (resultFieldsForFieldSet.isEmpty()) {
+			// this is done for the empty fieldset, or if the documents were not
+			// requested (the number of results is still returned)
+			if (resultFieldsForFieldSet.isEmpty() ||
+					!hasSection(responseSections, ResponseSectionHelper.SOLR_RESPONSE)) {
 				solrQuery.setRows(0);
 			}
 
-			LOGGER.debug(solrQuery.toString());
+			LOGGER.debug("{}", solrQuery);
+
+			// the sorted token map (and the canonical URI generated from it) is
+			// built after the number of rows and page number have been adjusted
+			Map<String, List<LpseToken>> sortedPanlTokenMap = getSortedPanlTokenMap(lpseTokens);
+			String canonicalUri = canonicalURIProcessor.processToString(sortedPanlTokenMap);
 
 			long buildRequestNanos = System.nanoTime() - startNanos;
-			startNanos = System.nanoTime();
-			final QueryResponse solrQueryResponse = solrClient.query(this.solrCollection, solrQuery);
 
-			long sendAnReceiveNanos = System.nanoTime() - startNanos;
+			PanlRequestTrace panlRequestTrace = PanlRequestTrace.get(context);
+			if (null != panlRequestTrace) {
+				panlRequestTrace.setSolrRequest(canonicalUri, solrQuery);
+			}
 
-			return (parseResponse(
+			return (new PanlRequestBean(
 					fieldSet,
 					lpseTokens,
-					solrQueryResponse,
+					sortedPanlTokenMap,
+					canonicalUri,
+					getCacheKey(fieldSet, canonicalUri, sortedPanlTokenMap, queryParameters.getQueryString(), contextLpseCode, solrQuery.getFacetLimit()),
+					solrQuery,
 					parseRequestNanos,
 					buildRequestNanos,
-					sendAnReceiveNanos));
-
+					responseSections,
+					panlRequestTrace,
+					PanlConcurrencyPermit.get(context)));
 		} catch (Exception e) {
-			throw new PanlServerException("Could not query the Solr instance, message was: " + e.getMessage(), e);
+			throw new PanlServerException("Could not build the Solr query, message was: " + e.getMessage(), e);
 		}
 	}
 
 	/**
-	 * <p>Parse the solrj response and add the Panl JSON information to it</p>
+	 * <p>Parse the solrj response and generate the Panl JSON information for
+	 * it.  The Solr response is not converted to JSON here, it is written out
+	 * with the Panl JSON object by the returned response bean.</p>
+	 *
+	 * <p>This is package-private so that it can be benchmarked against recorded
+	 * Solr responses.</p>
 	 *
-	 * @param fieldSet The fieldSet for this query
-	 * @param lpseTokens The parsed URI and panl tokens
+	 * @param panlRequestBean The parsed request and built Solr query
 	 * @param solrQueryResponse The Solrj response to be parsed
-	 * @param parseRequestNanos The start time for this query in nanoseconds
-	 * @param buildRequestNanos The number of nanos it took to build the request
 	 * @param sendAndReceiveNanos The number of nanos it took to send the request
+	 * @param panlPhaseMetrics The phase metrics to record the request timings
+	 *   to, or null if they are not to be recorded
 	 *
-	 * @return a JSON Object as a string with the appended panl response
+	 * @return The response bean which will write the JSON response
 	 */
-	private String parseResponse(
-			String fieldSet,
-			List<LpseToken> lpseTokens,
+	PanlResponseBean parseResponse(
+			PanlRequestBean panlRequestBean,
 			QueryResponse solrQueryResponse,
-			long parseRequestNanos,
-			long buildRequestNanos,
-			long sendAndReceiveNanos) {
+			long sendAndReceiveNanos,
+			PanlPhaseMetrics panlPhaseMetrics) {
+
+		String fieldSet = panlRequestBean.getFieldSet();
+		int responseSections = panlRequestBean.getResponseSections();
+		long parseRequestNanos = panlRequestBean.getParseRequestNanos();
+		long buildRequestNanos = panlRequestBean.getBuildRequestNanos();
 
 		// set up the JSON response object
-		JSONObject solrJsonObject = new JSONObject(solrQueryResponse.jsonStr());
 		JSONObject panlObject = new JSONObject();
 
 
 		long startNanos = System.nanoTime();
 
-		// set up the data structure
+		Map<String, List<LpseToken>> panlTokenMap = panlRequestBean.getPanlTokenMap();
+
+		if (hasSection(responseSections, ResponseSectionHelper.AVAILABLE)) {
+			panlObject.put(Constants.Json.Panl.AVAILABLE, availableProcessor.processToObject(panlTokenMap, solrQueryResponse));
+
+			// now we are going to add the dynamic range if they exist
+			Map<String, FieldStatsInfo> fieldStatsInfoMap = solrQueryResponse.getFieldStatsInfo();
+			if (null != fieldStatsInfoMap) {
+				JSONArray jsonArray = panlObject.getJSONObject(Constants.Json.Panl.AVAILABLE)
+				                                .getJSONArray(Constants.Json.Panl.RANGE_FACETS);
+				for (Object object : jsonArray) {
+					JSONObject rangeObject = (JSONObject) object;
+					FieldStatsInfo fieldStatsInfo = fieldStatsInfoMap.get(rangeObject.getString(Constants.Json.Panl.FACET_NAME));
+					if (null != fieldStatsInfo) {
+						rangeObject.put(Constants.Json.Panl.DYNAMIC_MIN, getStatsIntValue(fieldStatsInfo.getMin()));
+						rangeObject.put(Constants.Json.Panl.DYNAMIC_MAX, getStatsIntValue(fieldStatsInfo.getMax()));
+					}
+				}
+			}
+
+			// now we need to go through the range facets and remove any that are
+			// suppressed
+
+			JSONArray removedRanges = new JSONArray();
+			for (Object jsonObject : panlObject.getJSONObject(Constants.Json.Panl.AVAILABLE).getJSONArray(Constants.Json.Panl.FACETS)) {
+				JSONObject facetObject = (JSONObject) jsonObject;
+				String lpseCode = facetObject.getString(Constants.Json.Panl.PANL_CODE);
+				if (!collectionProperties.getIsSuppressedRangeFacet(lpseCode)) {
+					removedRanges.put(facetObject);
+				}
+			}
+
+			panlObject.getJSONObject(Constants.Json.Panl.AVAILABLE).put(Constants.Json.Panl.FACETS, removedRanges);
+		}
+
+		if (hasSection(responseSections, ResponseSectionHelper.ACTIVE)) {
+			panlObject.put(Constants.Json.Panl.ACTIVE, activeProcessor.processToObject(panlTokenMap));
+		}
+		if (hasSection(responseSections, ResponseSectionHelper.SEARCH)) {
+			panlObject.put(Constants.Json.Panl.SEARCH, searchFieldsProcessor.processToObject(panlTokenMap));
+		}
+		if (hasSection(responseSections, ResponseSectionHelper.PAGINATION)) {
+			panlObject.put(Constants.Json.Panl.PAGINATION, paginationProcessor.processToObject(panlTokenMap, solrQueryResponse));
+		}
+		if (hasSection(responseSections, ResponseSectionHelper.SORTING)) {
+			panlObject.put(Constants.Json.Panl.SORTING, sortingProcessor.processToObject(panlTokenMap));
+		}
+		if (hasSection(responseSections, ResponseSectionHelper.QUERY_OPERAND)) {
+			panlObject.put(Constants.Json.Panl.QUERY_OPERAND, queryOperandProcessor.processToObject(panlTokenMap));
+		}
+		if (hasSection(responseSections, ResponseSectionHelper.FIELDS)) {
+			panlObject.put(Constants.Json.Panl.FIELDS, fieldsProcessor.processToObject(panlTokenMap, fieldSet));
+		}
+		if (hasSection(responseSections, ResponseSectionHelper.CANONICAL_URI)) {
+			panlObject.put(Constants.Json.Panl.CANONICAL_URI, panlRequestBean.getCanonicalUri());
+		}
+
+		long buildResponseNanos = System.nanoTime() - startNanos;
+
+		if (null != panlPhaseMetrics) {
+			panlPhaseMetrics.record(parseRequestNanos, buildRequestNanos, sendAndReceiveNanos, buildResponseNanos);
+		}
+
+		PanlRequestTrace panlRequestTrace = panlRequestBean.getPanlRequestTrace();
+		if (null != panlRequestTrace) {
+			panlRequestTrace.setPhases(parseRequestNanos, buildRequestNanos, sendAndReceiveNanos, buildResponseNanos);
+			panlRequestTrace.setSolrQTime(solrQueryResponse.getQTime());
+		}
+
+
+		JSONArray facetOrderJsonArray = collectionProperties.getPanlLpseFacetOrderJsonArray();
+		// TODO - we possibly need to remove the facets which are not active -
+		// TODO - this could be done on the front end and would make it faster
+		// TODO - rather than done server side.
+		panlObject.put(Constants.Json.Panl.FACETORDER, facetOrderJsonArray);
+
+		// Add the 'extra' object - if it exists
+		if(null != collectionProperties.getJsonExtraObject()) {
+			panlObject.put(Constants.Json.Panl.EXTRA, collectionProperties.getJsonExtraObject());
+		}
+
+		return (new PanlResponseBean(
+				hasSection(responseSections, ResponseSectionHelper.SOLR_RESPONSE) ? solrQueryResponse.getResponse() : null,
+				panlObject,
+				parseRequestNanos,
+				buildRequestNanos,
+				sendAndReceiveNanos,
+				buildResponseNanos,
+				this.panlProperties.getRemoveSolrJsonKeys()));
+	}
+
+	/**
+	 * <p>Return the integer value of a Solr stats minimum or maximum, or -1 if
+	 * it is not a number.</p>
+	 *
+	 * @param value The stats value
+	 *
+	 * @return The integer value, or -1 if it is not a number
+	 */
+	private static int getStatsIntValue(Object value) {
+		if (value instanceof Number) {
+			return (((Number) value).intValue());
+		}
+		return (-1);
+	}
+
+	/**
+	 * <p>Build the map of LPSE code to all LPSE tokens (including invalid
+	 * ones), with each of the lists sorted alphabetically by value so that the
+	 * canonical URI can be generated.  The sort tokens are not sorted as there
+	 * is an order to them.</p>
+	 *
+	 * @param lpseTokens The parsed LPSE tokens
+	 *
+	 * @return The sorted map of LPSE code to LPSE tokens
+	 */
+	private Map<String, List<LpseToken>> getSortedPanlTokenMap(List<LpseToken> lpseTokens) {
 		Map<String, List<LpseToken>> panlTokenMap = new HashMap<>();
 		for (LpseToken lpseToken : lpseTokens) {
 
@@ -402,98 +882,111 @@ public class CollectionRequestHandler {
 			}
 		}
 
-		panlObject.put(Constants.Json.Panl.AVAILABLE, availableProcessor.processToObject(panlTokenMap, solrQueryResponse));
-
-		// now we are going to add the dynamic range if they exist
-		JSONObject statsObject = solrJsonObject.optJSONObject(Constants.Json.Solr.STATS);
-		if (null != statsObject) {
-			JSONObject statsFieldObjects = statsObject.optJSONObject(Constants.Json.Solr.STATS_FIELDS);
-			if (null != statsFieldObjects) {
-				Iterator<String> keys = statsFieldObjects.keys();
-				while (keys.hasNext()) {
-					String key = keys.next();
-					JSONObject valueObject = statsFieldObjects.getJSONObject(key);
-					// now that we have the value, go through the range facets and get the right one.
-					JSONArray jsonArray = panlObject.getJSONObject(Constants.Json.Panl.AVAILABLE)
-					                                .getJSONArray(Constants.Json.Panl.RANGE_FACETS);
-					for (Object object : jsonArray) {
-						JSONObject rangeObject = (JSONObject) object;
-						if (rangeObject.getString(Constants.Json.Panl.FACET_NAME).equals(key)) {
-							rangeObject.put(Constants.Json.Panl.DYNAMIC_MIN, valueObject.optInt(Constants.Json.Panl.MIN, -1));
-							rangeObject.put(Constants.Json.Panl.DYNAMIC_MAX, valueObject.optInt(Constants.Json.Panl.MAX, -1));
-						}
-					}
+		return (panlTokenMap);
+	}
+
+	/**
+	 * <p>Generate the key for the response cache.  The canonical URI is used
+	 * so that equivalent requests share a response, however the canonical URI
+	 * does not include everything that affects the response, so the fieldset,
+	 * the pass through value (which is returned in the response), the query
+	 * string, and the more facets context are also added to the key.</p>
+	 *
+	 * @param fieldSet The fieldset for the request
+	 * @param canonicalUri The canonical URI for the request
+	 * @param panlTokenMap The map of LPSE codes to tokens
+	 * @param query The query string
+	 * @param contextLpseCode The more facets LPSE code (may be null)
+	 * @param facetLimit The facet limit that was set on the Solr query
+	 *
+	 * @return The key for the response cache
+	 */
+	private String getCacheKey(
+			String fieldSet,
+			String canonicalUri,
+			Map<String, List<LpseToken>> panlTokenMap,
+			String query,
+			String contextLpseCode,
+			int facetLimit) {
+
+		StringBuilder sb = new StringBuilder(fieldSet)
+				.append(canonicalUri);
+
+		String passThroughLpseCode = collectionProperties.getPanlParamPassThrough();
+		if (null != passThroughLpseCode) {
+			for (LpseToken lpseToken : panlTokenMap.getOrDefault(passThroughLpseCode, new ArrayList<>())) {
+				if (lpseToken.getIsValid()) {
+					sb.append(Constants.FORWARD_SLASH)
+					  .append(lpseToken.getValue());
 				}
 			}
 		}
 
-		solrJsonObject.remove(Constants.Json.Solr.STATS);
+		sb.append('?').append(query);
 
-		if(this.panlProperties.getRemoveSolrJsonKeys()) {
-			solrJsonObject.remove(Constants.Json.Solr.FACET_COUNTS);
-			solrJsonObject.getJSONObject(Constants.Json.Solr.RESPONSE_HEADER).remove(Constants.Json.Solr.PARAMS);
+		if (null != contextLpseCode) {
+			sb.append('#')
+			  .append(contextLpseCode)
+			  .append(':')
+			  .append(facetLimit);
 		}
 
-		// now we need to go through the range facets and remove any that are
-		// suppressed
+		return (sb.toString());
+	}
 
-		JSONArray removedRanges = new JSONArray();
-		for (Object jsonObject : panlObject.getJSONObject(Constants.Json.Panl.AVAILABLE).getJSONArray(Constants.Json.Panl.FACETS)) {
-			JSONObject facetObject = (JSONObject) jsonObject;
-			String lpseCode = facetObject.getString(Constants.Json.Panl.PANL_CODE);
-			if (!collectionProperties.getIsSuppressedRangeFacet(lpseCode)) {
-				removedRanges.put(facetObject);
+	/**
+	 * <p>Get the parsed and normalised LPSE tokens for the URI path and query
+	 * string, from the parsed LPSE token cache if it is enabled.</p>
+	 *
+	 * <p>The tokens are normalised before they are cached - i.e. the number of
+	 * rows is limited to the maximum number of results per page, and the page
+	 * number is reset to the first page if there are query parameters.  The
+	 * returned list is unmodifiable and may be shared between requests, so the
+	 * tokens are frozen once they have been normalised - any attempt to change
+	 * them will throw an <code>IllegalStateException</code>.</p>
+	 *
+	 * @param requestPath The scanned path of the request
+	 * @param queryParameters The parsed query parameters
+	 *
+	 * @return The unmodifiable list of parsed LPSE tokens
+	 */
+	private List<LpseToken> getParsedLpseTokens(PanlRequestPathBean requestPath, PanlQueryParametersBean queryParameters) {
+		String cacheKey = null;
+		if (null != panlLpseTokenCache) {
+			cacheKey = requestPath.getPath() + "?" + queryParameters.getQueryString();
+			List<LpseToken> cachedLpseTokens = panlLpseTokenCache.get(cacheKey);
+			if (null != cachedLpseTokens) {
+				return (cachedLpseTokens);
 			}
 		}
 
-		panlObject.getJSONObject(Constants.Json.Panl.AVAILABLE).put(Constants.Json.Panl.FACETS, removedRanges);
-
-		panlObject.put(Constants.Json.Panl.ACTIVE, activeProcessor.processToObject(panlTokenMap));
-		panlObject.put(Constants.Json.Panl.SEARCH, searchFieldsProcessor.processToObject(panlTokenMap));
-		panlObject.put(Constants.Json.Panl.PAGINATION, paginationProcessor.processToObject(panlTokenMap, solrQueryResponse));
-		panlObject.put(Constants.Json.Panl.SORTING, sortingProcessor.processToObject(panlTokenMap));
-		panlObject.put(Constants.Json.Panl.QUERY_OPERAND, queryOperandProcessor.processToObject(panlTokenMap));
-		panlObject.put(Constants.Json.Panl.FIELDS, fieldsProcessor.processToObject(panlTokenMap, fieldSet));
-		panlObject.put(Constants.Json.Panl.CANONICAL_URI, canonicalURIProcessor.processToString(panlTokenMap));
-
-		// now add in the timings
-		JSONObject timingsObject = new JSONObject();
-
-		long buildResponseTime = System.nanoTime() - startNanos;
-
-		// add in some statistics
-		timingsObject.put(Constants.Json.Panl.PARSE_REQUEST_TIME,
-				TimeUnit.NANOSECONDS.toMillis(parseRequestNanos));
-		timingsObject.put(Constants.Json.Panl.BUILD_REQUEST_TIME, TimeUnit.NANOSECONDS.toMillis(buildRequestNanos));
-		timingsObject.put(Constants.Json.Panl.SEND_REQUEST_TIME, TimeUnit.NANOSECONDS.toMillis(sendAndReceiveNanos));
-
-		timingsObject.put(Constants.Json.Panl.BUILD_RESPONSE_TIME, TimeUnit.NANOSECONDS.toMillis(buildResponseTime));
-		timingsObject.put(Constants.Json.Panl.TOTAL_TIME, TimeUnit.NANOSECONDS.toMillis(
-			parseRequestNanos +
-				buildRequestNanos +
-				sendAndReceiveNanos +
-				buildResponseTime
-		));
-
-		panlObject.put(Constants.Json.Panl.TIMINGS, timingsObject);
+		List<LpseToken> lpseTokens = parseLpse(requestPath, queryParameters);
+		boolean hasQueryParameters = queryParameters.getHasQueryParameters();
 
-		solrJsonObject.put(Constants.Json.Response.ERROR, false);
-
-		JSONArray facetOrderJsonArray = collectionProperties.getPanlLpseFacetOrderJsonArray();
-		// TODO - we possibly need to remove the facets which are not active -
-		// TODO - this could be done on the front end and would make it faster
-		// TODO - rather than done server side.
-		panlObject.put(Constants.Json.Panl.FACETORDER, facetOrderJsonArray);
-
-		// now put the panl to solr field mappings in
-		solrJsonObject.put(Constants.Json.Panl.PANL, panlObject);
+		for (LpseToken lpseToken : lpseTokens) {
+			if (lpseToken instanceof NumRowsLpseToken) {
+				// if the number of rows is greater than the maximum number of rows,
+				// then set it to the maximum number of rows
+				NumRowsLpseToken numRowsLpseToken = (NumRowsLpseToken) lpseToken;
+				if (numRowsLpseToken.getNumRows() > collectionProperties.getMaxNumResultsPerPage()) {
+					numRowsLpseToken.setNumRows(collectionProperties.getMaxNumResultsPerPage());
+				}
+			} else if (lpseToken instanceof PageNumLpseToken) {
+				// if we have a query string - we always reset the page number to the
+				// first page (the sections parameter does not count as a query).
+				if (hasQueryParameters) {
+					((PageNumLpseToken) lpseToken).setPageNum(1);
+				}
+			}
 
-		// Add the 'extra' object - if it exists
-		if(null != collectionProperties.getJsonExtraObject()) {
-			panlObject.put(Constants.Json.Panl.EXTRA, collectionProperties.getJsonExtraObject());
+			lpseToken.freeze();
 		}
 
-		return (solrJsonObject.toString());
+		List<LpseToken> unmodifiableLpseTokens = Collections.unmodifiableList(lpseTokens);
+		if (null != panlLpseTokenCache) {
+			panlLpseTokenCache.put(cacheKey, unmodifiableLpseTokens);
+		}
+		return (unmodifiableLpseTokens);
 	}
 
 	/**
@@ -526,34 +1019,40 @@ public class CollectionRequestHandler {
 	 * @return The parse URI as a List of <code>PanlToken</code>
 	 */
 	public List<LpseToken> parseLpse(String uri, String query) {
+		return (parseLpse(new PanlRequestPathBean(uri), new PanlQueryParametersBean(query)));
+	}
+
+	/**
+	 * <p>Parse the already scanned URI path against the already parsed query
+	 * parameters.</p>
+	 *
+	 * @param requestPath The scanned URI path to parse
+	 * @param queryParameters the parsed query parameters - if the query
+	 *   parameter exists, then this query will replace any existing query in
+	 *   the lpse encoded URI
+	 *
+	 * @return The parse URI as a List of <code>PanlToken</code>
+	 *
+	 * @see #parseLpse(String, String)
+	 */
+	public List<LpseToken> parseLpse(PanlRequestPathBean requestPath, PanlQueryParametersBean queryParameters) {
 		List<LpseToken> lpseTokens = new ArrayList<>();
 		Set<String> existingTokens = new HashSet<>();
 
-		String[] lpseUriPath = uri.split("/");
-
-		boolean hasQueryParam = false;
-		String queryParam = "";
-		String queryOperand = null;
-
-		List<NameValuePair> parse = URLEncodedUtils.parse(query, StandardCharsets.UTF_8);
-		for (NameValuePair nameValuePair : parse) {
-			if (nameValuePair.getName().equals(collectionProperties.getFormQueryRespondTo())) {
-				hasQueryParam = true;
-				queryParam = nameValuePair.getValue();
-				continue;
-			}
-
-			if (nameValuePair.getName().equals(collectionProperties.getFormQueryOperand())) {
-				queryOperand = nameValuePair.getValue();
-			}
+		boolean hasQueryParam = queryParameters.hasParameter(collectionProperties.getFormQueryRespondTo());
+		String queryParam = queryParameters.getValue(collectionProperties.getFormQueryRespondTo());
+		if (null == queryParam) {
+			queryParam = "";
 		}
 
-		if (lpseUriPath.length > 3) {
-			String lpseEncoding = URLDecoder.decode(lpseUriPath[lpseUriPath.length - 1], StandardCharsets.UTF_8).replaceAll(" ", "+");
+		String queryOperand = queryParameters.getValue(collectionProperties.getFormQueryOperand());
+
+		if (requestPath.getNumSegments() > 3) {
+			String lpseEncoding = URLDecoder.decode(requestPath.getLastSegment(), StandardCharsets.UTF_8).replaceAll(" ", "+");
 
 			LpseTokeniser lpseTokeniser = new LpseTokeniser(lpseEncoding, CODES_AND_METADATA, true);
 
-			StringTokenizer valueTokeniser = new StringTokenizer(uri, "/", false);
+			StringTokenizer valueTokeniser = new StringTokenizer(requestPath.getPath(), "/", false);
 			// we need to skip the first two - as they will be the collection and the
 			// field set
 			valueTokeniser.nextToken();
@@ -565,7 +1064,7 @@ public class CollectionRequestHandler {
 				List<LpseToken> parsedLpseTokens = LpseToken.getLpseTokens(
 					collectionProperties,
 					token,
-					query,
+					queryParameters,
 					valueTokeniser,
 					lpseTokeniser);
 
@@ -598,7 +1097,7 @@ public class CollectionRequestHandler {
 		}
 
 		if (hasQueryParam && !queryParam.isBlank()) {
-			lpseTokens.add(new QueryLpseToken(collectionProperties, query, collectionProperties.getPanlParamQuery()));
+			lpseTokens.add(new QueryLpseToken(collectionProperties, queryParameters, collectionProperties.getPanlParamQuery()));
 			if(null != queryOperand) {
 				lpseTokens.add(new QueryOperandLpseToken(collectionProperties, collectionProperties.getPanlParamQueryOperand(), queryOperand));
 			}
@@ -688,6 +1187,50 @@ public class CollectionRequestHandler {
 		return collectionProperties;
 	}
 
+	/**
+	 * <p>Return the response cache for this handler, or null if responses are
+	 * not cached for this collection.</p>
+	 *
+	 * @return The response cache, or null if responses are not cached
+	 */
+	public PanlResponseCache getPanlResponseCache() {
+		return (panlResponseCache);
+	}
+
+	/**
+	 * <p>Return the snapshot cache for this handler, or null if the single page
+	 * and more facets responses are not precomputed for this collection.</p>
+	 *
+	 * @return The snapshot cache, or null if responses are not precomputed
+	 */
+	public PanlSnapshotCache getPanlSnapshotCache() {
+		return (panlSnapshotCache);
+	}
+
+	/**
+	 * <p>Return the parsed LPSE token cache for this handler, or null if the
+	 * parsed LPSE tokens are not cached for this collection.</p>
+	 *
+	 * @return The parsed LPSE token cache, or null if tokens are not cached
+	 */
+	public PanlLpseTokenCache getPanlLpseTokenCache() {
+		return (panlLpseTokenCache);
+	}
+
+	/**
+	 * <p>Return the phase metrics for requests to this collection from the
+	 * named handler.</p>
+	 *
+	 * @param handlerName The name of the handler, one of
+	 *   <code>PanlMetrics.SOLR_HANDLER_NAMES</code>
+	 *
+	 * @return The phase metrics, or null if the handler does not send requests
+	 *   to the Solr server
+	 */
+	public PanlPhaseMetrics getPhaseMetrics(String handlerName) {
+		return (phaseMetricsMap.get(handlerName));
+	}
+
 	/**
 	 * <p>Return the Panl Client</p>
 	 *
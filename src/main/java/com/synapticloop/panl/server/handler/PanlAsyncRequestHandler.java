@@ -0,0 +1,58 @@
+package com.synapticloop.panl.server.handler;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.protocol.HttpContext;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * <p>A request handler that is able to service a request without blocking the
+ * calling thread for the Solr round trip.  The HTTP response is populated
+ * when the returned future completes.</p>
+ *
+ * <p>Handlers that implement this interface will also implement the blocking
+ * <code>HttpRequestHandler</code> interface, which simply waits for the
+ * returned future to complete.</p>
+ *
+ * @author synapticloop
+ */
+public interface PanlAsyncRequestHandler {
+	/**
+	 * <p>Handle the request asynchronously, populating the response when the
+	 * returned future completes.  The returned future will never complete
+	 * exceptionally - any errors are set on the response as the appropriate
+	 * HTTP status code and message.</p>
+	 *
+	 * @param request the HTTP request - the incoming request
+	 * @param response the HTTP response - the outgoing response
+	 * @param context the HTTP execution context
+	 *
+	 * @return The future which will complete once the response is populated
+	 */
+	CompletableFuture<Void> handleAsync(HttpRequest request, HttpResponse response, HttpContext context);
+}
@@ -25,35 +25,34 @@ package com.synapticloop.panl.server.handler;
  */
 
 import com.synapticloop.panl.server.client.PanlClient;
+import com.synapticloop.panl.server.handler.bean.PanlQueryParametersBean;
+import com.synapticloop.panl.server.handler.bean.PanlRequestPathBean;
+import com.synapticloop.panl.server.handler.bean.PanlResponseBean;
 import com.synapticloop.panl.server.handler.fielderiser.field.param.PanlQueryField;
-import com.synapticloop.panl.server.handler.helper.TimingsHelper;
 import com.synapticloop.panl.server.handler.properties.CollectionProperties;
 import com.synapticloop.panl.server.handler.properties.PanlProperties;
 import com.synapticloop.panl.server.handler.webapp.util.ResourceHelper;
+import com.synapticloop.panl.server.limiter.PanlConcurrencyPermit;
+import com.synapticloop.panl.server.metrics.PanlMetrics;
+import com.synapticloop.panl.server.metrics.PanlPhaseMetrics;
+import com.synapticloop.panl.server.metrics.PanlRequestTrace;
 import com.synapticloop.panl.util.Constants;
 import org.apache.http.HttpRequest;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
-import org.apache.http.NameValuePair;
-import org.apache.http.client.utils.URIBuilder;
-import org.apache.http.client.utils.URLEncodedUtils;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.protocol.HttpContext;
 import org.apache.http.protocol.HttpRequestHandler;
-import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.net.URISyntaxException;
-import java.net.URLDecoder;
-import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
 
 import static com.synapticloop.panl.server.handler.CollectionRequestHandler.*;
 
@@ -65,7 +64,7 @@ import static com.synapticloop.panl.server.handler.CollectionRequestHandler.*;
  *
  * @author Synapticloop
  */
-public class PanlLookaheadHandler extends BaseResponseHandler implements HttpRequestHandler {
+public class PanlLookaheadHandler extends BaseResponseHandler implements HttpRequestHandler, PanlAsyncRequestHandler {
 	private static final Logger LOGGER = LoggerFactory.getLogger(PanlLookaheadHandler.class);
 
 	public static final String PANL_URL_BINDING_LOOKAHEAD = "/panl-lookahead/";
@@ -99,56 +98,65 @@ public class PanlLookaheadHandler extends BaseResponseHandler implements HttpReq
 	 */
 	@Override
 	public void handle(HttpRequest request, HttpResponse response, HttpContext context) {
+		handleAsync(request, response, context).join();
+	}
+
+	/**
+	 * <p>Return the JSON object that contains just the lookahead documents,
+	 * sending the request to the Solr server asynchronously.</p>
+	 *
+	 * @param request the HTTP request.
+	 * @param response the HTTP response.
+	 * @param context the HTTP execution context.
+	 *
+	 * @return The future which will complete once the response is populated
+	 */
+	@Override
+	public CompletableFuture<Void> handleAsync(HttpRequest request, HttpResponse response, HttpContext context) {
 		long startNanos = System.nanoTime();
 
-		String uri = request.getRequestLine().getUri();
+		PanlRequestPathBean requestPath = new PanlRequestPathBean(request.getRequestLine().getUri());
 		// do we have a query string?
-		int indexOfQuestionMark = uri.indexOf('?');
-		if(indexOfQuestionMark == -1) {
+		if(requestPath.getQueryString().isEmpty()) {
 			set404ResponseMessage(response);
-			return;
+			return (CompletableFuture.completedFuture(null));
 		}
 
-		// if we do - get the query string and reset the uri
-		uri = uri.substring(0, indexOfQuestionMark);
+		// if we do - parse the query string (exactly once)
+		PanlQueryParametersBean queryParameters = new PanlQueryParametersBean(requestPath.getQueryString());
 
 		// now check the CaFUP
-		String[] paths = uri.split("/");
-		// TODO - this may be a array index out of bounds.... need to check first...
-		CollectionRequestHandler collectionRequestHandler = validCollectionsMap.get(paths[2]);
-		if(paths.length < 4 || null == collectionRequestHandler) {
+		String collection = requestPath.getSegment(2);
+		CollectionRequestHandler collectionRequestHandler = validCollectionsMap.get(collection);
+		if(requestPath.getNumSegments() < 4 || null == collectionRequestHandler) {
 			set404ResponseMessage(response);
-			return;
+			return (CompletableFuture.completedFuture(null));
 		}
 
-		String collection = paths[2];
-		String fieldSet = paths[3];
+		String fieldSet = requestPath.getSegment(3);
 
 		// at this point we need to check the query param that it matches the collection
 		String queryRepondTo = queryRespondToMap.get(collection);
-		String query = null;
-		boolean isGoodRequest = false;
-		try {
-			final List<NameValuePair> pairs = new URIBuilder(request.getRequestLine().getUri()).getQueryParams();
-			for (NameValuePair pair : pairs) {
-				if(pair.getName().equals(queryRepondTo)) {
-					isGoodRequest = true;
-					query = queryRepondTo + "=" + URLDecoder.decode(pair.getValue(), StandardCharsets.UTF_8);
-					break;
-				}
-			}
-		} catch (URISyntaxException e) {
-			set500ResponseMessage(response, e);
-			return;
+		if(!queryParameters.hasParameter(queryRepondTo)) {
+			set404ResponseMessage(response);
+			return (CompletableFuture.completedFuture(null));
 		}
 
-		if(!isGoodRequest) {
-			set404ResponseMessage(response);
-			return;
+		String query = queryParameters.getValue(queryRepondTo);
+		if(null == query) {
+			query = "";
 		}
 
 		// now we need to do the request - but with no facets
-		doRequest(collectionRequestHandler, response, query, fieldSet, startNanos, (System.nanoTime() - startNanos));
+		return (doRequest(
+				collectionRequestHandler,
+				response,
+				PanlRequestTrace.get(context),
+				PanlConcurrencyPermit.get(context),
+				query,
+				fieldSet,
+				startNanos,
+				(System.nanoTime() - startNanos)));
 	}
 
 	/**
@@ -159,15 +167,24 @@ public class PanlLookaheadHandler extends BaseResponseHandler implements HttpReq
 	 * @param collectionRequestHandler The collection request handler that this
 	 *        handler is bound to.
 	 * @param response The response object
-	 * @param query The query parameter in the for of <code>&lt;query.respond.to&gt;=some+value</code>
+	 * @param panlRequestTrace The request trace, or null if the request is not
+	 *        being traced
+	 * @param panlConcurrencyPermit The concurrency permit, or null if the
+	 *        request is not concurrency limited
+	 * @param query The decoded value of the <code>&lt;query.respond.to&gt;</code>
+	 *        query parameter
 	 * @param fieldSet The fieldset that is requested
 	 * @param startNanos The time in nanos that this request was started
 	 * @param parseRequestNanos The number of nanos that this request took to
 	 *        parse
+	 *
+	 * @return The future which will complete once the response is populated
 	 */
-	private void doRequest(
+	private CompletableFuture<Void> doRequest(
 			CollectionRequestHandler collectionRequestHandler,
 			HttpResponse response,
+			PanlRequestTrace panlRequestTrace,
+			PanlConcurrencyPermit panlConcurrencyPermit,
 			String query,
 			String fieldSet,
 			long startNanos,
@@ -177,32 +194,25 @@ public class PanlLookaheadHandler extends BaseResponseHandler implements HttpReq
 		int numRows = collectionProperties.getNumResultsLookahead();
 
 		PanlClient panlClient = collectionRequestHandler.getPanlClient();
-		try (SolrClient solrClient = panlClient.getClient()) {
-
-			SolrQuery solrQuery = panlClient.getQuery();
-			// now parse the query
-			String thisQuery = "*:*";
-
-			for (NameValuePair nameValuePair : URLEncodedUtils.parse(query, StandardCharsets.UTF_8)) {
-				if(nameValuePair.getName().equals(collectionProperties.getFormQueryRespondTo())) {
-					StringBuilder sb = new StringBuilder();
-					boolean isFirst = true;
-					for (String parseKeyword : PanlQueryField.parseKeywords(nameValuePair.getValue())) {
-						if(!isFirst) {
-							sb.append(" ");
-						}
-
-						sb.append("\"")
-						       .append(parseKeyword)
-						       .append("\"");
-						isFirst = false;
-					}
-					thisQuery = sb.toString();
-					break;
+		SolrQuery solrQuery;
+		long buildRequestNanos;
+		try {
+			solrQuery = panlClient.getQuery();
+			// now build the query from the keywords
+			StringBuilder sb = new StringBuilder();
+			boolean isFirst = true;
+			for (String parseKeyword : PanlQueryField.parseKeywords(query)) {
+				if(!isFirst) {
+					sb.append(" ");
 				}
+
+				sb.append("\"")
+				  .append(parseKeyword)
+				  .append("\"");
+				isFirst = false;
 			}
 
-			solrQuery.setQuery(thisQuery);
+			solrQuery.setQuery(sb.toString());
 
 			// add in the default query operation
 			solrQuery.setParam(Constants.Parameter.Solr.Q_OP, collectionProperties.getSolrDefaultQueryOperand());
@@ -216,44 +226,89 @@ public class PanlLookaheadHandler extends BaseResponseHandler implements HttpReq
 			solrQuery.setRows(numRows);
 			solrQuery.setStart(0);
 
-			LOGGER.debug(solrQuery.toString());
+			LOGGER.debug("{}", solrQuery);
 
-			long buildRequestNanos = System.nanoTime() - startNanos - parseRequestNanos;
-			final QueryResponse solrQueryResponse = solrClient.query(collectionRequestHandler.getSolrCollection(), solrQuery);
-			JSONObject solrJsonObject = new JSONObject(solrQueryResponse.jsonStr());
-			JSONObject panlObject = new JSONObject();
-			JSONObject timingsObject = new JSONObject();
+			if (null != panlRequestTrace) {
+				panlRequestTrace.setSolrRequest(null, solrQuery);
+			}
 
-			solrJsonObject.remove(Constants.Json.Solr.RESPONSE_HEADER);
+			buildRequestNanos = System.nanoTime() - startNanos - parseRequestNanos;
+		} catch(Exception e) {
+			set500ResponseMessage(response, e);
+			return (CompletableFuture.completedFuture(null));
+		}
 
-			long sendAndReceiveNanos = System.nanoTime() - startNanos - parseRequestNanos - buildRequestNanos;
+		return (panlClient.queryAsync(collectionRequestHandler.getSolrCollection(), solrQuery, panlConcurrencyPermit)
+				.handle((solrQueryResponse, throwable) -> {
+					if (null != throwable) {
+						set500ResponseMessage(response, getCauseException(throwable));
+					} else {
+						setLookaheadResponse(
+								response,
+								solrQueryResponse,
+								collectionRequestHandler.getPhaseMetrics(PanlMetrics.HANDLER_LOOKAHEAD),
+								panlRequestTrace,
+								startNanos,
+								parseRequestNanos,
+								buildRequestNanos);
+					}
+					return (null);
+				}));
+	}
 
-			long buildResponseTime = System.nanoTime() - startNanos;
+	/**
+	 * <p>Set the lookahead response from the Solr query response, adding in the
+	 * timings.</p>
+	 *
+	 * @param response The response object
+	 * @param solrQueryResponse The Solr query response
+	 * @param panlPhaseMetrics The phase metrics to record the timings to
+	 * @param panlRequestTrace The request trace, or null if the request is not
+	 *        being traced
+	 * @param startNanos The time in nanos that this request was started
+	 * @param parseRequestNanos The number of nanos that this request took to
+	 *        parse
+	 * @param buildRequestNanos The number of nanos that this request took to
+	 *        build
+	 */
+	private void setLookaheadResponse(
+			HttpResponse response,
+			QueryResponse solrQueryResponse,
+			PanlPhaseMetrics panlPhaseMetrics,
+			PanlRequestTrace panlRequestTrace,
+			long startNanos,
+			long parseRequestNanos,
+			long buildRequestNanos) {
+
+		long buildResponseStartNanos = System.nanoTime();
+		long sendAndReceiveNanos = buildResponseStartNanos - startNanos - parseRequestNanos - buildRequestNanos;
 
-			// add in some statistics
-			timingsObject.put(Constants.Json.Panl.PARSE_REQUEST_TIME, TimeUnit.NANOSECONDS.toMillis(parseRequestNanos));
-			timingsObject.put(Constants.Json.Panl.BUILD_REQUEST_TIME, TimeUnit.NANOSECONDS.toMillis(buildRequestNanos));
-			timingsObject.put(Constants.Json.Panl.SEND_REQUEST_TIME, TimeUnit.NANOSECONDS.toMillis(sendAndReceiveNanos));
+		try {
+			JSONObject solrJsonObject = new JSONObject(solrQueryResponse.jsonStr());
 
-			timingsObject.put(Constants.Json.Panl.BUILD_RESPONSE_TIME, TimeUnit.NANOSECONDS.toMillis(buildResponseTime));
-			timingsObject.put(Constants.Json.Panl.TOTAL_TIME, TimeUnit.NANOSECONDS.toMillis(
-				parseRequestNanos +
-					buildRequestNanos +
-					sendAndReceiveNanos +
-					buildResponseTime
-			));
+			solrJsonObject.remove(Constants.Json.Solr.RESPONSE_HEADER);
+
+			long buildResponseNanos = System.nanoTime() - buildResponseStartNanos;
+			panlPhaseMetrics.record(parseRequestNanos, buildRequestNanos, sendAndReceiveNanos, buildResponseNanos);
+			if (null != panlRequestTrace) {
+				panlRequestTrace.setPhases(parseRequestNanos, buildRequestNanos, sendAndReceiveNanos, buildResponseNanos);
+				panlRequestTrace.setSolrQTime(solrQueryResponse.getQTime());
+			}
 
-			panlObject.put(Constants.Json.Panl.TIMINGS, timingsObject);
-			solrJsonObject.put(Constants.Json.Panl.PANL, panlObject);
+			// add in some statistics - the panl object only holds the timings
+			String lookaheadResponse = PanlResponseBean.toJsonString(
+					solrJsonObject,
+					new JSONObject(),
+					parseRequestNanos,
+					buildRequestNanos,
+					sendAndReceiveNanos,
+					buildResponseNanos);
 
-			response.setEntity(new StringEntity(solrJsonObject.toString(), ResourceHelper.CONTENT_TYPE_JSON));
+			response.setEntity(new StringEntity(lookaheadResponse, ResourceHelper.CONTENT_TYPE_JSON));
 
 			response.setStatusCode(HttpStatus.SC_OK);
 		} catch(Exception e) {
 			set500ResponseMessage(response, e);
-			// left the return statement here in case we want to do more after the
-			// non-excepted method completes.
-			return;
 		}
 	}
 
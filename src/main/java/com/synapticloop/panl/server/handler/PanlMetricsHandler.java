@@ -0,0 +1,70 @@
+package com.synapticloop.panl.server.handler;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import com.synapticloop.panl.server.metrics.PanlMetrics;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestHandler;
+
+/**
+ * <p>The handler for the <code>/panl-metrics</code> endpoint, which returns
+ * all the Panl server metrics in the Prometheus text exposition format, so
+ * that it can be scraped directly by Prometheus (or any compatible
+ * collector).</p>
+ *
+ * @author synapticloop
+ *
+ * @see PanlMetrics
+ */
+public class PanlMetricsHandler implements HttpRequestHandler {
+	public static final String PANL_URL_BINDING_METRICS = "/panl-metrics";
+
+	private final PanlMetrics panlMetrics;
+
+	/**
+	 * <p>Instantiate the metrics handler.</p>
+	 *
+	 * @param panlMetrics The metrics registry to render
+	 */
+	public PanlMetricsHandler(PanlMetrics panlMetrics) {
+		this.panlMetrics = panlMetrics;
+	}
+
+	/**
+	 * <p>Render the metrics.</p>
+	 *
+	 * @param request the HTTP request.
+	 * @param response the HTTP response.
+	 * @param context the HTTP execution context.
+	 */
+	@Override public void handle(HttpRequest request, HttpResponse response, HttpContext context) {
+		response.setStatusCode(HttpStatus.SC_OK);
+		response.setEntity(new StringEntity(panlMetrics.toPrometheusText(), PanlMetrics.CONTENT_TYPE_PROMETHEUS));
+	}
+}
@@ -25,23 +25,29 @@ package com.synapticloop.panl.server.handler;
  */
 
 import com.synapticloop.panl.exception.PanlNotFoundException;
+import com.synapticloop.panl.exception.PanlServerException;
+import com.synapticloop.panl.server.cache.PanlSnapshotCache;
+import com.synapticloop.panl.server.handler.bean.PanlQueryParametersBean;
+import com.synapticloop.panl.server.handler.bean.PanlRequestPathBean;
+import com.synapticloop.panl.server.handler.bean.PanlResponseBean;
+import com.synapticloop.panl.server.handler.helper.ResponseSectionHelper;
 import com.synapticloop.panl.server.handler.helper.TimingsHelper;
 import com.synapticloop.panl.server.handler.properties.PanlProperties;
 import com.synapticloop.panl.server.handler.webapp.util.ResourceHelper;
+import com.synapticloop.panl.server.metrics.PanlMetrics;
+import com.synapticloop.panl.server.metrics.PanlRequestTrace;
 import com.synapticloop.panl.util.Constants;
 import org.apache.http.HttpRequest;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
-import org.apache.http.NameValuePair;
-import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.entity.StringEntity;
+import org.apache.http.protocol.BasicHttpContext;
 import org.apache.http.protocol.HttpContext;
 import org.apache.http.protocol.HttpRequestHandler;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.net.URISyntaxException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -91,117 +97,83 @@ public class PanlMoreFacetsHandler extends BaseResponseHandler implements HttpRe
 
 		// the first thing that we are going to do is to ensure that we have a
 		// valid uri with the correct parameters
-		String uri = request.getRequestLine().getUri() + "?";
+		PanlRequestPathBean requestPath = new PanlRequestPathBean(request.getRequestLine().getUri());
 
 		boolean isGoodRequest = false;
-		String lpseCode = null;
+		PanlQueryParametersBean queryParameters = new PanlQueryParametersBean(requestPath.getQueryString());
+		String lpseCode = queryParameters.getValue(Constants.Parameter.Panl.CODE);
 		Integer facetLimit = null;
 		try {
-			final List<NameValuePair> pairs = new URIBuilder(request.getRequestLine().getUri()).getQueryParams();
-			for (NameValuePair pair : pairs) {
-				if (pair.getName().equals(Constants.Parameter.Panl.CODE)) {
-					lpseCode = pair.getValue();
-				} else if (pair.getName().equals(Constants.Parameter.Panl.LIMIT)) {
-					try {
-						facetLimit = Integer.parseInt(pair.getValue());
-					} catch (NumberFormatException ignored) {
-						// do nothing
-					}
-				}
-			}
+			facetLimit = Integer.parseInt(queryParameters.getValue(Constants.Parameter.Panl.LIMIT));
+		} catch (NumberFormatException ignored) {
+			// do nothing
+		}
 
-			if (null != lpseCode && facetLimit != null) {
-				isGoodRequest = true;
-			}
-		} catch (URISyntaxException e) {
-			set500ResponseMessage(response, e);
-			return;
+		if (null != lpseCode && facetLimit != null) {
+			isGoodRequest = true;
 		}
 
-		uri = uri.substring(0, uri.indexOf('?'));
-
-		String[] paths = uri.split("/");
-		if (isGoodRequest && (paths.length > 3 && validCollections.containsKey(paths[2]))) {
-			StringBuilder stringBuilder = new StringBuilder("/");
-
-			// rebuild the
-			int i = 0;
-			for (String path : paths) {
-				switch (i) {
-					case 0:
-					case 1:
-						i++;
-						continue;
-					case 3:
-						stringBuilder.append(Constants.Url.Panl.FIELDSETS_EMPTY);
-						break;
-					default:
-						stringBuilder.append(path);
-				}
-				i++;
-				stringBuilder.append("/");
+		String collection = requestPath.getSegment(2);
+		if (isGoodRequest && (requestPath.getNumSegments() > 3 && validCollections.containsKey(collection))) {
+			// rebuild the path with the empty fieldset in place of the requested
+			// fieldset, keeping the rest of the path (the LPSE values and encoding)
+			StringBuilder stringBuilder = new StringBuilder("/")
+					.append(collection)
+					.append("/")
+					.append(Constants.Url.Panl.FIELDSETS_EMPTY)
+					.append("/");
+			if (requestPath.getNumSegments() > 4) {
+				stringBuilder.append(requestPath.getPathFromSegment(4))
+				             .append("/");
 			}
 
 			timingsHelper.markParseInboundRequestEnd();
 
 			try {
-				CollectionRequestHandler collectionRequestHandler = validCollections.get(paths[2]);
-				context.setAttribute(Constants.Context.Panl.LPSE_CODE, lpseCode);
-				context.setAttribute(Constants.Context.Panl.FACET_LIMIT, facetLimit);
-				timingsHelper.markBuildOutboundRequestEnd();
-
-				JSONObject jsonObject = new JSONObject(
-					collectionRequestHandler.handleRequest(
-						stringBuilder.toString(),
-						"",
-						context));
-
-				timingsHelper.markSendOutboundRequestEnd();
-				// now that we have the JSON object - time to remove the things we don't need
-				jsonObject.remove(Constants.Json.Solr.RESPONSE_HEADER);
-				jsonObject.remove(Constants.Json.Solr.RESPONSE);
-				jsonObject.remove(Constants.Json.Solr.FACET_UNDER_COUNTS);
-
-				JSONObject panlJsonObject = jsonObject.getJSONObject(Constants.Json.Panl.PANL);
-
-				panlJsonObject.remove(Constants.Json.Panl.PAGINATION);
-				panlJsonObject.remove(Constants.Json.Panl.ACTIVE);
-				panlJsonObject.remove(Constants.Json.Panl.QUERY_OPERAND);
-				panlJsonObject.remove(Constants.Json.Panl.TIMINGS);
-				panlJsonObject.remove(Constants.Json.Panl.CANONICAL_URI);
-
-				// now go through and get the facet that we want
-
-				// now go through the available facets and place them in the correct place
-				JSONObject availableJsonObject = panlJsonObject.getJSONObject(Constants.Json.Panl.AVAILABLE);
-
-				// regular facets
-				for (Object regularFacets : availableJsonObject.getJSONArray("facets")) {
-					JSONObject regularFacetObject = (JSONObject) regularFacets;
-					String panlCode = regularFacetObject.getString("panl_code");
-					if (panlCode.equals(lpseCode)) {
-						regularFacetObject.put("facet_limit", facetLimit);
-						panlJsonObject.put("facet", regularFacetObject);
-						break;
-					}
-				}
+				CollectionRequestHandler collectionRequestHandler = validCollections.get(collection);
+				PanlSnapshotCache panlSnapshotCache = collectionRequestHandler.getPanlSnapshotCache();
 
-				// lastly remove the facets
-				panlJsonObject.remove(Constants.Json.Panl.QUERY_RESPOND_TO);
-				panlJsonObject.remove(Constants.Json.Panl.SORTING);
-				panlJsonObject.remove(Constants.Json.Panl.AVAILABLE);
-				panlJsonObject.remove(Constants.Json.Panl.FIELDS);
+				String moreFacetsResponse;
+				if (null != panlSnapshotCache && requestPath.getNumSegments() == 4) {
+					// there are no LPSE filters, so the response does not depend on the
+					// request and can be precomputed and refreshed in the background
+					final String path = stringBuilder.toString();
+					final String snapshotLpseCode = lpseCode;
+					final Integer snapshotFacetLimit = facetLimit;
+					long startNanos = System.nanoTime();
+					String snapshot = panlSnapshotCache.get(
+							PANL_URL_BINDING_MORE_FACETS + path + "?" + lpseCode + ":" + facetLimit,
+							() -> getMoreFacetsSnapshot(
+									collectionRequestHandler,
+									path,
+									snapshotLpseCode,
+									snapshotFacetLimit));
+					long cacheLookupNanos = System.nanoTime() - startNanos;
 
-				timingsHelper.markBuildInboundResponseEnd();
-
-				timingsHelper.addTimings(panlJsonObject);
+					collectionRequestHandler.getPhaseMetrics(PanlMetrics.HANDLER_MORE_FACETS).recordCacheHit(
+							timingsHelper.getParseRequestNanos(),
+							0L,
+							cacheLookupNanos);
+					moreFacetsResponse = PanlResponseBean.toCachedJsonString(
+							snapshot,
+							timingsHelper.getParseRequestNanos(),
+							0L,
+							cacheLookupNanos);
+				} else {
+					moreFacetsResponse = getMoreFacetsResponse(
+							timingsHelper,
+							collectionRequestHandler,
+							stringBuilder.toString(),
+							lpseCode,
+							facetLimit,
+							context);
+				}
 
 				response.setStatusCode(HttpStatus.SC_OK);
-				jsonObject.put(Constants.Json.Response.STATUS, HttpStatus.SC_OK);
 
 				response.setEntity(
 					new StringEntity(
-						jsonObject.toString(),
+						moreFacetsResponse,
 						ResourceHelper.CONTENT_TYPE_JSON)
 				);
 			} catch (PanlNotFoundException e) {
@@ -214,6 +186,151 @@ public class PanlMoreFacetsHandler extends BaseResponseHandler implements HttpRe
 		}
 	}
 
+	/**
+	 * <p>Generate the more facets response for the LPSE code.</p>
+	 *
+	 * @param timingsHelper The timings helper for this response
+	 * @param collectionRequestHandler The collection request handler
+	 * @param path The (empty fieldset) LPSE path to query
+	 * @param lpseCode The LPSE code to return the facets for
+	 * @param facetLimit The maximum number of facet values to return
+	 * @param context the HTTP execution context.
+	 *
+	 * @return The more facets JSON as a String
+	 *
+	 * @throws PanlServerException If there was an error querying the Solr server
+	 * @throws PanlNotFoundException If the LPSE code is unknown
+	 */
+	private String getMoreFacetsResponse(
+			TimingsHelper timingsHelper,
+			CollectionRequestHandler collectionRequestHandler,
+			String path,
+			String lpseCode,
+			Integer facetLimit,
+			HttpContext context) throws PanlServerException, PanlNotFoundException {
+
+		JSONObject panlJsonObject = getMoreFacetsPanlObject(
+				timingsHelper,
+				collectionRequestHandler,
+				path,
+				lpseCode,
+				facetLimit,
+				context);
+
+		timingsHelper.markBuildInboundResponseEnd();
+		timingsHelper.recordTo(collectionRequestHandler.getPhaseMetrics(PanlMetrics.HANDLER_MORE_FACETS));
+		timingsHelper.traceTo(PanlRequestTrace.get(context));
+
+		JSONObject jsonObject = new JSONObject();
+		jsonObject.put(Constants.Json.Response.ERROR, false);
+		jsonObject.put(Constants.Json.Response.STATUS, HttpStatus.SC_OK);
+
+		return (PanlResponseBean.toJsonString(
+				jsonObject,
+				panlJsonObject,
+				timingsHelper.getParseRequestNanos(),
+				timingsHelper.getBuildRequestNanos(),
+				timingsHelper.getSendRequestNanos(),
+				timingsHelper.getBuildResponseNanos()));
+	}
+
+	/**
+	 * <p>Generate the more facets snapshot for the LPSE code, which is
+	 * generated on the background refresh thread, so the timings are not
+	 * recorded, and are left out of the snapshot.</p>
+	 *
+	 * @param collectionRequestHandler The collection request handler
+	 * @param path The (empty fieldset) LPSE path to query
+	 * @param lpseCode The LPSE code to return the facets for
+	 * @param facetLimit The maximum number of facet values to return
+	 *
+	 * @return The cacheable more facets JSON
+	 *
+	 * @throws PanlServerException If there was an error querying the Solr server
+	 * @throws PanlNotFoundException If the LPSE code is unknown
+	 */
+	private String getMoreFacetsSnapshot(
+			CollectionRequestHandler collectionRequestHandler,
+			String path,
+			String lpseCode,
+			Integer facetLimit) throws PanlServerException, PanlNotFoundException {
+
+		JSONObject panlJsonObject = getMoreFacetsPanlObject(
+				new TimingsHelper(),
+				collectionRequestHandler,
+				path,
+				lpseCode,
+				facetLimit,
+				new BasicHttpContext());
+
+		JSONObject jsonObject = new JSONObject();
+		jsonObject.put(Constants.Json.Response.ERROR, false);
+		jsonObject.put(Constants.Json.Response.STATUS, HttpStatus.SC_OK);
+
+		return (PanlResponseBean.toCacheableJsonString(jsonObject, panlJsonObject));
+	}
+
+	/**
+	 * <p>Generate the Panl JSON object (without the timings) for the more
+	 * facets response.</p>
+	 *
+	 * @param timingsHelper The timings helper to mark the phases on
+	 * @param collectionRequestHandler The collection request handler
+	 * @param path The (empty fieldset) LPSE path to query
+	 * @param lpseCode The LPSE code to return the facets for
+	 * @param facetLimit The maximum number of facet values to return
+	 * @param context the HTTP execution context.
+	 *
+	 * @return The Panl JSON object
+	 *
+	 * @throws PanlServerException If there was an error querying the Solr server
+	 * @throws PanlNotFoundException If the LPSE code is unknown
+	 */
+	private JSONObject getMoreFacetsPanlObject(
+			TimingsHelper timingsHelper,
+			CollectionRequestHandler collectionRequestHandler,
+			String path,
+			String lpseCode,
+			Integer facetLimit,
+			HttpContext context) throws PanlServerException, PanlNotFoundException {
+
+		context.setAttribute(Constants.Context.Panl.LPSE_CODE, lpseCode);
+		context.setAttribute(Constants.Context.Panl.FACET_LIMIT, facetLimit);
+		timingsHelper.markBuildOutboundRequestEnd();
+
+		// only the available facets and the search fields are required
+		PanlResponseBean panlResponseBean = collectionRequestHandler.getPanlResponse(
+				new PanlRequestPathBean(path),
+				PanlQueryParametersBean.EMPTY,
+				context,
+				ResponseSectionHelper.AVAILABLE | ResponseSectionHelper.SEARCH);
+
+		timingsHelper.markSendOutboundRequestEnd();
+
+		JSONObject panlJsonObject = new JSONObject();
+		panlJsonObject.put(Constants.Json.Panl.SEARCH, panlResponseBean.getSearch());
+		panlJsonObject.put(Constants.Json.Panl.FACETORDER, panlResponseBean.getFacetOrder());
+		if (null != panlResponseBean.getExtra()) {
+			panlJsonObject.put(Constants.Json.Panl.EXTRA, panlResponseBean.getExtra());
+		}
+
+		// now go through the available facets and get the facet that we want
+		JSONObject availableJsonObject = panlResponseBean.getAvailable();
+
+		// regular facets
+		for (Object regularFacets : availableJsonObject.getJSONArray("facets")) {
+			JSONObject regularFacetObject = (JSONObject) regularFacets;
+			String panlCode = regularFacetObject.getString("panl_code");
+			if (panlCode.equals(lpseCode)) {
+				regularFacetObject.put("facet_limit", facetLimit);
+				panlJsonObject.put("facet", regularFacetObject);
+				break;
+			}
+		}
+
+		return (panlJsonObject);
+	}
+
 	@Override protected Logger getLogger() {
 		return(LOGGER);
 	}
@@ -24,13 +24,20 @@ package com.synapticloop.panl.server.handler;
  * IN THE SOFTWARE.
  */
 
+import com.synapticloop.panl.exception.PanlCircuitOpenException;
+import com.synapticloop.panl.exception.PanlConcurrencyLimitException;
 import com.synapticloop.panl.exception.PanlServerException;
 import com.synapticloop.panl.server.client.PanlClient;
+import com.synapticloop.panl.server.handler.bean.PanlRequestPathBean;
+import com.synapticloop.panl.server.handler.bean.PanlResponseBean;
 import com.synapticloop.panl.server.handler.helper.TimingsHelper;
 import com.synapticloop.panl.server.handler.processor.FieldsProcessor;
 import com.synapticloop.panl.server.handler.properties.PanlProperties;
 import com.synapticloop.panl.server.handler.properties.holder.MoreLikeThisHolder;
 import com.synapticloop.panl.server.handler.webapp.util.ResourceHelper;
+import com.synapticloop.panl.server.limiter.PanlConcurrencyPermit;
+import com.synapticloop.panl.server.metrics.PanlMetrics;
+import com.synapticloop.panl.server.metrics.PanlRequestTrace;
 import com.synapticloop.panl.util.Constants;
 import org.apache.http.HttpRequest;
 import org.apache.http.HttpResponse;
@@ -38,7 +45,6 @@ import org.apache.http.HttpStatus;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.protocol.HttpContext;
 import org.apache.http.protocol.HttpRequestHandler;
-import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.response.QueryResponse;
@@ -100,17 +106,16 @@ public class PanlMoreLikeThisHandler extends BaseResponseHandler implements Http
 	public void handle(HttpRequest request, HttpResponse response, HttpContext context) {
 		TimingsHelper timingsHelper = new TimingsHelper();
 
-		String uri = request.getRequestLine().getUri();
-		String[] paths = uri.split("/");
+		PanlRequestPathBean requestPath = new PanlRequestPathBean(request.getRequestLine().getUri());
 
-		if(paths.length < 5) {
+		if(requestPath.getNumSegments() < 5) {
 			set404ResponseMessage(response);
 			return;
 		}
 
-		CollectionRequestHandler collectionRequestHandler = validCollectionsMap.get(paths[2]);
-		String fieldSetName = paths[3];
-		String uniqueKeyValue = paths[4];
+		CollectionRequestHandler collectionRequestHandler = validCollectionsMap.get(requestPath.getSegment(2));
+		String fieldSetName = requestPath.getSegment(3);
+		String uniqueKeyValue = requestPath.getSegment(4);
 
 		if(null == collectionRequestHandler) {
 			set404ResponseMessage(response);
@@ -137,11 +142,9 @@ public class PanlMoreLikeThisHandler extends BaseResponseHandler implements Http
 		// at this point MLT is enabled, the Solr server is there, and we are ready
 		// to serve the response
 
-		//                          !!! DO NOT DO THIS: !!!
-		// try (SolrClient solrClient = collectionRequestHandler.getPanlClient().getClient())
-		// this chained call will give you a connection reset, rather than an error
+		// the client is shared across all requests and __MUST__ not be closed
 		PanlClient panlClient = collectionRequestHandler.getPanlClient();
-		try(SolrClient solrClient = panlClient.getClient()) {
+		try {
 			SolrQuery solrQuery = new SolrQuery();
 
 			try {
@@ -155,7 +158,12 @@ public class PanlMoreLikeThisHandler extends BaseResponseHandler implements Http
 				return;
 			}
 
-			LOGGER.debug(solrQuery.toString());
+			LOGGER.debug("{}", solrQuery);
+
+			PanlRequestTrace panlRequestTrace = PanlRequestTrace.get(context);
+			if (null != panlRequestTrace) {
+				panlRequestTrace.setSolrRequest(null, solrQuery);
+			}
 
 			int numRetries = 0;
 			boolean hasSolrShardError = true;
@@ -171,7 +179,13 @@ public class PanlMoreLikeThisHandler extends BaseResponseHandler implements Http
 			JSONObject panlJsonObject = new JSONObject();
 
 			while(hasSolrShardError && numRetries < moreLikeThisHolder.getNumMltRetries()) {
-				QueryResponse queryResponse = solrClient.query(collectionRequestHandler.getSolrCollection(), solrQuery);
+				QueryResponse queryResponse = panlClient.query(
+						collectionRequestHandler.getSolrCollection(),
+						solrQuery,
+						PanlConcurrencyPermit.get(context));
+				if (null != panlRequestTrace) {
+					panlRequestTrace.setSolrQTime(queryResponse.getQTime());
+				}
 				solrJsonObject = new JSONObject(queryResponse.jsonStr());
 				if(!solrJsonObject.isNull(Constants.Json.Solr.RESPONSE)) {
 					hasSolrShardError = false;
@@ -193,15 +207,22 @@ public class PanlMoreLikeThisHandler extends BaseResponseHandler implements Http
 
 			timingsHelper.markSendOutboundRequestEnd();
 			timingsHelper.markBuildInboundResponseEnd();
-			timingsHelper.addTimings(panlJsonObject);
-			solrJsonObject.put(Constants.Json.Panl.PANL, panlJsonObject);
-
-
-			response.setEntity(new StringEntity(solrJsonObject.toString(), ResourceHelper.CONTENT_TYPE_JSON));
+			timingsHelper.recordTo(collectionRequestHandler.getPhaseMetrics(PanlMetrics.HANDLER_MORE_LIKE_THIS));
+			timingsHelper.traceTo(panlRequestTrace);
+
+			String moreLikeThisResponse = PanlResponseBean.toJsonString(
+					solrJsonObject,
+					panlJsonObject,
+					timingsHelper.getParseRequestNanos(),
+					timingsHelper.getBuildRequestNanos(),
+					timingsHelper.getSendRequestNanos(),
+					timingsHelper.getBuildResponseNanos());
+
+			response.setEntity(new StringEntity(moreLikeThisResponse, ResourceHelper.CONTENT_TYPE_JSON));
 			response.setStatusCode(HttpStatus.SC_OK);
 
 			return;
-		} catch (IOException | SolrServerException e) {
+		} catch (IOException | SolrServerException | PanlCircuitOpenException | PanlConcurrencyLimitException e) {
 			set500ResponseMessage(response, e);
 		}
 	}
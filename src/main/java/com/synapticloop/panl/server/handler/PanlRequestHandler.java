@@ -25,12 +25,13 @@ package com.synapticloop.panl.server.handler;
  */
 
 import com.synapticloop.panl.exception.PanlNotFoundException;
+import com.synapticloop.panl.server.handler.bean.PanlQueryParametersBean;
+import com.synapticloop.panl.server.handler.bean.PanlRequestPathBean;
 import com.synapticloop.panl.server.handler.webapp.util.ResourceHelper;
 import com.synapticloop.panl.server.handler.properties.PanlProperties;
 import org.apache.http.HttpRequest;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
-import org.apache.http.entity.StringEntity;
 import org.apache.http.protocol.HttpContext;
 import org.apache.http.protocol.HttpRequestHandler;
 import org.json.JSONArray;
@@ -38,6 +39,8 @@ import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.CompletableFuture;
+
 import static com.synapticloop.panl.server.handler.webapp.util.ResourceHelper.*;
 
 /**
@@ -46,7 +49,7 @@ import static com.synapticloop.panl.server.handler.webapp.util.ResourceHelper.*;
  *
  * @author synapticloop
  */
-public class PanlRequestHandler extends BaseResponseHandler implements HttpRequestHandler {
+public class PanlRequestHandler extends BaseResponseHandler implements HttpRequestHandler, PanlAsyncRequestHandler {
 	private final static Logger LOGGER = LoggerFactory.getLogger(PanlRequestHandler.class);
 
 	private final CollectionRequestHandler collectionRequestHandler;
@@ -81,39 +84,61 @@ public class PanlRequestHandler extends BaseResponseHandler implements HttpReque
 	 * @see CollectionRequestHandler
 	 */
 	@Override public void handle(HttpRequest request, HttpResponse response, HttpContext context) {
+		handleAsync(request, response, context).join();
+	}
+
+	/**
+	 * <p>Do some initial checking on the request (including the query string if
+	 * one is available) and pass it off to the CollectionRequestHandler
+	 * to be sent asynchronously to the Solr server.</p>
+	 *
+	 * @param request the HTTP request - the incoming request
+	 * @param response the HTTP response - the outgoing response
+	 * @param context the HTTP execution context. (which is ignored by this processor)
+	 *
+	 * @return The future which will complete once the response is populated
+	 *
+	 * @see CollectionRequestHandler#handleRequestAsync(PanlRequestPathBean, PanlQueryParametersBean, HttpContext)
+	 */
+	@Override public CompletableFuture<Void> handleAsync(HttpRequest request, HttpResponse response, HttpContext context) {
 
 		// the first thing that we are going to do is to ensure that we have a
 		// valid request
-		String uri = request.getRequestLine().getUri();
-		int startParam = uri.indexOf('?');
-		String query = "";
-		if (startParam != -1) {
-			query = uri.substring(startParam + 1);
-			uri = uri.substring(0, startParam);
+		// the request line is scanned, and the query string is parsed, exactly
+		// once for the request
+		PanlRequestPathBean requestPath = new PanlRequestPathBean(request.getRequestLine().getUri());
+		PanlQueryParametersBean queryParameters = PanlQueryParametersBean.EMPTY;
+		if (!requestPath.getQueryString().isEmpty()) {
+			queryParameters = new PanlQueryParametersBean(requestPath.getQueryString());
 		}
 
-		String[] paths = uri.split("/");
-		if (paths.length < 3 ||
-			paths[2].isBlank() ||
-			!collectionRequestHandler.isValidResultsFields(paths[2])) {
+		String fieldSet = requestPath.getSegment(2);
+		if (null == fieldSet ||
+			fieldSet.isBlank() ||
+			!collectionRequestHandler.isValidResultsFields(fieldSet)) {
 
 			set404ResponseMessage(response);
-			return;
+			return (CompletableFuture.completedFuture(null));
 		}
 
 		try {
-			response.setEntity(
-				new StringEntity(
-					collectionRequestHandler.handleRequest(uri, query, context),
-					ResourceHelper.CONTENT_TYPE_JSON)
-			);
-
-			response.setStatusCode(HttpStatus.SC_OK);
+			return (collectionRequestHandler.handleRequestAsync(requestPath, queryParameters, context)
+					.handle((httpEntity, throwable) -> {
+						if (null != throwable) {
+							set500ResponseMessage(response, getCauseException(throwable));
+						} else {
+							response.setEntity(httpEntity);
+							response.setStatusCode(HttpStatus.SC_OK);
+						}
+						return (null);
+					}));
 		} catch (PanlNotFoundException e) {
 			set404ResponseMessage(response);
 		} catch (Exception e) {
 			set500ResponseMessage(response, e);
 		}
+
+		return (CompletableFuture.completedFuture(null));
 	}
 
 	@Override protected Logger getLogger() {
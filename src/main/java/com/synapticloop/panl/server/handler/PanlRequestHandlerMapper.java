@@ -0,0 +1,135 @@
+package com.synapticloop.panl.server.handler;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import org.apache.http.HttpRequest;
+import org.apache.http.protocol.HttpRequestHandler;
+import org.apache.http.protocol.HttpRequestHandlerMapper;
+import org.apache.http.protocol.UriHttpRequestHandlerMapper;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>The request handler mapper which dispatches each request to the handler
+ * that is bound to it.</p>
+ *
+ * <p>All Panl collection and API handlers are bound to a single top level
+ * path segment (e.g. <code>/&lt;panl_collection_uri&gt;/*</code> or
+ * <code>/panl-more-facets/*</code>), so these are looked up in a
+ * precomputed, immutable dispatch table keyed on the first path segment of
+ * the request line - this only scans up to the second <code>/</code> of the
+ * URI, rather than matching the URI against every registered pattern.</p>
+ *
+ * <p>Any other patterns (the default handler and the Panl testing URLs) are
+ * matched by the standard <code>UriHttpRequestHandlerMapper</code>.</p>
+ *
+ * @author synapticloop
+ */
+public class PanlRequestHandlerMapper implements HttpRequestHandlerMapper {
+	private final Map<String, HttpRequestHandler> dispatchTable;
+	private final UriHttpRequestHandlerMapper patternMapper = new UriHttpRequestHandlerMapper();
+
+	/**
+	 * <p>Instantiate the mapper from the registered URI patterns.  Patterns of
+	 * the form <code>/&lt;segment&gt;/*</code> are placed in the dispatch
+	 * table, unless a longer pattern is registered under the same segment (in
+	 * which case the longest pattern must still win), all other patterns are
+	 * matched by pattern.</p>
+	 *
+	 * @param handlers The map of URI patterns to the handler bound to them
+	 */
+	public PanlRequestHandlerMapper(Map<String, HttpRequestHandler> handlers) {
+		// find the segments that have more specific patterns registered
+		Set<String> nestedSegments = new HashSet<>();
+		for (String pattern : handlers.keySet()) {
+			if (null == getDispatchSegment(pattern) && pattern.length() > 1 && pattern.charAt(0) == '/') {
+				int endOfSegment = pattern.indexOf('/', 1);
+				if (endOfSegment != -1) {
+					nestedSegments.add(pattern.substring(1, endOfSegment));
+				}
+			}
+		}
+
+		Map<String, HttpRequestHandler> segmentHandlers = new HashMap<>();
+		for (Map.Entry<String, HttpRequestHandler> entry : handlers.entrySet()) {
+			String segment = getDispatchSegment(entry.getKey());
+			if (null != segment && !nestedSegments.contains(segment)) {
+				segmentHandlers.put(segment, entry.getValue());
+			} else {
+				patternMapper.register(entry.getKey(), entry.getValue());
+			}
+		}
+		this.dispatchTable = Map.copyOf(segmentHandlers);
+	}
+
+	/**
+	 * <p>Return the top level path segment for a pattern of the form
+	 * <code>/&lt;segment&gt;/*</code>.</p>
+	 *
+	 * @param pattern The URI pattern
+	 *
+	 * @return The path segment, or null if the pattern is not for a single top
+	 *   level path segment
+	 */
+	private static String getDispatchSegment(String pattern) {
+		if (pattern.length() < 4 || pattern.charAt(0) != '/' || !pattern.endsWith("/*")) {
+			return (null);
+		}
+
+		String segment = pattern.substring(1, pattern.length() - 2);
+		if (segment.indexOf('/') != -1 || segment.indexOf('*') != -1) {
+			return (null);
+		}
+		return (segment);
+	}
+
+	/**
+	 * <p>Look up the handler for the request, first in the dispatch table on
+	 * the first path segment, and then by matching the registered patterns.</p>
+	 *
+	 * @param request The HTTP request
+	 *
+	 * @return The handler for the request, or null if there is none
+	 */
+	@Override public HttpRequestHandler lookup(HttpRequest request) {
+		String uri = request.getRequestLine().getUri();
+		if (uri.length() > 1 && uri.charAt(0) == '/') {
+			int endOfSegment = uri.indexOf('/', 1);
+			if (endOfSegment != -1) {
+				int endOfPath = uri.indexOf('?');
+				if (endOfPath == -1 || endOfSegment < endOfPath) {
+					HttpRequestHandler handler = dispatchTable.get(uri.substring(1, endOfSegment));
+					if (null != handler) {
+						return (handler);
+					}
+				}
+			}
+		}
+		return (patternMapper.lookup(request));
+	}
+}
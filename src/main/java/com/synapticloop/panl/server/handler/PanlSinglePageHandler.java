@@ -24,14 +24,24 @@ package com.synapticloop.panl.server.handler;
  * IN THE SOFTWARE.
  */
 
+import com.synapticloop.panl.exception.PanlNotFoundException;
+import com.synapticloop.panl.exception.PanlServerException;
+import com.synapticloop.panl.server.cache.PanlSnapshotCache;
+import com.synapticloop.panl.server.handler.bean.PanlQueryParametersBean;
+import com.synapticloop.panl.server.handler.bean.PanlRequestPathBean;
+import com.synapticloop.panl.server.handler.bean.PanlResponseBean;
+import com.synapticloop.panl.server.handler.helper.ResponseSectionHelper;
 import com.synapticloop.panl.server.handler.helper.TimingsHelper;
 import com.synapticloop.panl.server.handler.properties.PanlProperties;
 import com.synapticloop.panl.server.handler.webapp.util.ResourceHelper;
+import com.synapticloop.panl.server.metrics.PanlMetrics;
+import com.synapticloop.panl.server.metrics.PanlRequestTrace;
 import com.synapticloop.panl.util.Constants;
 import org.apache.http.HttpRequest;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.entity.StringEntity;
+import org.apache.http.protocol.BasicHttpContext;
 import org.apache.http.protocol.HttpContext;
 import org.apache.http.protocol.HttpRequestHandler;
 import org.json.JSONObject;
@@ -66,119 +76,57 @@ public class PanlSinglePageHandler extends BaseResponseHandler implements HttpRe
 		for(CollectionRequestHandler collectionRequestHandler : collectionRequestHandlers) {
 			validCollections.put(collectionRequestHandler.getPanlCollectionUri(), collectionRequestHandler);
 			validUrls.put(PANL_URL_BINDING_SINGLE_PAGE + collectionRequestHandler.getPanlCollectionUri() + "/");
+
+			// the single page response does not depend on the request, so it can be
+			// precomputed and refreshed in the background
+			if (null != collectionRequestHandler.getPanlSnapshotCache()) {
+				collectionRequestHandler.getPanlSnapshotCache().register(
+						PANL_URL_BINDING_SINGLE_PAGE + collectionRequestHandler.getPanlCollectionUri(),
+						() -> getSinglePageSnapshot(collectionRequestHandler));
+			}
 		}
 	}
 
 	/**
 	 * <p>Return the JSON object that contains all configuration.</p>
 	 *
+	 * <p>If the collection has response snapshots enabled, then the
+	 * precomputed (and periodically refreshed) response is returned, with the
+	 * timings for this request.</p>
+	 *
 	 * @param request the HTTP request.
 	 * @param response the HTTP response.
 	 * @param context the HTTP execution context.
 	 */
 	@Override public void handle(HttpRequest request, HttpResponse response, HttpContext context) {
-		TimingsHelper timingsHelper = new TimingsHelper();
-
 		// the first thing that we are going to do is to ensure that we have a
 		// valid request
-		String uri = request.getRequestLine().getUri();
+		PanlRequestPathBean requestPath = new PanlRequestPathBean(request.getRequestLine().getUri());
+		String collection = requestPath.getSegment(2);
 
-		String[] paths = uri.split("/");
-		if (paths.length == 3  && validCollections.containsKey(paths[2])) {
+		if (requestPath.getNumSegments() == 3  && validCollections.containsKey(collection)) {
 			try {
-				CollectionRequestHandler collectionRequestHandler = validCollections.get(paths[2]);
-				timingsHelper.markParseInboundRequestEnd();
-				timingsHelper.markBuildOutboundRequestEnd();
-				JSONObject jsonObject = new JSONObject(
-					collectionRequestHandler.handleRequest(
-						"/" + paths[2] + "/" + Constants.Url.Panl.FIELDSETS_EMPTY + "/",
-						"",
-						context));
-
-				timingsHelper.markSendOutboundRequestEnd();
-				// now that we have the JSON object - time to remove the things we don't need
-				jsonObject.remove(Constants.Json.Solr.RESPONSE_HEADER);
-				jsonObject.remove(Constants.Json.Solr.RESPONSE);
-				jsonObject.remove(Constants.Json.Solr.FACET_COUNTS);
-				jsonObject.remove(Constants.Json.Solr.FACET_UNDER_COUNTS);
-
-				JSONObject panlJsonObject = jsonObject.getJSONObject(Constants.Json.Panl.PANL);
-
-				panlJsonObject.remove(Constants.Json.Panl.PAGINATION);
-				panlJsonObject.remove(Constants.Json.Panl.ACTIVE);
-				panlJsonObject.remove(Constants.Json.Panl.QUERY_OPERAND);
-				panlJsonObject.remove(Constants.Json.Panl.TIMINGS);
-				panlJsonObject.remove(Constants.Json.Panl.CANONICAL_URI);
-
-				// now to add the data that we do need
-				List<String> lpseOrders = collectionRequestHandler.getLpseOrder();
-				panlJsonObject.put(Constants.Json.Panl.LPSE_ORDER, new ArrayList<>());
-				int i = 0;
-				JSONObject lpseLookupObject = new JSONObject();
-				for(String lpseOrder: lpseOrders) {
-					lpseLookupObject.put(lpseOrder, i);
-					i++;
-				}
-
-				panlJsonObject.put(Constants.Json.Panl.LPSE_LOOKUP, lpseLookupObject);
-
-				// now go through the available facets and place them in the correct place
-				JSONObject availableJsonObject = panlJsonObject.getJSONObject(Constants.Json.Panl.AVAILABLE);
-
-				// regular facets
-				for (Object regularFacets : availableJsonObject.getJSONArray(Constants.Json.Panl.FACETS)) {
-					JSONObject regularFacetObject = (JSONObject) regularFacets;
-					String panlCode = regularFacetObject.getString(Constants.Json.Panl.PANL_CODE);
-					if(null != panlCode) {
-						int lpseOrder = lpseLookupObject.optInt(panlCode, -1);
-						if(lpseOrder != -1) {
-							panlJsonObject.getJSONArray(Constants.Json.Panl.LPSE_ORDER).put(lpseOrder, regularFacetObject);
-						}
-					}
-				}
+				CollectionRequestHandler collectionRequestHandler = validCollections.get(collection);
+				PanlSnapshotCache panlSnapshotCache = collectionRequestHandler.getPanlSnapshotCache();
 
-				// range facets always need to go after regular facets, as they are
-				// both returned, and the range must overwrite the regular one
-				for (Object rangeFacets : availableJsonObject.getJSONArray(Constants.Json.Panl.RANGE_FACETS)) {
-					JSONObject rangeFacetObject = (JSONObject) rangeFacets;
-					String panlCode = rangeFacetObject.getString(Constants.Json.Panl.PANL_CODE);
-					if(null != panlCode) {
-						int lpseOrder = lpseLookupObject.optInt(panlCode, -1);
-						if(lpseOrder != -1) {
-							rangeFacetObject.put(Constants.Json.Panl.IS_RANGE_FACET, true);
-							panlJsonObject.getJSONArray(Constants.Json.Panl.LPSE_ORDER).put(lpseOrder, rangeFacetObject);
-						}
-					}
-				}
+				String singlePageResponse;
+				if (null != panlSnapshotCache) {
+					long startNanos = System.nanoTime();
+					String snapshot = panlSnapshotCache.get(
+							PANL_URL_BINDING_SINGLE_PAGE + collection,
+							() -> getSinglePageSnapshot(collectionRequestHandler));
+					long cacheLookupNanos = System.nanoTime() - startNanos;
 
-				// date range facets next
-				for (Object rangeFacets : availableJsonObject.getJSONArray(Constants.Json.Panl.DATE_RANGE_FACETS)) {
-					JSONObject rangeFacetObject = (JSONObject) rangeFacets;
-					String panlCode = rangeFacetObject.getString(Constants.Json.Panl.PANL_CODE);
-					if(null != panlCode) {
-						int lpseOrder = lpseLookupObject.optInt(panlCode, -1);
-						if(lpseOrder != -1) {
-							rangeFacetObject.put(Constants.Json.Panl.IS_DATE_RANGE_FACET, true);
-							panlJsonObject.getJSONArray(Constants.Json.Panl.LPSE_ORDER).put(lpseOrder, rangeFacetObject);
-						}
-					}
+					collectionRequestHandler.getPhaseMetrics(PanlMetrics.HANDLER_SINGLE_PAGE).recordCacheHit(0L, 0L, cacheLookupNanos);
+					singlePageResponse = PanlResponseBean.toCachedJsonString(snapshot, 0L, 0L, cacheLookupNanos);
+				} else {
+					singlePageResponse = getSinglePageResponse(collectionRequestHandler, context);
 				}
 
-				// lastly remove the facets
-				panlJsonObject.remove(Constants.Json.Panl.SORTING);
-				panlJsonObject.remove(Constants.Json.Panl.AVAILABLE);
-				panlJsonObject.remove(Constants.Json.Panl.FIELDS);
-
-				// we remove the facet order
-				panlJsonObject.remove(Constants.Json.Panl.FACETORDER);
-
-				timingsHelper.markBuildInboundResponseEnd();
-				timingsHelper.addTimings(panlJsonObject);
-
 				response.setStatusCode(HttpStatus.SC_OK);
 				response.setEntity(
 						new StringEntity(
-								jsonObject.toString(),
+								singlePageResponse,
 								ResourceHelper.CONTENT_TYPE_JSON)
 				);
 			} catch (Exception e) {
@@ -189,6 +137,153 @@ public class PanlSinglePageHandler extends BaseResponseHandler implements HttpRe
 		}
 	}
 
+	/**
+	 * <p>Generate the single page configuration response for the
+	 * collection.</p>
+	 *
+	 * @param collectionRequestHandler The collection request handler
+	 * @param context the HTTP execution context.
+	 *
+	 * @return The single page configuration JSON as a String
+	 *
+	 * @throws PanlServerException If there was an error querying the Solr server
+	 * @throws PanlNotFoundException If the request could not be found
+	 */
+	private String getSinglePageResponse(
+			CollectionRequestHandler collectionRequestHandler,
+			HttpContext context) throws PanlServerException, PanlNotFoundException {
+
+		TimingsHelper timingsHelper = new TimingsHelper();
+		JSONObject panlJsonObject = getSinglePagePanlObject(timingsHelper, collectionRequestHandler, context);
+
+		timingsHelper.markBuildInboundResponseEnd();
+		timingsHelper.recordTo(collectionRequestHandler.getPhaseMetrics(PanlMetrics.HANDLER_SINGLE_PAGE));
+		timingsHelper.traceTo(PanlRequestTrace.get(context));
+
+		JSONObject jsonObject = new JSONObject();
+		jsonObject.put(Constants.Json.Response.ERROR, false);
+
+		return (PanlResponseBean.toJsonString(
+				jsonObject,
+				panlJsonObject,
+				timingsHelper.getParseRequestNanos(),
+				timingsHelper.getBuildRequestNanos(),
+				timingsHelper.getSendRequestNanos(),
+				timingsHelper.getBuildResponseNanos()));
+	}
+
+	/**
+	 * <p>Generate the single page configuration snapshot for the collection,
+	 * which is generated on the background refresh thread, so the timings are
+	 * not recorded, and are left out of the snapshot.</p>
+	 *
+	 * @param collectionRequestHandler The collection request handler
+	 *
+	 * @return The cacheable single page configuration JSON
+	 *
+	 * @throws PanlServerException If there was an error querying the Solr server
+	 * @throws PanlNotFoundException If the request could not be found
+	 */
+	private String getSinglePageSnapshot(CollectionRequestHandler collectionRequestHandler) throws PanlServerException, PanlNotFoundException {
+		JSONObject panlJsonObject = getSinglePagePanlObject(new TimingsHelper(), collectionRequestHandler, new BasicHttpContext());
+
+		JSONObject jsonObject = new JSONObject();
+		jsonObject.put(Constants.Json.Response.ERROR, false);
+		return (PanlResponseBean.toCacheableJsonString(jsonObject, panlJsonObject));
+	}
+
+	/**
+	 * <p>Generate the Panl JSON object (without the timings) for the single
+	 * page configuration response.</p>
+	 *
+	 * @param timingsHelper The timings helper to mark the phases on
+	 * @param collectionRequestHandler The collection request handler
+	 * @param context the HTTP execution context.
+	 *
+	 * @return The Panl JSON object
+	 *
+	 * @throws PanlServerException If there was an error querying the Solr server
+	 * @throws PanlNotFoundException If the request could not be found
+	 */
+	private JSONObject getSinglePagePanlObject(
+			TimingsHelper timingsHelper,
+			CollectionRequestHandler collectionRequestHandler,
+			HttpContext context) throws PanlServerException, PanlNotFoundException {
+
+		timingsHelper.markParseInboundRequestEnd();
+		timingsHelper.markBuildOutboundRequestEnd();
+		// only the available facets and the search fields are required
+		PanlResponseBean panlResponseBean = collectionRequestHandler.getPanlResponse(
+				new PanlRequestPathBean("/" + collectionRequestHandler.getPanlCollectionUri() + "/" + Constants.Url.Panl.FIELDSETS_EMPTY + "/"),
+				PanlQueryParametersBean.EMPTY,
+				context,
+				ResponseSectionHelper.AVAILABLE | ResponseSectionHelper.SEARCH);
+
+		timingsHelper.markSendOutboundRequestEnd();
+
+		JSONObject panlJsonObject = new JSONObject();
+		panlJsonObject.put(Constants.Json.Panl.SEARCH, panlResponseBean.getSearch());
+		if (null != panlResponseBean.getExtra()) {
+			panlJsonObject.put(Constants.Json.Panl.EXTRA, panlResponseBean.getExtra());
+		}
+
+		// now to add the data that we do need
+		List<String> lpseOrders = collectionRequestHandler.getLpseOrder();
+		panlJsonObject.put(Constants.Json.Panl.LPSE_ORDER, new ArrayList<>());
+		int i = 0;
+		JSONObject lpseLookupObject = new JSONObject();
+		for(String lpseOrder: lpseOrders) {
+			lpseLookupObject.put(lpseOrder, i);
+			i++;
+		}
+
+		panlJsonObject.put(Constants.Json.Panl.LPSE_LOOKUP, lpseLookupObject);
+
+		// now go through the available facets and place them in the correct place
+		JSONObject availableJsonObject = panlResponseBean.getAvailable();
+
+		// regular facets
+		for (Object regularFacets : availableJsonObject.getJSONArray(Constants.Json.Panl.FACETS)) {
+			JSONObject regularFacetObject = (JSONObject) regularFacets;
+			String panlCode = regularFacetObject.getString(Constants.Json.Panl.PANL_CODE);
+			if(null != panlCode) {
+				int lpseOrder = lpseLookupObject.optInt(panlCode, -1);
+				if(lpseOrder != -1) {
+					panlJsonObject.getJSONArray(Constants.Json.Panl.LPSE_ORDER).put(lpseOrder, regularFacetObject);
+				}
+			}
+		}
+
+		// range facets always need to go after regular facets, as they are
+		// both returned, and the range must overwrite the regular one
+		for (Object rangeFacets : availableJsonObject.getJSONArray(Constants.Json.Panl.RANGE_FACETS)) {
+			JSONObject rangeFacetObject = (JSONObject) rangeFacets;
+			String panlCode = rangeFacetObject.getString(Constants.Json.Panl.PANL_CODE);
+			if(null != panlCode) {
+				int lpseOrder = lpseLookupObject.optInt(panlCode, -1);
+				if(lpseOrder != -1) {
+					rangeFacetObject.put(Constants.Json.Panl.IS_RANGE_FACET, true);
+					panlJsonObject.getJSONArray(Constants.Json.Panl.LPSE_ORDER).put(lpseOrder, rangeFacetObject);
+				}
+			}
+		}
+
+		// date range facets next
+		for (Object rangeFacets : availableJsonObject.getJSONArray(Constants.Json.Panl.DATE_RANGE_FACETS)) {
+			JSONObject rangeFacetObject = (JSONObject) rangeFacets;
+			String panlCode = rangeFacetObject.getString(Constants.Json.Panl.PANL_CODE);
+			if(null != panlCode) {
+				int lpseOrder = lpseLookupObject.optInt(panlCode, -1);
+				if(lpseOrder != -1) {
+					rangeFacetObject.put(Constants.Json.Panl.IS_DATE_RANGE_FACET, true);
+					panlJsonObject.getJSONArray(Constants.Json.Panl.LPSE_ORDER).put(lpseOrder, rangeFacetObject);
+				}
+			}
+		}
+
+		return (panlJsonObject);
+	}
+
 	@Override protected Logger getLogger() {
 		return(LOGGER);
 	}
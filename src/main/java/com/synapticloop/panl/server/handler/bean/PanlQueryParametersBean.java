@@ -0,0 +1,147 @@
+package com.synapticloop.panl.server.handler.bean;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import com.synapticloop.panl.util.Constants;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.utils.URLEncodedUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>The Panl query parameters bean holds the query string of an inbound
+ * request, which is parsed (and URL decoded) exactly once when the bean is
+ * instantiated, and is then passed through to everything that needs a query
+ * parameter value for this request.</p>
+ *
+ * <p>If a parameter is repeated in the query string, the last value is
+ * used.</p>
+ *
+ * @author synapticloop
+ */
+public class PanlQueryParametersBean {
+	/**
+	 * <p>The query parameters for a request that has no query string.</p>
+	 */
+	public static final PanlQueryParametersBean EMPTY = new PanlQueryParametersBean("");
+
+	private final String queryString;
+	private final List<NameValuePair> nameValuePairs;
+	private final Map<String, String> parameterMap = new HashMap<>();
+	private final boolean hasQueryParameters;
+
+	/**
+	 * <p>Instantiate the bean, parsing the (un-decoded) query string.</p>
+	 *
+	 * @param queryString The query string, without the leading
+	 *   <code>?</code> - this may be null or blank
+	 */
+	public PanlQueryParametersBean(String queryString) {
+		this.queryString = (null == queryString) ? "" : queryString;
+		this.nameValuePairs = Collections.unmodifiableList(URLEncodedUtils.parse(this.queryString, StandardCharsets.UTF_8));
+
+		boolean hasNonSectionsParameter = false;
+		for (NameValuePair nameValuePair : nameValuePairs) {
+			parameterMap.put(nameValuePair.getName(), nameValuePair.getValue());
+			if (!nameValuePair.getName().equals(Constants.Parameter.Panl.SECTIONS)) {
+				hasNonSectionsParameter = true;
+			}
+		}
+		this.hasQueryParameters = hasNonSectionsParameter;
+	}
+
+	/**
+	 * <p>Instantiate the bean from the query string of the request URI, if
+	 * there is one.</p>
+	 *
+	 * @param uri The request URI (including the query string, if any)
+	 *
+	 * @return The parsed query parameters
+	 */
+	public static PanlQueryParametersBean fromUri(String uri) {
+		int indexOfQuestionMark = uri.indexOf('?');
+		if (indexOfQuestionMark == -1) {
+			return (EMPTY);
+		}
+		return (new PanlQueryParametersBean(uri.substring(indexOfQuestionMark + 1)));
+	}
+
+	/**
+	 * <p>Return the raw (un-decoded) query string.</p>
+	 *
+	 * @return The raw query string, which will never be null
+	 */
+	public String getQueryString() {
+		return (queryString);
+	}
+
+	/**
+	 * <p>Return the decoded parameters in the order that they appeared in the
+	 * query string.</p>
+	 *
+	 * @return The unmodifiable list of decoded parameters
+	 */
+	public List<NameValuePair> getNameValuePairs() {
+		return (nameValuePairs);
+	}
+
+	/**
+	 * <p>Return the decoded value of the named parameter.</p>
+	 *
+	 * @param name The name of the parameter
+	 *
+	 * @return The decoded value, or null if the parameter does not exist (or
+	 *   has no value)
+	 */
+	public String getValue(String name) {
+		return (parameterMap.get(name));
+	}
+
+	/**
+	 * <p>Return whether the named parameter exists in the query string.</p>
+	 *
+	 * @param name The name of the parameter
+	 *
+	 * @return Whether the parameter exists
+	 */
+	public boolean hasParameter(String name) {
+		return (parameterMap.containsKey(name));
+	}
+
+	/**
+	 * <p>Return whether the query string has any parameters apart from the
+	 * <code>sections</code> parameter.</p>
+	 *
+	 * @return Whether the query string has any parameters apart from the
+	 *   sections parameter
+	 */
+	public boolean getHasQueryParameters() {
+		return (hasQueryParameters);
+	}
+}
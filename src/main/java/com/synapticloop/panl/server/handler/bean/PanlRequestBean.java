@@ -0,0 +1,203 @@
+package com.synapticloop.panl.server.handler.bean;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import com.synapticloop.panl.server.handler.tokeniser.token.LpseToken;
+import com.synapticloop.panl.server.limiter.PanlConcurrencyPermit;
+import com.synapticloop.panl.server.metrics.PanlRequestTrace;
+import org.apache.solr.client.solrj.SolrQuery;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>The Panl request bean encapsulates a parsed inbound request and the
+ * built outbound Solr query, so that the Solr query may be sent (either
+ * synchronously or asynchronously) and the response parsed at a later
+ * time.</p>
+ *
+ * @author synapticloop
+ */
+public class PanlRequestBean {
+	private final String fieldSet;
+	private final List<LpseToken> lpseTokens;
+	private final Map<String, List<LpseToken>> panlTokenMap;
+	private final String canonicalUri;
+	private final String cacheKey;
+	private final SolrQuery solrQuery;
+	private final long parseRequestNanos;
+	private final long buildRequestNanos;
+	private final int responseSections;
+	private final PanlRequestTrace panlRequestTrace;
+	private final PanlConcurrencyPermit panlConcurrencyPermit;
+
+	/**
+	 * <p>Instantiate the bean.</p>
+	 *
+	 * @param fieldSet The fieldset for this request
+	 * @param lpseTokens The parsed LPSE tokens for this request
+	 * @param panlTokenMap The LPSE tokens keyed on the LPSE code, sorted by value
+	 * @param canonicalUri The canonical URI for this request
+	 * @param cacheKey The key for the response cache for this request
+	 * @param solrQuery The built Solr query to send to the Solr server
+	 * @param parseRequestNanos The number of nanos it took to parse the request
+	 * @param buildRequestNanos The number of nanos it took to build the request
+	 * @param responseSections The bit mask of the response sections to generate
+	 * @param panlRequestTrace The trace for this request, or null if the request
+	 *   is not being traced
+	 * @param panlConcurrencyPermit The concurrency permit for this request, or
+	 *   null if the request is not concurrency limited
+	 */
+	public PanlRequestBean(
+			String fieldSet,
+			List<LpseToken> lpseTokens,
+			Map<String, List<LpseToken>> panlTokenMap,
+			String canonicalUri,
+			String cacheKey,
+			SolrQuery solrQuery,
+			long parseRequestNanos,
+			long buildRequestNanos,
+			int responseSections,
+			PanlRequestTrace panlRequestTrace,
+			PanlConcurrencyPermit panlConcurrencyPermit) {
+		this.fieldSet = fieldSet;
+		this.lpseTokens = lpseTokens;
+		this.panlTokenMap = panlTokenMap;
+		this.canonicalUri = canonicalUri;
+		this.cacheKey = cacheKey;
+		this.solrQuery = solrQuery;
+		this.parseRequestNanos = parseRequestNanos;
+		this.buildRequestNanos = buildRequestNanos;
+		this.responseSections = responseSections;
+		this.panlRequestTrace = panlRequestTrace;
+		this.panlConcurrencyPermit = panlConcurrencyPermit;
+	}
+
+	/**
+	 * <p>Get the fieldset for this request.</p>
+	 *
+	 * @return The fieldset for this request
+	 */
+	public String getFieldSet() {
+		return (fieldSet);
+	}
+
+	/**
+	 * <p>Get the parsed LPSE tokens for this request.</p>
+	 *
+	 * @return The parsed LPSE tokens
+	 */
+	public List<LpseToken> getLpseTokens() {
+		return (lpseTokens);
+	}
+
+	/**
+	 * <p>Get all the LPSE tokens (including the invalid ones) keyed on the LPSE
+	 * code, with each list sorted by the token value (apart from the sort
+	 * tokens which are order dependent).</p>
+	 *
+	 * @return The map of LPSE code to the LPSE tokens
+	 */
+	public Map<String, List<LpseToken>> getPanlTokenMap() {
+		return (panlTokenMap);
+	}
+
+	/**
+	 * <p>Get the canonical URI for this request.</p>
+	 *
+	 * @return The canonical URI
+	 */
+	public String getCanonicalUri() {
+		return (canonicalUri);
+	}
+
+	/**
+	 * <p>Get the key that this request's response is cached under.</p>
+	 *
+	 * @return The response cache key
+	 */
+	public String getCacheKey() {
+		return (cacheKey);
+	}
+
+	/**
+	 * <p>Get the Solr query that is to be sent to the Solr server.</p>
+	 *
+	 * @return The Solr query
+	 */
+	public SolrQuery getSolrQuery() {
+		return (solrQuery);
+	}
+
+	/**
+	 * <p>Get the number of nanos it took to parse the inbound request.</p>
+	 *
+	 * @return The number of nanos it took to parse the inbound request
+	 */
+	public long getParseRequestNanos() {
+		return (parseRequestNanos);
+	}
+
+	/**
+	 * <p>Get the number of nanos it took to build the outbound Solr query.</p>
+	 *
+	 * @return The number of nanos it took to build the Solr query
+	 */
+	public long getBuildRequestNanos() {
+		return (buildRequestNanos);
+	}
+
+	/**
+	 * <p>Get the bit mask of the response sections that are to be
+	 * generated.</p>
+	 *
+	 * @return The bit mask of the response sections
+	 *
+	 * @see com.synapticloop.panl.server.handler.helper.ResponseSectionHelper
+	 */
+	public int getResponseSections() {
+		return (responseSections);
+	}
+
+	/**
+	 * <p>Get the trace for this request.</p>
+	 *
+	 * @return The request trace, or null if the request is not being traced
+	 */
+	public PanlRequestTrace getPanlRequestTrace() {
+		return (panlRequestTrace);
+	}
+
+	/**
+	 * <p>Get the concurrency permit for this request, which is acquired when
+	 * the Solr query is sent.</p>
+	 *
+	 * @return The concurrency permit, or null if the request is not
+	 *   concurrency limited
+	 */
+	public PanlConcurrencyPermit getPanlConcurrencyPermit() {
+		return (panlConcurrencyPermit);
+	}
+}
@@ -0,0 +1,187 @@
+package com.synapticloop.panl.server.handler.bean;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import java.util.Arrays;
+
+/**
+ * <p>The Panl request path bean scans the URI from the request line exactly
+ * once, splitting off the query string and recording the start and end
+ * offsets of each of the <code>/</code> separated path segments, so that the
+ * collection, fieldset, and LPSE segments can be resolved without splitting
+ * the URI again.</p>
+ *
+ * <p>The segments are indexed in the same way as
+ * <code>path.split("/")</code> - i.e. for the path
+ * <code>/collection/fieldset/value/lpse/</code> segment 0 is the (empty)
+ * segment before the leading <code>/</code>, segment 1 is the collection,
+ * segment 2 is the fieldset, and the last segment is the LPSE encoding.
+ * Trailing empty segments are not counted.</p>
+ *
+ * @author synapticloop
+ */
+public class PanlRequestPathBean {
+	private final String path;
+	private final String queryString;
+	private final int numSlashes;
+	private final int numSegments;
+	private int[] segmentStarts = new int[8];
+
+	/**
+	 * <p>Instantiate the bean, scanning the URI from the request line.</p>
+	 *
+	 * @param uri The URI from the request line, which may include the query
+	 *   string
+	 */
+	public PanlRequestPathBean(String uri) {
+		int pathLength = uri.length();
+		String query = "";
+		int slashes = 0;
+
+		for (int i = 0; i < uri.length(); i++) {
+			char c = uri.charAt(i);
+			if (c == '?') {
+				pathLength = i;
+				query = uri.substring(i + 1);
+				break;
+			}
+
+			if (c == '/') {
+				slashes++;
+				if (slashes == segmentStarts.length) {
+					segmentStarts = Arrays.copyOf(segmentStarts, segmentStarts.length * 2);
+				}
+				segmentStarts[slashes] = i + 1;
+			}
+		}
+
+		this.path = (pathLength == uri.length()) ? uri : uri.substring(0, pathLength);
+		this.queryString = query;
+		this.numSlashes = slashes;
+
+		// now remove the trailing empty segments (a path without a '/' is always a
+		// single segment, even if it is empty)
+		int segments = slashes + 1;
+		while (slashes > 0 && segments > 0 && getSegmentStart(segments - 1) == getSegmentEnd(segments - 1)) {
+			segments--;
+		}
+		this.numSegments = segments;
+	}
+
+	/**
+	 * <p>Return the path of the URI, without the query string.</p>
+	 *
+	 * @return The path of the URI
+	 */
+	public String getPath() {
+		return (path);
+	}
+
+	/**
+	 * <p>Return the raw (un-decoded) query string, without the leading
+	 * <code>?</code>.</p>
+	 *
+	 * @return The query string, or an empty string if there was none
+	 */
+	public String getQueryString() {
+		return (queryString);
+	}
+
+	/**
+	 * <p>Return the number of path segments, which is the same as the length
+	 * of the array returned from <code>path.split("/")</code>.</p>
+	 *
+	 * @return The number of path segments
+	 */
+	public int getNumSegments() {
+		return (numSegments);
+	}
+
+	/**
+	 * <p>Return the path segment at the index.</p>
+	 *
+	 * @param index The index of the segment
+	 *
+	 * @return The path segment, or null if there is no segment at this index
+	 */
+	public String getSegment(int index) {
+		if (index < 0 || index >= numSegments) {
+			return (null);
+		}
+		return (path.substring(getSegmentStart(index), getSegmentEnd(index)));
+	}
+
+	/**
+	 * <p>Return the last path segment, which for a Panl request is the LPSE
+	 * encoding.</p>
+	 *
+	 * @return The last path segment, or null if there are no segments
+	 */
+	public String getLastSegment() {
+		return (getSegment(numSegments - 1));
+	}
+
+	/**
+	 * <p>Return the path from the start of the segment at the index, up to
+	 * (but not including) the trailing <code>/</code> of the last segment.</p>
+	 *
+	 * @param index The index of the first segment
+	 *
+	 * @return The path from the segment, or an empty string if there is no
+	 *   segment at the index
+	 */
+	public String getPathFromSegment(int index) {
+		if (index < 0 || index >= numSegments) {
+			return ("");
+		}
+		return (path.substring(getSegmentStart(index), getSegmentEnd(numSegments - 1)));
+	}
+
+	/**
+	 * <p>Return the offset in the path of the first character of the segment.</p>
+	 *
+	 * @param index The index of the segment
+	 *
+	 * @return The offset of the start of the segment
+	 */
+	public int getSegmentStart(int index) {
+		return (segmentStarts[index]);
+	}
+
+	/**
+	 * <p>Return the offset in the path just after the last character of the
+	 * segment.</p>
+	 *
+	 * @param index The index of the segment
+	 *
+	 * @return The offset of the end of the segment
+	 */
+	public int getSegmentEnd(int index) {
+		if (index < numSlashes) {
+			return (segmentStarts[index + 1] - 1);
+		}
+		return (path.length());
+	}
+}
@@ -0,0 +1,483 @@
+package com.synapticloop.panl.server.handler.bean;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import com.synapticloop.panl.server.handler.helper.TimingsHelper;
+import com.synapticloop.panl.server.handler.webapp.util.ResourceHelper;
+import com.synapticloop.panl.util.Constants;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.EntityTemplate;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.Utils;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * <p>The Panl response bean holds the Solr response and the generated Panl
+ * JSON object, and writes them out as the JSON response in a single pass,
+ * without converting the Solr response to a string, parsing it back into a
+ * JSON object, and then serialising it again.</p>
+ *
+ * <p>The Solr response is written as it was returned (apart from the
+ * <code>stats</code> key, and the <code>facet_counts</code> and
+ * <code>responseHeader.params</code> keys if the Panl server is configured to
+ * remove them), followed by the <code>error</code> and <code>panl</code>
+ * keys.</p>
+ *
+ * <p>The <code>timings</code> are always written as the last key of the
+ * <code>panl</code> object, so that a cached response can be stored without
+ * them, and completed with the timings of the request that it is served
+ * to.  The timings are held as the primitive phase durations, and written
+ * directly from them.</p>
+ *
+ * <p>The individual sections of the Panl response are available through the
+ * getters, so that handlers which only require part of the response do not
+ * need to serialise and then parse the response.  A section will be null if
+ * it was not requested.</p>
+ *
+ * @author synapticloop
+ */
+public class PanlResponseBean {
+	private final NamedList<Object> solrResponse;
+	private final JSONObject panlJsonObject;
+	private final long parseRequestNanos;
+	private final long buildRequestNanos;
+	private final long sendRequestNanos;
+	private final long buildResponseNanos;
+	private final boolean removeSolrJsonKeys;
+
+	/**
+	 * <p>Instantiate the bean.</p>
+	 *
+	 * @param solrResponse The raw Solr response, or null if the Solr response
+	 *    was not requested
+	 * @param panlJsonObject The generated Panl JSON object, without the
+	 *    timings
+	 * @param parseRequestNanos The nanos taken to parse the inbound request
+	 * @param buildRequestNanos The nanos taken to build the Solr request
+	 * @param sendRequestNanos The nanos taken to send the request to, and
+	 *    receive the response from, the Solr server
+	 * @param buildResponseNanos The nanos taken to build the response
+	 * @param removeSolrJsonKeys Whether to remove the superfluous Solr keys
+	 */
+	public PanlResponseBean(
+			NamedList<Object> solrResponse,
+			JSONObject panlJsonObject,
+			long parseRequestNanos,
+			long buildRequestNanos,
+			long sendRequestNanos,
+			long buildResponseNanos,
+			boolean removeSolrJsonKeys) {
+		this.solrResponse = solrResponse;
+		this.panlJsonObject = panlJsonObject;
+		this.parseRequestNanos = parseRequestNanos;
+		this.buildRequestNanos = buildRequestNanos;
+		this.sendRequestNanos = sendRequestNanos;
+		this.buildResponseNanos = buildResponseNanos;
+		this.removeSolrJsonKeys = removeSolrJsonKeys;
+	}
+
+	/**
+	 * <p>Write the JSON response to the writer.  The writer is not closed or
+	 * flushed.</p>
+	 *
+	 * @param writer The writer to write the JSON response to
+	 *
+	 * @throws IOException If there was an error writing the response
+	 */
+	public void writeTo(Writer writer) throws IOException {
+		writeCacheableTo(writer);
+		writeTimingsTo(writer);
+	}
+
+	/**
+	 * <p>Write the JSON response, without the timings (and the closing braces)
+	 * to the writer.  The written response always ends with an opening brace or
+	 * a comma, ready for the timings to be written.</p>
+	 *
+	 * @param writer The writer to write the JSON response to
+	 *
+	 * @throws IOException If there was an error writing the response
+	 */
+	@SuppressWarnings("unchecked")
+	private void writeCacheableTo(Writer writer) throws IOException {
+		// the Solr JSON writer will flush (and may close) the writer that it is
+		// passed, this stops the underlying writer from being closed
+		Writer solrWriter = new FilterWriter(writer) {
+			@Override public void close() throws IOException {
+				flush();
+			}
+		};
+
+		writer.write('{');
+
+		if (null != solrResponse) {
+			for (Map.Entry<String, Object> entry : solrResponse) {
+				String key = entry.getKey();
+				Object value = entry.getValue();
+
+				if (Constants.Json.Solr.STATS.equals(key)) {
+					continue;
+				}
+
+				if (removeSolrJsonKeys) {
+					if (Constants.Json.Solr.FACET_COUNTS.equals(key)) {
+						continue;
+					}
+
+					if (Constants.Json.Solr.RESPONSE_HEADER.equals(key) && value instanceof NamedList) {
+						// the Solr response may be shared between requests, so remove from
+						// a copy
+						NamedList<Object> responseHeader = ((NamedList<Object>) value).clone();
+						responseHeader.remove(Constants.Json.Solr.PARAMS);
+						value = responseHeader;
+					}
+				}
+
+				JSONObject.quote(key, writer);
+				writer.write(':');
+				Utils.writeJson(value, solrWriter, false);
+				writer.write(',');
+			}
+		}
+
+		JSONObject.quote(Constants.Json.Response.ERROR, writer);
+		writer.write(":false,");
+
+		JSONObject.quote(Constants.Json.Panl.PANL, writer);
+		writer.write(":{");
+		writeEntriesTo(writer, panlJsonObject);
+	}
+
+	/**
+	 * <p>Write each of the entries of the JSON object to the writer, each one
+	 * followed by a comma.</p>
+	 *
+	 * @param writer The writer to write the entries to
+	 * @param jsonObject The JSON object to write the entries of
+	 *
+	 * @throws IOException If there was an error writing the entries
+	 */
+	private static void writeEntriesTo(Writer writer, JSONObject jsonObject) throws IOException {
+		for (String key : jsonObject.keySet()) {
+			JSONObject.quote(key, writer);
+			writer.write(':');
+			Object value = jsonObject.get(key);
+			if (value instanceof JSONObject) {
+				((JSONObject) value).write(writer);
+			} else if (value instanceof JSONArray) {
+				((JSONArray) value).write(writer);
+			} else {
+				writer.write(JSONObject.valueToString(value));
+			}
+			writer.write(',');
+		}
+	}
+
+	/**
+	 * <p>Write this bean's timings, which complete the JSON response, to the
+	 * writer.</p>
+	 *
+	 * @param writer The writer to write the timings to
+	 *
+	 * @throws IOException If there was an error writing the timings
+	 */
+	private void writeTimingsTo(Writer writer) throws IOException {
+		writeTimingsTo(writer, parseRequestNanos, buildRequestNanos, sendRequestNanos, buildResponseNanos);
+	}
+
+	/**
+	 * <p>Write the timings, which complete the JSON response, to the writer
+	 * directly from the phase durations.</p>
+	 *
+	 * @param writer The writer to write the timings to
+	 * @param parseRequestNanos The nanos taken to parse the inbound request
+	 * @param buildRequestNanos The nanos taken to build the Solr request
+	 * @param sendRequestNanos The nanos taken to send the request to, and
+	 *    receive the response from, the Solr server
+	 * @param buildResponseNanos The nanos taken to build the response
+	 *
+	 * @throws IOException If there was an error writing the timings
+	 */
+	private static void writeTimingsTo(
+			Writer writer,
+			long parseRequestNanos,
+			long buildRequestNanos,
+			long sendRequestNanos,
+			long buildResponseNanos) throws IOException {
+		JSONObject.quote(Constants.Json.Panl.TIMINGS, writer);
+		writer.write(':');
+		TimingsHelper.writeTimingsTo(writer, parseRequestNanos, buildRequestNanos, sendRequestNanos, buildResponseNanos);
+		writer.write("}}");
+	}
+
+	/**
+	 * <p>Return the JSON response as a String.</p>
+	 *
+	 * @return The JSON response as a String
+	 */
+	public String toJsonString() {
+		return (toJsonString(toCacheableJsonString()));
+	}
+
+	/**
+	 * <p>Return the JSON response without the timings - this is the response
+	 * that is cached, and it __MUST__ be completed with
+	 * {@link #toCachedJsonString(String, long, long, long)} before it is returned.</p>
+	 *
+	 * @return The cacheable JSON response
+	 */
+	public String toCacheableJsonString() {
+		StringWriter stringWriter = new StringWriter();
+		try {
+			writeCacheableTo(stringWriter);
+		} catch (IOException e) {
+			// a StringWriter will never throw an IOException
+			throw new UncheckedIOException(e);
+		}
+		return (stringWriter.toString());
+	}
+
+	/**
+	 * <p>Return a cacheable JSON response (i.e. without the timings) for a
+	 * response that was not generated by a response bean, for example a
+	 * precomputed snapshot.  The <code>panl</code> object is written as the last
+	 * key of the response, so that it can be completed with
+	 * {@link #toCachedJsonString(String, long, long, long)}.</p>
+	 *
+	 * @param responseObject The top level keys of the response, without the
+	 *    <code>panl</code> key
+	 * @param panlJsonObject The Panl JSON object, without the timings
+	 *
+	 * @return The cacheable JSON response
+	 */
+	public static String toCacheableJsonString(JSONObject responseObject, JSONObject panlJsonObject) {
+		StringWriter stringWriter = new StringWriter();
+		try {
+			writeCacheableTo(stringWriter, responseObject, panlJsonObject);
+		} catch (IOException e) {
+			// a StringWriter will never throw an IOException
+			throw new UncheckedIOException(e);
+		}
+		return (stringWriter.toString());
+	}
+
+	/**
+	 * <p>Return the JSON response for a response that was not generated by a
+	 * response bean, for example the single page, more facets, lookahead, and
+	 * more like this responses.  The timings are written directly from the
+	 * phase durations as the last key of the <code>panl</code> object, rather
+	 * than being added to it as a JSON object.</p>
+	 *
+	 * @param responseObject The top level keys of the response, without the
+	 *    <code>panl</code> key
+	 * @param panlJsonObject The Panl JSON object, without the timings
+	 * @param parseRequestNanos The nanos taken to parse the inbound request
+	 * @param buildRequestNanos The nanos taken to build the Solr request
+	 * @param sendRequestNanos The nanos taken to send the request to, and
+	 *    receive the response from, the Solr server
+	 * @param buildResponseNanos The nanos taken to build the response
+	 *
+	 * @return The JSON response as a String
+	 */
+	public static String toJsonString(
+			JSONObject responseObject,
+			JSONObject panlJsonObject,
+			long parseRequestNanos,
+			long buildRequestNanos,
+			long sendRequestNanos,
+			long buildResponseNanos) {
+		StringWriter stringWriter = new StringWriter();
+		try {
+			writeCacheableTo(stringWriter, responseObject, panlJsonObject);
+			writeTimingsTo(stringWriter, parseRequestNanos, buildRequestNanos, sendRequestNanos, buildResponseNanos);
+		} catch (IOException e) {
+			// a StringWriter will never throw an IOException
+			throw new UncheckedIOException(e);
+		}
+		return (stringWriter.toString());
+	}
+
+	/**
+	 * <p>Write the top level keys of the response, followed by the
+	 * <code>panl</code> object, without the timings (and the closing braces)
+	 * to the writer.</p>
+	 *
+	 * @param writer The writer to write the JSON response to
+	 * @param responseObject The top level keys of the response, without the
+	 *    <code>panl</code> key
+	 * @param panlJsonObject The Panl JSON object, without the timings
+	 *
+	 * @throws IOException If there was an error writing the response
+	 */
+	private static void writeCacheableTo(Writer writer, JSONObject responseObject, JSONObject panlJsonObject) throws IOException {
+		writer.write('{');
+		writeEntriesTo(writer, responseObject);
+		JSONObject.quote(Constants.Json.Panl.PANL, writer);
+		writer.write(":{");
+		writeEntriesTo(writer, panlJsonObject);
+	}
+
+	/**
+	 * <p>Return the JSON response as a String, completing the cacheable JSON
+	 * response that was generated from this bean with this bean's
+	 * timings.</p>
+	 *
+	 * @param cacheableJsonString The cacheable JSON response
+	 *
+	 * @return The JSON response as a String
+	 */
+	public String toJsonString(String cacheableJsonString) {
+		StringWriter stringWriter = new StringWriter(cacheableJsonString.length() + 512);
+		stringWriter.write(cacheableJsonString);
+		try {
+			writeTimingsTo(stringWriter);
+		} catch (IOException e) {
+			// a StringWriter will never throw an IOException
+			throw new UncheckedIOException(e);
+		}
+		return (stringWriter.toString());
+	}
+
+	/**
+	 * <p>Complete the (cached) cacheable JSON response with the timings of the
+	 * request that it is served to, i.e. a cache hit.</p>
+	 *
+	 * @param cacheableJsonString The cacheable JSON response
+	 * @param parseRequestNanos The nanos taken to parse the inbound request
+	 * @param buildRequestNanos The nanos taken to build the Solr request
+	 * @param cacheLookupNanos The nanos taken to look up the cached response
+	 *
+	 * @return The JSON response as a String
+	 */
+	public static String toCachedJsonString(
+			String cacheableJsonString,
+			long parseRequestNanos,
+			long buildRequestNanos,
+			long cacheLookupNanos) {
+		StringWriter stringWriter = new StringWriter(cacheableJsonString.length() + 512);
+		stringWriter.write(cacheableJsonString);
+		try {
+			JSONObject.quote(Constants.Json.Panl.TIMINGS, stringWriter);
+			stringWriter.write(':');
+			TimingsHelper.writeCachedTimingsTo(stringWriter, parseRequestNanos, buildRequestNanos, cacheLookupNanos);
+			stringWriter.write("}}");
+		} catch (IOException e) {
+			// a StringWriter will never throw an IOException
+			throw new UncheckedIOException(e);
+		}
+		return (stringWriter.toString());
+	}
+
+	/**
+	 * <p>Return a HTTP entity which will stream the JSON response directly to
+	 * the HTTP output stream when the response is sent.</p>
+	 *
+	 * @return The streaming HTTP entity
+	 */
+	public HttpEntity toHttpEntity() {
+		EntityTemplate entityTemplate = new EntityTemplate(outputStream -> {
+			Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+			writeTo(writer);
+			writer.flush();
+		});
+		entityTemplate.setContentType(ResourceHelper.CONTENT_TYPE_JSON.toString());
+		return (entityTemplate);
+	}
+
+	/**
+	 * <p>Get the generated Panl JSON object, which does not include the
+	 * timings.</p>
+	 *
+	 * @return The Panl JSON object
+	 */
+	public JSONObject getPanlJsonObject() {
+		return (panlJsonObject);
+	}
+
+	/**
+	 * <p>Get the raw Solr response.</p>
+	 *
+	 * @return The raw Solr response, or null if it was not requested
+	 */
+	public NamedList<Object> getSolrResponse() {
+		return (solrResponse);
+	}
+
+	public JSONObject getAvailable() {
+		return (panlJsonObject.optJSONObject(Constants.Json.Panl.AVAILABLE));
+	}
+
+	public JSONObject getActive() {
+		return (panlJsonObject.optJSONObject(Constants.Json.Panl.ACTIVE));
+	}
+
+	public JSONObject getSearch() {
+		return (panlJsonObject.optJSONObject(Constants.Json.Panl.SEARCH));
+	}
+
+	public JSONObject getPagination() {
+		return (panlJsonObject.optJSONObject(Constants.Json.Panl.PAGINATION));
+	}
+
+	public JSONObject getSorting() {
+		return (panlJsonObject.optJSONObject(Constants.Json.Panl.SORTING));
+	}
+
+	public JSONObject getQueryOperand() {
+		return (panlJsonObject.optJSONObject(Constants.Json.Panl.QUERY_OPERAND));
+	}
+
+	public JSONObject getFields() {
+		return (panlJsonObject.optJSONObject(Constants.Json.Panl.FIELDS));
+	}
+
+	public String getCanonicalUri() {
+		return (panlJsonObject.optString(Constants.Json.Panl.CANONICAL_URI, null));
+	}
+
+	/**
+	 * <p>Get the timings for this request as a JSON object - this is built on
+	 * every call, the JSON response is written directly from the
+	 * durations.</p>
+	 *
+	 * @return The timings JSON object
+	 */
+	public JSONObject getTimings() {
+		return (TimingsHelper.getTimingsObject(parseRequestNanos, buildRequestNanos, sendRequestNanos, buildResponseNanos));
+	}
+
+	public JSONArray getFacetOrder() {
+		return (panlJsonObject.optJSONArray(Constants.Json.Panl.FACETORDER));
+	}
+
+	public JSONObject getExtra() {
+		return (panlJsonObject.optJSONObject(Constants.Json.Panl.EXTRA));
+	}
+}
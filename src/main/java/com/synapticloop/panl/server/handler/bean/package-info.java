@@ -0,0 +1,9 @@
+/**
+ * <p>The package for the beans that are passed between the handlers and the
+ * collection request handler while servicing a single request.</p>
+ *
+ * @since 1.0
+ * @author synapticloop
+ * @version 1.0
+ */
+package com.synapticloop.panl.server.handler.bean;
@@ -0,0 +1,243 @@
+package com.synapticloop.panl.server.handler.fielderiser.field;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import com.synapticloop.panl.server.handler.properties.CollectionProperties;
+import com.synapticloop.panl.server.handler.tokeniser.token.LpseToken;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>The per-request URI path and LPSE code segments that are used to build
+ * the addition (<code>before</code> and <code>after</code>) URIs for the
+ * available facets.</p>
+ *
+ * <p>Each LPSE field that has a token in the inbound request contributes a
+ * reset URI path and a reset LPSE code - these do not depend on the facet
+ * that is being added, so they are generated once per request (in LPSE order)
+ * and each facet then takes the segments before and after its own position,
+ * rather than iterating over every LPSE field for every facet.</p>
+ *
+ * @author synapticloop
+ */
+public class AdditionUriSegments {
+	private final Map<String, Integer> lpseCodeIndexMap = new HashMap<>();
+
+	private final String uriPath;
+	private final String lpseCode;
+	private final String tokenLpseCode;
+
+	private final int[] uriPathOffsets;
+	private final int[] lpseCodeOffsets;
+	private final int[] tokenLpseCodeOffsets;
+
+	/**
+	 * <p>Generate the URI path and LPSE code segments for all the LPSE fields
+	 * that have tokens in the panl token map.</p>
+	 *
+	 * @param collectionProperties The collection properties
+	 * @param panlTokenMap The inbound Panl tokens
+	 */
+	public AdditionUriSegments(CollectionProperties collectionProperties, Map<String, List<LpseToken>> panlTokenMap) {
+		List<BaseField> lpseFields = collectionProperties.getLpseFields();
+		int numLpseFields = lpseFields.size();
+
+		this.uriPathOffsets = new int[numLpseFields + 1];
+		this.lpseCodeOffsets = new int[numLpseFields + 1];
+		this.tokenLpseCodeOffsets = new int[numLpseFields + 1];
+
+		StringBuilder uriPathBuilder = new StringBuilder();
+		StringBuilder lpseCodeBuilder = new StringBuilder();
+		StringBuilder tokenLpseCodeBuilder = new StringBuilder();
+
+		for (int i = 0; i < numLpseFields; i++) {
+			BaseField baseField = lpseFields.get(i);
+			String orderedLpseCode = baseField.getLpseCode();
+
+			lpseCodeIndexMap.putIfAbsent(orderedLpseCode, i);
+			uriPathOffsets[i] = uriPathBuilder.length();
+			lpseCodeOffsets[i] = lpseCodeBuilder.length();
+			tokenLpseCodeOffsets[i] = tokenLpseCodeBuilder.length();
+
+			// if we don't have a current token, just carry on
+			if (!panlTokenMap.containsKey(orderedLpseCode)) {
+				continue;
+			}
+
+			uriPathBuilder.append(baseField.getResetUriPath(panlTokenMap, collectionProperties));
+
+			String resetLpseCode = baseField.getResetLpseCode(panlTokenMap, collectionProperties);
+			lpseCodeBuilder.append(resetLpseCode);
+
+			List<LpseToken> lpseTokens = panlTokenMap.get(orderedLpseCode);
+			int numTokens = lpseTokens.size();
+			if (numTokens == 1) {
+				// if we have a range facet - we need to make sure that we are
+				// encoding it correctly there can only be one range token for the
+				// panl field (no over-lapping ranges, or distinct ranges)
+				tokenLpseCodeBuilder.append(baseField.getResetLpseCode(lpseTokens.get(0), collectionProperties));
+			} else if (collectionProperties.getIsMultiValuedSeparatorFacetField(orderedLpseCode) ||
+					!baseField.getHasURIComponent()) {
+				tokenLpseCodeBuilder.append(resetLpseCode);
+			} else {
+				// just replace it with the correct number of LPSE codes
+				for (int j = 0; j < numTokens; j++) {
+					tokenLpseCodeBuilder.append(orderedLpseCode);
+				}
+			}
+		}
+
+		uriPathOffsets[numLpseFields] = uriPathBuilder.length();
+		lpseCodeOffsets[numLpseFields] = lpseCodeBuilder.length();
+		tokenLpseCodeOffsets[numLpseFields] = tokenLpseCodeBuilder.length();
+
+		this.uriPath = uriPathBuilder.toString();
+		this.lpseCode = lpseCodeBuilder.toString();
+		this.tokenLpseCode = tokenLpseCodeBuilder.toString();
+	}
+
+	/**
+	 * <p>Return whether the LPSE code is in the LPSE order, if it is not, then
+	 * there is no before or after position for it.</p>
+	 *
+	 * @param lpseCode The LPSE code to look up
+	 *
+	 * @return Whether the LPSE code is in the LPSE order
+	 */
+	public boolean getHasLpseCode(String lpseCode) {
+		return (lpseCodeIndexMap.containsKey(lpseCode));
+	}
+
+	/**
+	 * <p>Get the reset URI path for all LPSE fields that have a token.</p>
+	 *
+	 * @return The reset URI path for all LPSE fields that have a token
+	 */
+	public String getUriPath() {
+		return (uriPath);
+	}
+
+	/**
+	 * <p>Get the reset URI path for the LPSE fields that have a token and
+	 * appear before the passed in LPSE code.</p>
+	 *
+	 * @param lpseCode The LPSE code
+	 *
+	 * @return The reset URI path before the LPSE code
+	 */
+	public String getUriPathBefore(String lpseCode) {
+		return (uriPath.substring(0, uriPathOffsets[getIndex(lpseCode)]));
+	}
+
+	/**
+	 * <p>Get the reset URI path for the LPSE fields that have a token and
+	 * appear after the passed in LPSE code.</p>
+	 *
+	 * @param lpseCode The LPSE code
+	 *
+	 * @return The reset URI path after the LPSE code
+	 */
+	public String getUriPathAfter(String lpseCode) {
+		return (uriPath.substring(uriPathOffsets[getIndex(lpseCode) + 1]));
+	}
+
+	/**
+	 * <p>Get the reset LPSE code for all LPSE fields that have a token.</p>
+	 *
+	 * @return The reset LPSE code for all LPSE fields that have a token
+	 */
+	public String getLpseCode() {
+		return (lpseCode);
+	}
+
+	/**
+	 * <p>Get the reset LPSE code for the LPSE fields that have a token and
+	 * appear before the passed in LPSE code.</p>
+	 *
+	 * @param lpseCode The LPSE code
+	 *
+	 * @return The reset LPSE code before the LPSE code
+	 */
+	public String getLpseCodeBefore(String lpseCode) {
+		return (this.lpseCode.substring(0, lpseCodeOffsets[getIndex(lpseCode)]));
+	}
+
+	/**
+	 * <p>Get the reset LPSE code for the LPSE fields that have a token and
+	 * appear after the passed in LPSE code.</p>
+	 *
+	 * @param lpseCode The LPSE code
+	 *
+	 * @return The reset LPSE code after the LPSE code
+	 */
+	public String getLpseCodeAfter(String lpseCode) {
+		return (this.lpseCode.substring(lpseCodeOffsets[getIndex(lpseCode) + 1]));
+	}
+
+	/**
+	 * <p>Get the token LPSE code for all LPSE fields that have a token.  Unlike
+	 * the reset LPSE code, this will repeat the LPSE code for each token of a
+	 * field that has a URI component.</p>
+	 *
+	 * @return The token LPSE code for all LPSE fields that have a token
+	 */
+	public String getTokenLpseCode() {
+		return (tokenLpseCode);
+	}
+
+	/**
+	 * <p>Get the token LPSE code for the LPSE fields that have a token and
+	 * appear before the passed in LPSE code.</p>
+	 *
+	 * @param lpseCode The LPSE code
+	 *
+	 * @return The token LPSE code before the LPSE code
+	 */
+	public String getTokenLpseCodeBefore(String lpseCode) {
+		return (tokenLpseCode.substring(0, tokenLpseCodeOffsets[getIndex(lpseCode)]));
+	}
+
+	/**
+	 * <p>Get the token LPSE code for the LPSE fields that have a token and
+	 * appear after the passed in LPSE code.</p>
+	 *
+	 * @param lpseCode The LPSE code
+	 *
+	 * @return The token LPSE code after the LPSE code
+	 */
+	public String getTokenLpseCodeAfter(String lpseCode) {
+		return (tokenLpseCode.substring(tokenLpseCodeOffsets[getIndex(lpseCode) + 1]));
+	}
+
+	private int getIndex(String lpseCode) {
+		Integer index = lpseCodeIndexMap.get(lpseCode);
+		if (null == index) {
+			throw new IllegalArgumentException("LPSE code '" + lpseCode + "' is not in the LPSE order.");
+		}
+		return (index);
+	}
+}
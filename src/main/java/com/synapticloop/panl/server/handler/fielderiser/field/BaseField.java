@@ -24,6 +24,7 @@ package com.synapticloop.panl.server.handler.fielderiser.field;
  * IN THE SOFTWARE.
  */
 
+import com.synapticloop.panl.server.handler.bean.PanlQueryParametersBean;
 import com.synapticloop.panl.exception.PanlServerException;
 import com.synapticloop.panl.server.handler.fielderiser.field.validator.DecimalValidator;
 import com.synapticloop.panl.server.handler.fielderiser.field.validator.NumberValidator;
@@ -820,6 +821,7 @@ public abstract class BaseField {
 	 * @param facetObject The JSON object to apend the range values to
 	 * @param collectionProperties The collection properties
 	 * @param panlTokenMap The Panl Token map of current passed through facets
+	 * @param additionUriSegments The per-request URI and LPSE segments
 	 *
 	 * @return Whether there were any range values appended to the object - by default this will return false unless
 	 * 		over-ridden.
@@ -827,7 +829,8 @@ public abstract class BaseField {
 	public boolean appendAvailableRangeValues(
 			JSONObject facetObject,
 			CollectionProperties collectionProperties,
-			Map<String, List<LpseToken>> panlTokenMap) {
+			Map<String, List<LpseToken>> panlTokenMap,
+			AdditionUriSegments additionUriSegments) {
 		return (false);
 	}
 
@@ -842,6 +845,7 @@ public abstract class BaseField {
 	 * @param facetObject The facet object to append to
 	 * @param collectionProperties The collection properties
 	 * @param panlTokenMap The incoming Panl tokens
+	 * @param additionUriSegments The per-request URI and LPSE segments
 	 * @param existingLpseValues The existing LPSE values
 	 * @param facetCountValues The facet count values
 	 * @param numFound Number of results found
@@ -853,6 +857,7 @@ public abstract class BaseField {
 			JSONObject facetObject,
 			CollectionProperties collectionProperties,
 			Map<String, List<LpseToken>> panlTokenMap,
+			AdditionUriSegments additionUriSegments,
 			Set<String> existingLpseValues,
 			List<FacetField.Count> facetCountValues,
 			long numFound,
@@ -921,7 +926,8 @@ public abstract class BaseField {
 						getAdditionURIObject(
 								collectionProperties,
 								this,
-								panlTokenMap));
+								panlTokenMap,
+								additionUriSegments));
 				return (true);
 			}
 		}
@@ -935,47 +941,44 @@ public abstract class BaseField {
 	 * @param collectionProperties The collection properties
 	 * @param lpseField The LPSE field that this applies to
 	 * @param panlTokenMap The inbound Panl tokens
+	 * @param additionUriSegments The per-request URI and LPSE segments
 	 *
 	 * @return The JSON object with the URIs for adding this field to the existing search URI.
 	 */
 	protected JSONObject getAdditionURIObject(CollectionProperties collectionProperties,
 			BaseField lpseField,
-			Map<String, List<LpseToken>> panlTokenMap) {
+			Map<String, List<LpseToken>> panlTokenMap,
+			AdditionUriSegments additionUriSegments) {
 
 		String additionLpseCode = lpseField.getLpseCode();
 		JSONObject additionObject = new JSONObject();
-		StringBuilder lpseUri = new StringBuilder(Constants.FORWARD_SLASH);
-		StringBuilder lpseCode = new StringBuilder();
-
-		// go through the LPSE fields in order
-		for (BaseField baseField : collectionProperties.getLpseFields()) {
-
-			if (panlTokenMap.containsKey(baseField.getLpseCode()) &&
-					!(baseField.getLpseCode().equals(additionLpseCode))) {
-
-				String resetUriPath = baseField.getResetUriPath(panlTokenMap, collectionProperties);
-				lpseUri.append(resetUriPath);
-
-				lpseCode.append(baseField.getResetLpseCode(panlTokenMap, collectionProperties));
-			}
 
-			if (baseField.getLpseCode().equals(additionLpseCode)) {
-
-				additionObject.put(
-						Constants.Json.Panl.BEFORE,
-						lpseUri + baseField.getResetUriPath(
-								panlTokenMap,
-								collectionProperties));
-
-				lpseUri.setLength(0);
-				lpseCode.append(baseField.getResetLpseCode(panlTokenMap, collectionProperties));
-				lpseCode.append(baseField.getLpseCode());
-
-				lpseUri.append(Constants.FORWARD_SLASH);
-			}
+		if (!additionUriSegments.getHasLpseCode(additionLpseCode)) {
+			additionObject.put(
+					Constants.Json.Panl.AFTER,
+					Constants.FORWARD_SLASH +
+							additionUriSegments.getUriPath() +
+							additionUriSegments.getLpseCode() +
+							Constants.FORWARD_SLASH);
+			return (additionObject);
 		}
 
-		additionObject.put(Constants.Json.Panl.AFTER, lpseUri.toString() + lpseCode.toString() + Constants.FORWARD_SLASH);
+		additionObject.put(
+				Constants.Json.Panl.BEFORE,
+				Constants.FORWARD_SLASH +
+						additionUriSegments.getUriPathBefore(additionLpseCode) +
+						lpseField.getResetUriPath(panlTokenMap, collectionProperties));
+
+		additionObject.put(
+				Constants.Json.Panl.AFTER,
+				Constants.FORWARD_SLASH +
+						additionUriSegments.getUriPathAfter(additionLpseCode) +
+						additionUriSegments.getLpseCodeBefore(additionLpseCode) +
+						lpseField.getResetLpseCode(panlTokenMap, collectionProperties) +
+						additionLpseCode +
+						additionUriSegments.getLpseCodeAfter(additionLpseCode) +
+						Constants.FORWARD_SLASH);
+
 		return (additionObject);
 	}
 
@@ -992,7 +995,7 @@ public abstract class BaseField {
 	 *
 	 * @param collectionProperties The collection properties
 	 * @param lpseCode The lpseCode for this field
-	 * @param query The query parameter
+	 * @param queryParameters The parsed query parameters
 	 * @param valueTokeniser The value tokeniser
 	 * @param lpseTokeniser The lpse tokeniser
 	 *
@@ -1001,7 +1004,7 @@ public abstract class BaseField {
 	public abstract List<LpseToken> instantiateTokens(
 			CollectionProperties collectionProperties,
 			String lpseCode,
-			String query,
+			PanlQueryParametersBean queryParameters,
 			StringTokenizer valueTokeniser,
 			LpseTokeniser lpseTokeniser);
 
@@ -1028,13 +1031,15 @@ public abstract class BaseField {
 	 * @param dateRangeFacetObject The date range facet object
 	 * @param collectionProperties The collection properties
 	 * @param panlTokenMap The panl token map
+	 * @param additionUriSegments The per-request URI and LPSE segments
 	 *
 	 * @return whether information has been appended to the JSON object.
 	 */
 	public boolean appendAvailableDateRangeValues(
 			JSONObject dateRangeFacetObject,
 			CollectionProperties collectionProperties,
-			Map<String, List<LpseToken>> panlTokenMap) {
+			Map<String, List<LpseToken>> panlTokenMap,
+			AdditionUriSegments additionUriSegments) {
 		return (false);
 	}
 
@@ -295,90 +295,57 @@ public abstract class BasePrefixSuffixField extends BaseField {
 	protected JSONObject getAdditionURIObject(
 			CollectionProperties collectionProperties,
 			BaseField lpseField,
-			Map<String, List<LpseToken>> panlTokenMap) {
+			Map<String, List<LpseToken>> panlTokenMap,
+			AdditionUriSegments additionUriSegments) {
 
 		JSONObject additionObject = new JSONObject();
 
-		StringBuilder lpseUri = new StringBuilder(FORWARD_SLASH);
-		StringBuilder lpseUriBefore = new StringBuilder();
-		StringBuilder lpseUriCode = new StringBuilder();
-
-		Map<String, Boolean> lpseCodeMap = new HashMap<>();
-
-		for(BaseField baseField : collectionProperties.getLpseFields()) {
-			// we need to add in any other token values in the correct order
-			String orderedLpseCode = baseField.getLpseCode();
-
-			if (orderedLpseCode.equals(this.lpseCode)) {
-				// we have found the current LPSE code, so reset the URI and add it to
-				// the after
-				if (valueSeparator != null) {
-					lpseUri.append(getMultivalueURIPathStart(panlTokenMap));
-				} else {
-					lpseUri.append(baseField.getResetUriPath(panlTokenMap, collectionProperties));
-				}
-
-				lpseUriBefore.append(lpseUri);
-				lpseUri.setLength(0);
-				if (valueSeparator != null) {
-					lpseUri.append(getMultiValueURIPathEnd());
-					lpseUri.append("/");
-				}
-
-				if(collectionProperties.getIsMultiValuedSeparatorFacetField(this.lpseCode)) {
-					if (!lpseCodeMap.containsKey(this.lpseCode)) {
-						lpseUriCode.append(this.lpseCode);
-					}
-					lpseCodeMap.put(this.lpseCode, true);
-				} else {
-					lpseUriCode.append(baseField.getResetLpseCode(panlTokenMap, collectionProperties));
-					lpseUriCode.append(this.lpseCode);
-				}
-
-			} else {
-				// if we don't have a current token, just carry on
-				if (!panlTokenMap.containsKey(orderedLpseCode)) {
-					continue;
-				}
+		if (!additionUriSegments.getHasLpseCode(this.lpseCode)) {
+			// not in the LPSE order, so there is no position to add this field
+			additionObject.put(Constants.Json.Panl.BEFORE, "");
+			additionObject.put(
+					Constants.Json.Panl.AFTER,
+					(valueSeparator != null ? "" : FORWARD_SLASH) +
+							FORWARD_SLASH +
+							additionUriSegments.getUriPath() +
+							additionUriSegments.getTokenLpseCode() +
+							FORWARD_SLASH);
+			return (additionObject);
+		}
 
-				// normally
-				lpseUri.append(baseField.getResetUriPath(panlTokenMap, collectionProperties));
-				int numTokens = panlTokenMap.get(orderedLpseCode).size();
-				if (numTokens == 1) {
-					// if we have a range facet - we need to make sure that we are
-					// encoding it correctly there can only be one range token for the
-					// panl field (no over-lapping ranges, or distinct ranges)
-
-					// if it is not a range facet - then this won't do any harm and is a
-					// better implementation
-					lpseUriCode.append(baseField.getResetLpseCode(panlTokenMap.get(orderedLpseCode).get(0),
-							collectionProperties));
-				} else {
-
-					// check for or separators...
-					if(collectionProperties.getIsMultiValuedSeparatorFacetField(baseField.getLpseCode())) {
-						lpseUriCode.append(baseField.getResetLpseCode(panlTokenMap, collectionProperties));
-					} else {
-						// just replace it with the correct number of LPSE codes
-						if(!baseField.getHasURIComponent()) {
-							lpseUriCode.append(baseField.getResetLpseCode(panlTokenMap, collectionProperties));
-						} else {
-							lpseUriCode.append(new String(new char[numTokens]).replace("\0", baseField.getLpseCode()));
-						}
-					}
-				}
-			}
+		// the URI path before, then reset the URI for this field
+		StringBuilder lpseUriBefore = new StringBuilder(FORWARD_SLASH)
+				.append(additionUriSegments.getUriPathBefore(this.lpseCode));
+		if (valueSeparator != null) {
+			lpseUriBefore.append(getMultivalueURIPathStart(panlTokenMap));
+		} else {
+			lpseUriBefore.append(getResetUriPath(panlTokenMap, collectionProperties));
 		}
 
 		additionObject.put(Constants.Json.Panl.BEFORE, lpseUriBefore.toString());
 
-		// if we have an or separator, we have already added the forward slash
+		StringBuilder lpseUriAfter = new StringBuilder();
 		if (valueSeparator != null) {
-			additionObject.put(Constants.Json.Panl.AFTER, lpseUri.toString() + lpseUriCode + FORWARD_SLASH);
+			// if we have an or separator, we add the forward slash here
+			lpseUriAfter.append(getMultiValueURIPathEnd());
+			lpseUriAfter.append(FORWARD_SLASH);
 		} else {
-			additionObject.put(Constants.Json.Panl.AFTER, FORWARD_SLASH + lpseUri + lpseUriCode + FORWARD_SLASH);
+			lpseUriAfter.append(FORWARD_SLASH);
 		}
 
+		lpseUriAfter.append(additionUriSegments.getUriPathAfter(this.lpseCode))
+		            .append(additionUriSegments.getTokenLpseCodeBefore(this.lpseCode));
+
+		if (!collectionProperties.getIsMultiValuedSeparatorFacetField(this.lpseCode)) {
+			lpseUriAfter.append(getResetLpseCode(panlTokenMap, collectionProperties));
+		}
+
+		lpseUriAfter.append(this.lpseCode)
+		            .append(additionUriSegments.getTokenLpseCodeAfter(this.lpseCode))
+		            .append(FORWARD_SLASH);
+
+		additionObject.put(Constants.Json.Panl.AFTER, lpseUriAfter.toString());
+
 		return (additionObject);
 	}
 
@@ -24,6 +24,7 @@ package com.synapticloop.panl.server.handler.fielderiser.field;
  * IN THE SOFTWARE.
  */
 
+import com.synapticloop.panl.server.handler.bean.PanlQueryParametersBean;
 import com.synapticloop.panl.exception.PanlServerException;
 import com.synapticloop.panl.server.handler.properties.CollectionProperties;
 import com.synapticloop.panl.server.handler.tokeniser.LpseTokeniser;
@@ -104,13 +105,13 @@ public class PanlField extends BaseField {
 	 *
 	 * @param collectionProperties The collection properties
 	 * @param lpseCode The lpseCode for this field
-	 * @param query The query parameter
+	 * @param queryParameters The parsed query parameters
 	 * @param valueTokeniser The value tokeniser
 	 * @param lpseTokeniser The lpse tokeniser
 	 *
 	 * @return The LpseToken - in this case a subset of the FacetLpseToken
 	 */
-	public List<LpseToken> instantiateTokens(CollectionProperties collectionProperties, String lpseCode, String query, StringTokenizer valueTokeniser, LpseTokeniser lpseTokeniser) {
+	public List<LpseToken> instantiateTokens(CollectionProperties collectionProperties, String lpseCode, PanlQueryParametersBean queryParameters, StringTokenizer valueTokeniser, LpseTokeniser lpseTokeniser) {
 		return (List.of(new FacetLpseToken(collectionProperties, this.lpseCode, lpseTokeniser, valueTokeniser)));
 	}
 
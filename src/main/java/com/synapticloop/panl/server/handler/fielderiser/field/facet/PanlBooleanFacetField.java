@@ -24,6 +24,7 @@ package com.synapticloop.panl.server.handler.fielderiser.field.facet;
  * IN THE SOFTWARE.
  */
 
+import com.synapticloop.panl.server.handler.bean.PanlQueryParametersBean;
 import com.synapticloop.panl.exception.PanlServerException;
 import com.synapticloop.panl.server.handler.properties.CollectionProperties;
 import com.synapticloop.panl.server.handler.tokeniser.LpseTokeniser;
@@ -267,7 +268,7 @@ public class PanlBooleanFacetField extends PanlFacetField {
 		}
 	}
 
-	public List<LpseToken> instantiateTokens(CollectionProperties collectionProperties, String lpseCode, String query,
+	public List<LpseToken> instantiateTokens(CollectionProperties collectionProperties, String lpseCode, PanlQueryParametersBean queryParameters,
 			StringTokenizer valueTokeniser, LpseTokeniser lpseTokeniser) {
 		return (List.of(new BooleanFacetLpseToken(collectionProperties, this.lpseCode, lpseTokeniser, valueTokeniser)));
 	}
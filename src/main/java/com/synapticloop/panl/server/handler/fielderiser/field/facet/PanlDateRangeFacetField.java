@@ -24,8 +24,9 @@ package com.synapticloop.panl.server.handler.fielderiser.field.facet;
  * IN THE SOFTWARE.
  */
 
+import com.synapticloop.panl.server.handler.bean.PanlQueryParametersBean;
 import com.synapticloop.panl.exception.PanlServerException;
-import com.synapticloop.panl.server.handler.fielderiser.field.BaseField;
+import com.synapticloop.panl.server.handler.fielderiser.field.AdditionUriSegments;
 import com.synapticloop.panl.server.handler.properties.CollectionProperties;
 import com.synapticloop.panl.server.handler.tokeniser.LpseTokeniser;
 import com.synapticloop.panl.server.handler.tokeniser.token.LpseToken;
@@ -123,7 +124,7 @@ public class PanlDateRangeFacetField extends PanlFacetField {
 	 *
 	 * @param collectionProperties The collection properties
 	 * @param lpseCode The lpseCode for this field
-	 * @param query The query parameter
+	 * @param queryParameters The parsed query parameters
 	 * @param valueTokeniser The value tokeniser
 	 * @param lpseTokeniser The lpse tokeniser
 	 *
@@ -131,7 +132,7 @@ public class PanlDateRangeFacetField extends PanlFacetField {
 	 *
 	 * @see DateRangeFacetLpseToken
 	 */
-	public List<LpseToken> instantiateTokens(CollectionProperties collectionProperties, String lpseCode, String query,
+	public List<LpseToken> instantiateTokens(CollectionProperties collectionProperties, String lpseCode, PanlQueryParametersBean queryParameters,
 				StringTokenizer valueTokeniser, LpseTokeniser lpseTokeniser) {
 		return (List.of(new DateRangeFacetLpseToken(collectionProperties, this.lpseCode, lpseTokeniser, valueTokeniser)));
 	}
@@ -369,6 +370,7 @@ public class PanlDateRangeFacetField extends PanlFacetField {
 	 * @param facetObject The facet object to append to
 	 * @param collectionProperties The colleciton properties
 	 * @param panlTokenMap The incoming Panl tokens
+	 * @param additionUriSegments The per-request URI and LPSE segments
 	 * @param existingLpseValues The existing LPSE values
 	 * @param facetCountValues The facet count values
 	 * @param numFound Number of results found
@@ -381,6 +383,7 @@ public class PanlDateRangeFacetField extends PanlFacetField {
 				JSONObject facetObject,
 				CollectionProperties collectionProperties,
 				Map<String, List<LpseToken>> panlTokenMap,
+				AdditionUriSegments additionUriSegments,
 				Set<String> existingLpseValues,
 				List<FacetField.Count> facetCountValues,
 				long numFound,
@@ -391,7 +394,8 @@ public class PanlDateRangeFacetField extends PanlFacetField {
 	@Override public boolean appendAvailableDateRangeValues(
 				JSONObject additionObject,
 				CollectionProperties collectionProperties,
-				Map<String, List<LpseToken>> panlTokenMap) {
+				Map<String, List<LpseToken>> panlTokenMap,
+				AdditionUriSegments additionUriSegments) {
 
 		if (!hasNext && !hasPrevious) {
 			return (false);
@@ -432,7 +436,7 @@ public class PanlDateRangeFacetField extends PanlFacetField {
 			}
 		}
 
-		JSONObject additionURIObject = getRangeAdditionURIObject(collectionProperties, panlTokenMap);
+		JSONObject additionURIObject = getRangeAdditionURIObject(collectionProperties, panlTokenMap, additionUriSegments);
 		additionObject.put(Constants.Json.Panl.URIS, additionURIObject);
 
 		return (true);
@@ -440,43 +444,41 @@ public class PanlDateRangeFacetField extends PanlFacetField {
 
 	private JSONObject getRangeAdditionURIObject(
 				CollectionProperties collectionProperties,
-				Map<String, List<LpseToken>> panlTokenMap) {
+				Map<String, List<LpseToken>> panlTokenMap,
+				AdditionUriSegments additionUriSegments) {
 
 		JSONObject additionObject = new JSONObject();
 
-		StringBuilder lpseUri = new StringBuilder(FORWARD_SLASH);
-		StringBuilder lpseUriBefore = new StringBuilder();
-		StringBuilder lpseUriCode = new StringBuilder();
-
-		for(BaseField baseField : collectionProperties.getLpseFields()) {
-			// we need to add in any other token values in the correct order
-			String orderedLpseCode = baseField.getLpseCode();
-
-			if (orderedLpseCode.equals(this.lpseCode)) {
-				// we have found the current LPSE code, so reset the URI and add it to
-				// the after
-				if (panlTokenMap.containsKey(this.lpseCode)) {
-					// we have a LPSE code for this already - ignore it
-				} else {
-					lpseUri.append(getResetUriPath(panlTokenMap, collectionProperties));
-				}
-				lpseUriCode.append(this.lpseCode);
-				lpseUriBefore.append(lpseUri);
-				lpseUri.setLength(0);
-
-			} else {
-				// if we don't have a current token, just carry on
-				if (!panlTokenMap.containsKey(orderedLpseCode)) {
-					continue;
-				}
-				lpseUri.append(baseField.getResetUriPath(panlTokenMap, collectionProperties));
-				lpseUriCode.append(baseField.getResetLpseCode(panlTokenMap, collectionProperties));
-			}
+		if (!additionUriSegments.getHasLpseCode(this.lpseCode)) {
+			// not in the LPSE order, so there is no position to add this field
+			additionObject.put(Constants.Json.Panl.BEFORE, "");
+			additionObject.put(Constants.Json.Panl.AFTER,
+						FORWARD_SLASH +
+									FORWARD_SLASH +
+									additionUriSegments.getUriPath() +
+									additionUriSegments.getLpseCode() +
+									FORWARD_SLASH);
+			return (additionObject);
+		}
+
+		StringBuilder lpseUriBefore = new StringBuilder(FORWARD_SLASH)
+					.append(additionUriSegments.getUriPathBefore(this.lpseCode));
+
+		// we have found the current LPSE code, so reset the URI - unless we
+		// have a LPSE code for this already, in which case ignore it
+		if (!panlTokenMap.containsKey(this.lpseCode)) {
+			lpseUriBefore.append(getResetUriPath(panlTokenMap, collectionProperties));
 		}
 
 		additionObject.put(Constants.Json.Panl.BEFORE, lpseUriBefore.toString());
 
-		additionObject.put(Constants.Json.Panl.AFTER, FORWARD_SLASH + lpseUri.toString() + lpseUriCode.toString() + FORWARD_SLASH);
+		additionObject.put(Constants.Json.Panl.AFTER,
+					FORWARD_SLASH +
+								additionUriSegments.getUriPathAfter(this.lpseCode) +
+								additionUriSegments.getLpseCodeBefore(this.lpseCode) +
+								this.lpseCode +
+								additionUriSegments.getLpseCodeAfter(this.lpseCode) +
+								FORWARD_SLASH);
 		return (additionObject);
 	}
 
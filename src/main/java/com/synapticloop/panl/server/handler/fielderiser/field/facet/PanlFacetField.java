@@ -24,6 +24,7 @@ package com.synapticloop.panl.server.handler.fielderiser.field.facet;
  * IN THE SOFTWARE.
  */
 
+import com.synapticloop.panl.server.handler.bean.PanlQueryParametersBean;
 import com.synapticloop.panl.exception.PanlServerException;
 import com.synapticloop.panl.server.handler.fielderiser.field.BasePrefixSuffixField;
 import com.synapticloop.panl.server.handler.properties.CollectionProperties;
@@ -114,7 +115,7 @@ public class PanlFacetField extends BasePrefixSuffixField {
 	}
 
 	@Override
-	public List<LpseToken> instantiateTokens(CollectionProperties collectionProperties, String lpseCode, String query, StringTokenizer valueTokeniser, LpseTokeniser lpseTokeniser) {
+	public List<LpseToken> instantiateTokens(CollectionProperties collectionProperties, String lpseCode, PanlQueryParametersBean queryParameters, StringTokenizer valueTokeniser, LpseTokeniser lpseTokeniser) {
 		if (this.valueSeparator != null) {
 			// we have an or separator
 			return (FacetLpseToken.getSeparatedLpseTokens(
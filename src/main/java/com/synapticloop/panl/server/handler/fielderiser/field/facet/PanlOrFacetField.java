@@ -24,7 +24,9 @@ package com.synapticloop.panl.server.handler.fielderiser.field.facet;
  * IN THE SOFTWARE.
  */
 
+import com.synapticloop.panl.server.handler.bean.PanlQueryParametersBean;
 import com.synapticloop.panl.exception.PanlServerException;
+import com.synapticloop.panl.server.handler.fielderiser.field.AdditionUriSegments;
 import com.synapticloop.panl.server.handler.properties.CollectionProperties;
 import com.synapticloop.panl.server.handler.tokeniser.LpseTokeniser;
 import com.synapticloop.panl.server.handler.tokeniser.token.LpseToken;
@@ -123,6 +125,7 @@ public class PanlOrFacetField extends PanlFacetField {
 	 * @param facetObject The facet object to append to
 	 * @param collectionProperties The collection properties
 	 * @param panlTokenMap The incoming Panl tokens
+	 * @param additionUriSegments The per-request URI and LPSE segments
 	 * @param existingLpseValues The existing LPSE values
 	 * @param facetCountValues The facet count values
 	 * @param numFound Number of results found
@@ -134,6 +137,7 @@ public class PanlOrFacetField extends PanlFacetField {
 			JSONObject facetObject,
 			CollectionProperties collectionProperties,
 			Map<String, List<LpseToken>> panlTokenMap,
+			AdditionUriSegments additionUriSegments,
 			Set<String> existingLpseValues,
 			List<FacetField.Count> facetCountValues,
 			long numFound,
@@ -193,7 +197,8 @@ public class PanlOrFacetField extends PanlFacetField {
 						getAdditionURIObject(
 								collectionProperties,
 								this,
-								panlTokenMap));
+								panlTokenMap,
+								additionUriSegments));
 				return (true);
 			}
 		}
@@ -207,7 +212,7 @@ public class PanlOrFacetField extends PanlFacetField {
 	 *
 	 * @param collectionProperties The collection properties
 	 * @param lpseCode The lpseCode for this field
-	 * @param query The query parameter
+	 * @param queryParameters The parsed query parameters
 	 * @param valueTokeniser The value tokeniser
 	 * @param lpseTokeniser The lpse tokeniser
 	 *
@@ -215,7 +220,7 @@ public class PanlOrFacetField extends PanlFacetField {
 	 */
 	@Override public List<LpseToken> instantiateTokens(
 			CollectionProperties collectionProperties, String lpseCode,
-			String query,
+			PanlQueryParametersBean queryParameters,
 			StringTokenizer valueTokeniser,
 			LpseTokeniser lpseTokeniser) {
 
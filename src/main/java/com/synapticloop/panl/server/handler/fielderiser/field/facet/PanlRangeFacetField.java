@@ -24,7 +24,9 @@ package com.synapticloop.panl.server.handler.fielderiser.field.facet;
  * IN THE SOFTWARE.
  */
 
+import com.synapticloop.panl.server.handler.bean.PanlQueryParametersBean;
 import com.synapticloop.panl.exception.PanlServerException;
+import com.synapticloop.panl.server.handler.fielderiser.field.AdditionUriSegments;
 import com.synapticloop.panl.server.handler.fielderiser.field.BaseField;
 import com.synapticloop.panl.server.handler.properties.CollectionProperties;
 import com.synapticloop.panl.server.handler.tokeniser.LpseTokeniser;
@@ -115,7 +117,7 @@ public class PanlRangeFacetField extends PanlFacetField {
 	}
 
 	@Override
-	public List<LpseToken> instantiateTokens(CollectionProperties collectionProperties, String lpseCode, String query,
+	public List<LpseToken> instantiateTokens(CollectionProperties collectionProperties, String lpseCode, PanlQueryParametersBean queryParameters,
 				StringTokenizer valueTokeniser, LpseTokeniser lpseTokeniser) {
 		return (List.of(new RangeFacetLpseToken(collectionProperties, this.lpseCode, lpseTokeniser, valueTokeniser)));
 	}
@@ -244,6 +246,7 @@ public class PanlRangeFacetField extends PanlFacetField {
 	 * @param facetObject The facet object to append the values to
 	 * @param collectionProperties The collection properties
 	 * @param panlTokenMap The panl token map
+	 * @param additionUriSegments The per-request URI and LPSE segments
 	 * @param existingLpseValues The existing LPSE values for this lpseCode
 	 * @param facetCountValues The Facet values from Solr
 	 * @param numFound The number of results found
@@ -255,6 +258,7 @@ public class PanlRangeFacetField extends PanlFacetField {
 				JSONObject facetObject,
 				CollectionProperties collectionProperties,
 				Map<String, List<LpseToken>> panlTokenMap,
+				AdditionUriSegments additionUriSegments,
 				Set<String> existingLpseValues,
 				List<FacetField.Count> facetCountValues,
 				long numFound,
@@ -318,7 +322,8 @@ public class PanlRangeFacetField extends PanlFacetField {
 							getAdditionURIObject(
 										collectionProperties,
 										this,
-										panlTokenMap));
+										panlTokenMap,
+										additionUriSegments));
 				return (true);
 			}
 		}
@@ -328,7 +333,8 @@ public class PanlRangeFacetField extends PanlFacetField {
 	public boolean appendAvailableRangeValues(
 				JSONObject rangeFacetObject,
 				CollectionProperties collectionProperties,
-				Map<String, List<LpseToken>> panlTokenMap) {
+				Map<String, List<LpseToken>> panlTokenMap,
+				AdditionUriSegments additionUriSegments) {
 
 		// put this in the array please
 		rangeFacetObject.put(Constants.Json.Panl.FACET_NAME, collectionProperties.getSolrFieldNameFromLpseCode(lpseCode));
@@ -361,95 +367,90 @@ public class PanlRangeFacetField extends PanlFacetField {
 		}
 
 		// addition URIs are a little bit different...
-		JSONObject additionURIObject = getRangeAdditionURIObject(collectionProperties, panlTokenMap);
+		JSONObject additionURIObject = getRangeAdditionURIObject(additionUriSegments);
 		rangeFacetObject.put(Constants.Json.Panl.URIS, additionURIObject);
 
 
 		return (true);
 	}
 
-	private JSONObject getRangeAdditionURIObject(
-				CollectionProperties collectionProperties,
-				Map<String, List<LpseToken>> panlTokenMap) {
-
-		String additionLpseCode = lpseCode;
+	private JSONObject getRangeAdditionURIObject(AdditionUriSegments additionUriSegments) {
 		JSONObject additionObject = new JSONObject();
-		StringBuilder lpseUri = new StringBuilder(Constants.FORWARD_SLASH);
-		StringBuilder lpseUriAfterMax = new StringBuilder();
-		StringBuilder lpseCodeUri = new StringBuilder();
 
-		for(BaseField baseField : collectionProperties.getLpseFields()) {
-			if (panlTokenMap.containsKey(baseField.getLpseCode()) &&
-						    !(baseField.getLpseCode().equals(additionLpseCode))) {
-
-				String resetUriPath = baseField.getResetUriPath(panlTokenMap, collectionProperties);
-				lpseUri.append(resetUriPath);
-
-				if (lpseUriAfterMax.length() != 0) {
-					lpseUriAfterMax.append(resetUriPath);
-				}
+		if (!additionUriSegments.getHasLpseCode(lpseCode)) {
+			// not in the LPSE order, so there is no position to add this field
+			additionObject.put(
+						Constants.Json.Panl.AFTER,
+						Constants.FORWARD_SLASH +
+									additionUriSegments.getUriPath() +
+									additionUriSegments.getLpseCode() +
+									Constants.FORWARD_SLASH);
 
-				lpseCodeUri.append(baseField.getResetLpseCode(panlTokenMap, collectionProperties));
+			if (null != rangeMaxValueReplacement) {
+				additionObject.put(
+							Constants.Json.Panl.AFTER_MAX_VALUE,
+							additionUriSegments.getLpseCode() + Constants.FORWARD_SLASH);
 			}
+			return (additionObject);
+		}
 
-			if (baseField.getLpseCode().equals(additionLpseCode)) {
-				// depends on whether there is an infix
-				// at this point we want to also do the min value replacement, if it
-				// exists
-				if (null != rangeMinValueReplacement) {
-					additionObject.put(Constants.Json.Panl.BEFORE_MIN_VALUE,
-								lpseUri + PanlLPSEHelper.encodeURIPath(rangeMinValueReplacement));
-				}
-
-				if (hasRangeInfix) {
-					// we have an infix - we will be using the range value prefix/suffix
-					lpseUri.append(PanlLPSEHelper.encodeURIPath(getRangePrefix()));
-				} else {
-					// we don't have an infix - we will be using the value prefix/suffix
-					lpseUri.append(PanlLPSEHelper.encodeURIPath(getValuePrefix()));
-				}
-
-				lpseCodeUri.append(lpseCode);
-				lpseCodeUri.append((hasRangeInfix ? "-" : "+"));
-
-				if (hasRangeInfix) {
-					// we have the infix
-					additionObject.put(Constants.Json.Panl.HAS_INFIX, true);
-					additionObject.put(Constants.Json.Panl.DURING, PanlLPSEHelper.encodeURIPath(rangeValueInfix));
-				} else {
-					// we shall use the value suffix and prefix;
-					additionObject.put(Constants.Json.Panl.HAS_INFIX, false);
-					additionObject.put(
-								Constants.Json.Panl.DURING,
-							PanlLPSEHelper.encodeURIPath(getValueSuffix()) +
-											Constants.JSON_VALUE_NO_INFIX_REPLACEMENT +
-									PanlLPSEHelper.encodeURIPath(getValuePrefix()));
-				}
-
-
-				additionObject.put(Constants.Json.Panl.BEFORE, lpseUri.toString());
-				lpseUri.setLength(0);
-
-				if (hasRangeInfix) {
-					lpseUri.append(PanlLPSEHelper.encodeURIPath(getRangeSuffix()));
-				} else {
-					lpseUri.append(PanlLPSEHelper.encodeURIPath(getValueSuffix()));
-				}
-
-				if (null != rangeMaxValueReplacement) {
-					lpseUriAfterMax.append(PanlLPSEHelper.encodeURIPath(rangeMaxValueReplacement))
-					               .append(Constants.FORWARD_SLASH);
-				}
+		String lpseUriBefore = Constants.FORWARD_SLASH + additionUriSegments.getUriPathBefore(lpseCode);
+		String lpseUriAfter = additionUriSegments.getUriPathAfter(lpseCode);
+		String lpseCodeUri = additionUriSegments.getLpseCodeBefore(lpseCode) +
+					lpseCode +
+					(hasRangeInfix ? "-" : "+") +
+					additionUriSegments.getLpseCodeAfter(lpseCode);
 
-				lpseUri.append(Constants.FORWARD_SLASH);
-			}
+		// depends on whether there is an infix
+		// at this point we want to also do the min value replacement, if it
+		// exists
+		if (null != rangeMinValueReplacement) {
+			additionObject.put(Constants.Json.Panl.BEFORE_MIN_VALUE,
+						lpseUriBefore + PanlLPSEHelper.encodeURIPath(rangeMinValueReplacement));
 		}
 
-		additionObject.put(Constants.Json.Panl.AFTER, lpseUri.toString() + lpseCodeUri.toString() + Constants.FORWARD_SLASH);
+		if (hasRangeInfix) {
+			// we have the infix
+			additionObject.put(Constants.Json.Panl.HAS_INFIX, true);
+			additionObject.put(Constants.Json.Panl.DURING, PanlLPSEHelper.encodeURIPath(rangeValueInfix));
+
+			// we will be using the range value prefix/suffix
+			additionObject.put(Constants.Json.Panl.BEFORE,
+						lpseUriBefore + PanlLPSEHelper.encodeURIPath(getRangePrefix()));
+			additionObject.put(Constants.Json.Panl.AFTER,
+						PanlLPSEHelper.encodeURIPath(getRangeSuffix()) +
+									Constants.FORWARD_SLASH +
+									lpseUriAfter +
+									lpseCodeUri +
+									Constants.FORWARD_SLASH);
+		} else {
+			// we shall use the value suffix and prefix;
+			additionObject.put(Constants.Json.Panl.HAS_INFIX, false);
+			additionObject.put(
+						Constants.Json.Panl.DURING,
+					PanlLPSEHelper.encodeURIPath(getValueSuffix()) +
+									Constants.JSON_VALUE_NO_INFIX_REPLACEMENT +
+							PanlLPSEHelper.encodeURIPath(getValuePrefix()));
+
+			additionObject.put(Constants.Json.Panl.BEFORE,
+						lpseUriBefore + PanlLPSEHelper.encodeURIPath(getValuePrefix()));
+			additionObject.put(Constants.Json.Panl.AFTER,
+						PanlLPSEHelper.encodeURIPath(getValueSuffix()) +
+									Constants.FORWARD_SLASH +
+									lpseUriAfter +
+									lpseCodeUri +
+									Constants.FORWARD_SLASH);
+		}
 
 		if (null != rangeMaxValueReplacement) {
-			additionObject.put(Constants.Json.Panl.AFTER_MAX_VALUE, lpseUriAfterMax.toString() + lpseCodeUri.toString() + Constants.FORWARD_SLASH);
+			additionObject.put(Constants.Json.Panl.AFTER_MAX_VALUE,
+						PanlLPSEHelper.encodeURIPath(rangeMaxValueReplacement) +
+									Constants.FORWARD_SLASH +
+									lpseUriAfter +
+									lpseCodeUri +
+									Constants.FORWARD_SLASH);
 		}
+
 		return (additionObject);
 	}
 
@@ -714,41 +715,40 @@ public class PanlRangeFacetField extends PanlFacetField {
 	@Override protected JSONObject getAdditionURIObject(
 				CollectionProperties collectionProperties,
 				BaseField lpseField,
-				Map<String, List<LpseToken>> panlTokenMap) {
+				Map<String, List<LpseToken>> panlTokenMap,
+				AdditionUriSegments additionUriSegments) {
 
 		String additionLpseCode = lpseField.getLpseCode();
 		JSONObject additionObject = new JSONObject();
-		StringBuilder lpseUri = new StringBuilder(Constants.FORWARD_SLASH);
-		StringBuilder lpseUriAfterMax = new StringBuilder();
-		StringBuilder lpseCode = new StringBuilder();
-
-		for(BaseField baseField : collectionProperties.getLpseFields()) {
-
-			if (panlTokenMap.containsKey(baseField.getLpseCode()) &&
-						    !(baseField.getLpseCode().equals(additionLpseCode))) {
-
-				String resetUriPath = baseField.getResetUriPath(panlTokenMap, collectionProperties);
-				lpseUri.append(resetUriPath);
-
-				if (lpseUriAfterMax.length() != 0) {
-					lpseUriAfterMax.append(resetUriPath);
-				}
-
-				lpseCode.append(baseField.getResetLpseCode(panlTokenMap, collectionProperties));
-			}
-
-			if (baseField.getLpseCode().equals(additionLpseCode)) {
-
-				additionObject.put(Constants.Json.Panl.BEFORE, lpseUri.toString());
-				lpseUri.setLength(0);
-				lpseCode.append(baseField.getLpseCode());
-
-				lpseUri.append(Constants.FORWARD_SLASH);
-			}
-		}
 
-		additionObject.put(Constants.Json.Panl.AFTER, lpseUri.toString() + lpseCode.toString() + Constants.FORWARD_SLASH);
-		additionObject.put(Constants.Json.Panl.AFTER_MAX_VALUE, lpseUriAfterMax.toString() + lpseCode.toString() + Constants.FORWARD_SLASH);
+		if (!additionUriSegments.getHasLpseCode(additionLpseCode)) {
+			// not in the LPSE order, so there is no position to add this field
+			additionObject.put(
+						Constants.Json.Panl.AFTER,
+						Constants.FORWARD_SLASH +
+									additionUriSegments.getUriPath() +
+									additionUriSegments.getLpseCode() +
+									Constants.FORWARD_SLASH);
+			additionObject.put(
+						Constants.Json.Panl.AFTER_MAX_VALUE,
+						additionUriSegments.getLpseCode() + Constants.FORWARD_SLASH);
+			return (additionObject);
+		}
+
+		String lpseCode = additionUriSegments.getLpseCodeBefore(additionLpseCode) +
+					additionLpseCode +
+					additionUriSegments.getLpseCodeAfter(additionLpseCode);
+
+		additionObject.put(
+					Constants.Json.Panl.BEFORE,
+					Constants.FORWARD_SLASH + additionUriSegments.getUriPathBefore(additionLpseCode));
+		additionObject.put(
+					Constants.Json.Panl.AFTER,
+					Constants.FORWARD_SLASH +
+								additionUriSegments.getUriPathAfter(additionLpseCode) +
+								lpseCode +
+								Constants.FORWARD_SLASH);
+		additionObject.put(Constants.Json.Panl.AFTER_MAX_VALUE, lpseCode + Constants.FORWARD_SLASH);
 		return (additionObject);
 	}
 
@@ -24,6 +24,7 @@ package com.synapticloop.panl.server.handler.fielderiser.field.param;
  * IN THE SOFTWARE.
  */
 
+import com.synapticloop.panl.server.handler.bean.PanlQueryParametersBean;
 import com.synapticloop.panl.exception.PanlServerException;
 import com.synapticloop.panl.server.handler.fielderiser.field.BaseField;
 import com.synapticloop.panl.server.handler.fielderiser.field.BasePrefixSuffixField;
@@ -94,7 +95,7 @@ public class PanlNumRowsField extends BasePrefixSuffixField {
 		// do nothing - this relies on other data and is set by the handler
 	}
 
-	@Override public List<LpseToken> instantiateTokens(CollectionProperties collectionProperties, String lpseCode, String query, StringTokenizer valueTokeniser, LpseTokeniser lpseTokeniser) {
+	@Override public List<LpseToken> instantiateTokens(CollectionProperties collectionProperties, String lpseCode, PanlQueryParametersBean queryParameters, StringTokenizer valueTokeniser, LpseTokeniser lpseTokeniser) {
 		return(List.of(new NumRowsLpseToken(collectionProperties, this.lpseCode, valueTokeniser)));
 	}
 
@@ -24,6 +24,7 @@ package com.synapticloop.panl.server.handler.fielderiser.field.param;
  * IN THE SOFTWARE.
  */
 
+import com.synapticloop.panl.server.handler.bean.PanlQueryParametersBean;
 import com.synapticloop.panl.exception.PanlServerException;
 import com.synapticloop.panl.server.handler.fielderiser.field.BasePrefixSuffixField;
 import com.synapticloop.panl.server.handler.properties.CollectionProperties;
@@ -227,7 +228,7 @@ public class PanlPageNumField extends BasePrefixSuffixField {
 	 *
 	 * @param collectionProperties The collection properties
 	 * @param lpseCode The lpseCode for this field
-	 * @param query The query parameter
+	 * @param queryParameters The parsed query parameters
 	 * @param valueTokeniser The value tokeniser
 	 * @param lpseTokeniser The lpse tokeniser
 	 *
@@ -235,7 +236,7 @@ public class PanlPageNumField extends BasePrefixSuffixField {
 	 *
 	 * @see PageNumLpseToken
 	 */
-	@Override public List<LpseToken> instantiateTokens(CollectionProperties collectionProperties, String lpseCode, String query, StringTokenizer valueTokeniser, LpseTokeniser lpseTokeniser) {
+	@Override public List<LpseToken> instantiateTokens(CollectionProperties collectionProperties, String lpseCode, PanlQueryParametersBean queryParameters, StringTokenizer valueTokeniser, LpseTokeniser lpseTokeniser) {
 		return(List.of(new PageNumLpseToken(collectionProperties, this.lpseCode, valueTokeniser)));
 	}
 
@@ -24,6 +24,7 @@ package com.synapticloop.panl.server.handler.fielderiser.field.param;
  * IN THE SOFTWARE.
  */
 
+import com.synapticloop.panl.server.handler.bean.PanlQueryParametersBean;
 import com.synapticloop.panl.exception.PanlServerException;
 import com.synapticloop.panl.server.handler.fielderiser.field.BaseField;
 import com.synapticloop.panl.server.handler.properties.CollectionProperties;
@@ -118,7 +119,7 @@ public class PanlPassThroughField extends BaseField {
 
 	}
 
-	@Override public List<LpseToken> instantiateTokens(CollectionProperties collectionProperties, String lpseCode, String query, StringTokenizer valueTokeniser, LpseTokeniser lpseTokeniser) {
+	@Override public List<LpseToken> instantiateTokens(CollectionProperties collectionProperties, String lpseCode, PanlQueryParametersBean queryParameters, StringTokenizer valueTokeniser, LpseTokeniser lpseTokeniser) {
 		return(List.of(new PassThroughLpseToken(collectionProperties, this.lpseCode, valueTokeniser)));
 	}
 
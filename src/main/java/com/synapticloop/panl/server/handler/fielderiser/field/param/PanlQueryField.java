@@ -24,6 +24,7 @@ package com.synapticloop.panl.server.handler.fielderiser.field.param;
  * IN THE SOFTWARE.
  */
 
+import com.synapticloop.panl.server.handler.bean.PanlQueryParametersBean;
 import com.synapticloop.panl.exception.PanlServerException;
 import com.synapticloop.panl.server.handler.fielderiser.field.BaseField;
 import com.synapticloop.panl.server.handler.properties.CollectionProperties;
@@ -205,8 +206,8 @@ public class PanlQueryField extends BaseField {
 
 	}
 
-	@Override public List<LpseToken> instantiateTokens(CollectionProperties collectionProperties, String lpseCode, String query, StringTokenizer valueTokeniser, LpseTokeniser lpseTokeniser) {
-		return(List.of(new QueryLpseToken(collectionProperties, this.lpseCode, query, valueTokeniser, lpseTokeniser)));
+	@Override public List<LpseToken> instantiateTokens(CollectionProperties collectionProperties, String lpseCode, PanlQueryParametersBean queryParameters, StringTokenizer valueTokeniser, LpseTokeniser lpseTokeniser) {
+		return(List.of(new QueryLpseToken(collectionProperties, this.lpseCode, queryParameters, valueTokeniser, lpseTokeniser)));
 	}
 
 
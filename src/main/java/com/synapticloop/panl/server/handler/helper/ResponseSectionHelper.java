@@ -0,0 +1,145 @@
+package com.synapticloop.panl.server.handler.helper;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import com.synapticloop.panl.util.Constants;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>The sections of the Panl response that may be requested, as a bit mask,
+ * so that only the sections that are required are generated.</p>
+ *
+ * <p>Clients may request the sections with the <code>sections</code> query
+ * parameter, which is a comma separated list of the JSON keys of the
+ * sections, for example</p>
+ *
+ * <pre>
+ *   ?sections=response,pagination
+ * </pre>
+ *
+ * @author synapticloop
+ */
+public class ResponseSectionHelper {
+	/**
+	 * <p>The Solr response (i.e. the response header and the documents)</p>
+	 */
+	public static final int SOLR_RESPONSE = 1;
+	/**
+	 * <p>The available facets (including range and date range facets)</p>
+	 */
+	public static final int AVAILABLE = 1 << 1;
+	/**
+	 * <p>The active facets, sorts, and query</p>
+	 */
+	public static final int ACTIVE = 1 << 2;
+	/**
+	 * <p>The search fields</p>
+	 */
+	public static final int SEARCH = 1 << 3;
+	/**
+	 * <p>The pagination URIs</p>
+	 */
+	public static final int PAGINATION = 1 << 4;
+	/**
+	 * <p>The sorting URIs</p>
+	 */
+	public static final int SORTING = 1 << 5;
+	/**
+	 * <p>The query operand URIs</p>
+	 */
+	public static final int QUERY_OPERAND = 1 << 6;
+	/**
+	 * <p>The result fields for the fieldset</p>
+	 */
+	public static final int FIELDS = 1 << 7;
+	/**
+	 * <p>The canonical URI</p>
+	 */
+	public static final int CANONICAL_URI = 1 << 8;
+
+	/**
+	 * <p>All sections of the response</p>
+	 */
+	public static final int ALL = SOLR_RESPONSE |
+			AVAILABLE |
+			ACTIVE |
+			SEARCH |
+			PAGINATION |
+			SORTING |
+			QUERY_OPERAND |
+			FIELDS |
+			CANONICAL_URI;
+
+	private static final Map<String, Integer> SECTION_LOOKUP = new HashMap<>();
+	static {
+		SECTION_LOOKUP.put(Constants.Json.Solr.RESPONSE, SOLR_RESPONSE);
+		SECTION_LOOKUP.put(Constants.Json.Panl.AVAILABLE, AVAILABLE);
+		SECTION_LOOKUP.put(Constants.Json.Panl.ACTIVE, ACTIVE);
+		SECTION_LOOKUP.put(Constants.Json.Panl.SEARCH, SEARCH);
+		SECTION_LOOKUP.put(Constants.Json.Panl.PAGINATION, PAGINATION);
+		SECTION_LOOKUP.put(Constants.Json.Panl.SORTING, SORTING);
+		SECTION_LOOKUP.put(Constants.Json.Panl.QUERY_OPERAND, QUERY_OPERAND);
+		SECTION_LOOKUP.put(Constants.Json.Panl.FIELDS, FIELDS);
+		SECTION_LOOKUP.put(Constants.Json.Panl.CANONICAL_URI, CANONICAL_URI);
+	}
+
+	/**
+	 * <p>Parse the comma separated list of section names into the bit mask of
+	 * the sections.  Unknown section names are ignored.  If the list is null or
+	 * blank, then all sections will be returned.</p>
+	 *
+	 * @param sections The comma separated list of section names
+	 *
+	 * @return The bit mask of the requested sections
+	 */
+	public static int getResponseSections(String sections) {
+		if (null == sections || sections.isBlank()) {
+			return (ALL);
+		}
+
+		int responseSections = 0;
+		for (String section : sections.split(",")) {
+			Integer responseSection = SECTION_LOOKUP.get(section.trim());
+			if (null != responseSection) {
+				responseSections |= responseSection;
+			}
+		}
+		return (responseSections);
+	}
+
+	/**
+	 * <p>Return whether the section is included in the requested sections.</p>
+	 *
+	 * @param responseSections The requested sections bit mask
+	 * @param responseSection The section to check
+	 *
+	 * @return Whether the section was requested
+	 */
+	public static boolean hasSection(int responseSections, int responseSection) {
+		return ((responseSections & responseSection) != 0);
+	}
+}
@@ -24,41 +24,265 @@ package com.synapticloop.panl.server.handler.helper;
  * IN THE SOFTWARE.
  */
 
+import com.synapticloop.panl.server.metrics.PanlPhaseMetrics;
+import com.synapticloop.panl.server.metrics.PanlRequestTrace;
 import com.synapticloop.panl.util.Constants;
 import org.json.JSONObject;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * <p>Record the time taken for each of the phases of a Panl request - parsing
+ * the inbound request, building the outbound Solr request, sending the
+ * request to (and receiving the response from) the Solr server, and building
+ * the inbound response.</p>
+ *
+ * <p>The phases are recorded as nanosecond durations in primitive fields, so
+ * marking a phase does not allocate.  The same durations are written to the
+ * response <code>timings</code> object (in both milliseconds and
+ * microseconds), recorded to the phase metrics, and set on the request trace
+ * for the slow request log.</p>
+ *
+ * <p>All of the Panl JSON responses (and the cached responses) write the
+ * <code>timings</code> object directly from the primitive durations with
+ * {@link #writeTimingsTo(Writer, long, long, long, long)}, rather than
+ * building a JSON object for every request.</p>
+ *
+ * @author synapticloop
+ */
 public class TimingsHelper {
+	private static final String KEY_PARSE_REQUEST_TIME = getQuotedKey(Constants.Json.Panl.PARSE_REQUEST_TIME);
+	private static final String KEY_BUILD_REQUEST_TIME = getQuotedKey(Constants.Json.Panl.BUILD_REQUEST_TIME);
+	private static final String KEY_SEND_REQUEST_TIME = getQuotedKey(Constants.Json.Panl.SEND_REQUEST_TIME);
+	private static final String KEY_BUILD_RESPONSE_TIME = getQuotedKey(Constants.Json.Panl.BUILD_RESPONSE_TIME);
+	private static final String KEY_CACHE_LOOKUP_TIME = getQuotedKey(Constants.Json.Panl.CACHE_LOOKUP_TIME);
+	private static final String KEY_TOTAL_TIME = getQuotedKey(Constants.Json.Panl.TOTAL_TIME);
+	private static final String KEY_PARSE_REQUEST_TIME_MICROS = getQuotedKey(Constants.Json.Panl.PARSE_REQUEST_TIME_MICROS);
+	private static final String KEY_BUILD_REQUEST_TIME_MICROS = getQuotedKey(Constants.Json.Panl.BUILD_REQUEST_TIME_MICROS);
+	private static final String KEY_SEND_REQUEST_TIME_MICROS = getQuotedKey(Constants.Json.Panl.SEND_REQUEST_TIME_MICROS);
+	private static final String KEY_BUILD_RESPONSE_TIME_MICROS = getQuotedKey(Constants.Json.Panl.BUILD_RESPONSE_TIME_MICROS);
+	private static final String KEY_CACHE_LOOKUP_TIME_MICROS = getQuotedKey(Constants.Json.Panl.CACHE_LOOKUP_TIME_MICROS);
+	private static final String KEY_TOTAL_TIME_MICROS = getQuotedKey(Constants.Json.Panl.TOTAL_TIME_MICROS);
+	private static final String KEY_CACHED = getQuotedKey(Constants.Json.Panl.CACHED);
+
 	private final long startNanos;
 	private long currentNanos;
-	private final JSONObject timingsObject = new JSONObject();
+	private long parseRequestNanos;
+	private long buildRequestNanos;
+	private long sendRequestNanos;
+	private long buildResponseNanos;
 
 	public TimingsHelper() {
-		 this.startNanos = System.nanoTime();
+		this.startNanos = System.nanoTime();
+		this.currentNanos = startNanos;
 	}
 
 	public void markParseInboundRequestEnd() {
-		this.currentNanos = System.nanoTime();
-		timingsObject.put("panl_parse_request_time", TimeUnit.NANOSECONDS.toMillis(currentNanos - startNanos));
+		this.parseRequestNanos = mark();
 	}
 
 	public void markBuildOutboundRequestEnd() {
-		timingsObject.put("panl_build_request_time", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - currentNanos));
-		this.currentNanos = System.nanoTime();
+		this.buildRequestNanos = mark();
 	}
 
 	public void markSendOutboundRequestEnd() {
-		timingsObject.put("panl_send_request_time", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - currentNanos));
-		this.currentNanos = System.nanoTime();
+		this.sendRequestNanos = mark();
 	}
 
 	public void markBuildInboundResponseEnd() {
-		timingsObject.put("panl_build_response_time", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - currentNanos));
-		timingsObject.put("panl_total_time", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+		this.buildResponseNanos = mark();
+	}
+
+	/**
+	 * <p>Mark the end of the current phase.</p>
+	 *
+	 * @return The number of nanos since the end of the previous phase
+	 */
+	private long mark() {
+		long nowNanos = System.nanoTime();
+		long elapsedNanos = nowNanos - currentNanos;
+		this.currentNanos = nowNanos;
+		return (elapsedNanos);
+	}
+
+	public long getParseRequestNanos() {
+		return (parseRequestNanos);
+	}
+
+	public long getBuildRequestNanos() {
+		return (buildRequestNanos);
+	}
+
+	public long getSendRequestNanos() {
+		return (sendRequestNanos);
+	}
+
+	public long getBuildResponseNanos() {
+		return (buildResponseNanos);
+	}
+
+	/**
+	 * <p>Return the number of nanos from the creation of this helper to the
+	 * end of the last marked phase.</p>
+	 *
+	 * @return The total number of nanos
+	 */
+	public long getTotalNanos() {
+		return (currentNanos - startNanos);
+	}
+
+	/**
+	 * <p>Record the marked phase timings to the phase metrics - this should be
+	 * called after the inbound response end has been marked.</p>
+	 *
+	 * @param panlPhaseMetrics The phase metrics to record to
+	 */
+	public void recordTo(PanlPhaseMetrics panlPhaseMetrics) {
+		panlPhaseMetrics.record(parseRequestNanos, buildRequestNanos, sendRequestNanos, buildResponseNanos);
+	}
+
+	/**
+	 * <p>Set the marked phase timings on the request trace - this should be
+	 * called after the inbound response end has been marked.</p>
+	 *
+	 * @param panlRequestTrace The request trace, or null if the request is not
+	 *   being traced
+	 */
+	public void traceTo(PanlRequestTrace panlRequestTrace) {
+		if (null != panlRequestTrace) {
+			panlRequestTrace.setPhases(parseRequestNanos, buildRequestNanos, sendRequestNanos, buildResponseNanos);
+		}
+	}
+
+	/**
+	 * <p>Return the <code>timings</code> JSON object for the phase durations,
+	 * with each phase (and the total) in milliseconds, and in microseconds
+	 * (with the <code>_micros</code> suffix) as most of the Panl phases take
+	 * well under a millisecond.</p>
+	 *
+	 * @param parseRequestNanos The nanos taken to parse the inbound request
+	 * @param buildRequestNanos The nanos taken to build the Solr request
+	 * @param sendRequestNanos The nanos taken to send the request to, and
+	 *   receive the response from, the Solr server
+	 * @param buildResponseNanos The nanos taken to build the response
+	 *
+	 * @return The timings JSON object
+	 */
+	public static JSONObject getTimingsObject(
+			long parseRequestNanos,
+			long buildRequestNanos,
+			long sendRequestNanos,
+			long buildResponseNanos) {
+
+		long totalNanos = parseRequestNanos + buildRequestNanos + sendRequestNanos + buildResponseNanos;
+
+		JSONObject timingsObject = new JSONObject();
+		timingsObject.put(Constants.Json.Panl.PARSE_REQUEST_TIME, TimeUnit.NANOSECONDS.toMillis(parseRequestNanos));
+		timingsObject.put(Constants.Json.Panl.BUILD_REQUEST_TIME, TimeUnit.NANOSECONDS.toMillis(buildRequestNanos));
+		timingsObject.put(Constants.Json.Panl.SEND_REQUEST_TIME, TimeUnit.NANOSECONDS.toMillis(sendRequestNanos));
+		timingsObject.put(Constants.Json.Panl.BUILD_RESPONSE_TIME, TimeUnit.NANOSECONDS.toMillis(buildResponseNanos));
+		timingsObject.put(Constants.Json.Panl.TOTAL_TIME, TimeUnit.NANOSECONDS.toMillis(totalNanos));
+
+		timingsObject.put(Constants.Json.Panl.PARSE_REQUEST_TIME_MICROS, TimeUnit.NANOSECONDS.toMicros(parseRequestNanos));
+		timingsObject.put(Constants.Json.Panl.BUILD_REQUEST_TIME_MICROS, TimeUnit.NANOSECONDS.toMicros(buildRequestNanos));
+		timingsObject.put(Constants.Json.Panl.SEND_REQUEST_TIME_MICROS, TimeUnit.NANOSECONDS.toMicros(sendRequestNanos));
+		timingsObject.put(Constants.Json.Panl.BUILD_RESPONSE_TIME_MICROS, TimeUnit.NANOSECONDS.toMicros(buildResponseNanos));
+		timingsObject.put(Constants.Json.Panl.TOTAL_TIME_MICROS, TimeUnit.NANOSECONDS.toMicros(totalNanos));
+		return (timingsObject);
+	}
+
+	/**
+	 * <p>Write the <code>timings</code> JSON object for the phase durations
+	 * directly from the durations (with the same keys as
+	 * {@link #getTimingsObject(long, long, long, long)}), without creating a
+	 * JSON object.</p>
+	 *
+	 * @param writer The writer to write the timings object to
+	 * @param parseRequestNanos The nanos taken to parse the inbound request
+	 * @param buildRequestNanos The nanos taken to build the Solr request
+	 * @param sendRequestNanos The nanos taken to send the request to, and
+	 *   receive the response from, the Solr server
+	 * @param buildResponseNanos The nanos taken to build the response
+	 *
+	 * @throws IOException If there was an error writing the timings
+	 */
+	public static void writeTimingsTo(
+			Writer writer,
+			long parseRequestNanos,
+			long buildRequestNanos,
+			long sendRequestNanos,
+			long buildResponseNanos) throws IOException {
+
+		writer.write('{');
+		writePhasesTo(writer, parseRequestNanos, buildRequestNanos, sendRequestNanos, buildResponseNanos);
+		writeTimeTo(writer, KEY_TOTAL_TIME, KEY_TOTAL_TIME_MICROS, parseRequestNanos + buildRequestNanos + sendRequestNanos + buildResponseNanos);
+		writer.write('}');
+	}
+
+	/**
+	 * <p>Write the <code>timings</code> JSON object for a response that was
+	 * served from the cache.  The request was parsed and built (to generate the
+	 * cache key), but not sent to the Solr server, so the send request and
+	 * build response phases are zero, the time taken to look up the cached
+	 * response is added, and the <code>panl_cached</code> key is set.</p>
+	 *
+	 * @param writer The writer to write the timings object to
+	 * @param parseRequestNanos The nanos taken to parse the inbound request
+	 * @param buildRequestNanos The nanos taken to build the Solr request
+	 * @param cacheLookupNanos The nanos taken to look up the cached response
+	 *
+	 * @throws IOException If there was an error writing the timings
+	 */
+	public static void writeCachedTimingsTo(
+			Writer writer,
+			long parseRequestNanos,
+			long buildRequestNanos,
+			long cacheLookupNanos) throws IOException {
+
+		writer.write('{');
+		writer.write(KEY_CACHED);
+		writer.write("true,");
+		writePhasesTo(writer, parseRequestNanos, buildRequestNanos, 0L, 0L);
+		writeTimeTo(writer, KEY_CACHE_LOOKUP_TIME, KEY_CACHE_LOOKUP_TIME_MICROS, cacheLookupNanos);
+		writer.write(',');
+		writeTimeTo(writer, KEY_TOTAL_TIME, KEY_TOTAL_TIME_MICROS, parseRequestNanos + buildRequestNanos + cacheLookupNanos);
+		writer.write('}');
+	}
+
+	/**
+	 * <p>Write the four phases (each followed by a comma) to the writer.</p>
+	 */
+	private static void writePhasesTo(
+			Writer writer,
+			long parseRequestNanos,
+			long buildRequestNanos,
+			long sendRequestNanos,
+			long buildResponseNanos) throws IOException {
+		writeTimeTo(writer, KEY_PARSE_REQUEST_TIME, KEY_PARSE_REQUEST_TIME_MICROS, parseRequestNanos);
+		writer.write(',');
+		writeTimeTo(writer, KEY_BUILD_REQUEST_TIME, KEY_BUILD_REQUEST_TIME_MICROS, buildRequestNanos);
+		writer.write(',');
+		writeTimeTo(writer, KEY_SEND_REQUEST_TIME, KEY_SEND_REQUEST_TIME_MICROS, sendRequestNanos);
+		writer.write(',');
+		writeTimeTo(writer, KEY_BUILD_RESPONSE_TIME, KEY_BUILD_RESPONSE_TIME_MICROS, buildResponseNanos);
+		writer.write(',');
+	}
+
+	/**
+	 * <p>Write the duration in milliseconds and then in microseconds, separated
+	 * by a comma.</p>
+	 */
+	private static void writeTimeTo(Writer writer, String millisKey, String microsKey, long nanos) throws IOException {
+		writer.write(millisKey);
+		writer.write(Long.toString(TimeUnit.NANOSECONDS.toMillis(nanos)));
+		writer.write(',');
+		writer.write(microsKey);
+		writer.write(Long.toString(TimeUnit.NANOSECONDS.toMicros(nanos)));
 	}
 
-	public void addTimings(JSONObject jsonObject) {
-		jsonObject.put(Constants.Json.Panl.TIMINGS, timingsObject);
+	private static String getQuotedKey(String key) {
+		return (JSONObject.quote(key) + ":");
 	}
 }
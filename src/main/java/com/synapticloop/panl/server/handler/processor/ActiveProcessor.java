@@ -69,20 +69,15 @@ public class ActiveProcessor extends Processor {
 			}
 		}
 
-		// go through each of the tokens and generate the removal URL
-
-		List<String> uriComponents = new ArrayList<>();
-		List<String> lpseComponents = new ArrayList<>();
-
+		// go through each of the tokens and pre-compute the encoded URI and LPSE
+		// segments once, these are shared between the remove and inverse URIs
+		List<ActiveSegment> activeSegments = new ArrayList<>();
 		for (LpseToken lpseToken : lpseTokens) {
-			BaseField lpseField = collectionProperties.getLpseField(lpseToken.getLpseCode());
-			if (null != lpseField && lpseToken.getIsValid()) {
-				lpseComponents.add(lpseField.getResetLpseCode(lpseToken, collectionProperties));
-
-				uriComponents.add(lpseField.getResetUriPath(lpseToken, collectionProperties));
-			}
+			activeSegments.add(new ActiveSegment(lpseToken, collectionProperties));
 		}
 
+		String[] removeURIs = getRemoveURIs(activeSegments);
+
 		JSONObject activeSortObject = new JSONObject();
 		int skipNumber = 0;
 		for (LpseToken lpseToken : lpseTokens) {
@@ -98,11 +93,7 @@ public class ActiveProcessor extends Processor {
 
 			removeObject.put(Constants.Json.Panl.VALUE, lpseToken.getValue());
 
-			removeObject.put(Constants.Json.Panl.REMOVE_URI, getRemoveURIFromPath(
-					skipNumber,
-					lpseTokens,
-					lpseComponents,
-					collectionProperties));
+			removeObject.put(Constants.Json.Panl.REMOVE_URI, removeURIs[skipNumber]);
 
 			removeObject.put(Constants.Json.Panl.PANL_CODE, lpseCode);
 
@@ -128,11 +119,7 @@ public class ActiveProcessor extends Processor {
 							PanlLPSEHelper.encodeURIPath(panlNameFromSolrFieldName));
 
 					removeObject.put(Constants.Json.Panl.INVERSE_URI,
-							getSortInverseURI(
-									sortLpseToken,
-									lpseTokens,
-									lpseComponents,
-									collectionProperties));
+							getSortInverseURI(sortLpseToken, activeSegments));
 
 
 					activeSortObject.put(solrFacetField, true);
@@ -143,7 +130,7 @@ public class ActiveProcessor extends Processor {
 				BooleanFacetLpseToken booleanFacetLpseToken = (BooleanFacetLpseToken) lpseToken;
 
 				removeObject.put(Constants.Json.Panl.INVERSE_URI,
-						getBooleanInverseURI(booleanFacetLpseToken, lpseTokens, lpseComponents, collectionProperties));
+						getBooleanInverseURI(booleanFacetLpseToken, activeSegments));
 
 
 				removeObject.put(Constants.Json.Panl.FACET_NAME, collectionProperties.getSolrFieldNameFromLpseCode(lpseCode));
@@ -183,116 +170,169 @@ public class ActiveProcessor extends Processor {
 	}
 
 	/**
-	 * <p>Get the removal URI path for the current lpseTokens</p>
+	 * <p>Generate the removal URI paths for every active LPSE token in a single
+	 * forward pass.</p>
+	 *
+	 * <p>The full path (with no tokens removed) is built once, recording the
+	 * URI and LPSE offsets and the separator state before each token.  The
+	 * removal URI for a token is then the shared prefix up to that token, the
+	 * remaining tokens of the same LPSE code (whose value separator handling
+	 * changes when a value is removed), and the first token of the following
+	 * LPSE code, after which the state is identical to the full path and the
+	 * shared suffix is appended as is.</p>
 	 *
-	 * @param skipNumber The LPSE token to skip (starting at index 0
-	 * @param lpseTokens The list of LPSE tokens
-	 * @param collectionProperties The collection properties
+	 * @param activeSegments The pre-computed segments for the active tokens
 	 *
-	 * @return The String URL that will remove this particular facet
+	 * @return The removal URIs, indexed by the position of the LPSE token
 	 */
-	private String getRemoveURIFromPath(
-			int skipNumber,
-			List<LpseToken> lpseTokens,
-			List<String> lpseComponents,
-			CollectionProperties collectionProperties) {
-
-		// if we are currently looking at LPSE code which is an OR separator
-		StringBuilder uri = new StringBuilder();
-		StringBuilder lpse = new StringBuilder();
-
-		Set<String> valueSeparatorAdded = new HashSet<>();
+	private String[] getRemoveURIs(List<ActiveSegment> activeSegments) {
+		int numTokens = activeSegments.size();
+		String[] removeURIs = new String[numTokens];
+
+		int[] uriOffsets = new int[numTokens + 1];
+		int[] lpseOffsets = new int[numTokens + 1];
+		int[] previousIndexes = new int[numTokens];
+		String[] addedLpseCodes = new String[numTokens];
+
+		StringBuilder fullUri = new StringBuilder();
+		StringBuilder fullLpse = new StringBuilder();
+		RemoveState fullState = new RemoveState();
+
+		for (int i = 0; i < numTokens; i++) {
+			uriOffsets[i] = fullUri.length();
+			lpseOffsets[i] = fullLpse.length();
+			previousIndexes[i] = fullState.previousIndex;
+			addedLpseCodes[i] = fullState.addedLpseCode;
+
+			appendRemoveSegment(activeSegments, i, fullState, fullUri, fullLpse);
+		}
 
-		boolean isPreviousValueSeparator = false;
-		BaseField lpseField = null;
+		uriOffsets[numTokens] = fullUri.length();
+		lpseOffsets[numTokens] = fullLpse.length();
+		appendRemoveSuffix(activeSegments, fullState, fullUri);
+
+		StringBuilder uri = new StringBuilder(fullUri.length());
+		StringBuilder lpse = new StringBuilder(fullLpse.length());
+		RemoveState state = new RemoveState();
+
+		for (int skipNumber = 0; skipNumber < numTokens; skipNumber++) {
+			uri.setLength(0);
+			lpse.setLength(0);
+			uri.append(fullUri, 0, uriOffsets[skipNumber]);
+			lpse.append(fullLpse, 0, lpseOffsets[skipNumber]);
+
+			state.previousIndex = previousIndexes[skipNumber];
+			state.addedLpseCode = addedLpseCodes[skipNumber];
+
+			String skipLpseCode = activeSegments.get(skipNumber).lpseCode;
+			boolean hasSynchronised = false;
+			for (int i = skipNumber + 1; i < numTokens; i++) {
+				appendRemoveSegment(activeSegments, i, state, uri, lpse);
+
+				if (!skipLpseCode.equals(activeSegments.get(i).lpseCode)) {
+					// from here on in, the path is the same as the full path
+					uri.append(fullUri, uriOffsets[i + 1], fullUri.length());
+					lpse.append(fullLpse, lpseOffsets[i + 1], fullLpse.length());
+					hasSynchronised = true;
+					break;
+				}
+			}
 
-		String previousSuffix = "";
-		for (int i = 0; i < lpseTokens.size(); i++) {
-			LpseToken lpseToken = lpseTokens.get(i);
-			String lpseCode = lpseToken.getLpseCode();
+			if (!hasSynchronised) {
+				appendRemoveSuffix(activeSegments, state, uri);
+			}
 
-			// we add all tokens except the token index that matches the skip number
-			if (i != skipNumber) {
-				lpseField = collectionProperties.getLpseField(lpseToken.getLpseCode());
+			removeURIs[skipNumber] = returnValidURIPath(uri, lpse);
+		}
 
-				String lpseComponent = lpseComponents.get(i);
-				boolean isValueSeparator = (null != lpseField.getValueSeparator());
+		return (removeURIs);
+	}
 
-				// need to add something from the previous iteration to put the suffix
-				// on the value separator field
-				if(isPreviousValueSeparator && !isValueSeparator) {
-					// if the previous was a value separator, and the current is not, then
-					// we will need to put the value previous suffix in
-					uri.append(PanlLPSEHelper.encodeURIPath(previousSuffix));
-					uri.append("/");
-				}
+	/**
+	 * <p>Append the URI and LPSE segments for a single token to the removal
+	 * path, updating the value separator state.</p>
+	 *
+	 * @param activeSegments The pre-computed segments for the active tokens
+	 * @param index The index of the token to append
+	 * @param state The current value separator state
+	 * @param uri The URI path to append to
+	 * @param lpse The LPSE path to append to
+	 */
+	private static void appendRemoveSegment(
+			List<ActiveSegment> activeSegments,
+			int index,
+			RemoveState state,
+			StringBuilder uri,
+			StringBuilder lpse) {
+
+		ActiveSegment activeSegment = activeSegments.get(index);
+		ActiveSegment previousSegment = (state.previousIndex == -1 ? null : activeSegments.get(state.previousIndex));
+
+		// need to add something from the previous iteration to put the suffix
+		// on the value separator field
+		if (null != previousSegment && previousSegment.isValueSeparator && !activeSegment.isValueSeparator) {
+			// if the previous was a value separator, and the current is not, then
+			// we will need to put the value previous suffix in
+			uri.append(previousSegment.encodedValueSuffix)
+			   .append("/");
+		}
 
-				if (isValueSeparator) {
-					// add the uri part and the lpse part
-					if (!valueSeparatorAdded.contains(lpseCode)) {
-						// if we haven't added the value separator LPSE code,
-						uri.append(PanlLPSEHelper.encodeURIPath(lpseField.getValuePrefix() + lpseToken.getValue()));
-						lpse.append(lpseComponent);
-						valueSeparatorAdded.add(lpseCode);
-					} else {
-						// just add the lpse and URI part - we only add the URI part if
-						// there is a uri part
-						if (lpseField.getHasURIComponent()) {
-							// TODO - this is a value separator, why the if statement
-							if(isValueSeparator) {
-								uri.append(PanlLPSEHelper.encodeURIPath(lpseField.getValueSeparator() + lpseToken.getValue()));
-							} else {
-								uri.append(lpseField.getEncodedPanlValue(lpseToken))
-								   .append("/");
-							}
-						}
-					}
-				} else {
-					// not a value separator, just go on
-					if (lpseField.getHasURIComponent()) {
-						// we need to remove the page number, but not the number of page
-						// TODO - better way to do this
-						if(!(lpseField instanceof PanlPageNumField)) {
-							uri.append(lpseField.getEncodedPanlValue(lpseToken))
-							   .append("/");
-						}
-					}
-					lpse.append(lpseComponent);
+		if (activeSegment.isValueSeparator) {
+			// add the uri part and the lpse part
+			if (!activeSegment.lpseCode.equals(state.addedLpseCode)) {
+				// if we haven't added the value separator LPSE code,
+				uri.append(activeSegment.encodedPrefixValue);
+				lpse.append(activeSegment.lpseComponent);
+				state.addedLpseCode = activeSegment.lpseCode;
+			} else if (activeSegment.lpseField.getHasURIComponent()) {
+				// just add the URI part - we only add the URI part if there is a uri
+				// part
+				uri.append(activeSegment.encodedSeparatorValue);
+			}
+		} else {
+			// not a value separator, just go on
+			if (activeSegment.lpseField.getHasURIComponent()) {
+				// we need to remove the page number, but not the number of page
+				// TODO - better way to do this
+				if (!(activeSegment.lpseField instanceof PanlPageNumField)) {
+					uri.append(activeSegment.encodedValue)
+					   .append("/");
 				}
-
-				isPreviousValueSeparator = isValueSeparator;
-				previousSuffix = lpseField.getValueSuffix();
 			}
+			lpse.append(activeSegment.lpseComponent);
 		}
 
-		if(isPreviousValueSeparator) {
-			// if the previous was a value separator, and the current is not, then
-			// we will need to put the value suffix in
-			if(null != lpseField) {
-				uri.append(PanlLPSEHelper.encodeURIPath(lpseField.getValueSuffix()))
-						.append("/");
+		state.previousIndex = index;
+	}
+
+	/**
+	 * <p>If the last token that was appended was a value separator, then the
+	 * value suffix will need to be added to close it off.</p>
+	 *
+	 * @param activeSegments The pre-computed segments for the active tokens
+	 * @param state The current value separator state
+	 * @param uri The URI path to append to
+	 */
+	private static void appendRemoveSuffix(List<ActiveSegment> activeSegments, RemoveState state, StringBuilder uri) {
+		if (state.previousIndex != -1) {
+			ActiveSegment previousSegment = activeSegments.get(state.previousIndex);
+			if (previousSegment.isValueSeparator) {
+				uri.append(previousSegment.encodedValueSuffix)
+				   .append("/");
 			}
 		}
-
-		return returnValidURIPath(uri, lpse);
 	}
 
 	/**
-	 * <p>Generate the inverse for a BOOLEAN facet which only changes the 'true'
-	 * value to 'false' and vice versa.</p>
+	 * <p>Generate the inverse for a SORT field which only changes the sort
+	 * order from ascending to descending and vice versa.</p>
 	 *
-	 * @param sortLpseToken The facet token to work on
-	 * @param lpseTokens The list of LPSE tokens
-	 * @param lpseComponents The LPSE components
-	 * @param collectionProperties The collection properties
+	 * @param sortLpseToken The sort token to work on
+	 * @param activeSegments The pre-computed segments for the active tokens
 	 *
 	 * @return The inverse URI
 	 */
-	private String getSortInverseURI(
-			SortLpseToken sortLpseToken,
-			List<LpseToken> lpseTokens,
-			List<String> lpseComponents,
-			CollectionProperties collectionProperties) {
+	private String getSortInverseURI(SortLpseToken sortLpseToken, List<ActiveSegment> activeSegments) {
 
 		String sortLpseUriCode =
 				sortLpseToken.getLpseCode() +
@@ -312,18 +352,14 @@ public class ActiveProcessor extends Processor {
 		StringBuilder lpse = new StringBuilder();
 		Set<String> lpseComponentsAdded = new HashSet<>();
 
+		for (ActiveSegment activeSegment : activeSegments) {
+			String lpseCode = activeSegment.lpseCode;
+			BaseField lpseField = activeSegment.lpseField;
 
-		for (int i = 0; i < lpseTokens.size(); i++) {
-			LpseToken lpseToken = lpseTokens.get(i);
-			String lpseCode = lpseToken.getLpseCode();
-
-			BaseField lpseField = collectionProperties.getLpseField(lpseToken.getLpseCode());
-
-			String lpseComponent = lpseComponents.get(i);
+			String lpseComponent = activeSegment.lpseComponent;
 			if (sortLpseUriCode.equals(lpseComponent)) {
 				if (hasMultivalueSeparator) {
-					uri.append(
-							   PanlLPSEHelper.encodeURIPath(previousValueSuffix))
+					uri.append(previousValueSuffix)
 					   .append("/");
 				}
 				hasMultivalueSeparator = false;
@@ -336,15 +372,13 @@ public class ActiveProcessor extends Processor {
 					if (hasMultivalueSeparator) {
 						// the previous LPSE code has a multivalue separator, we only need
 						// to add the value, with the value SEPARATOR
-						uri.append(
-								PanlLPSEHelper.encodeURIPath(lpseField.getValueSeparator() + lpseToken.getValue()));
-						previousValueSuffix = lpseField.getValueSuffix();
+						uri.append(activeSegment.encodedSeparatorValue);
 					} else {
 						// not currently has a multivalue separator - get the full value
 						// if the previous lpse code has a multivalue Separator, add the value
 						// suffix
 						if (lpseField.getHasURIComponent()) {
-							uri.append(lpseField.getEncodedPanlValue(lpseToken))
+							uri.append(activeSegment.encodedValue)
 							   .append("/");
 							lpse.append(lpseComponent);
 						} else {
@@ -368,14 +402,14 @@ public class ActiveProcessor extends Processor {
 						// the previous LPSE code has a multivalue Separator - we don't know whether
 						// this one is - we will test for it, but we shall add the value
 						// suffix to it.
-						uri.append(PanlLPSEHelper.encodeURIPath(previousValueSuffix))
+						uri.append(previousValueSuffix)
 						   .append("/");
 					}
 
-					if (collectionProperties.getIsMultiValuedSeparatorFacetField(lpseCode)) {
+					if (activeSegment.isMultiValuedSeparator) {
 						hasMultivalueSeparator = true;
 						// this is the start of a multivalue separator
-						uri.append(PanlLPSEHelper.encodeURIPath(lpseField.getValuePrefix() + lpseToken.getValue()));
+						uri.append(activeSegment.encodedPrefixValue);
 					} else {
 						hasMultivalueSeparator = false;
 
@@ -383,7 +417,7 @@ public class ActiveProcessor extends Processor {
 						// URI path - we want to skip putting in any value or forward slash
 
 						if (lpseField.getHasURIComponent()) {
-							uri.append(lpseField.getEncodedPanlValue(lpseToken))
+							uri.append(activeSegment.encodedValue)
 							   .append("/");
 						} else {
 							if (!lpseComponentsAdded.contains(lpseComponent)) {
@@ -396,19 +430,16 @@ public class ActiveProcessor extends Processor {
 			}
 
 			previousLpseCode = lpseCode;
-			previousValueSuffix = lpseField.getValueSuffix();
-
+			previousValueSuffix = activeSegment.encodedValueSuffix;
 		}
 
 		// if we still are in multivalue separator and we have no more tokens to process
 		// then we have a dangling suffix that may need to be added
 		if (hasMultivalueSeparator) {
-			uri.append(
-							PanlLPSEHelper.encodeURIPath(previousValueSuffix))
+			uri.append(previousValueSuffix)
 			   .append("/");
 		}
 
-
 		return returnValidURIPath(uri, lpse);
 	}
 
@@ -417,16 +448,13 @@ public class ActiveProcessor extends Processor {
 	 * value to 'false' and vice versa.</p>
 	 *
 	 * @param booleanFacetLpseToken The facet token to work on
-	 * @param lpseTokens The list of LPSE tokens
-	 * @param collectionProperties The collection properties
+	 * @param activeSegments The pre-computed segments for the active tokens
 	 *
 	 * @return The inverse URI
 	 */
 	private String getBooleanInverseURI(
 			BooleanFacetLpseToken booleanFacetLpseToken,
-			List<LpseToken> lpseTokens,
-			List<String> lpseComponents,
-			CollectionProperties collectionProperties) {
+			List<ActiveSegment> activeSegments) {
 
 		String booleanLpseCode = booleanFacetLpseToken.getLpseCode();
 		String inverseBooleanValue = booleanFacetLpseToken.getInverseBooleanValue();
@@ -436,17 +464,16 @@ public class ActiveProcessor extends Processor {
 
 		Set<String> valueSeparatorAdded = new HashSet<>();
 		boolean isPreviousValueSeparator = false;
-		BaseField lpseField = null;
+		ActiveSegment previousSegment = null;
 
-		for (int i = 0; i < lpseTokens.size(); i++) {
-			LpseToken lpseToken = lpseTokens.get(i);
-			String lpseCode = lpseToken.getLpseCode();
+		for (ActiveSegment activeSegment : activeSegments) {
+			String lpseCode = activeSegment.lpseCode;
 
 			// we add all tokens except the token index that matches the skip number
-			if (booleanLpseCode.equals(lpseTokens.get(i).getLpseCode())) {
+			if (booleanLpseCode.equals(lpseCode)) {
 				// we have found the inverse
 				lpse.append(booleanFacetLpseToken.getLpseCode());
-				if(!uri.toString().endsWith("/")) {
+				if(uri.length() == 0 || uri.charAt(uri.length() - 1) != '/') {
 					uri.append("/")
 					   .append(inverseBooleanValue);
 				} else {
@@ -455,17 +482,17 @@ public class ActiveProcessor extends Processor {
 
 				}
 			} else {
-				lpseField = collectionProperties.getLpseField(lpseToken.getLpseCode());
+				previousSegment = activeSegment;
 
-				String lpseComponent = lpseComponents.get(i);
-				boolean isValueSeparator = (null != lpseField.getValueSeparator());
+				String lpseComponent = activeSegment.lpseComponent;
+				boolean isValueSeparator = activeSegment.isValueSeparator;
 
 				// need to add something from the previous iteration to put the suffix
 				// on the value separator field
 				if(isPreviousValueSeparator && !isValueSeparator) {
 					// if the previous was a value separator, and the current is not, then
 					// we will need to put the value suffix in
-					uri.append(PanlLPSEHelper.encodeURIPath(lpseField.getValueSuffix()))
+					uri.append(activeSegment.encodedValueSuffix)
 							.append("/");
 				}
 
@@ -473,26 +500,18 @@ public class ActiveProcessor extends Processor {
 					// add the uri part and the lpse part
 					if (!valueSeparatorAdded.contains(lpseCode)) {
 						// if we haven't added the value separator LPSE code,
-						uri.append(PanlLPSEHelper.encodeURIPath(lpseField.getValuePrefix() + lpseToken.getValue()));
+						uri.append(activeSegment.encodedPrefixValue);
 						lpse.append(lpseComponent);
 						valueSeparatorAdded.add(lpseCode);
-					} else {
-						// just add the lpse and URI part - we only add the URI part if
-						// there is a uri part
-						if (lpseField.getHasURIComponent()) {
-							if(isValueSeparator) {
-								// TODO- why is this here
-								uri.append(PanlLPSEHelper.encodeURIPath(lpseField.getValueSeparator() + lpseToken.getValue()));
-							} else {
-								uri.append(lpseField.getEncodedPanlValue(lpseToken))
-								   .append("/");
-							}
-						}
+					} else if (activeSegment.lpseField.getHasURIComponent()) {
+						// just add the URI part - we only add the URI part if there is a
+						// uri part
+						uri.append(activeSegment.encodedSeparatorValue);
 					}
 				} else {
 					// not a value separator, just go on
-					if (lpseField.getHasURIComponent()) {
-						uri.append(lpseField.getEncodedPanlValue(lpseToken))
+					if (activeSegment.lpseField.getHasURIComponent()) {
+						uri.append(activeSegment.encodedValue)
 						   .append("/");
 					}
 					lpse.append(lpseComponent);
@@ -505,10 +524,8 @@ public class ActiveProcessor extends Processor {
 		if(isPreviousValueSeparator) {
 			// if the previous was a value separator, and the current is not, then
 			// we will need to put the value suffix in
-			if(null != lpseField) {
-				uri.append(PanlLPSEHelper.encodeURIPath(lpseField.getValueSuffix()))
-				   .append("/");
-			}
+			uri.append(previousSegment.encodedValueSuffix)
+			   .append("/");
 		}
 
 		return returnValidURIPath(uri, lpse);
@@ -539,4 +556,49 @@ public class ActiveProcessor extends Processor {
 			return test.replaceAll("//", "/");
 		}
 	}
+
+	/**
+	 * <p>The pre-computed LPSE and encoded URI segments for a single active
+	 * LPSE token, these are computed once per request and shared between all
+	 * the remove and inverse URIs.</p>
+	 */
+	private static class ActiveSegment {
+		private final String lpseCode;
+		private final BaseField lpseField;
+		private final String lpseComponent;
+		private final boolean isValueSeparator;
+		private final boolean isMultiValuedSeparator;
+		private final String encodedValue;
+		private final String encodedPrefixValue;
+		private final String encodedSeparatorValue;
+		private final String encodedValueSuffix;
+
+		private ActiveSegment(LpseToken lpseToken, CollectionProperties collectionProperties) {
+			this.lpseCode = lpseToken.getLpseCode();
+			this.lpseField = collectionProperties.getLpseField(lpseCode);
+			this.lpseComponent = lpseField.getResetLpseCode(lpseToken, collectionProperties);
+			this.isValueSeparator = (null != lpseField.getValueSeparator());
+			this.isMultiValuedSeparator = collectionProperties.getIsMultiValuedSeparatorFacetField(lpseCode);
+
+			this.encodedValue = (lpseField.getHasURIComponent() ? lpseField.getEncodedPanlValue(lpseToken) : null);
+
+			if (isValueSeparator || isMultiValuedSeparator) {
+				this.encodedPrefixValue = PanlLPSEHelper.encodeURIPath(lpseField.getValuePrefix() + lpseToken.getValue());
+				this.encodedSeparatorValue = PanlLPSEHelper.encodeURIPath(lpseField.getValueSeparator() + lpseToken.getValue());
+			} else {
+				this.encodedPrefixValue = null;
+				this.encodedSeparatorValue = null;
+			}
+
+			this.encodedValueSuffix = PanlLPSEHelper.encodeURIPath(lpseField.getValueSuffix());
+		}
+	}
+
+	/**
+	 * <p>The value separator state whilst building a removal URI path.</p>
+	 */
+	private static class RemoveState {
+		private int previousIndex = -1;
+		private String addedLpseCode = null;
+	}
 }
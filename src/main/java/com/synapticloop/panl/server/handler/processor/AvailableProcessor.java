@@ -24,6 +24,7 @@ package com.synapticloop.panl.server.handler.processor;
  * IN THE SOFTWARE.
  */
 
+import com.synapticloop.panl.server.handler.fielderiser.field.AdditionUriSegments;
 import com.synapticloop.panl.server.handler.fielderiser.field.facet.PanlDateRangeFacetField;
 import com.synapticloop.panl.server.handler.properties.CollectionProperties;
 import com.synapticloop.panl.server.handler.fielderiser.field.BaseField;
@@ -91,6 +92,10 @@ public class AvailableProcessor extends Processor {
 		Map<String, JSONObject> panlFacetOrderMap = new LinkedHashMap<>();
 
 		JSONArray rangeFacetArray = new JSONArray();
+
+		// the URI and LPSE segments for the addition URIs are the same for every
+		// facet, so they are only generated once
+		AdditionUriSegments additionUriSegments = new AdditionUriSegments(collectionProperties, panlTokenMap);
 		JSONArray dateRangeFacetArray = new JSONArray();
 
 		for (FacetField facetField : queryResponse.getFacetFields()) {
@@ -113,6 +118,9 @@ public class AvailableProcessor extends Processor {
 				List<FacetField.Count> facetFieldValues = facetField.getValues();
 
 				if(baseField.getIsFacetSortByIndexDesc()) {
+					// the query response may be shared between coalesced requests, so
+					// reverse a copy rather than the response's list
+					facetFieldValues = new ArrayList<>(facetFieldValues);
 					Collections.reverse(facetFieldValues);
 				}
 
@@ -120,6 +128,7 @@ public class AvailableProcessor extends Processor {
 						facetObject,
 						collectionProperties,
 						panlTokenMap,
+						additionUriSegments,
 						panlLookupMap.getOrDefault(lpseCode, new HashSet<>()),
 						facetFieldValues,
 						numFound,
@@ -133,7 +142,7 @@ public class AvailableProcessor extends Processor {
 
 			// these range facets will always appear
 			JSONObject rangeFacetObject = new JSONObject();
-			if(baseField.appendAvailableRangeValues(rangeFacetObject, collectionProperties, panlTokenMap)) {
+			if(baseField.appendAvailableRangeValues(rangeFacetObject, collectionProperties, panlTokenMap, additionUriSegments)) {
 				rangeFacetArray.put(rangeFacetObject);
 			}
 
@@ -142,7 +151,7 @@ public class AvailableProcessor extends Processor {
 		// Date ranges always appear, but they are not included in the field set
 		for (PanlDateRangeFacetField dateRangeFacetField : collectionProperties.getDateRangeFacetFields()) {
 			JSONObject dateRangeFacetObject = new JSONObject();
-			if(dateRangeFacetField.appendAvailableDateRangeValues(dateRangeFacetObject, collectionProperties, panlTokenMap)) {
+			if(dateRangeFacetField.appendAvailableDateRangeValues(dateRangeFacetObject, collectionProperties, panlTokenMap, additionUriSegments)) {
 				dateRangeFacetArray.put(dateRangeFacetObject);
 			}
 		}
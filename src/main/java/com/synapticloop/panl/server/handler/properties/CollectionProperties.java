@@ -31,6 +31,7 @@ import com.synapticloop.panl.server.handler.fielderiser.field.param.*;
 import com.synapticloop.panl.server.handler.helper.PropertyHelper;
 import com.synapticloop.panl.server.handler.properties.holder.MoreLikeThisHolder;
 import com.synapticloop.panl.server.handler.properties.holder.SolrFieldHolder;
+import com.synapticloop.panl.server.handler.tokeniser.LpseCodeTrie;
 import com.synapticloop.panl.server.handler.tokeniser.token.LpseToken;
 import com.synapticloop.panl.util.Constants;
 import org.apache.solr.client.solrj.SolrQuery;
@@ -278,6 +279,13 @@ public class CollectionProperties {
 	private final Set<String> LPSE_METADATA = new HashSet<>();
 
 	private final Map<String, List<String>> resultFieldsMap = new HashMap<>();
+	/**
+	 * <p>The immutable lookup from the fieldset name to the (immutable) list of
+	 * Solr fields that it will return, which is precomputed once all the
+	 * fieldsets have been parsed, so that the request routing does not need to
+	 * create a new list for every request.</p>
+	 */
+	private Map<String, List<String>> fieldSetLookupMap = Map.of();
 
 	/**
 	 * <p>The list of all the named Solr facet fields - Note that this is not
@@ -299,6 +307,11 @@ public class CollectionProperties {
 	private final JSONObject solrFieldToPanlNameLookup = new JSONObject();
 
 	private final Map<String, BaseField> lpseFieldLookup = new HashMap<>();
+	/**
+	 * <p>The trie of all LPSE codes, used to look up multi-character LPSE
+	 * codes whilst tokenising the LPSE path</p>
+	 */
+	private final LpseCodeTrie<BaseField> lpseCodeTrie = new LpseCodeTrie<>();
 	/**
 	 * <p>Are there any OR facet fields registered for this collection</p>
 	 */
@@ -312,6 +325,11 @@ public class CollectionProperties {
 	 */
 	private final Map<String, String> MANDATORY_LPSE_ORDER_FIELDS = new HashMap<>();
 	private boolean highlight;
+	private int responseCacheMaxBytes;
+	private int responseCacheTtlSeconds;
+	private int responseCacheStaleSeconds;
+	private int snapshotRefreshSeconds;
+	private int lpseTokenCacheMaxEntries;
 
 	// - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
 	//
@@ -385,13 +403,13 @@ public class CollectionProperties {
 			solrFieldToPanlNameLookup.put(field.getSolrFieldName(), field.getPanlFieldName());
 		}
 
-		// finally - do we have any or fields
+		// finally - do we have any or fields, and build the LPSE code trie
 		for (String key : lpseFieldLookup.keySet()) {
 			BaseField baseField = lpseFieldLookup.get(key);
 			if (baseField instanceof PanlOrFacetField) {
 				this.hasOrFacetFields = true;
-				break;
 			}
+			lpseCodeTrie.put(key, baseField);
 		}
 	}
 
@@ -486,6 +504,41 @@ public class CollectionProperties {
 				.getProperty(Constants.Property.Solr.SOLR_HIGHLIGHT, Constants.BOOLEAN_FALSE_VALUE)
 				.equals(Constants.BOOLEAN_TRUE_VALUE);
 
+		this.responseCacheMaxBytes =
+				PropertyHelper.getIntProperty(
+						LOGGER,
+						properties,
+						Constants.Property.Panl.PANL_RESPONSE_CACHE_MAX_BYTES,
+						Constants.DEFAULT_VALUE_RESPONSE_CACHE_MAX_BYTES);
+
+		this.responseCacheTtlSeconds =
+				PropertyHelper.getIntProperty(
+						LOGGER,
+						properties,
+						Constants.Property.Panl.PANL_RESPONSE_CACHE_TTL_SECONDS,
+						Constants.DEFAULT_VALUE_RESPONSE_CACHE_TTL_SECONDS);
+
+		this.responseCacheStaleSeconds =
+				PropertyHelper.getIntProperty(
+						LOGGER,
+						properties,
+						Constants.Property.Panl.PANL_RESPONSE_CACHE_STALE_SECONDS,
+						Constants.DEFAULT_VALUE_RESPONSE_CACHE_STALE_SECONDS);
+
+		this.snapshotRefreshSeconds =
+				PropertyHelper.getIntProperty(
+						LOGGER,
+						properties,
+						Constants.Property.Panl.PANL_SNAPSHOT_REFRESH_SECONDS,
+						Constants.DEFAULT_VALUE_SNAPSHOT_REFRESH_SECONDS);
+
+		this.lpseTokenCacheMaxEntries =
+				PropertyHelper.getIntProperty(
+						LOGGER,
+						properties,
+						Constants.Property.Panl.PANL_LPSE_TOKEN_CACHE_MAX_ENTRIES,
+						Constants.DEFAULT_VALUE_LPSE_TOKEN_CACHE_MAX_ENTRIES);
+
 		this.numResultsPerPage =
 				PropertyHelper.getIntProperty(
 						LOGGER,
@@ -1155,6 +1208,12 @@ public class CollectionProperties {
 					solrCollection, panlCollectionUri);
 		}
 		resultFieldsMap.put(Constants.Url.Panl.FIELDSETS_EMPTY, null);
+
+		Map<String, List<String>> fieldSetLookup = new HashMap<>();
+		for (Map.Entry<String, List<String>> entry : resultFieldsMap.entrySet()) {
+			fieldSetLookup.put(entry.getKey(), (null == entry.getValue()) ? List.of() : List.copyOf(entry.getValue()));
+		}
+		this.fieldSetLookupMap = Map.copyOf(fieldSetLookup);
 	}
 
 	private void addResultsFields(String resultFieldsName, String resultFields) throws PanlServerException {
@@ -1237,23 +1296,23 @@ public class CollectionProperties {
 
 	/**
 	 * <p>Return the fields for a specific fieldSet, or an empty list if either
-	 * the field does not exist, or it is an emp[ty fieldset.</p>
+	 * the field does not exist, or it is an empty fieldset.  The returned list
+	 * is immutable.</p>
 	 *
 	 * @param name The name of the fieldSet
 	 *
 	 * @return The list of fields in this fieldset
 	 */
 	public List<String> getResultFieldsForFieldSet(String name) {
-		List<String> strings = resultFieldsMap.get(name);
-		if (null == strings) {
-			return (new ArrayList<>());
-		} else {
-			return (strings);
+		// the immutable map does not permit null keys
+		if (null == name) {
+			return (List.of());
 		}
+		return (fieldSetLookupMap.getOrDefault(name, List.of()));
 	}
 
 	public boolean isValidResultFieldsName(String name) {
-		return (resultFieldsMap.containsKey(name));
+		return (null != name && fieldSetLookupMap.containsKey(name));
 	}
 
 	/**
@@ -1590,6 +1649,16 @@ public class CollectionProperties {
 		return (lpseFieldLookup.get(lpseCode));
 	}
 
+	/**
+	 * <p>Return the trie of all LPSE codes, which maps the LPSE code to the
+	 * LPSE field.</p>
+	 *
+	 * @return The LPSE code trie
+	 */
+	public LpseCodeTrie<BaseField> getLpseCodeTrie() {
+		return (lpseCodeTrie);
+	}
+
 	public boolean getHasOrFacetFields() {
 		return hasOrFacetFields;
 	}
@@ -1665,6 +1734,58 @@ public class CollectionProperties {
 		return (highlight);
 	}
 
+	/**
+	 * <p>Get the maximum (approximate) number of bytes that the response cache
+	 * may hold, a value of 0 (or less) means that responses will not be
+	 * cached.</p>
+	 *
+	 * @return The maximum number of bytes for the response cache
+	 */
+	public int getResponseCacheMaxBytes() {
+		return (responseCacheMaxBytes);
+	}
+
+	/**
+	 * <p>Get the number of seconds that a cached response is valid for.</p>
+	 *
+	 * @return The number of seconds that a cached response is valid for
+	 */
+	public int getResponseCacheTtlSeconds() {
+		return (responseCacheTtlSeconds);
+	}
+
+	/**
+	 * <p>Get the number of seconds after the TTL that an expired cached response
+	 * may still be served if the Solr server is unavailable.</p>
+	 *
+	 * @return The number of seconds that an expired response may be served for
+	 */
+	public int getResponseCacheStaleSeconds() {
+		return (responseCacheStaleSeconds);
+	}
+
+	/**
+	 * <p>Get the number of seconds between refreshes of the precomputed
+	 * single page and (unfiltered) more facets responses, a value of 0 (or
+	 * less) means that the responses will not be precomputed.</p>
+	 *
+	 * @return The number of seconds between snapshot refreshes
+	 */
+	public int getSnapshotRefreshSeconds() {
+		return (snapshotRefreshSeconds);
+	}
+
+	/**
+	 * <p>Get the maximum number of parsed LPSE paths that will be cached, a
+	 * value of 0 (or less) means that the parsed LPSE tokens will not be
+	 * cached.</p>
+	 *
+	 * @return The maximum number of parsed LPSE paths to cache
+	 */
+	public int getLpseTokenCacheMaxEntries() {
+		return (lpseTokenCacheMaxEntries);
+	}
+
 	public List<PanlDateRangeFacetField> getDateRangeFacetFields() {
 		return (List.of(LPSE_CODE_DATE_RANGE_FACET_MAP.values().toArray(new PanlDateRangeFacetField[0])));
 	}
@@ -26,6 +26,8 @@ package com.synapticloop.panl.server.handler.properties;
 
 import com.formdev.flatlaf.util.StringUtils;
 import com.synapticloop.panl.exception.PanlServerException;
+import com.synapticloop.panl.server.handler.helper.PropertyHelper;
+import com.synapticloop.panl.server.http.BaseHttpServer;
 import com.synapticloop.panl.util.Constants;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -54,6 +56,171 @@ public class PanlProperties {
 	 */
 	private final String solrSearchServerUrl;
 
+	/**
+	 * <p>Whether to send the Solr queries asynchronously (if supported by the
+	 * SolrJ client).</p>
+	 */
+	private final boolean solrjAsync;
+
+	/**
+	 * <p>The SolrJ connection timeout in milliseconds, or null to use the SolrJ
+	 * default.</p>
+	 */
+	private final Integer solrjConnectionTimeout;
+
+	/**
+	 * <p>The SolrJ idle timeout in milliseconds, or null to use the SolrJ
+	 * default.</p>
+	 */
+	private final Integer solrjIdleTimeout;
+
+	/**
+	 * <p>The SolrJ request timeout in milliseconds, or null to use the SolrJ
+	 * default.</p>
+	 */
+	private final Integer solrjRequestTimeout;
+
+	/**
+	 * <p>The maximum number of pooled SolrJ connections per Solr host, or null
+	 * to use the SolrJ default.</p>
+	 */
+	private final Integer solrjMaxConnectionsPerHost;
+
+	/**
+	 * <p>The HTTP server mode, either <code>blocking</code> or
+	 * <code>nio</code>.</p>
+	 */
+	private final String serverMode;
+
+	/**
+	 * <p>The number of NIO server I/O reactor threads, or null to use the
+	 * number of available processors.</p>
+	 */
+	private final Integer serverIoThreads;
+
+	/**
+	 * <p>The number of HTTP server worker threads, or null for an unbounded
+	 * worker pool.</p>
+	 */
+	private final Integer serverWorkerThreads;
+
+	/**
+	 * <p>The number of connections (or, in NIO mode, requests) that may wait
+	 * for a free worker thread, or null for no queue.</p>
+	 */
+	private final Integer serverQueueSize;
+
+	/**
+	 * <p>The maximum number of open HTTP connections, or null for no
+	 * limit.</p>
+	 */
+	private final Integer serverMaxConnections;
+
+	/**
+	 * <p>The listen backlog of the server socket, or null to use the JVM
+	 * default.</p>
+	 */
+	private final Integer serverBacklog;
+
+	/**
+	 * <p>The socket read timeout in milliseconds, or null to use the JVM
+	 * default (no timeout).  If it is not set and the number of worker threads
+	 * is set, this defaults to 30 seconds.</p>
+	 */
+	private final Integer serverSocketTimeout;
+
+	/**
+	 * <p>Whether HTTP connections are kept alive between requests.</p>
+	 */
+	private final boolean serverKeepAlive;
+
+	/**
+	 * <p>Whether Nagle's algorithm is disabled on the accepted sockets.</p>
+	 */
+	private final boolean serverTcpNoDelay;
+
+	/**
+	 * <p>Whether the responses are compressed, if the client accepts it.</p>
+	 */
+	private final boolean serverCompression;
+
+	/**
+	 * <p>The minimum number of bytes that a response must be before it is
+	 * compressed.</p>
+	 */
+	private final int serverCompressionMinBytes;
+
+	/**
+	 * <p>Whether the adaptive concurrency limiter is enabled for the handlers
+	 * that query the Solr server.</p>
+	 */
+	private final boolean hasLimiter;
+
+	/**
+	 * <p>The initial number of concurrent requests per handler and
+	 * collection.</p>
+	 */
+	private final int limiterInitialLimit;
+
+	/**
+	 * <p>The minimum number of concurrent requests per handler and
+	 * collection.</p>
+	 */
+	private final int limiterMinLimit;
+
+	/**
+	 * <p>The maximum number of concurrent requests per handler and
+	 * collection.</p>
+	 */
+	private final int limiterMaxLimit;
+
+	/**
+	 * <p>The percentage of the minimum latency above which a request is taken
+	 * as a sign of congestion.</p>
+	 */
+	private final int limiterLatencyTolerance;
+
+	/**
+	 * <p>Whether each Solr collection's requests are guarded by a circuit
+	 * breaker.</p>
+	 */
+	private final boolean hasCircuitBreaker;
+
+	/**
+	 * <p>The percentage of failed Solr requests at which the circuit breaker
+	 * opens.</p>
+	 */
+	private final int circuitBreakerFailureRate;
+
+	/**
+	 * <p>The percentage of slow Solr requests at which the circuit breaker
+	 * opens.</p>
+	 */
+	private final int circuitBreakerSlowCallRate;
+
+	/**
+	 * <p>The number of milliseconds above which a Solr request is slow.</p>
+	 */
+	private final int circuitBreakerSlowCallMillis;
+
+	/**
+	 * <p>The number of most recent Solr requests that the circuit breaker
+	 * rates are calculated over.</p>
+	 */
+	private final int circuitBreakerWindowSize;
+
+	/**
+	 * <p>The minimum number of Solr requests that are recorded before the
+	 * circuit breaker rates are checked.</p>
+	 */
+	private final int circuitBreakerMinimumCalls;
+
+	/**
+	 * <p>The number of seconds that the circuit breaker stays open before a
+	 * probe request is sent to the Solr server.</p>
+	 */
+	private final int circuitBreakerOpenSeconds;
+
 	/**
 	 * <p>Whether the testing URLs are enabled.</p>
 	 */
@@ -80,6 +247,34 @@ public class PanlProperties {
 	 */
 	private final boolean removeSolrJsonKeys;
 
+	/**
+	 * <p>Whether concurrent identical Solr queries share the one request.</p>
+	 */
+	private final boolean requestCoalescing;
+
+	/**
+	 * <p>Whether the <code>/panl-metrics</code> endpoint is enabled.</p>
+	 */
+	private final boolean hasPanlMetrics;
+
+	/**
+	 * <p>The default slow request threshold in milliseconds, or null if not
+	 * set.</p>
+	 */
+	private final Integer slowRequestMillis;
+
+	/**
+	 * <p>The slow request thresholds in milliseconds, keyed on the handler
+	 * name.</p>
+	 */
+	private final Map<String, Integer> slowRequestHandlerMillis = new HashMap<>();
+
+	/**
+	 * <p>The slow request thresholds in milliseconds, keyed on the phase
+	 * name.</p>
+	 */
+	private final Map<String, Integer> slowRequestPhaseMillis = new HashMap<>();
+
 	/**
 	 * <p>A map of the </p>
 	 */
@@ -132,6 +327,74 @@ public class PanlProperties {
 
 		this.solrSearchServerUrl = solrSearchServerUrlTemp;
 
+		this.solrjAsync = properties
+				.getProperty(Constants.Property.Panl.SOLRJ_ASYNC, Constants.BOOLEAN_FALSE_VALUE)
+				.equals(Constants.BOOLEAN_TRUE_VALUE);
+
+		// the connection pool and timeouts for the shared SolrJ client - these are
+		// optional, and if not set, the SolrJ defaults will be used
+		this.solrjConnectionTimeout = PropertyHelper.getIntProperty(properties, Constants.Property.Panl.SOLRJ_CONNECTION_TIMEOUT, null);
+		this.solrjIdleTimeout = PropertyHelper.getIntProperty(properties, Constants.Property.Panl.SOLRJ_IDLE_TIMEOUT, null);
+		this.solrjRequestTimeout = PropertyHelper.getIntProperty(properties, Constants.Property.Panl.SOLRJ_REQUEST_TIMEOUT, null);
+		this.solrjMaxConnectionsPerHost = PropertyHelper.getIntProperty(properties, Constants.Property.Panl.SOLRJ_MAX_CONNECTIONS_PER_HOST, null);
+
+		// the embedded HTTP server worker pool and socket options - these are
+		// optional, and if not set, the previous (unbounded) behaviour is kept
+		String serverModeTemp = properties.getProperty(Constants.Property.Panl.PANL_SERVER_MODE, BaseHttpServer.SERVER_MODE_BLOCKING);
+		if (!serverModeTemp.equals(BaseHttpServer.SERVER_MODE_BLOCKING) && !serverModeTemp.equals(BaseHttpServer.SERVER_MODE_NIO)) {
+			LOGGER.warn(
+				"Property '{}' has an unknown value of '{}', defaulting to '{}'",
+				Constants.Property.Panl.PANL_SERVER_MODE,
+				serverModeTemp,
+				BaseHttpServer.SERVER_MODE_BLOCKING);
+			serverModeTemp = BaseHttpServer.SERVER_MODE_BLOCKING;
+		}
+		this.serverMode = serverModeTemp;
+		this.serverIoThreads = PropertyHelper.getIntProperty(properties, Constants.Property.Panl.PANL_SERVER_IO_THREADS, null);
+		this.serverWorkerThreads = PropertyHelper.getIntProperty(properties, Constants.Property.Panl.PANL_SERVER_WORKER_THREADS, null);
+		this.serverQueueSize = PropertyHelper.getIntProperty(properties, Constants.Property.Panl.PANL_SERVER_QUEUE_SIZE, null);
+		this.serverMaxConnections = PropertyHelper.getIntProperty(properties, Constants.Property.Panl.PANL_SERVER_MAX_CONNECTIONS, null);
+		this.serverBacklog = PropertyHelper.getIntProperty(properties, Constants.Property.Panl.PANL_SERVER_BACKLOG, null);
+		// a worker thread is bound to a connection (in blocking mode) for as long
+		// as it is open, so with a fixed number of worker threads, an idle
+		// keep-alive connection __MUST__ time out, or it will hold a worker
+		// thread forever
+		Integer serverSocketTimeoutTemp = PropertyHelper.getIntProperty(properties, Constants.Property.Panl.PANL_SERVER_SOCKET_TIMEOUT, null);
+		if (null == serverSocketTimeoutTemp && null != serverWorkerThreads && serverWorkerThreads > 0) {
+			serverSocketTimeoutTemp = Constants.DEFAULT_VALUE_BOUNDED_SERVER_SOCKET_TIMEOUT;
+		}
+		this.serverSocketTimeout = serverSocketTimeoutTemp;
+		this.serverKeepAlive = properties
+				.getProperty(Constants.Property.Panl.PANL_SERVER_KEEP_ALIVE, Constants.BOOLEAN_TRUE_VALUE)
+				.equals(Constants.BOOLEAN_TRUE_VALUE);
+		this.serverTcpNoDelay = properties
+				.getProperty(Constants.Property.Panl.PANL_SERVER_TCP_NODELAY, Constants.BOOLEAN_TRUE_VALUE)
+				.equals(Constants.BOOLEAN_TRUE_VALUE);
+		this.serverCompression = properties
+				.getProperty(Constants.Property.Panl.PANL_SERVER_COMPRESSION, Constants.BOOLEAN_TRUE_VALUE)
+				.equals(Constants.BOOLEAN_TRUE_VALUE);
+		this.serverCompressionMinBytes = PropertyHelper.getIntProperty(properties, Constants.Property.Panl.PANL_SERVER_COMPRESSION_MIN_BYTES, 1024);
+
+		// the adaptive concurrency limiter - this is off by default
+		this.hasLimiter = properties
+				.getProperty(Constants.Property.Panl.PANL_LIMITER, Constants.BOOLEAN_FALSE_VALUE)
+				.equals(Constants.BOOLEAN_TRUE_VALUE);
+		this.limiterInitialLimit = PropertyHelper.getIntProperty(properties, Constants.Property.Panl.PANL_LIMITER_INITIAL_LIMIT, 20);
+		this.limiterMinLimit = PropertyHelper.getIntProperty(properties, Constants.Property.Panl.PANL_LIMITER_MIN_LIMIT, 1);
+		this.limiterMaxLimit = PropertyHelper.getIntProperty(properties, Constants.Property.Panl.PANL_LIMITER_MAX_LIMIT, 200);
+		this.limiterLatencyTolerance = PropertyHelper.getIntProperty(properties, Constants.Property.Panl.PANL_LIMITER_LATENCY_TOLERANCE, 200);
+
+		// the circuit breaker for each Solr collection - this is off by default
+		this.hasCircuitBreaker = properties
+				.getProperty(Constants.Property.Panl.PANL_CIRCUIT_BREAKER, Constants.BOOLEAN_FALSE_VALUE)
+				.equals(Constants.BOOLEAN_TRUE_VALUE);
+		this.circuitBreakerFailureRate = PropertyHelper.getIntProperty(properties, Constants.Property.Panl.PANL_CIRCUIT_BREAKER_FAILURE_RATE, 50);
+		this.circuitBreakerSlowCallRate = PropertyHelper.getIntProperty(properties, Constants.Property.Panl.PANL_CIRCUIT_BREAKER_SLOW_CALL_RATE, 100);
+		this.circuitBreakerSlowCallMillis = PropertyHelper.getIntProperty(properties, Constants.Property.Panl.PANL_CIRCUIT_BREAKER_SLOW_CALL_MILLIS, 5000);
+		this.circuitBreakerWindowSize = PropertyHelper.getIntProperty(properties, Constants.Property.Panl.PANL_CIRCUIT_BREAKER_WINDOW_SIZE, 20);
+		this.circuitBreakerMinimumCalls = PropertyHelper.getIntProperty(properties, Constants.Property.Panl.PANL_CIRCUIT_BREAKER_MINIMUM_CALLS, 10);
+		this.circuitBreakerOpenSeconds = PropertyHelper.getIntProperty(properties, Constants.Property.Panl.PANL_CIRCUIT_BREAKER_OPEN_SECONDS, 10);
+
 		this.panlStatus404Verbose = properties
 			.getProperty(Constants.Property.Panl.PANL_STATUS_404_VERBOSE, Constants.BOOLEAN_FALSE_VALUE)
 			.equals(Constants.BOOLEAN_TRUE_VALUE);
@@ -143,6 +406,18 @@ public class PanlProperties {
 				.getProperty(Constants.Property.Panl.PANL_REMOVE_SOLR_JSON_KEYS, Constants.BOOLEAN_FALSE_VALUE)
 				.equals(Constants.BOOLEAN_TRUE_VALUE);
 
+		this.requestCoalescing = properties
+				.getProperty(Constants.Property.Panl.PANL_REQUEST_COALESCING, Constants.BOOLEAN_TRUE_VALUE)
+				.equals(Constants.BOOLEAN_TRUE_VALUE);
+
+		this.hasPanlMetrics = properties
+				.getProperty(Constants.Property.Panl.PANL_METRICS, Constants.BOOLEAN_TRUE_VALUE)
+				.equals(Constants.BOOLEAN_TRUE_VALUE);
+
+		// the slow request log thresholds - if none are set, the slow request log
+		// is disabled
+		this.slowRequestMillis = PropertyHelper.getIntProperty(properties, Constants.Property.Panl.PANL_SLOW_REQUEST_MILLIS, null);
+
 		String jsonTemp = properties.getProperty(Constants.Property.Panl.PANL_SERVER_EXTRA, "");
 		if(!jsonTemp.trim().isEmpty()) {
 			try {
@@ -170,6 +445,20 @@ public class PanlProperties {
 					}
 				}
 				this.panlCollections.put(panlCollection, finalList);
+			} else if (stringPropertyName.startsWith(Constants.Property.Panl.PANL_SLOW_REQUEST_HANDLER_MILLIS)) {
+				Integer thresholdMillis = PropertyHelper.getIntProperty(LOGGER, properties, stringPropertyName, null);
+				if (null != thresholdMillis) {
+					this.slowRequestHandlerMillis.put(
+							stringPropertyName.substring(Constants.Property.Panl.PANL_SLOW_REQUEST_HANDLER_MILLIS.length()),
+							thresholdMillis);
+				}
+			} else if (stringPropertyName.startsWith(Constants.Property.Panl.PANL_SLOW_REQUEST_PHASE_MILLIS)) {
+				Integer thresholdMillis = PropertyHelper.getIntProperty(LOGGER, properties, stringPropertyName, null);
+				if (null != thresholdMillis) {
+					this.slowRequestPhaseMillis.put(
+							stringPropertyName.substring(Constants.Property.Panl.PANL_SLOW_REQUEST_PHASE_MILLIS.length()),
+							thresholdMillis);
+				}
 			}
 		}
 	}
@@ -204,6 +493,55 @@ public class PanlProperties {
 		return (solrSearchServerUrl);
 	}
 
+	/**
+	 * <p>Return whether the Solr queries are sent asynchronously.  This is only
+	 * supported by the Http2SolrClient.</p>
+	 *
+	 * @return Whether the Solr queries are sent asynchronously
+	 */
+	public boolean getSolrjAsync() {
+		return (solrjAsync);
+	}
+
+	/**
+	 * <p>Return the SolrJ connection timeout in milliseconds.</p>
+	 *
+	 * @return The SolrJ connection timeout, or null if the SolrJ default is to
+	 * 		be used
+	 */
+	public Integer getSolrjConnectionTimeout() {
+		return (solrjConnectionTimeout);
+	}
+
+	/**
+	 * <p>Return the SolrJ idle timeout in milliseconds.</p>
+	 *
+	 * @return The SolrJ idle timeout, or null if the SolrJ default is to be used
+	 */
+	public Integer getSolrjIdleTimeout() {
+		return (solrjIdleTimeout);
+	}
+
+	/**
+	 * <p>Return the SolrJ request timeout in milliseconds.</p>
+	 *
+	 * @return The SolrJ request timeout, or null if the SolrJ default is to be
+	 * 		used
+	 */
+	public Integer getSolrjRequestTimeout() {
+		return (solrjRequestTimeout);
+	}
+
+	/**
+	 * <p>Return the maximum number of pooled SolrJ connections per Solr host.</p>
+	 *
+	 * @return The maximum number of connections per host, or null if the SolrJ
+	 * 		default is to be used
+	 */
+	public Integer getSolrjMaxConnectionsPerHost() {
+		return (solrjMaxConnectionsPerHost);
+	}
+
 	/**
 	 * <p>Whether to use verbose 404 messages.</p>
 	 *
@@ -271,6 +609,286 @@ public class PanlProperties {
 		return(removeSolrJsonKeys);
 	}
 
+	/**
+	 * <p>Return whether concurrent identical Solr queries share the one
+	 * in-flight request to the Solr server.</p>
+	 *
+	 * @return Whether request coalescing is enabled
+	 */
+	public boolean getRequestCoalescing() {
+		return (requestCoalescing);
+	}
+
+	/**
+	 * <p>Return the HTTP server mode.</p>
+	 *
+	 * @return The server mode, either <code>blocking</code> or
+	 *   <code>nio</code>
+	 */
+	public String getServerMode() {
+		return (serverMode);
+	}
+
+	/**
+	 * <p>Return the number of NIO server I/O reactor threads.</p>
+	 *
+	 * @return The number of I/O threads, or null to use the number of available
+	 *   processors
+	 */
+	public Integer getServerIoThreads() {
+		return (serverIoThreads);
+	}
+
+	/**
+	 * <p>Return the number of HTTP server worker threads.</p>
+	 *
+	 * @return The number of worker threads, or null for an unbounded worker
+	 *   pool
+	 */
+	public Integer getServerWorkerThreads() {
+		return (serverWorkerThreads);
+	}
+
+	/**
+	 * <p>Return the number of connections that may wait for a free worker
+	 * thread.  In blocking mode a worker thread services a connection (and
+	 * all of its keep-alive requests) until it is closed, so this bounds the
+	 * queued connections, not the queued requests.  In NIO mode it bounds the
+	 * queued requests.</p>
+	 *
+	 * @return The queue size, or null for no queue
+	 */
+	public Integer getServerQueueSize() {
+		return (serverQueueSize);
+	}
+
+	/**
+	 * <p>Return the maximum number of open HTTP connections.</p>
+	 *
+	 * @return The maximum number of connections, or null for no limit
+	 */
+	public Integer getServerMaxConnections() {
+		return (serverMaxConnections);
+	}
+
+	/**
+	 * <p>Return the listen backlog of the server socket.</p>
+	 *
+	 * @return The backlog, or null if the JVM default is to be used
+	 */
+	public Integer getServerBacklog() {
+		return (serverBacklog);
+	}
+
+	/**
+	 * <p>Return the socket read timeout in milliseconds.</p>
+	 *
+	 * <p>If it is not set, and the number of worker threads is set, this is 30
+	 * seconds, so that an idle keep-alive connection does not hold a worker
+	 * thread forever.</p>
+	 *
+	 * @return The socket timeout, or null if the JVM default is to be used
+	 */
+	public Integer getServerSocketTimeout() {
+		return (serverSocketTimeout);
+	}
+
+	/**
+	 * <p>Return whether HTTP connections are kept alive between requests.</p>
+	 *
+	 * @return Whether connections are kept alive
+	 */
+	public boolean getServerKeepAlive() {
+		return (serverKeepAlive);
+	}
+
+	/**
+	 * <p>Return whether Nagle's algorithm is disabled on the accepted
+	 * sockets.</p>
+	 *
+	 * @return Whether TCP_NODELAY is set
+	 */
+	public boolean getServerTcpNoDelay() {
+		return (serverTcpNoDelay);
+	}
+
+	/**
+	 * <p>Return whether the responses are compressed, if the client accepts
+	 * it.</p>
+	 *
+	 * @return Whether response compression is enabled
+	 */
+	public boolean getServerCompression() {
+		return (serverCompression);
+	}
+
+	/**
+	 * <p>Return the minimum number of bytes that a response must be before it
+	 * is compressed.</p>
+	 *
+	 * @return The minimum number of bytes
+	 */
+	public int getServerCompressionMinBytes() {
+		return (serverCompressionMinBytes);
+	}
+
+	/**
+	 * <p>Return whether the adaptive concurrency limiter is enabled.</p>
+	 *
+	 * @return Whether the concurrency limiter is enabled
+	 */
+	public boolean getHasLimiter() {
+		return (hasLimiter);
+	}
+
+	/**
+	 * <p>Return the initial number of concurrent requests per handler and
+	 * collection.</p>
+	 *
+	 * @return The initial concurrency limit
+	 */
+	public int getLimiterInitialLimit() {
+		return (limiterInitialLimit);
+	}
+
+	/**
+	 * <p>Return the minimum number of concurrent requests per handler and
+	 * collection.</p>
+	 *
+	 * @return The minimum concurrency limit
+	 */
+	public int getLimiterMinLimit() {
+		return (limiterMinLimit);
+	}
+
+	/**
+	 * <p>Return the maximum number of concurrent requests per handler and
+	 * collection.</p>
+	 *
+	 * @return The maximum concurrency limit
+	 */
+	public int getLimiterMaxLimit() {
+		return (limiterMaxLimit);
+	}
+
+	/**
+	 * <p>Return the percentage of the minimum latency above which a request is
+	 * taken as a sign of congestion.</p>
+	 *
+	 * @return The latency tolerance as a percentage
+	 */
+	public int getLimiterLatencyTolerance() {
+		return (limiterLatencyTolerance);
+	}
+
+	/**
+	 * <p>Return whether each Solr collection's requests are guarded by a
+	 * circuit breaker.</p>
+	 *
+	 * @return Whether the circuit breaker is enabled
+	 */
+	public boolean getHasCircuitBreaker() {
+		return (hasCircuitBreaker);
+	}
+
+	/**
+	 * <p>Return the percentage of failed Solr requests at which the circuit breaker
+	 * opens.</p>
+	 *
+	 * @return The failure rate percentage
+	 */
+	public int getCircuitBreakerFailureRate() {
+		return (circuitBreakerFailureRate);
+	}
+
+	/**
+	 * <p>Return the percentage of slow Solr requests at which the circuit breaker
+	 * opens.</p>
+	 *
+	 * @return The slow request rate percentage
+	 */
+	public int getCircuitBreakerSlowCallRate() {
+		return (circuitBreakerSlowCallRate);
+	}
+
+	/**
+	 * <p>Return the number of milliseconds above which a Solr request is slow.</p>
+	 *
+	 * @return The slow request threshold in milliseconds
+	 */
+	public int getCircuitBreakerSlowCallMillis() {
+		return (circuitBreakerSlowCallMillis);
+	}
+
+	/**
+	 * <p>Return the number of most recent Solr requests that the circuit breaker
+	 * rates are calculated over.</p>
+	 *
+	 * @return The number of requests in the window
+	 */
+	public int getCircuitBreakerWindowSize() {
+		return (circuitBreakerWindowSize);
+	}
+
+	/**
+	 * <p>Return the minimum number of Solr requests that are recorded before the
+	 * circuit breaker rates are checked.</p>
+	 *
+	 * @return The minimum number of requests
+	 */
+	public int getCircuitBreakerMinimumCalls() {
+		return (circuitBreakerMinimumCalls);
+	}
+
+	/**
+	 * <p>Return the number of seconds that the circuit breaker stays open before a
+	 * probe request is sent to the Solr server.</p>
+	 *
+	 * @return The number of seconds that the breaker is open for
+	 */
+	public int getCircuitBreakerOpenSeconds() {
+		return (circuitBreakerOpenSeconds);
+	}
+
+	/**
+	 * <p>Return whether the <code>/panl-metrics</code> endpoint is enabled.</p>
+	 *
+	 * @return Whether the metrics endpoint is enabled
+	 */
+	public boolean getHasPanlMetrics() {
+		return (hasPanlMetrics);
+	}
+
+	/**
+	 * <p>Return the default slow request threshold in milliseconds, used for
+	 * handlers which do not have their own threshold.</p>
+	 *
+	 * @return The default slow request threshold, or null if not set
+	 */
+	public Integer getSlowRequestMillis() {
+		return (slowRequestMillis);
+	}
+
+	/**
+	 * <p>Return the slow request thresholds in milliseconds, keyed on the
+	 * handler name.</p>
+	 *
+	 * @return The slow request thresholds for the handlers
+	 */
+	public Map<String, Integer> getSlowRequestHandlerMillis() {
+		return (slowRequestHandlerMillis);
+	}
+
+	/**
+	 * <p>Return the slow request thresholds in milliseconds, keyed on the phase
+	 * name.</p>
+	 *
+	 * @return The slow request thresholds for the phases
+	 */
+	public Map<String, Integer> getSlowRequestPhaseMillis() {
+		return (slowRequestPhaseMillis);
+	}
+
 	/**
 	 * <p>Get the 'extra' information JSON Object (if set) - will return null if
 	 * it is not set.</p>
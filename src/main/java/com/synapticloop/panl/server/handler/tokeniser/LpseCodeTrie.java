@@ -0,0 +1,150 @@
+package com.synapticloop.panl.server.handler.tokeniser;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * <p>A trie of the LPSE codes for a collection, used to look up multi
+ * character LPSE codes directly from the LPSE tokeniser, character by
+ * character, without building (and URL decoding) an intermediate String for
+ * every partial code.</p>
+ *
+ * <p>LPSE codes are made up of ASCII characters, any code with a character
+ * outside the ASCII range is not added to the trie, and a lookup for it will
+ * return <code>null</code>.</p>
+ *
+ * @param <T> The type of the value that the LPSE code maps to
+ *
+ * @author synapticloop
+ */
+public class LpseCodeTrie<T> {
+	private static final int NUM_CHILDREN = 128;
+
+	private final Node<T> root = new Node<>();
+
+	/**
+	 * <p>Add an LPSE code to the trie.</p>
+	 *
+	 * @param lpseCode The LPSE code
+	 * @param value The value for the LPSE code
+	 */
+	public void put(String lpseCode, T value) {
+		for (int i = 0; i < lpseCode.length(); i++) {
+			if (lpseCode.charAt(i) >= NUM_CHILDREN) {
+				return;
+			}
+		}
+
+		Node<T> node = root;
+		for (int i = 0; i < lpseCode.length(); i++) {
+			node = node.getOrAddChild(lpseCode.charAt(i));
+		}
+		node.value = value;
+	}
+
+	/**
+	 * <p>Get the value for the LPSE code.</p>
+	 *
+	 * @param lpseCode The LPSE code to look up
+	 *
+	 * @return The value, or null if the LPSE code is not in the trie
+	 */
+	public T get(CharSequence lpseCode) {
+		Node<T> node = root;
+		for (int i = 0; i < lpseCode.length() && null != node; i++) {
+			node = node.getChild(lpseCode.charAt(i));
+		}
+		return (null == node ? null : node.value);
+	}
+
+	/**
+	 * <p>Find the value for a multi character LPSE code which starts with the
+	 * passed in LPSE code and continues with the next single character tokens
+	 * from the LPSE tokeniser, until the code is <code>lpseLength</code>
+	 * characters long (or there are no more tokens).</p>
+	 *
+	 * <p>If there is no value for the LPSE code, the LPSE tokeniser is reset to
+	 * the position it was at before this method was called, so that the tokens
+	 * may be read again.</p>
+	 *
+	 * @param lpseCode The start of the LPSE code that has already been read
+	 * @param lpseTokeniser The LPSE tokeniser to read the rest of the LPSE code
+	 * 		from
+	 * @param lpseLength The length of the LPSE code
+	 *
+	 * @return The value, or null if there was no LPSE code in the trie
+	 */
+	public T find(String lpseCode, LpseTokeniser lpseTokeniser, int lpseLength) {
+		int startPosition = lpseTokeniser.getCurrentPosition();
+
+		Node<T> node = root;
+		int length = 0;
+		for (; length < lpseCode.length() && null != node; length++) {
+			node = node.getChild(lpseCode.charAt(length));
+		}
+
+		while (null != node && length < lpseLength && lpseTokeniser.hasMoreTokens()) {
+			String token = lpseTokeniser.nextToken();
+			if (token.length() != 1) {
+				node = null;
+			} else {
+				node = node.getChild(token.charAt(0));
+				length++;
+			}
+		}
+
+		if (null == node || null == node.value) {
+			lpseTokeniser.setCurrentPosition(startPosition);
+			return (null);
+		}
+
+		return (node.value);
+	}
+
+	private static class Node<T> {
+		private Node<T>[] children = null;
+		private T value = null;
+
+		private Node<T> getChild(char c) {
+			if (null == children || c >= NUM_CHILDREN) {
+				return (null);
+			}
+			return (children[c]);
+		}
+
+		@SuppressWarnings("unchecked")
+		private Node<T> getOrAddChild(char c) {
+			if (null == children) {
+				children = (Node<T>[]) new Node[NUM_CHILDREN];
+			}
+
+			Node<T> child = children[c];
+			if (null == child) {
+				child = new Node<>();
+				children[c] = child;
+			}
+			return (child);
+		}
+	}
+}
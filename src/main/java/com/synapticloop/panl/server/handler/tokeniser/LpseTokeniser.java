@@ -25,6 +25,7 @@ package com.synapticloop.panl.server.handler.tokeniser;
  * questions.
  */
 
+import java.util.Arrays;
 import java.util.NoSuchElementException;
 
 /**
@@ -113,6 +114,19 @@ import java.util.NoSuchElementException;
  * @since 1.0
  */
 public class LpseTokeniser {
+	/**
+	 * <p>The pre-allocated single character tokens for the ASCII range - as
+	 * the LPSE codes and metadata are returned as single character delimiter
+	 * tokens, returning these rather than a new substring means that
+	 * tokenising an LPSE path does not allocate a String per character.</p>
+	 */
+	private static final String[] SINGLE_CHARACTER_TOKENS = new String[128];
+	static {
+		for (char c = 0; c < SINGLE_CHARACTER_TOKENS.length; c++) {
+			SINGLE_CHARACTER_TOKENS[c] = String.valueOf(c).intern();
+		}
+	}
+
 	private int currentPosition;
 	private int newPosition;
 	private final int maxPosition;
@@ -148,15 +162,30 @@ public class LpseTokeniser {
 	 */
 	private int[] delimiterCodePoints;
 
+	/**
+	 * <p>A direct lookup for the ASCII delimiter characters, so that testing
+	 * whether an ASCII character is a delimiter does not need to search the
+	 * delimiter string.</p>
+	 */
+	private final boolean[] asciiDelimiters = new boolean[128];
+
 	/**
 	 * Set maxDelimCodePoint to the highest char in the delimiter set.
 	 */
 	private void setMaxDelimCodePoint() {
+		Arrays.fill(asciiDelimiters, false);
 		if (delimiters == null) {
 			maxDelimCodePoint = 0;
 			return;
 		}
 
+		for (int i = 0; i < delimiters.length(); i++) {
+			char c = delimiters.charAt(i);
+			if (c < asciiDelimiters.length) {
+				asciiDelimiters[c] = true;
+			}
+		}
+
 		int m = 0;
 		int c;
 		int count = 0;
@@ -264,7 +293,7 @@ public class LpseTokeniser {
 		while (!retDelims && position < maxPosition) {
 			if (!hasSurrogates) {
 				char c = str.charAt(position);
-				if ((c > maxDelimCodePoint) || (delimiters.indexOf(c) < 0))
+				if ((c > maxDelimCodePoint) || !isDelimiter(c))
 					break;
 				position++;
 			} else {
@@ -287,7 +316,7 @@ public class LpseTokeniser {
 		while (position < maxPosition) {
 			if (!hasSurrogates) {
 				char c = str.charAt(position);
-				if ((c <= maxDelimCodePoint) && (delimiters.indexOf(c) >= 0))
+				if ((c <= maxDelimCodePoint) && isDelimiter(c))
 					break;
 				position++;
 			} else {
@@ -300,7 +329,7 @@ public class LpseTokeniser {
 		if (retDelims && (startPos == position)) {
 			if (!hasSurrogates) {
 				char c = str.charAt(position);
-				if ((c <= maxDelimCodePoint) && (delimiters.indexOf(c) >= 0))
+				if ((c <= maxDelimCodePoint) && isDelimiter(c))
 					position++;
 			} else {
 				int c = str.codePointAt(position);
@@ -311,6 +340,17 @@ public class LpseTokeniser {
 		return position;
 	}
 
+	/**
+	 * Returns whether the (non-surrogate) character is a delimiter, using the
+	 * ASCII lookup where possible.
+	 */
+	private boolean isDelimiter(char c) {
+		if (c < asciiDelimiters.length) {
+			return asciiDelimiters[c];
+		}
+		return delimiters.indexOf(c) >= 0;
+	}
+
 	private boolean isDelimiter(int codePoint) {
 		for (int delimiterCodePoint : delimiterCodePoints) {
 			if (delimiterCodePoint == codePoint) {
@@ -365,6 +405,12 @@ public class LpseTokeniser {
 			throw new NoSuchElementException();
 		int start = currentPosition;
 		currentPosition = scanToken(currentPosition);
+		if (currentPosition - start == 1) {
+			char c = str.charAt(start);
+			if (c < SINGLE_CHARACTER_TOKENS.length) {
+				return SINGLE_CHARACTER_TOKENS[c];
+			}
+		}
 		return str.substring(start, currentPosition);
 	}
 
@@ -450,6 +496,27 @@ public class LpseTokeniser {
 		return count;
 	}
 
+	/**
+	 * <p>Return the current position of the tokeniser in the string, this may
+	 * be passed back to {@link #setCurrentPosition(int)} to re-read tokens.</p>
+	 *
+	 * @return The current position in the string
+	 */
+	public int getCurrentPosition() {
+		return (this.currentPosition);
+	}
+
+	/**
+	 * <p>Set the current position of the tokeniser in the string, this is used
+	 * to rewind the tokeniser after looking ahead.</p>
+	 *
+	 * @param currentPosition The position to set the tokeniser to
+	 */
+	public void setCurrentPosition(int currentPosition) {
+		this.currentPosition = Math.max(0, Math.min(currentPosition, maxPosition));
+		this.newPosition = -1;
+	}
+
 	/**
 	 * <p>Decrement the token.</p>
 	 */
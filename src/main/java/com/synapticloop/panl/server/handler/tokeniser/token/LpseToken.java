@@ -24,6 +24,7 @@ package com.synapticloop.panl.server.handler.tokeniser.token;
  * IN THE SOFTWARE.
  */
 
+import com.synapticloop.panl.server.handler.bean.PanlQueryParametersBean;
 import com.synapticloop.panl.server.handler.fielderiser.field.BaseField;
 import com.synapticloop.panl.server.handler.properties.CollectionProperties;
 import com.synapticloop.panl.server.handler.tokeniser.LpseTokeniser;
@@ -103,6 +104,12 @@ public abstract class LpseToken {
 	 */
 	protected boolean isUniqueKey = false;
 
+	/**
+	 * <p>Whether this token has been frozen, after which it may not be
+	 * changed</p>
+	 */
+	private boolean isFrozen = false;
+
 	/**
 	 * <p>Factory method for getting the correct LPSE token for a particular
 	 * code.</p>
@@ -112,7 +119,7 @@ public abstract class LpseToken {
 	 *
 	 * @param collectionProperties The collection properties
 	 * @param lpseCode The lpseCode
-	 * @param query The query string (this may be blank or null)
+	 * @param queryParameters The parsed query parameters
 	 * @param valueTokeniser The LPSE URI tokeniser
 	 * @param lpseTokeniser The LPSE code tokeniser
 	 *
@@ -121,12 +128,22 @@ public abstract class LpseToken {
 	public static List<LpseToken> getLpseTokens(
 			CollectionProperties collectionProperties,
 			String lpseCode,
-			String query,
+			PanlQueryParametersBean queryParameters,
 			StringTokenizer valueTokeniser,
 			LpseTokeniser lpseTokeniser) {
 
 
 		BaseField lpseField = collectionProperties.getLpseField(lpseCode);
+		if (null == lpseField) {
+			// it may be that it is more than a single code - walk the LPSE code trie
+			// with the following characters (which will rewind the tokeniser if
+			// there is no matching LPSE code)
+			lpseField = collectionProperties.getLpseCodeTrie().find(
+					lpseCode,
+					lpseTokeniser,
+					collectionProperties.getLpseLength());
+		}
+
 		if (null == lpseField) {
 			// it may be that it is more than a single code
 			StringBuilder lpseCodeBuilder = new StringBuilder(lpseCode);
@@ -152,7 +169,7 @@ public abstract class LpseToken {
 			}
 		}
 
-		return (lpseField.instantiateTokens(collectionProperties, lpseCode, query, valueTokeniser, lpseTokeniser));
+		return (lpseField.instantiateTokens(collectionProperties, lpseCode, queryParameters, valueTokeniser, lpseTokeniser));
 	}
 
 	/**
@@ -268,9 +285,39 @@ public abstract class LpseToken {
 	 * @param isValid Whether this token is valid
 	 */
 	public void setIsValid(boolean isValid) {
+		checkNotFrozen();
 		this.isValid = isValid;
 	}
 
+	/**
+	 * <p>Freeze this token so that it may no longer be changed.  Parsed tokens
+	 * are frozen before they are shared between requests, any attempt to change
+	 * a frozen token will throw an <code>IllegalStateException</code>.</p>
+	 */
+	public void freeze() {
+		this.isFrozen = true;
+	}
+
+	/**
+	 * <p>Return whether this token has been frozen.</p>
+	 *
+	 * @return Whether this token has been frozen
+	 */
+	public boolean getIsFrozen() {
+		return (this.isFrozen);
+	}
+
+	/**
+	 * <p>Check that this token has not been frozen before it is changed.</p>
+	 *
+	 * @throws IllegalStateException If this token has been frozen
+	 */
+	protected void checkNotFrozen() {
+		if (this.isFrozen) {
+			throw new IllegalStateException("The LPSE token for code '" + this.lpseCode + "' is frozen and may not be changed.");
+		}
+	}
+
 	/**
 	 * <p>Get the original value that came through in the URI path</p>
 	 *
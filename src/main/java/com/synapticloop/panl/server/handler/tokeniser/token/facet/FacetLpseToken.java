@@ -88,16 +88,18 @@ public class FacetLpseToken extends LpseToken {
 
 		super(lpseCode, collectionProperties);
 
-		StringBuilder sb = new StringBuilder(lpseCode);
-		int i = sb.length();
-		while (i < collectionProperties.getLpseLength()) {
-			if (lpseTokeniser.hasMoreTokens()) {
-				sb.append(URLDecoder.decode(lpseTokeniser.nextToken(), StandardCharsets.UTF_8));
+		if (lpseCode.length() < collectionProperties.getLpseLength()) {
+			StringBuilder sb = new StringBuilder(lpseCode);
+			int i = sb.length();
+			while (i < collectionProperties.getLpseLength()) {
+				if (lpseTokeniser.hasMoreTokens()) {
+					sb.append(URLDecoder.decode(lpseTokeniser.nextToken(), StandardCharsets.UTF_8));
+				}
+				i++;
 			}
-			i++;
-		}
 
-		this.lpseCode = sb.toString();
+			this.lpseCode = sb.toString();
+		}
 
 		BaseField lpseField = collectionProperties.getLpseField(this.lpseCode);
 
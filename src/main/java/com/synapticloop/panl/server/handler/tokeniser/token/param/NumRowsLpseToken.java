@@ -94,8 +94,11 @@ public class NumRowsLpseToken extends LpseToken {
 	 * <p>Override the value of this token with the new number of rows.</p>
 	 *
 	 * @param numRows The override number of rows for this token
+	 *
+	 * @throws IllegalStateException If this token has been frozen
 	 */
 	public void setNumRows(int numRows) {
+		checkNotFrozen();
 		this.numRows = numRows;
 	}
 
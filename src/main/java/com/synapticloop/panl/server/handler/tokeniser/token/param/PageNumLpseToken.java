@@ -88,7 +88,15 @@ public class PageNumLpseToken extends LpseToken {
 		return (this.pageNum);
 	}
 
+	/**
+	 * <p>Override the value of this token with the new page number.</p>
+	 *
+	 * @param pageNum The override page number for this token
+	 *
+	 * @throws IllegalStateException If this token has been frozen
+	 */
 	public void setPageNum(int pageNum) {
+		checkNotFrozen();
 		this.pageNum = pageNum;
 	}
 
@@ -24,11 +24,10 @@ package com.synapticloop.panl.server.handler.tokeniser.token.param;
  * IN THE SOFTWARE.
  */
 
+import com.synapticloop.panl.server.handler.bean.PanlQueryParametersBean;
 import com.synapticloop.panl.server.handler.properties.CollectionProperties;
 import com.synapticloop.panl.server.handler.tokeniser.LpseTokeniser;
 import com.synapticloop.panl.server.handler.tokeniser.token.LpseToken;
-import org.apache.http.NameValuePair;
-import org.apache.http.client.utils.URLEncodedUtils;
 
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
@@ -43,16 +42,16 @@ public class QueryLpseToken extends LpseToken {
 
 	public QueryLpseToken(
 			CollectionProperties collectionProperties,
-			String queryFromUri,
+			PanlQueryParametersBean queryParameters,
 			String lpseCode) {
 
-		this(collectionProperties, lpseCode, queryFromUri, null, null);
+		this(collectionProperties, lpseCode, queryParameters, null, null);
 	}
 
 	public QueryLpseToken(
 			CollectionProperties collectionProperties,
 			String lpseCode,
-			String queryFromUri,
+			PanlQueryParametersBean queryParameters,
 			StringTokenizer valueTokeniser,
 			LpseTokeniser lpseTokeniser) {
 
@@ -106,17 +105,10 @@ public class QueryLpseToken extends LpseToken {
 			}
 		}
 
-		Map<String, String> nameValuePairMap = new HashMap<>();
-
 		String formQueryRespondTo = collectionProperties.getFormQueryRespondTo();
-		for (NameValuePair nameValuePair : URLEncodedUtils.parse(queryFromUri, StandardCharsets.UTF_8)) {
-			nameValuePairMap.put(nameValuePair.getName(), nameValuePair.getValue());
-		}
-
-		if (nameValuePairMap.containsKey(formQueryRespondTo)) {
-			this.value = URLDecoder.decode(
-					nameValuePairMap.get(formQueryRespondTo),
-					StandardCharsets.UTF_8);
+		if (queryParameters.hasParameter(formQueryRespondTo)) {
+			// the query parameters have already been decoded
+			this.value = queryParameters.getValue(formQueryRespondTo);
 			isOverride = true;
 
 			searchableLpseFields.clear();
@@ -128,7 +120,7 @@ public class QueryLpseToken extends LpseToken {
 			while (iterator.hasNext()) {
 				String next = iterator.next();
 				String key = searchFields.get(next);
-				if (nameValuePairMap.containsKey(formQueryRespondTo + "." + next)) {
+				if (queryParameters.hasParameter(formQueryRespondTo + "." + next)) {
 					searchableLpseFields.add(key);
 				}
 			}
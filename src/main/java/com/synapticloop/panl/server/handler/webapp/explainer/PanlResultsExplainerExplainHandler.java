@@ -25,6 +25,7 @@ package com.synapticloop.panl.server.handler.webapp.explainer;
  */
 
 import com.synapticloop.panl.server.handler.CollectionRequestHandler;
+import com.synapticloop.panl.server.handler.bean.PanlQueryParametersBean;
 import com.synapticloop.panl.server.handler.webapp.util.ResourceHelper;
 import com.synapticloop.panl.server.handler.properties.CollectionProperties;
 import com.synapticloop.panl.server.handler.fielderiser.field.BaseField;
@@ -272,6 +273,7 @@ public class PanlResultsExplainerExplainHandler implements HttpRequestHandler {
 
 	private List<LpseToken> parseLpse(CollectionProperties collectionProperties, String uri, String query) {
 		List<LpseToken> lpseTokens = new ArrayList<>();
+		PanlQueryParametersBean queryParameters = new PanlQueryParametersBean(query);
 
 		String[] searchQuery = uri.split("/");
 
@@ -292,12 +294,12 @@ public class PanlResultsExplainerExplainHandler implements HttpRequestHandler {
 
 			while (lpseTokeniser.hasMoreTokens()) {
 				String token = lpseTokeniser.nextToken();
-				lpseTokens.addAll(LpseToken.getLpseTokens(collectionProperties, token, query, valueTokeniser, lpseTokeniser));
+				lpseTokens.addAll(LpseToken.getLpseTokens(collectionProperties, token, queryParameters, valueTokeniser, lpseTokeniser));
 			}
 		}
 
 		if (!hasQuery && !query.isBlank()) {
-			lpseTokens.add(new QueryLpseToken(collectionProperties, query, collectionProperties.getPanlParamQuery()));
+			lpseTokens.add(new QueryLpseToken(collectionProperties, queryParameters, collectionProperties.getPanlParamQuery()));
 		}
 
 		return (lpseTokens);
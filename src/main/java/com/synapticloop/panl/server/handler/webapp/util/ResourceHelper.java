@@ -25,6 +25,8 @@ package com.synapticloop.panl.server.handler.webapp.util;
  */
 
 import com.synapticloop.panl.server.handler.webapp.PanlResultsStaticHandler;
+import com.synapticloop.panl.server.http.PanlPrecompressedEntity;
+import com.synapticloop.panl.server.http.PanlResponseCompressor;
 import com.synapticloop.panl.util.Constants;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
@@ -36,6 +38,7 @@ import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * <p>A helper class for serving up assets from the classpath.  Used by the
@@ -46,6 +49,10 @@ import java.util.Map;
  * found.  It will also cache the contents - including not founds and internal
  * server errors.</p>
  *
+ * <p>Textual resources are also gzip compressed once, when they are first
+ * loaded, so that the response compressor can serve the compressed bytes
+ * rather than compressing the same asset on every request.</p>
+ *
  * @author synapticloop
  */
 public class ResourceHelper {
@@ -67,14 +74,15 @@ public class ResourceHelper {
 		CONTENT_TYPE_MAP.put(".html", CONTENT_TYPE_HTML);
 	}
 
-	private static final Map<String, byte[]> CONTENT_CACHE = new HashMap<>();
-	private static final Map<String, ContentType> CONTENT_TYPE_CACHE = new HashMap<>();
-	private static final Map<String, Integer> CONTENT_RESPONSE_CODE_CACHE = new HashMap<>();
+	private static final Map<String, CachedResource> RESOURCE_CACHE = new ConcurrentHashMap<>();
 
 	/**
 	 * <p>Serve a resourcePath from the class loader and cache the response on
 	 * first access.  This will return the cached response if it exists.</p>
 	 *
+	 * <p>The resource is loaded (and compressed) at most once, concurrent
+	 * requests for a resource which is being loaded wait for it.</p>
+	 *
 	 * <p><strong> NOTE:</strong> that this is not supposed to be performant as it
 	 * serves the in-built Panl web apps.</p>
 	 *
@@ -82,42 +90,42 @@ public class ResourceHelper {
 	 * @param response The response object to write to
 	 */
 	public static void serveResource(String resourcePath, HttpResponse response) {
-		if(CONTENT_CACHE.containsKey(resourcePath)) {
-			response.setStatusCode(CONTENT_RESPONSE_CODE_CACHE.get(resourcePath));
-			response.setEntity(new ByteArrayEntity(CONTENT_CACHE.get(resourcePath), CONTENT_TYPE_CACHE.get(resourcePath)));
-			return;
-		}
+		RESOURCE_CACHE.computeIfAbsent(resourcePath, ResourceHelper::loadResource).setResponse(response);
+	}
 
+	/**
+	 * <p>Load the resource from the class loader, or the error response if it
+	 * could not be found or read.</p>
+	 *
+	 * @param resourcePath the path to the resource
+	 *
+	 * @return The resource to cache
+	 */
+	private static CachedResource loadResource(String resourcePath) {
 		try (InputStream resourceAsStream = PanlResultsStaticHandler.class.getResourceAsStream(resourcePath)) {
 			if (null != resourceAsStream) {
 				byte[] content = resourceAsStream.readAllBytes();
 
 				ContentType contentType = getContentType(resourcePath);
 
-				CONTENT_CACHE.put(resourcePath, content);
-				CONTENT_TYPE_CACHE.put(resourcePath, contentType);
-				CONTENT_RESPONSE_CODE_CACHE.put(resourcePath, HttpStatus.SC_OK);
-
+				byte[] gzipContent = null;
+				if (PanlResponseCompressor.getIsCompressibleContentType(contentType.toString())) {
+					gzipContent = PanlResponseCompressor.gzip(content);
+				}
+				return (new CachedResource(content, gzipContent, contentType, HttpStatus.SC_OK));
 			} else {
 				JSONObject jsonObject = new JSONObject();
 				jsonObject.put(Constants.Json.Response.ERROR, true);
 				jsonObject.put(Constants.Json.Response.MESSAGE, "Could not find the resourcePath '" + resourcePath + "'");
 
-				CONTENT_CACHE.put(resourcePath, jsonObject.toString().getBytes());
-				CONTENT_TYPE_CACHE.put(resourcePath, CONTENT_TYPE_JSON);
-				CONTENT_RESPONSE_CODE_CACHE.put(resourcePath, HttpStatus.SC_NOT_FOUND);
+				return (new CachedResource(jsonObject.toString().getBytes(), null, CONTENT_TYPE_JSON, HttpStatus.SC_NOT_FOUND));
 			}
 		} catch (IOException ioex) {
 			JSONObject jsonObject = new JSONObject();
 			jsonObject.put(Constants.Json.Response.ERROR, true);
 			jsonObject.put(Constants.Json.Response.MESSAGE, "Could not serve the resourcePath '" + resourcePath + "'");
-			CONTENT_CACHE.put(resourcePath, jsonObject.toString().getBytes());
-			CONTENT_TYPE_CACHE.put(resourcePath, CONTENT_TYPE_JSON);
-			CONTENT_RESPONSE_CODE_CACHE.put(resourcePath, HttpStatus.SC_INTERNAL_SERVER_ERROR);
+			return (new CachedResource(jsonObject.toString().getBytes(), null, CONTENT_TYPE_JSON, HttpStatus.SC_INTERNAL_SERVER_ERROR));
 		}
-
-		response.setStatusCode(CONTENT_RESPONSE_CODE_CACHE.get(resourcePath));
-		response.setEntity(new ByteArrayEntity(CONTENT_CACHE.get(resourcePath), CONTENT_TYPE_CACHE.get(resourcePath)));
 	}
 
 	/**
@@ -139,4 +147,42 @@ public class ResourceHelper {
 		}
 		return(CONTENT_TYPE_TEXT);
 	}
+
+	/**
+	 * <p>A cached resource - the content, the gzip compressed content (if the
+	 * content type is compressible), the content type and the response status
+	 * code are cached together, so that a resource is never seen half
+	 * populated.</p>
+	 */
+	private static class CachedResource {
+		private final byte[] content;
+		private final byte[] gzipContent;
+		private final ContentType contentType;
+		private final int statusCode;
+
+		private CachedResource(byte[] content, byte[] gzipContent, ContentType contentType, int statusCode) {
+			this.content = content;
+			this.gzipContent = gzipContent;
+			this.contentType = contentType;
+			this.statusCode = statusCode;
+		}
+
+		/**
+		 * <p>Set the status code and the entity on the response from the cached
+		 * resource.  If there is a gzip compressed version of the resource, a
+		 * pre-compressed entity is returned so that the response compressor can
+		 * use it without compressing the content again.</p>
+		 *
+		 * @param response The response object to write to
+		 */
+		private void setResponse(HttpResponse response) {
+			response.setStatusCode(statusCode);
+
+			if (null != gzipContent) {
+				response.setEntity(new PanlPrecompressedEntity(content, gzipContent, contentType));
+			} else {
+				response.setEntity(new ByteArrayEntity(content, contentType));
+			}
+		}
+	}
 }
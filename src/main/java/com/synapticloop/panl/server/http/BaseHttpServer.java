@@ -0,0 +1,288 @@
+package com.synapticloop.panl.server.http;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import com.synapticloop.panl.server.handler.properties.PanlProperties;
+import org.apache.http.ConnectionReuseStrategy;
+import org.apache.http.impl.DefaultConnectionReuseStrategy;
+import org.apache.http.impl.NoConnectionReuseStrategy;
+import org.apache.http.protocol.HttpProcessor;
+import org.apache.http.protocol.HttpProcessorBuilder;
+import org.apache.http.protocol.ResponseConnControl;
+import org.apache.http.protocol.ResponseContent;
+import org.apache.http.protocol.ResponseDate;
+import org.apache.http.protocol.ResponseServer;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>The base class for the embedded HTTP servers, which owns the worker pool
+ * that the requests are handled on, and the connection counts.</p>
+ *
+ * <p>The servers are configured with the following properties, any of which
+ * may be left unset to keep the default (unbounded) behaviour:</p>
+ *
+ * <ul>
+ *   <li><code>panl.server.worker.threads</code> - the fixed number of worker
+ *   threads, if not set the pool is unbounded</li>
+ *   <li><code>panl.server.queue.size</code> - the number of pending tasks
+ *   that may wait for a free worker thread - in blocking mode a task is a
+ *   whole connection, not a single request</li>
+ *   <li><code>panl.server.max.connections</code> - the maximum number of open
+ *   connections</li>
+ *   <li><code>panl.server.backlog</code> - the listen backlog of the server
+ *   socket</li>
+ *   <li><code>panl.server.socket.timeout</code> - the socket read timeout in
+ *   milliseconds, which also closes idle keep-alive connections (this
+ *   defaults to 30 seconds if the worker threads are set)</li>
+ *   <li><code>panl.server.keep.alive</code> - whether connections are kept
+ *   alive between requests</li>
+ *   <li><code>panl.server.tcp.nodelay</code> - whether Nagle's algorithm is
+ *   disabled</li>
+ *   <li><code>panl.server.compression</code> - whether the responses are
+ *   compressed, if the client accepts it</li>
+ *   <li><code>panl.server.compression.min.bytes</code> - the minimum size of
+ *   a response that is compressed</li>
+ * </ul>
+ *
+ * @author synapticloop
+ */
+public abstract class BaseHttpServer {
+	public static final String SERVER_INFO = "Panl";
+
+	public static final String SERVER_MODE_BLOCKING = "blocking";
+	public static final String SERVER_MODE_NIO = "nio";
+
+	/**
+	 * <p>The number of seconds that a rejected client is asked to wait before
+	 * retrying.</p>
+	 */
+	public static final int RETRY_AFTER_SECONDS = 1;
+
+	protected final int portNumber;
+	protected final int maxConnections;
+	protected final ThreadPoolExecutor workerPool;
+	protected final PanlResponseCompressor panlResponseCompressor;
+
+	protected final AtomicInteger numOpenConnections = new AtomicInteger();
+	protected final LongAdder numRejectedConnections = new LongAdder();
+
+	/**
+	 * <p>Instantiate the server and its worker pool.</p>
+	 *
+	 * @param portNumber The port number to listen on
+	 * @param panlProperties The Panl properties with the server configuration
+	 */
+	protected BaseHttpServer(int portNumber, PanlProperties panlProperties) {
+		this.portNumber = portNumber;
+		this.maxConnections = getPositiveOrZero(panlProperties.getServerMaxConnections());
+
+		if (panlProperties.getServerCompression()) {
+			this.panlResponseCompressor = new PanlResponseCompressor(panlProperties.getServerCompressionMinBytes());
+		} else {
+			this.panlResponseCompressor = null;
+		}
+
+		int numWorkerThreads = getPositiveOrZero(panlProperties.getServerWorkerThreads());
+		AtomicInteger threadNumber = new AtomicInteger();
+		if (numWorkerThreads == 0) {
+			// the same as the httpcore server - a new thread for every task if
+			// there is no idle thread
+			this.workerPool = new ThreadPoolExecutor(
+					0,
+					Integer.MAX_VALUE,
+					60L,
+					TimeUnit.SECONDS,
+					new SynchronousQueue<>(),
+					runnable -> new Thread(runnable, "panl-http-worker-" + threadNumber.incrementAndGet()));
+		} else {
+			int queueSize = getPositiveOrZero(panlProperties.getServerQueueSize());
+			BlockingQueue<Runnable> workQueue = queueSize == 0 ? new SynchronousQueue<>() : new ArrayBlockingQueue<>(queueSize);
+			this.workerPool = new ThreadPoolExecutor(
+					numWorkerThreads,
+					numWorkerThreads,
+					60L,
+					TimeUnit.SECONDS,
+					workQueue,
+					runnable -> new Thread(runnable, "panl-http-worker-" + threadNumber.incrementAndGet()));
+		}
+	}
+
+	protected static int getPositiveOrZero(Integer value) {
+		if (null == value || value < 0) {
+			return (0);
+		}
+		return (value);
+	}
+
+	/**
+	 * <p>Return the response interceptors that are applied to every
+	 * response.</p>
+	 *
+	 * @param panlResponseCompressor The response compressor, which is added
+	 *   before the content headers are set, or null if the responses are not
+	 *   compressed by the HTTP processor
+	 *
+	 * @return The HTTP processor
+	 */
+	protected static HttpProcessor getHttpProcessor(PanlResponseCompressor panlResponseCompressor) {
+		HttpProcessorBuilder httpProcessorBuilder = HttpProcessorBuilder.create();
+		if (null != panlResponseCompressor) {
+			httpProcessorBuilder.add(panlResponseCompressor);
+		}
+
+		return (httpProcessorBuilder
+				.add(new ResponseDate())
+				.add(new ResponseServer(SERVER_INFO))
+				.add(new ResponseContent())
+				.add(new ResponseConnControl())
+				.build());
+	}
+
+	/**
+	 * <p>Return the connection reuse strategy, depending on whether
+	 * connections are kept alive.</p>
+	 *
+	 * @param panlProperties The Panl properties
+	 *
+	 * @return The connection reuse strategy
+	 */
+	protected static ConnectionReuseStrategy getConnectionReuseStrategy(PanlProperties panlProperties) {
+		if (panlProperties.getServerKeepAlive()) {
+			return (DefaultConnectionReuseStrategy.INSTANCE);
+		}
+		return (NoConnectionReuseStrategy.INSTANCE);
+	}
+
+	/**
+	 * <p>Bind to the port and start accepting connections.</p>
+	 *
+	 * @throws IOException If the server could not be bound to the port
+	 */
+	public abstract void start() throws IOException;
+
+	/**
+	 * <p>Return the local port that the server is bound to.</p>
+	 *
+	 * @return The local port, or -1 if the server has not been started
+	 */
+	public abstract int getLocalPort();
+
+	/**
+	 * <p>Stop accepting connections, and shut down all the open
+	 * connections.</p>
+	 */
+	public abstract void stop();
+
+	/**
+	 * <p>Wait for the server to be stopped and all the worker threads to
+	 * finish.</p>
+	 *
+	 * @param timeout The maximum time to wait
+	 * @param timeUnit The time unit of the timeout
+	 *
+	 * @throws InterruptedException If interrupted while waiting
+	 */
+	public abstract void awaitTermination(long timeout, TimeUnit timeUnit) throws InterruptedException;
+
+	/**
+	 * <p>Return the number of open connections.</p>
+	 *
+	 * @return The number of open connections
+	 */
+	public int getNumOpenConnections() {
+		return (numOpenConnections.get());
+	}
+
+	/**
+	 * <p>Return the number of worker threads that are busy.</p>
+	 *
+	 * @return The number of active worker threads
+	 */
+	public int getNumActiveWorkers() {
+		return (workerPool.getActiveCount());
+	}
+
+	/**
+	 * <p>Return the number of tasks that are waiting for a worker thread.</p>
+	 *
+	 * @return The number of queued tasks
+	 */
+	public int getNumQueuedConnections() {
+		return (workerPool.getQueue().size());
+	}
+
+	/**
+	 * <p>Return the number of connections (or, in NIO mode, requests) that
+	 * were rejected.</p>
+	 *
+	 * @return The number of rejections
+	 */
+	public long getNumRejectedConnections() {
+		return (numRejectedConnections.sum());
+	}
+
+	/**
+	 * <p>Return an executor that runs the tasks on the worker pool.  If the
+	 * worker pool is saturated (or shut down) the task is rejected, counted,
+	 * and a <code>RejectedExecutionException</code> is thrown - the task is
+	 * never run on the calling thread, which may be a Solr client I/O thread.
+	 * The caller is responsible for failing the request with a 503
+	 * response.</p>
+	 *
+	 * @return The worker pool executor
+	 */
+	public Executor getWorkerExecutor() {
+		return (runnable -> {
+			try {
+				workerPool.execute(runnable);
+			} catch (RejectedExecutionException e) {
+				numRejectedConnections.increment();
+				throw e;
+			}
+		});
+	}
+
+	/**
+	 * <p>Return the number of responses that were sent compressed.</p>
+	 *
+	 * @return The number of compressed responses
+	 */
+	public long getNumCompressedResponses() {
+		if (null == panlResponseCompressor) {
+			return (0L);
+		}
+		return (panlResponseCompressor.getNumCompressed());
+	}
+}
@@ -0,0 +1,307 @@
+package com.synapticloop.panl.server.http;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import com.synapticloop.panl.server.handler.PanlAsyncRequestHandler;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.nio.entity.HttpAsyncContentProducer;
+import org.apache.http.nio.entity.NByteArrayEntity;
+import org.apache.http.nio.protocol.BasicAsyncRequestConsumer;
+import org.apache.http.nio.protocol.HttpAsyncExchange;
+import org.apache.http.nio.protocol.HttpAsyncRequestConsumer;
+import org.apache.http.nio.protocol.HttpAsyncRequestHandler;
+import org.apache.http.nio.protocol.HttpAsyncRequestHandlerMapper;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestHandler;
+import org.apache.http.protocol.HttpRequestHandlerMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>The adapter which plugs the (blocking) Panl request handlers into the
+ * NIO HTTP server.</p>
+ *
+ * <p>The NIO I/O reactor threads must never block, so every request is
+ * handed off to the worker pool.  Handlers that implement
+ * <code>PanlAsyncRequestHandler</code> (which all the instrumented handlers
+ * do) release the worker thread while the Solr request is in flight, and the
+ * response is submitted back to the I/O reactor when the future completes.
+ * Any other handler is called on the worker thread.</p>
+ *
+ * <p>Response entities (other than the NIO content producers with a known
+ * length) are written on the worker thread, so that the I/O reactor never
+ * reads from a blocking stream, serialises a response or compresses it.  An
+ * entity of known length that fits in the pipe buffer is written out to a
+ * byte array, any other entity is piped to the I/O reactor through a
+ * <code>PanlPipedEntity</code> as it is written, after the response has been
+ * submitted.  The response is also compressed (if enabled) on the worker
+ * thread, as the response producer takes the entity when the response is
+ * submitted, before the HTTP processor is run.</p>
+ *
+ * <p>If the worker pool is full, the request is rejected straight away with a
+ * <code>503 Service Unavailable</code> response and a
+ * <code>Retry-After</code> header.</p>
+ *
+ * @author synapticloop
+ */
+public class PanlAsyncRequestHandlerAdapter implements HttpAsyncRequestHandlerMapper, HttpAsyncRequestHandler<HttpRequest> {
+	private static final Logger LOGGER = LoggerFactory.getLogger(PanlAsyncRequestHandlerAdapter.class);
+
+	/**
+	 * <p>The size of the buffer that a streamed response is piped to the I/O
+	 * reactor through</p>
+	 */
+	public static final int PIPE_BUFFER_SIZE = 32768;
+
+	private final HttpRequestHandlerMapper httpRequestHandlerMapper;
+	private final Executor executor;
+	private final LongAdder numRejected;
+	private final PanlResponseCompressor panlResponseCompressor;
+
+	/**
+	 * <p>Instantiate the adapter.</p>
+	 *
+	 * @param httpRequestHandlerMapper The handler mapper to look up the Panl
+	 *   request handler with
+	 * @param executor The worker pool to handle the requests on
+	 * @param numRejected The counter for the requests that were rejected as the
+	 *   worker pool was full
+	 * @param panlResponseCompressor The response compressor, or null if the
+	 *   responses are not compressed
+	 */
+	public PanlAsyncRequestHandlerAdapter(
+			HttpRequestHandlerMapper httpRequestHandlerMapper,
+			Executor executor,
+			LongAdder numRejected,
+			PanlResponseCompressor panlResponseCompressor) {
+		this.httpRequestHandlerMapper = httpRequestHandlerMapper;
+		this.executor = executor;
+		this.numRejected = numRejected;
+		this.panlResponseCompressor = panlResponseCompressor;
+	}
+
+	/**
+	 * <p>All requests are handled by this adapter, the Panl request handler is
+	 * looked up on the worker thread.</p>
+	 *
+	 * @param request The HTTP request
+	 *
+	 * @return This adapter
+	 */
+	@Override public HttpAsyncRequestHandler<?> lookup(HttpRequest request) {
+		return (this);
+	}
+
+	@Override public HttpAsyncRequestConsumer<HttpRequest> processRequest(HttpRequest request, HttpContext context) {
+		return (new BasicAsyncRequestConsumer());
+	}
+
+	@Override public void handle(HttpRequest request, HttpAsyncExchange httpAsyncExchange, HttpContext context) {
+		try {
+			executor.execute(() -> handleRequest(request, httpAsyncExchange, context));
+		} catch (RejectedExecutionException e) {
+			numRejected.increment();
+			HttpResponse response = httpAsyncExchange.getResponse();
+			response.setStatusCode(HttpStatus.SC_SERVICE_UNAVAILABLE);
+			response.setHeader("Retry-After", Integer.toString(BaseHttpServer.RETRY_AFTER_SECONDS));
+			httpAsyncExchange.submitResponse();
+		}
+	}
+
+	/**
+	 * <p>Handle the request on the worker thread, submitting the response once
+	 * it is populated.</p>
+	 *
+	 * @param request The HTTP request
+	 * @param httpAsyncExchange The exchange to submit the response to
+	 * @param context The HTTP context
+	 */
+	private void handleRequest(HttpRequest request, HttpAsyncExchange httpAsyncExchange, HttpContext context) {
+		HttpResponse response = httpAsyncExchange.getResponse();
+		try {
+			HttpRequestHandler httpRequestHandler = httpRequestHandlerMapper.lookup(request);
+			if (null == httpRequestHandler) {
+				response.setStatusCode(HttpStatus.SC_NOT_IMPLEMENTED);
+				submitResponse(httpAsyncExchange);
+			} else if (httpRequestHandler instanceof PanlAsyncRequestHandler) {
+				((PanlAsyncRequestHandler) httpRequestHandler)
+						.handleAsync(request, response, context)
+						.whenComplete((result, throwable) -> {
+							if (null != throwable) {
+								setServerError(response, throwable);
+							}
+							submitResponse(httpAsyncExchange);
+						});
+			} else {
+				httpRequestHandler.handle(request, response, context);
+				submitResponse(httpAsyncExchange);
+			}
+		} catch (Exception e) {
+			setServerError(response, e);
+			submitResponse(httpAsyncExchange);
+		}
+	}
+
+	private void setServerError(HttpResponse response, Throwable throwable) {
+		LOGGER.error("Could not handle the request, message was: {}", throwable.getMessage(), throwable);
+		response.setStatusCode(HttpStatus.SC_INTERNAL_SERVER_ERROR);
+		response.setEntity(null);
+	}
+
+	/**
+	 * <p>Submit the response back to the I/O reactor, unless the client has
+	 * already gone away.</p>
+	 *
+	 * @param httpAsyncExchange The exchange to submit the response to
+	 */
+	private void submitResponse(HttpAsyncExchange httpAsyncExchange) {
+		if (httpAsyncExchange.isCompleted()) {
+			return;
+		}
+
+		HttpResponse response = httpAsyncExchange.getResponse();
+		if (null != panlResponseCompressor) {
+			try {
+				panlResponseCompressor.compress(httpAsyncExchange.getRequest(), response);
+			} catch (IOException e) {
+				setServerError(response, e);
+			}
+		}
+
+		PanlPipedEntity panlPipedEntity = null;
+		try {
+			panlPipedEntity = prepareEntity(httpAsyncExchange.getRequest(), response);
+		} catch (IOException e) {
+			setServerError(response, e);
+		}
+
+		try {
+			httpAsyncExchange.submitResponse();
+		} catch (IllegalStateException e) {
+			// the response was already submitted, or the exchange was cancelled
+			LOGGER.debug("Could not submit the response, message was: {}", e.getMessage());
+			return;
+		}
+
+		if (null != panlPipedEntity) {
+			try {
+				panlPipedEntity.writeContent();
+			} catch (IOException e) {
+				// the status line has already been sent, the connection has been shut
+				// down, so this is generally the client going away
+				LOGGER.debug("Could not write the response, message was: {}", e.getMessage());
+			} catch (RuntimeException e) {
+				LOGGER.error("Could not write the response, message was: {}", e.getMessage(), e);
+			}
+		}
+	}
+
+	/**
+	 * <p>Prepare the response entity so that it is not written by the I/O
+	 * reactor thread.  An NIO content producer with a known length is left as
+	 * it is.  Any other entity of known length that fits in the pipe buffer
+	 * (or the entity of a response to a <code>HEAD</code> request, which is
+	 * never sent) is written out to a byte array.  Any other entity - a
+	 * streaming entity, an <code>EntityTemplate</code> which serialises the
+	 * JSON response, or a <code>PanlCompressingEntity</code> which compresses
+	 * it - is wrapped in a <code>PanlPipedEntity</code>, which __MUST__ be
+	 * written on the worker thread once the response has been submitted.</p>
+	 *
+	 * @param request The HTTP request
+	 * @param response The response to prepare the entity of
+	 *
+	 * @return The piped entity to write, or null if there is nothing to write
+	 *
+	 * @throws IOException If the entity could not be written out
+	 */
+	static PanlPipedEntity prepareEntity(HttpRequest request, HttpResponse response) throws IOException {
+		HttpEntity httpEntity = response.getEntity();
+		if (null == httpEntity ||
+				(httpEntity instanceof HttpAsyncContentProducer && httpEntity.getContentLength() >= 0)) {
+			return (null);
+		}
+
+		long contentLength = httpEntity.getContentLength();
+		if ((contentLength >= 0 && contentLength <= PIPE_BUFFER_SIZE) ||
+				"HEAD".equalsIgnoreCase(request.getRequestLine().getMethod())) {
+			bufferEntity(response);
+			return (null);
+		}
+
+		PanlPipedEntity panlPipedEntity = new PanlPipedEntity(httpEntity, PIPE_BUFFER_SIZE);
+		response.setEntity(panlPipedEntity);
+		return (panlPipedEntity);
+	}
+
+	/**
+	 * <p>Write the response entity out to a byte array (on the calling worker
+	 * thread), unless it is already an NIO content producer with a known
+	 * length.  The byte array is wrapped as it is, without copying it.</p>
+	 *
+	 * @param response The response to buffer the entity of
+	 *
+	 * @throws IOException If the entity could not be written
+	 */
+	static void bufferEntity(HttpResponse response) throws IOException {
+		HttpEntity httpEntity = response.getEntity();
+		if (null == httpEntity ||
+				(httpEntity instanceof HttpAsyncContentProducer && httpEntity.getContentLength() >= 0)) {
+			return;
+		}
+
+		long contentLength = httpEntity.getContentLength();
+		ExposedByteArrayOutputStream exposedByteArrayOutputStream = new ExposedByteArrayOutputStream(
+				(contentLength >= 0 && contentLength <= Integer.MAX_VALUE - 8) ? (int) contentLength : PIPE_BUFFER_SIZE);
+		httpEntity.writeTo(exposedByteArrayOutputStream);
+
+		NByteArrayEntity nByteArrayEntity = exposedByteArrayOutputStream.toEntity();
+		nByteArrayEntity.setContentType(httpEntity.getContentType());
+		nByteArrayEntity.setContentEncoding(httpEntity.getContentEncoding());
+		response.setEntity(nByteArrayEntity);
+	}
+
+	/**
+	 * <p>A byte array output stream which hands its internal buffer to the
+	 * entity, rather than copying it.</p>
+	 */
+	private static class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
+		private ExposedByteArrayOutputStream(int size) {
+			super(size);
+		}
+
+		private NByteArrayEntity toEntity() {
+			return (new NByteArrayEntity(buf, 0, count));
+		}
+	}
+}
@@ -0,0 +1,258 @@
+package com.synapticloop.panl.server.http;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import com.synapticloop.panl.server.handler.properties.PanlProperties;
+import org.apache.http.ConnectionClosedException;
+import org.apache.http.HttpException;
+import org.apache.http.impl.DefaultBHttpServerConnection;
+import org.apache.http.impl.DefaultBHttpServerConnectionFactory;
+import org.apache.http.impl.DefaultHttpResponseFactory;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpRequestHandlerMapper;
+import org.apache.http.protocol.HttpService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>The blocking HTTP server for Panl (the default server mode), which
+ * services each connection on a thread from a worker pool.  An idle
+ * keep-alive connection holds on to its worker thread until it is closed, or
+ * times out.</p>
+ *
+ * <p>This replaces the httpcore <code>ServerBootstrap</code> server, which
+ * uses an unbounded worker pool and does not allow the backlog, worker
+ * threads, or connection limits to be configured.  The requests are still
+ * handled by the httpcore <code>HttpService</code>, so the request handlers
+ * and handler mapper are unchanged.</p>
+ *
+ * <p>Connections that cannot be serviced (i.e. the maximum number of
+ * connections are open, or the worker threads are busy and the queue is
+ * full) are sent a <code>503 Service Unavailable</code> response with a
+ * <code>Retry-After</code> header and closed straight away, rather than
+ * waiting in the listen backlog.</p>
+ *
+ * <p>A worker thread is bound to a connection for as long as it is open, so
+ * the worker threads and the queue limit the number of connections, not the
+ * number of requests.  An idle keep-alive connection holds its worker thread
+ * until the socket times out, which is why the socket timeout defaults to 30
+ * seconds when the number of worker threads is set.</p>
+ *
+ * @author synapticloop
+ */
+public class PanlBlockingHttpServer extends BaseHttpServer {
+	private static final Logger LOGGER = LoggerFactory.getLogger(PanlBlockingHttpServer.class);
+
+	private static final byte[] SERVICE_UNAVAILABLE_RESPONSE = (
+			"HTTP/1.1 503 Service Unavailable\r\n" +
+			"Retry-After: " + RETRY_AFTER_SECONDS + "\r\n" +
+			"Content-Length: 0\r\n" +
+			"Connection: close\r\n" +
+			"\r\n").getBytes(StandardCharsets.US_ASCII);
+
+	private final int backlog;
+	private final Integer socketTimeout;
+	private final boolean tcpNoDelay;
+
+	private final HttpService httpService;
+
+	private final Set<DefaultBHttpServerConnection> openConnections = ConcurrentHashMap.newKeySet();
+
+	private volatile ServerSocket serverSocket;
+	private Thread listenerThread;
+
+	/**
+	 * <p>Instantiate the server - this will not bind to the port until the
+	 * server is started.</p>
+	 *
+	 * @param portNumber The port number to listen on
+	 * @param panlProperties The Panl properties with the server configuration
+	 * @param httpRequestHandlerMapper The handler mapper that dispatches the
+	 *   requests
+	 */
+	public PanlBlockingHttpServer(int portNumber, PanlProperties panlProperties, HttpRequestHandlerMapper httpRequestHandlerMapper) {
+		super(portNumber, panlProperties);
+
+		this.backlog = getPositiveOrZero(panlProperties.getServerBacklog());
+		this.socketTimeout = panlProperties.getServerSocketTimeout();
+		this.tcpNoDelay = panlProperties.getServerTcpNoDelay();
+
+		this.httpService = new HttpService(
+				getHttpProcessor(panlResponseCompressor),
+				getConnectionReuseStrategy(panlProperties),
+				DefaultHttpResponseFactory.INSTANCE,
+				httpRequestHandlerMapper);
+	}
+
+	@Override public void start() throws IOException {
+		ServerSocket serverSocketTemp = new ServerSocket();
+		serverSocketTemp.setReuseAddress(true);
+		serverSocketTemp.bind(new InetSocketAddress(portNumber), backlog);
+		this.serverSocket = serverSocketTemp;
+
+		this.listenerThread = new Thread(this::acceptConnections, "panl-http-listener");
+		this.listenerThread.start();
+	}
+
+	/**
+	 * <p>Accept the incoming connections, handing each of them to a worker
+	 * thread, until the server socket is closed.</p>
+	 */
+	private void acceptConnections() {
+		while (!serverSocket.isClosed()) {
+			Socket socket;
+			try {
+				socket = serverSocket.accept();
+			} catch (IOException e) {
+				if (!serverSocket.isClosed()) {
+					LOGGER.warn("Could not accept the connection, message was: {}", e.getMessage());
+				}
+				continue;
+			}
+
+			if (maxConnections != 0 && numOpenConnections.get() >= maxConnections) {
+				reject(socket);
+				continue;
+			}
+
+			numOpenConnections.incrementAndGet();
+			try {
+				socket.setTcpNoDelay(tcpNoDelay);
+				if (null != socketTimeout) {
+					socket.setSoTimeout(socketTimeout);
+				}
+				workerPool.execute(() -> serviceConnection(socket));
+			} catch (RejectedExecutionException e) {
+				numOpenConnections.decrementAndGet();
+				reject(socket);
+			} catch (IOException e) {
+				numOpenConnections.decrementAndGet();
+				closeQuietly(socket);
+			}
+		}
+	}
+
+	/**
+	 * <p>Service all the requests on the connection, until the client closes
+	 * the connection, the connection is not kept alive, or it times out.</p>
+	 *
+	 * @param socket The accepted socket
+	 */
+	private void serviceConnection(Socket socket) {
+		DefaultBHttpServerConnection connection = null;
+		try {
+			connection = DefaultBHttpServerConnectionFactory.INSTANCE.createConnection(socket);
+			openConnections.add(connection);
+
+			BasicHttpContext context = new BasicHttpContext();
+			while (!Thread.currentThread().isInterrupted() && connection.isOpen()) {
+				httpService.handleRequest(connection, context);
+				context.clear();
+			}
+			connection.close();
+		} catch (ConnectionClosedException | SocketTimeoutException e) {
+			// the client closed the connection, or it was idle for too long
+		} catch (IOException | HttpException e) {
+			LOGGER.debug("Could not service the connection, message was: {}", e.getMessage());
+		} finally {
+			if (null != connection) {
+				openConnections.remove(connection);
+				shutdownQuietly(connection);
+			} else {
+				closeQuietly(socket);
+			}
+			numOpenConnections.decrementAndGet();
+		}
+	}
+
+	/**
+	 * <p>Reject the connection with a 503 response and close it.</p>
+	 *
+	 * @param socket The socket to reject
+	 */
+	private void reject(Socket socket) {
+		numRejectedConnections.increment();
+		try {
+			socket.getOutputStream().write(SERVICE_UNAVAILABLE_RESPONSE);
+		} catch (IOException e) {
+			// the client has already gone away - nothing to do
+		} finally {
+			closeQuietly(socket);
+		}
+	}
+
+	private static void closeQuietly(Socket socket) {
+		try {
+			socket.close();
+		} catch (IOException e) {
+			// ignore
+		}
+	}
+
+	private static void shutdownQuietly(DefaultBHttpServerConnection connection) {
+		try {
+			connection.shutdown();
+		} catch (IOException e) {
+			// ignore
+		}
+	}
+
+	@Override public int getLocalPort() {
+		if (null == serverSocket) {
+			return (-1);
+		}
+		return (serverSocket.getLocalPort());
+	}
+
+	@Override public void stop() {
+		if (null != serverSocket) {
+			try {
+				serverSocket.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+
+		workerPool.shutdownNow();
+		for (DefaultBHttpServerConnection connection : openConnections) {
+			shutdownQuietly(connection);
+		}
+	}
+
+	@Override public void awaitTermination(long timeout, TimeUnit timeUnit) throws InterruptedException {
+		workerPool.awaitTermination(timeout, timeUnit);
+	}
+}
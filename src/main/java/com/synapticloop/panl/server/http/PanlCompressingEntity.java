@@ -0,0 +1,127 @@
+package com.synapticloop.panl.server.http;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.message.BasicHeader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * <p>An entity which compresses the wrapped (streaming) entity as it is
+ * written out, so that a streamed response does not need to be buffered
+ * before it is compressed.  As the compressed length is not known up front,
+ * the entity is sent chunked.</p>
+ *
+ * @author synapticloop
+ */
+public class PanlCompressingEntity extends HttpEntityWrapper {
+	private final String encoding;
+
+	/**
+	 * <p>Instantiate the compressing entity.</p>
+	 *
+	 * @param wrappedEntity The entity to compress
+	 * @param encoding The content encoding, either <code>gzip</code> or
+	 *   <code>deflate</code>
+	 */
+	public PanlCompressingEntity(HttpEntity wrappedEntity, String encoding) {
+		super(wrappedEntity);
+		this.encoding = encoding;
+	}
+
+	@Override public Header getContentEncoding() {
+		return (new BasicHeader(HttpHeaders.CONTENT_ENCODING, encoding));
+	}
+
+	@Override public long getContentLength() {
+		return (-1L);
+	}
+
+	@Override public boolean isChunked() {
+		return (true);
+	}
+
+	@Override public InputStream getContent() throws IOException {
+		ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+		writeTo(byteArrayOutputStream);
+		return (new ByteArrayInputStream(byteArrayOutputStream.toByteArray()));
+	}
+
+	@Override public void writeTo(OutputStream outStream) throws IOException {
+		// the compressing stream is closed to finish it and release the native
+		// compressor, but the connection's stream __MUST__ be left open
+		try (OutputStream compressingOutputStream = getCompressingOutputStream(new NonClosingOutputStream(outStream), encoding)) {
+			wrappedEntity.writeTo(compressingOutputStream);
+		}
+	}
+
+	/**
+	 * <p>Return an output stream which compresses everything written to it
+	 * with the content encoding.</p>
+	 *
+	 * @param outputStream The output stream to write the compressed bytes to
+	 * @param encoding The content encoding, either <code>gzip</code> or
+	 *   <code>deflate</code>
+	 *
+	 * @return The compressing output stream
+	 *
+	 * @throws IOException If the stream could not be created
+	 */
+	static OutputStream getCompressingOutputStream(OutputStream outputStream, String encoding) throws IOException {
+		if (PanlResponseCompressor.ENCODING_GZIP.equals(encoding)) {
+			return (new GZIPOutputStream(outputStream, 8192));
+		}
+		return (new DeflaterOutputStream(outputStream));
+	}
+
+	/**
+	 * <p>An output stream which is flushed, rather than closed, when it is
+	 * closed.</p>
+	 */
+	private static class NonClosingOutputStream extends FilterOutputStream {
+		private NonClosingOutputStream(OutputStream outputStream) {
+			super(outputStream);
+		}
+
+		@Override public void write(byte[] bytes, int offset, int length) throws IOException {
+			out.write(bytes, offset, length);
+		}
+
+		@Override public void close() throws IOException {
+			flush();
+		}
+	}
+}
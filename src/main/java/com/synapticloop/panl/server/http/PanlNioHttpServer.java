@@ -0,0 +1,194 @@
+package com.synapticloop.panl.server.http;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import com.synapticloop.panl.server.handler.properties.PanlProperties;
+import org.apache.http.ConnectionClosedException;
+import org.apache.http.ExceptionLogger;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.impl.DefaultHttpResponseFactory;
+import org.apache.http.impl.nio.DefaultHttpServerIODispatch;
+import org.apache.http.impl.nio.reactor.DefaultListeningIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.NHttpServerConnection;
+import org.apache.http.nio.protocol.HttpAsyncService;
+import org.apache.http.nio.reactor.ListenerEndpoint;
+import org.apache.http.protocol.HttpRequestHandlerMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>The non-blocking (NIO) HTTP server for Panl, which is enabled with the
+ * <code>panl.server.mode=nio</code> property.</p>
+ *
+ * <p>All connections are multiplexed over a small number of I/O reactor
+ * threads (<code>panl.server.io.threads</code>, defaulting to the number of
+ * available processors), so an idle keep-alive connection does not hold on
+ * to a thread.  The requests are handed to the worker pool by the
+ * <code>PanlAsyncRequestHandlerAdapter</code>, which plugs in the same
+ * request handlers and handler mapper as the blocking server.</p>
+ *
+ * <p>If the maximum number of connections are open, new connections are
+ * closed as soon as they are accepted.</p>
+ *
+ * @author synapticloop
+ */
+public class PanlNioHttpServer extends BaseHttpServer {
+	private static final Logger LOGGER = LoggerFactory.getLogger(PanlNioHttpServer.class);
+
+	private final DefaultListeningIOReactor ioReactor;
+	private final DefaultHttpServerIODispatch<HttpAsyncService> ioEventDispatch;
+
+	private volatile ListenerEndpoint listenerEndpoint;
+	private Thread reactorThread;
+
+	/**
+	 * <p>Instantiate the server - this will not bind to the port until the
+	 * server is started.</p>
+	 *
+	 * @param portNumber The port number to listen on
+	 * @param panlProperties The Panl properties with the server configuration
+	 * @param httpRequestHandlerMapper The handler mapper that dispatches the
+	 *   requests
+	 *
+	 * @throws IOException If the I/O reactor could not be created
+	 */
+	public PanlNioHttpServer(int portNumber, PanlProperties panlProperties, HttpRequestHandlerMapper httpRequestHandlerMapper) throws IOException {
+		super(portNumber, panlProperties);
+
+		IOReactorConfig.Builder ioReactorConfigBuilder = IOReactorConfig.custom()
+				.setSoReuseAddress(true)
+				.setTcpNoDelay(panlProperties.getServerTcpNoDelay())
+				.setBacklogSize(getPositiveOrZero(panlProperties.getServerBacklog()));
+		if (null != panlProperties.getServerIoThreads() && panlProperties.getServerIoThreads() > 0) {
+			ioReactorConfigBuilder.setIoThreadCount(panlProperties.getServerIoThreads());
+		}
+		if (null != panlProperties.getServerSocketTimeout()) {
+			ioReactorConfigBuilder.setSoTimeout(panlProperties.getServerSocketTimeout());
+		}
+
+		AtomicInteger threadNumber = new AtomicInteger();
+		this.ioReactor = new DefaultListeningIOReactor(
+				ioReactorConfigBuilder.build(),
+				runnable -> new Thread(runnable, "panl-http-io-" + threadNumber.incrementAndGet()));
+
+		HttpAsyncService httpAsyncService = new HttpAsyncService(
+				getHttpProcessor(null),
+				getConnectionReuseStrategy(panlProperties),
+				DefaultHttpResponseFactory.INSTANCE,
+				new PanlAsyncRequestHandlerAdapter(httpRequestHandlerMapper, workerPool, numRejectedConnections, panlResponseCompressor),
+				null,
+				this::logException) {
+
+			@Override public void connected(NHttpServerConnection conn) {
+				int numOpen = numOpenConnections.incrementAndGet();
+				super.connected(conn);
+				if (maxConnections != 0 && numOpen > maxConnections) {
+					numRejectedConnections.increment();
+					try {
+						conn.shutdown();
+					} catch (IOException e) {
+						// ignore
+					}
+				}
+			}
+
+			@Override public void closed(NHttpServerConnection conn) {
+				numOpenConnections.decrementAndGet();
+				super.closed(conn);
+			}
+		};
+
+		this.ioEventDispatch = new DefaultHttpServerIODispatch<>(httpAsyncService, ConnectionConfig.DEFAULT);
+	}
+
+	/**
+	 * <p>Log the exceptions from the I/O reactor, ignoring the clients closing
+	 * the connection, or idle connections timing out.</p>
+	 *
+	 * @param exception The exception
+	 *
+	 * @see ExceptionLogger
+	 */
+	private void logException(Exception exception) {
+		if (!(exception instanceof ConnectionClosedException || exception instanceof SocketTimeoutException)) {
+			LOGGER.debug("Could not service the connection, message was: {}", exception.getMessage());
+		}
+	}
+
+	@Override public void start() throws IOException {
+		this.reactorThread = new Thread(() -> {
+			try {
+				ioReactor.execute(ioEventDispatch);
+			} catch (IOException e) {
+				LOGGER.error("The I/O reactor stopped, message was: {}", e.getMessage(), e);
+			}
+		}, "panl-http-reactor");
+		this.reactorThread.start();
+
+		ListenerEndpoint listenerEndpointTemp = ioReactor.listen(new InetSocketAddress(portNumber));
+		try {
+			listenerEndpointTemp.waitFor();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for the server to bind to port " + portNumber, e);
+		}
+
+		if (null != listenerEndpointTemp.getException()) {
+			stop();
+			throw new IOException("Could not bind to port " + portNumber, listenerEndpointTemp.getException());
+		}
+		this.listenerEndpoint = listenerEndpointTemp;
+	}
+
+	@Override public int getLocalPort() {
+		if (null == listenerEndpoint) {
+			return (-1);
+		}
+		return (((InetSocketAddress) listenerEndpoint.getAddress()).getPort());
+	}
+
+	@Override public void stop() {
+		try {
+			ioReactor.shutdown(TimeUnit.SECONDS.toMillis(1));
+		} catch (IOException e) {
+			// ignore
+		}
+		workerPool.shutdownNow();
+	}
+
+	@Override public void awaitTermination(long timeout, TimeUnit timeUnit) throws InterruptedException {
+		if (null != reactorThread) {
+			reactorThread.join(timeUnit.toMillis(timeout));
+		}
+		workerPool.awaitTermination(timeout, timeUnit);
+	}
+}
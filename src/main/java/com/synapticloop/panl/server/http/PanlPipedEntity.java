@@ -0,0 +1,145 @@
+package com.synapticloop.panl.server.http;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.entity.ContentOutputStream;
+import org.apache.http.nio.entity.HttpAsyncContentProducer;
+import org.apache.http.nio.util.SharedOutputBuffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * <p>An NIO entity which pipes a (blocking) entity to the I/O reactor
+ * through a bounded buffer, so that a streamed response does not need to be
+ * written out to a byte array before it is sent.</p>
+ *
+ * <p>The wrapped entity is written on the worker thread with
+ * <code>writeContent()</code> after the response has been submitted, and the
+ * I/O reactor sends the bytes as they are written.  The worker thread will
+ * wait whilst the buffer is full, i.e. only a response larger than the buffer
+ * will hold the worker thread until the client has read all but the last
+ * buffer of it.</p>
+ *
+ * <p>If the wrapped entity could not be written after the response was
+ * submitted, the connection is shut down, so that the client does not take a
+ * truncated response as a complete one.</p>
+ *
+ * @author synapticloop
+ */
+public class PanlPipedEntity extends AbstractHttpEntity implements HttpAsyncContentProducer {
+	private final HttpEntity wrappedEntity;
+	private final SharedOutputBuffer sharedOutputBuffer;
+
+	private volatile IOControl ioControl = null;
+	private volatile boolean isFailed = false;
+
+	/**
+	 * <p>Instantiate the piped entity.</p>
+	 *
+	 * @param wrappedEntity The entity to pipe to the I/O reactor
+	 * @param bufferSize The size of the buffer between the worker thread and
+	 *   the I/O reactor
+	 */
+	public PanlPipedEntity(HttpEntity wrappedEntity, int bufferSize) {
+		this.wrappedEntity = wrappedEntity;
+		this.sharedOutputBuffer = new SharedOutputBuffer(bufferSize);
+		setContentType(wrappedEntity.getContentType());
+		setContentEncoding(wrappedEntity.getContentEncoding());
+		setChunked(wrappedEntity.getContentLength() < 0);
+	}
+
+	/**
+	 * <p>Write the wrapped entity to the buffer, waiting whilst the buffer is
+	 * full.  This __MUST__ be called (once) on the worker thread after the
+	 * response has been submitted.</p>
+	 *
+	 * @throws IOException If the entity could not be written, or the
+	 *   connection was closed before it was sent
+	 */
+	public void writeContent() throws IOException {
+		try {
+			OutputStream outputStream = new ContentOutputStream(sharedOutputBuffer);
+			wrappedEntity.writeTo(outputStream);
+			// closing the stream marks the end of the content - which __MUST__ not
+			// happen if the entity was not completely written
+			outputStream.close();
+		} catch (IOException | RuntimeException e) {
+			isFailed = true;
+			IOControl failedIOControl = this.ioControl;
+			if (null != failedIOControl) {
+				try {
+					failedIOControl.shutdown();
+				} catch (IOException ignored) {
+					// the connection is already being closed
+				}
+			}
+			throw e;
+		}
+	}
+
+	@Override public void produceContent(ContentEncoder encoder, IOControl ioControl) throws IOException {
+		this.ioControl = ioControl;
+		if (isFailed) {
+			ioControl.shutdown();
+			return;
+		}
+		sharedOutputBuffer.produceContent(encoder, ioControl);
+	}
+
+	/**
+	 * <p>Close the entity once the response has been sent, or the connection
+	 * has been closed, which will release a worker thread that is waiting on
+	 * the buffer.</p>
+	 */
+	@Override public void close() {
+		sharedOutputBuffer.shutdown();
+	}
+
+	@Override public boolean isRepeatable() {
+		return (false);
+	}
+
+	@Override public long getContentLength() {
+		return (wrappedEntity.getContentLength());
+	}
+
+	@Override public InputStream getContent() throws IOException {
+		return (wrappedEntity.getContent());
+	}
+
+	@Override public void writeTo(OutputStream outStream) throws IOException {
+		wrappedEntity.writeTo(outStream);
+	}
+
+	@Override public boolean isStreaming() {
+		return (true);
+	}
+}
@@ -0,0 +1,66 @@
+package com.synapticloop.panl.server.http;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+
+/**
+ * <p>An entity for a static resource which also holds the resource's content
+ * gzip compressed, so that it is only compressed once (when it is first
+ * loaded) rather than on every request.  The response compressor will swap
+ * in the compressed content if the client accepts it.</p>
+ *
+ * @author synapticloop
+ */
+public class PanlPrecompressedEntity extends ByteArrayEntity {
+	private final byte[] gzipContent;
+	private final ContentType contentType;
+
+	/**
+	 * <p>Instantiate the entity.</p>
+	 *
+	 * @param content The uncompressed content
+	 * @param gzipContent The gzip compressed content
+	 * @param contentType The content type
+	 */
+	public PanlPrecompressedEntity(byte[] content, byte[] gzipContent, ContentType contentType) {
+		super(content, contentType);
+		this.gzipContent = gzipContent;
+		this.contentType = contentType;
+	}
+
+	/**
+	 * <p>Return the entity with the gzip compressed content.</p>
+	 *
+	 * @return The gzip compressed entity
+	 */
+	public HttpEntity getGzipEntity() {
+		ByteArrayEntity byteArrayEntity = new ByteArrayEntity(gzipContent, contentType);
+		byteArrayEntity.setContentEncoding(PanlResponseCompressor.ENCODING_GZIP);
+		return (byteArrayEntity);
+	}
+}
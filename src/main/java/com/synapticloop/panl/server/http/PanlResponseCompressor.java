@@ -0,0 +1,368 @@
+package com.synapticloop.panl.server.http;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.HttpStatus;
+import org.apache.http.NameValuePair;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Compresses the response body with gzip or deflate, as negotiated with
+ * the request's <code>Accept-Encoding</code> header (gzip is preferred when
+ * the client accepts both equally).</p>
+ *
+ * <p>Only textual content types (e.g. the JSON responses, and the HTML, CSS,
+ * and JavaScript web app resources) are compressed, and only if the body is
+ * at least the minimum number of bytes.  A body of known length is
+ * compressed up front, and is only sent compressed if it is smaller.</p>
+ *
+ * <p>A body of unknown length (i.e. a streamed response, such as the JSON
+ * response) is written to a buffer of at most the minimum number of bytes
+ * if it is repeatable.  If the whole body fits, it is sent uncompressed from
+ * the buffer, otherwise the buffer is discarded and the body is compressed
+ * as it is written out.  A body which is not repeatable is always
+ * compressed.</p>
+ *
+ * <p>A <code>PanlPrecompressedEntity</code> (i.e. a static resource) is
+ * served with its already compressed content.</p>
+ *
+ * <p>In blocking mode, this is a response interceptor which __MUST__ run
+ * before the <code>ResponseContent</code> interceptor, so that the
+ * content length and transfer encoding headers are set from the compressed
+ * entity.  In NIO mode, it is called before the response is submitted, as
+ * the response producer takes the entity at that point.</p>
+ *
+ * @author synapticloop
+ */
+public class PanlResponseCompressor implements HttpResponseInterceptor {
+	public static final String ENCODING_GZIP = "gzip";
+	public static final String ENCODING_DEFLATE = "deflate";
+
+	private final int minBytes;
+
+	private final LongAdder numCompressed = new LongAdder();
+
+	/**
+	 * <p>Instantiate the response compressor.</p>
+	 *
+	 * @param minBytes The minimum number of bytes that a body must be before
+	 *   it is compressed
+	 */
+	public PanlResponseCompressor(int minBytes) {
+		this.minBytes = minBytes;
+	}
+
+	@Override public void process(HttpResponse response, HttpContext context) throws IOException {
+		compress(HttpCoreContext.adapt(context).getRequest(), response);
+	}
+
+	/**
+	 * <p>Compress the response entity, if the client accepts a supported
+	 * content encoding and the entity is compressible.</p>
+	 *
+	 * @param request The HTTP request
+	 * @param response The HTTP response to compress the entity of
+	 *
+	 * @throws IOException If the entity could not be compressed
+	 */
+	public void compress(HttpRequest request, HttpResponse response) throws IOException {
+		HttpEntity httpEntity = response.getEntity();
+		if (null == request || !getIsCompressible(response, httpEntity)) {
+			return;
+		}
+
+		// the response differs depending on the request header, which any cache
+		// in front of the Panl server needs to know
+		response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+		String encoding = getEncoding(request);
+		if (null == encoding || "HEAD".equalsIgnoreCase(request.getRequestLine().getMethod())) {
+			return;
+		}
+
+		if (httpEntity instanceof PanlPrecompressedEntity && ENCODING_GZIP.equals(encoding)) {
+			response.setEntity(((PanlPrecompressedEntity) httpEntity).getGzipEntity());
+			numCompressed.increment();
+			return;
+		}
+
+		long contentLength = httpEntity.getContentLength();
+		if (contentLength < 0) {
+			if (httpEntity.isRepeatable()) {
+				byte[] content = getContentBelowMinBytes(httpEntity);
+				if (null != content) {
+					ByteArrayEntity byteArrayEntity = new ByteArrayEntity(content);
+					byteArrayEntity.setContentType(httpEntity.getContentType());
+					response.setEntity(byteArrayEntity);
+					return;
+				}
+			}
+
+			response.setEntity(new PanlCompressingEntity(httpEntity, encoding));
+			numCompressed.increment();
+			return;
+		}
+
+		ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream((int) Math.min(contentLength, 65536));
+		try (OutputStream outputStream = PanlCompressingEntity.getCompressingOutputStream(byteArrayOutputStream, encoding)) {
+			httpEntity.writeTo(outputStream);
+		}
+
+		if (byteArrayOutputStream.size() < contentLength) {
+			ByteArrayEntity byteArrayEntity = new ByteArrayEntity(byteArrayOutputStream.toByteArray());
+			byteArrayEntity.setContentType(httpEntity.getContentType());
+			byteArrayEntity.setContentEncoding(encoding);
+			response.setEntity(byteArrayEntity);
+			numCompressed.increment();
+		}
+	}
+
+	/**
+	 * <p>Write the (repeatable) entity to a buffer, stopping as soon as it
+	 * reaches the minimum number of bytes.</p>
+	 *
+	 * @param httpEntity The entity to write
+	 *
+	 * @return The content of the entity if it is smaller than the minimum
+	 *   number of bytes, or null if it is not
+	 *
+	 * @throws IOException If the entity could not be written
+	 */
+	private byte[] getContentBelowMinBytes(HttpEntity httpEntity) throws IOException {
+		BoundedOutputStream boundedOutputStream = new BoundedOutputStream(minBytes);
+		try {
+			httpEntity.writeTo(boundedOutputStream);
+		} catch (MinBytesReachedException e) {
+			return (null);
+		}
+		return (boundedOutputStream.toByteArray());
+	}
+
+	/**
+	 * <p>Return whether the response entity may be compressed.</p>
+	 *
+	 * @param response The HTTP response
+	 * @param httpEntity The response entity
+	 *
+	 * @return Whether the entity may be compressed
+	 */
+	private boolean getIsCompressible(HttpResponse response, HttpEntity httpEntity) {
+		if (null == httpEntity) {
+			return (false);
+		}
+
+		int statusCode = response.getStatusLine().getStatusCode();
+		if (statusCode < HttpStatus.SC_OK ||
+				statusCode == HttpStatus.SC_NO_CONTENT ||
+				statusCode == HttpStatus.SC_PARTIAL_CONTENT ||
+				statusCode == HttpStatus.SC_NOT_MODIFIED) {
+			return (false);
+		}
+
+		if (null != httpEntity.getContentEncoding() || response.containsHeader(HttpHeaders.CONTENT_ENCODING)) {
+			return (false);
+		}
+
+		long contentLength = httpEntity.getContentLength();
+		if (contentLength >= 0 && contentLength < minBytes) {
+			return (false);
+		}
+
+		Header contentType = httpEntity.getContentType();
+		return (null != contentType && getIsCompressibleContentType(contentType.getValue()));
+	}
+
+	/**
+	 * <p>Return whether the content type is textual, and so worth
+	 * compressing.</p>
+	 *
+	 * @param contentType The content type header value, which may include
+	 *   parameters (e.g. the charset)
+	 *
+	 * @return Whether the content type is compressible
+	 */
+	public static boolean getIsCompressibleContentType(String contentType) {
+		String mimeType = contentType;
+		int indexOf = mimeType.indexOf(';');
+		if (indexOf != -1) {
+			mimeType = mimeType.substring(0, indexOf);
+		}
+		mimeType = mimeType.trim().toLowerCase(Locale.ROOT);
+
+		return (mimeType.startsWith("text/") ||
+				mimeType.equals("application/json") ||
+				mimeType.equals("application/javascript") ||
+				mimeType.equals("application/xml") ||
+				mimeType.endsWith("+json") ||
+				mimeType.endsWith("+xml"));
+	}
+
+	/**
+	 * <p>Return the content encoding to use from the request's
+	 * <code>Accept-Encoding</code> header, taking the quality values into
+	 * account.</p>
+	 *
+	 * @param request The HTTP request
+	 *
+	 * @return The content encoding, or null if the client does not accept a
+	 *   supported encoding
+	 */
+	static String getEncoding(HttpRequest request) {
+		float gzipQuality = -1.0f;
+		float deflateQuality = -1.0f;
+		float anyQuality = -1.0f;
+
+		for (Header header : request.getHeaders(HttpHeaders.ACCEPT_ENCODING)) {
+			for (HeaderElement headerElement : header.getElements()) {
+				String name = headerElement.getName().toLowerCase(Locale.ROOT);
+				float quality = getQuality(headerElement);
+				switch (name) {
+					case ENCODING_GZIP:
+					case "x-gzip":
+						gzipQuality = Math.max(gzipQuality, quality);
+						break;
+					case ENCODING_DEFLATE:
+						deflateQuality = Math.max(deflateQuality, quality);
+						break;
+					case "*":
+						anyQuality = Math.max(anyQuality, quality);
+						break;
+				}
+			}
+		}
+
+		// an encoding that is not listed takes the quality of the wildcard
+		if (gzipQuality < 0) {
+			gzipQuality = anyQuality;
+		}
+		if (deflateQuality < 0) {
+			deflateQuality = anyQuality;
+		}
+
+		if (gzipQuality > 0 && gzipQuality >= deflateQuality) {
+			return (ENCODING_GZIP);
+		}
+		if (deflateQuality > 0) {
+			return (ENCODING_DEFLATE);
+		}
+		return (null);
+	}
+
+	private static float getQuality(HeaderElement headerElement) {
+		NameValuePair quality = headerElement.getParameterByName("q");
+		if (null == quality || null == quality.getValue()) {
+			return (1.0f);
+		}
+
+		try {
+			return (Float.parseFloat(quality.getValue().trim()));
+		} catch (NumberFormatException e) {
+			return (0.0f);
+		}
+	}
+
+	/**
+	 * <p>Gzip compress the content.</p>
+	 *
+	 * @param content The content to compress
+	 *
+	 * @return The gzip compressed content
+	 *
+	 * @throws IOException If the content could not be compressed
+	 */
+	public static byte[] gzip(byte[] content) throws IOException {
+		ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(Math.max(32, content.length / 4));
+		try (OutputStream outputStream = PanlCompressingEntity.getCompressingOutputStream(byteArrayOutputStream, ENCODING_GZIP)) {
+			outputStream.write(content);
+		}
+		return (byteArrayOutputStream.toByteArray());
+	}
+
+	/**
+	 * <p>Return the number of responses that were sent compressed.</p>
+	 *
+	 * @return The number of compressed responses
+	 */
+	public long getNumCompressed() {
+		return (numCompressed.sum());
+	}
+
+	/**
+	 * <p>A buffer which throws a <code>MinBytesReachedException</code> as soon
+	 * as the number of bytes written to it reaches the maximum.</p>
+	 */
+	private static class BoundedOutputStream extends ByteArrayOutputStream {
+		private final int maxBytes;
+
+		private BoundedOutputStream(int maxBytes) {
+			super(Math.max(32, maxBytes));
+			this.maxBytes = maxBytes;
+		}
+
+		@Override public void write(int b) {
+			checkMaxBytes(1);
+			super.write(b);
+		}
+
+		@Override public void write(byte[] bytes, int offset, int length) {
+			checkMaxBytes(length);
+			super.write(bytes, offset, length);
+		}
+
+		private void checkMaxBytes(int length) {
+			if (count + length >= maxBytes) {
+				throw MinBytesReachedException.INSTANCE;
+			}
+		}
+	}
+
+	/**
+	 * <p>Thrown to stop writing an entity to the buffer once it is known to be
+	 * large enough to compress - this is unchecked so that it passes straight
+	 * through the writer that the entity writes with.</p>
+	 */
+	private static class MinBytesReachedException extends RuntimeException {
+		private static final MinBytesReachedException INSTANCE = new MinBytesReachedException();
+
+		private MinBytesReachedException() {
+			super("The minimum number of bytes to compress has been reached.", null, false, false);
+		}
+	}
+}
@@ -0,0 +1,10 @@
+/**
+ * <p>The package for the embedded HTTP servers that service the Panl
+ * requests - either blocking, or non-blocking (NIO) - with a configurable
+ * worker pool, backlog, and socket options.</p>
+ *
+ * @since 1.0
+ * @author synapticloop
+ * @version 1.0
+ */
+package com.synapticloop.panl.server.http;
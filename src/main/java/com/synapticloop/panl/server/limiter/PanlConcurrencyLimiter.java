@@ -0,0 +1,223 @@
+package com.synapticloop.panl.server.limiter;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>An adaptive concurrency limiter for a single handler and collection,
+ * which limits the number of requests that may be in flight at the same
+ * time, and adjusts that limit from the observed request latency.</p>
+ *
+ * <p>The limit is adjusted with an additive increase, multiplicative decrease
+ * (AIMD) algorithm, where the congestion signal is either a failed request
+ * (the Solr server failed the request), or a Solr request that took longer
+ * than the latency tolerance multiplied by the minimum latency that has
+ * recently been seen (which is the latency of the Solr server when it is not
+ * loaded):</p>
+ *
+ * <ul>
+ *   <li>On congestion, the limit is multiplied by the back off ratio - this is
+ *   only done once for all the requests that were admitted under the previous
+ *   limit, so that a burst of slow requests does not collapse the limit.</li>
+ *   <li>Otherwise, if at least half of the limit is in use, the limit is
+ *   increased by <code>1 / limit</code>, i.e. by one for every limit's worth
+ *   of requests.</li>
+ * </ul>
+ *
+ * <p>Only the time taken to send the request to, and receive the response
+ * from, the Solr server is used - requests which are served from a cache, or
+ * which never reach the Solr server, do not adjust the limit.</p>
+ *
+ * <p>The minimum latency is taken over a window of requests, so that the
+ * limiter adapts to a permanent change in the Solr server latency, rather
+ * than backing off forever.</p>
+ *
+ * <p>Admission is lock-free, only the (cheap) limit update when a request
+ * completes is synchronised.</p>
+ *
+ * @author synapticloop
+ */
+public class PanlConcurrencyLimiter {
+	public static final double BACKOFF_RATIO = 0.9d;
+	public static final int MIN_LATENCY_WINDOW = 1000;
+
+	private final String handlerName;
+	private final String collection;
+	private final int minLimit;
+	private final int maxLimit;
+	private final double latencyTolerance;
+
+	private final AtomicInteger numInFlight = new AtomicInteger();
+	private final LongAdder numRejected = new LongAdder();
+	private volatile int limit;
+
+	// these are guarded by this limiter
+	private double estimatedLimit;
+	private long minLatencyNanos = Long.MAX_VALUE;
+	private long windowMinLatencyNanos = Long.MAX_VALUE;
+	private int numWindowSamples = 0;
+	private long lastBackOffNanos;
+
+	/**
+	 * <p>Instantiate the concurrency limiter.</p>
+	 *
+	 * @param handlerName The name of the handler that is limited
+	 * @param collection The Panl collection URI that is limited
+	 * @param initialLimit The initial number of concurrent requests
+	 * @param minLimit The minimum number of concurrent requests
+	 * @param maxLimit The maximum number of concurrent requests
+	 * @param latencyTolerance The multiple of the minimum latency above which
+	 *   a request is taken as a sign of congestion
+	 */
+	public PanlConcurrencyLimiter(
+			String handlerName,
+			String collection,
+			int initialLimit,
+			int minLimit,
+			int maxLimit,
+			double latencyTolerance) {
+		this.handlerName = handlerName;
+		this.collection = collection;
+		this.minLimit = Math.max(1, minLimit);
+		this.maxLimit = Math.max(this.minLimit, maxLimit);
+		this.latencyTolerance = latencyTolerance;
+
+		this.estimatedLimit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+		this.limit = (int) estimatedLimit;
+		this.lastBackOffNanos = System.nanoTime();
+	}
+
+	/**
+	 * <p>Try to admit a request - if the request is admitted, then
+	 * <code>release</code> __MUST__ be called when the request completes.</p>
+	 *
+	 * @return Whether the request was admitted
+	 */
+	public boolean tryAcquire() {
+		while (true) {
+			int current = numInFlight.get();
+			if (current >= limit) {
+				numRejected.increment();
+				return (false);
+			}
+
+			if (numInFlight.compareAndSet(current, current + 1)) {
+				return (true);
+			}
+		}
+	}
+
+	/**
+	 * <p>Release an admitted request, and adjust the limit from the Solr
+	 * request latency.</p>
+	 *
+	 * @param startNanos The nano time that the Solr request was sent
+	 * @param latencyNanos The number of nanos that the Solr request took
+	 * @param isFailed Whether the request failed
+	 */
+	public void release(long startNanos, long latencyNanos, boolean isFailed) {
+		int inFlight = numInFlight.getAndDecrement();
+		update(startNanos, latencyNanos, isFailed, inFlight);
+	}
+
+	/**
+	 * <p>Release an admitted request without adjusting the limit, as the
+	 * request did not reach the Solr server (so its latency says nothing about
+	 * the Solr server).</p>
+	 */
+	public void release() {
+		numInFlight.decrementAndGet();
+	}
+
+	private synchronized void update(long startNanos, long latencyNanos, boolean isFailed, int inFlight) {
+		windowMinLatencyNanos = Math.min(windowMinLatencyNanos, latencyNanos);
+		if (++numWindowSamples >= MIN_LATENCY_WINDOW) {
+			minLatencyNanos = windowMinLatencyNanos;
+			windowMinLatencyNanos = Long.MAX_VALUE;
+			numWindowSamples = 0;
+		}
+
+		long baselineNanos = Math.min(minLatencyNanos, windowMinLatencyNanos);
+		if (isFailed || latencyNanos > baselineNanos * latencyTolerance) {
+			// only back off once for the requests that were admitted under the
+			// previous limit
+			if (startNanos - lastBackOffNanos >= 0) {
+				estimatedLimit = Math.max(minLimit, estimatedLimit * BACKOFF_RATIO);
+				lastBackOffNanos = System.nanoTime();
+			}
+		} else if (inFlight * 2 >= estimatedLimit) {
+			estimatedLimit = Math.min(maxLimit, estimatedLimit + 1.0d / estimatedLimit);
+		}
+
+		limit = (int) estimatedLimit;
+	}
+
+	/**
+	 * <p>Return the name of the handler that is limited.</p>
+	 *
+	 * @return The name of the handler
+	 */
+	public String getHandlerName() {
+		return (handlerName);
+	}
+
+	/**
+	 * <p>Return the Panl collection URI that is limited.</p>
+	 *
+	 * @return The Panl collection URI
+	 */
+	public String getCollection() {
+		return (collection);
+	}
+
+	/**
+	 * <p>Return the current concurrency limit.</p>
+	 *
+	 * @return The current limit
+	 */
+	public int getLimit() {
+		return (limit);
+	}
+
+	/**
+	 * <p>Return the number of admitted requests that are in flight.</p>
+	 *
+	 * @return The number of in-flight requests
+	 */
+	public int getNumInFlight() {
+		return (numInFlight.get());
+	}
+
+	/**
+	 * <p>Return the number of requests that were rejected.</p>
+	 *
+	 * @return The number of rejected requests
+	 */
+	public long getNumRejected() {
+		return (numRejected.sum());
+	}
+}
@@ -0,0 +1,143 @@
+package com.synapticloop.panl.server.limiter;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import com.synapticloop.panl.exception.PanlConcurrencyLimitException;
+import com.synapticloop.panl.server.http.BaseHttpServer;
+import com.synapticloop.panl.util.Constants;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * <p>The concurrency permit for a single request, which is placed in the HTTP
+ * context by the instrumented handler.  The permit is only acquired when the
+ * request is about to be sent to the Solr server (i.e. after the response and
+ * snapshot caches have been looked up), so that cached responses are never
+ * shed, and the limit is only adjusted from the time taken to send the
+ * request to, and receive the response from, the Solr server.</p>
+ *
+ * <p>A request that was admitted, but did not send a request to the Solr
+ * server (e.g. the circuit breaker is open), is released without adjusting
+ * the limit.</p>
+ *
+ * <p>A permit is only ever updated by the thread that is currently handling
+ * the request, and is handed between threads by the completion of the
+ * request future, so it does not need to be synchronised.</p>
+ *
+ * @author synapticloop
+ *
+ * @see PanlConcurrencyLimiter
+ */
+public class PanlConcurrencyPermit {
+	private final PanlConcurrencyLimiter panlConcurrencyLimiter;
+
+	private boolean isAcquired = false;
+	private boolean isSent = false;
+	private long sendStartNanos;
+	private long sendRequestNanos = 0L;
+	private boolean isFailed = false;
+
+	/**
+	 * <p>Instantiate the permit for a request.</p>
+	 *
+	 * @param panlConcurrencyLimiter The concurrency limiter to acquire from
+	 */
+	public PanlConcurrencyPermit(PanlConcurrencyLimiter panlConcurrencyLimiter) {
+		this.panlConcurrencyLimiter = panlConcurrencyLimiter;
+	}
+
+	/**
+	 * <p>Return the concurrency permit from the HTTP context.</p>
+	 *
+	 * @param context The HTTP context for the request
+	 *
+	 * @return The concurrency permit, or null if the request is not limited
+	 */
+	public static PanlConcurrencyPermit get(HttpContext context) {
+		if (null == context) {
+			return (null);
+		}
+		return ((PanlConcurrencyPermit) context.getAttribute(Constants.Context.Panl.CONCURRENCY_PERMIT));
+	}
+
+	/**
+	 * <p>Acquire the permit before the request is sent to the Solr server - if
+	 * the permit has already been acquired for this request (e.g. the request
+	 * is retried), then this does nothing.</p>
+	 *
+	 * @throws PanlConcurrencyLimitException If the concurrency limit has been
+	 *   reached
+	 */
+	public void acquire() throws PanlConcurrencyLimitException {
+		if (isAcquired) {
+			return;
+		}
+
+		if (!panlConcurrencyLimiter.tryAcquire()) {
+			throw new PanlConcurrencyLimitException(
+					String.format("The concurrency limit for handler '%s' and collection '%s' has been reached, the request was not sent",
+							panlConcurrencyLimiter.getHandlerName(),
+							panlConcurrencyLimiter.getCollection()),
+					BaseHttpServer.RETRY_AFTER_SECONDS);
+		}
+		isAcquired = true;
+	}
+
+	/**
+	 * <p>Record a request that was sent to the Solr server.  If the request is
+	 * sent more than once (e.g. it is retried), the times are added together,
+	 * and the request is failed if any of them failed.</p>
+	 *
+	 * @param startNanos The nano time that the request was sent
+	 * @param sendRequestNanos The nanos taken to send the request to, and
+	 *   receive the response from, the Solr server
+	 * @param isFailed Whether the Solr server failed the request
+	 */
+	public void recordSolrRequest(long startNanos, long sendRequestNanos, boolean isFailed) {
+		if (!isSent) {
+			this.isSent = true;
+			this.sendStartNanos = startNanos;
+		}
+		this.sendRequestNanos += sendRequestNanos;
+		this.isFailed |= isFailed;
+	}
+
+	/**
+	 * <p>Release the permit (if it was acquired) once the request has
+	 * completed, adjusting the limit only if the request was sent to the Solr
+	 * server.</p>
+	 */
+	public void release() {
+		if (!isAcquired) {
+			return;
+		}
+
+		isAcquired = false;
+		if (isSent) {
+			panlConcurrencyLimiter.release(sendStartNanos, sendRequestNanos, isFailed);
+		} else {
+			panlConcurrencyLimiter.release();
+		}
+	}
+}
@@ -0,0 +1,10 @@
+/**
+ * <p>The package for the adaptive concurrency limiters which shed load with
+ * a <code>503 Service Unavailable</code> response when the Solr server slows
+ * down.</p>
+ *
+ * @since 1.0
+ * @author synapticloop
+ * @version 1.0
+ */
+package com.synapticloop.panl.server.limiter;
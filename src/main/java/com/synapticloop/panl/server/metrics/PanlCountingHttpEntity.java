@@ -0,0 +1,79 @@
+package com.synapticloop.panl.server.metrics;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.LongConsumer;
+
+/**
+ * <p>A HTTP entity wrapper which counts the number of bytes that are written
+ * by a streaming entity (which does not know its content length up front),
+ * and passes the count to the consumer once the entity has been written.</p>
+ *
+ * @author synapticloop
+ */
+public class PanlCountingHttpEntity extends HttpEntityWrapper {
+	private final LongConsumer numBytesConsumer;
+
+	/**
+	 * <p>Wrap the entity.</p>
+	 *
+	 * @param httpEntity The entity to wrap
+	 * @param numBytesConsumer The consumer of the number of bytes written
+	 */
+	public PanlCountingHttpEntity(HttpEntity httpEntity, LongConsumer numBytesConsumer) {
+		super(httpEntity);
+		this.numBytesConsumer = numBytesConsumer;
+	}
+
+	@Override public void writeTo(OutputStream outputStream) throws IOException {
+		CountingOutputStream countingOutputStream = new CountingOutputStream(outputStream);
+		super.writeTo(countingOutputStream);
+		numBytesConsumer.accept(countingOutputStream.numBytes);
+	}
+
+	private static class CountingOutputStream extends FilterOutputStream {
+		private long numBytes = 0;
+
+		private CountingOutputStream(OutputStream outputStream) {
+			super(outputStream);
+		}
+
+		@Override public void write(int b) throws IOException {
+			out.write(b);
+			numBytes++;
+		}
+
+		@Override public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			numBytes += len;
+		}
+	}
+}
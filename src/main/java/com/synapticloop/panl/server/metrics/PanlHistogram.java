@@ -0,0 +1,199 @@
+package com.synapticloop.panl.server.metrics;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>A fixed bucket latency histogram, recorded in nanoseconds and exported
+ * in seconds, in the Prometheus histogram format.</p>
+ *
+ * <p>Each bucket (and the sum and count) is a <code>LongAdder</code>, so
+ * concurrent recording never takes a lock, and contended updates are spread
+ * across cells rather than spinning on a single value.  The bucket counts are
+ * only summed when the histogram is exported, which means that an export
+ * taken while requests are being recorded may be very slightly
+ * inconsistent (e.g. the count may be one more than the last bucket) - this
+ * is acceptable for monitoring.</p>
+ *
+ * @author synapticloop
+ */
+public class PanlHistogram {
+	/**
+	 * <p>The (inclusive) upper bounds of the buckets, in nanoseconds.</p>
+	 */
+	private static final long[] BUCKET_BOUNDS_NANOS = {
+			100_000L,
+			250_000L,
+			500_000L,
+			1_000_000L,
+			2_500_000L,
+			5_000_000L,
+			10_000_000L,
+			25_000_000L,
+			50_000_000L,
+			100_000_000L,
+			250_000_000L,
+			500_000_000L,
+			1_000_000_000L,
+			2_500_000_000L,
+			5_000_000_000L,
+			10_000_000_000L
+	};
+
+	/**
+	 * <p>The <code>le</code> label values of the buckets, in seconds, including
+	 * the final <code>+Inf</code> bucket.</p>
+	 */
+	private static final String[] BUCKET_LABELS = {
+			"0.0001",
+			"0.00025",
+			"0.0005",
+			"0.001",
+			"0.0025",
+			"0.005",
+			"0.01",
+			"0.025",
+			"0.05",
+			"0.1",
+			"0.25",
+			"0.5",
+			"1",
+			"2.5",
+			"5",
+			"10",
+			"+Inf"
+	};
+
+	private final LongAdder[] buckets = new LongAdder[BUCKET_LABELS.length];
+	private final LongAdder sumNanos = new LongAdder();
+	private final LongAdder count = new LongAdder();
+
+	/**
+	 * <p>Instantiate an empty histogram.</p>
+	 */
+	public PanlHistogram() {
+		for (int i = 0; i < buckets.length; i++) {
+			buckets[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * <p>Record a duration.</p>
+	 *
+	 * @param nanos The duration in nanoseconds, negative durations are recorded
+	 *   as zero
+	 */
+	public void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+
+		int i = 0;
+		while (i < BUCKET_BOUNDS_NANOS.length && nanos > BUCKET_BOUNDS_NANOS[i]) {
+			i++;
+		}
+
+		buckets[i].increment();
+		sumNanos.add(nanos);
+		count.increment();
+	}
+
+	/**
+	 * <p>Return the number of recorded durations.</p>
+	 *
+	 * @return The number of recorded durations
+	 */
+	public long getCount() {
+		return (count.sum());
+	}
+
+	/**
+	 * <p>Return the sum of the recorded durations in nanoseconds.</p>
+	 *
+	 * @return The sum of the recorded durations in nanoseconds
+	 */
+	public long getSumNanos() {
+		return (sumNanos.sum());
+	}
+
+	/**
+	 * <p>Return the cumulative bucket counts, i.e. the number of recorded
+	 * durations that are less than or equal to each of the bucket bounds, the
+	 * last value being the <code>+Inf</code> bucket.</p>
+	 *
+	 * @return The cumulative bucket counts
+	 */
+	public long[] getCumulativeCounts() {
+		long[] cumulativeCounts = new long[buckets.length];
+		long total = 0;
+		for (int i = 0; i < buckets.length; i++) {
+			total += buckets[i].sum();
+			cumulativeCounts[i] = total;
+		}
+		return (cumulativeCounts);
+	}
+
+	/**
+	 * <p>Append this histogram in the Prometheus text format, i.e. the
+	 * cumulative <code>_bucket</code> lines, then the <code>_sum</code> (in
+	 * seconds) and <code>_count</code> lines.  The <code># TYPE</code> line
+	 * is not written, as it is shared between all histograms with the same
+	 * name.</p>
+	 *
+	 * @param stringBuilder The string builder to append to
+	 * @param name The metric name
+	 * @param labels The formatted labels (without the braces) that identify
+	 *   this histogram
+	 */
+	public void appendTo(StringBuilder stringBuilder, String name, String labels) {
+		long[] cumulativeCounts = getCumulativeCounts();
+		for (int i = 0; i < cumulativeCounts.length; i++) {
+			stringBuilder.append(name)
+			             .append("_bucket{")
+			             .append(labels)
+			             .append(",le=\"")
+			             .append(BUCKET_LABELS[i])
+			             .append("\"} ")
+			             .append(cumulativeCounts[i])
+			             .append('\n');
+		}
+
+		stringBuilder.append(name)
+		             .append("_sum{")
+		             .append(labels)
+		             .append("} ")
+		             .append(getSumNanos() / 1_000_000_000.0d)
+		             .append('\n');
+
+		// the count is the +Inf bucket, so that they always agree
+		stringBuilder.append(name)
+		             .append("_count{")
+		             .append(labels)
+		             .append("} ")
+		             .append(cumulativeCounts[cumulativeCounts.length - 1])
+		             .append('\n');
+	}
+}
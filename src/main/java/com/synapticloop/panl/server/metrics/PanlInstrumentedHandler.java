@@ -0,0 +1,302 @@
+package com.synapticloop.panl.server.metrics;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import com.synapticloop.panl.server.handler.PanlAsyncRequestHandler;
+import com.synapticloop.panl.server.limiter.PanlConcurrencyLimiter;
+import com.synapticloop.panl.server.limiter.PanlConcurrencyPermit;
+import com.synapticloop.panl.util.Constants;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestHandler;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * <p>A request handler which wraps another handler, recording the request
+ * count, error count, in-flight gauge, and latency for every request that is
+ * passed through to it.</p>
+ *
+ * <p>The request metrics for every collection are created when the handler is
+ * instrumented, and the collection for the request is found by comparing the
+ * second path segment of the URI against the known collection URIs (or is
+ * fixed for the collection handlers), so that recording never allocates,
+ * looks up a concurrent map, or takes a lock.</p>
+ *
+ * <p>If the wrapped handler is a <code>PanlAsyncRequestHandler</code>, the
+ * metrics are recorded when the returned future completes.</p>
+ *
+ * <p>If the requests are concurrency limited, a concurrency permit is placed
+ * in the HTTP context, which the wrapped handler acquires just before it
+ * sends the request to the Solr server (so that cached responses are never
+ * shed), and the permit is released when the request completes.</p>
+ *
+ * <p>If the slow request log is enabled, a request trace is placed in the HTTP
+ * context for the wrapped handler to add to, and it is passed to the slow
+ * request log if the request was slow.</p>
+ *
+ * @author synapticloop
+ *
+ * @see PanlMetrics#instrument(String, HttpRequestHandler)
+ */
+public class PanlInstrumentedHandler implements HttpRequestHandler, PanlAsyncRequestHandler {
+	private final String handlerName;
+	private final HttpRequestHandler httpRequestHandler;
+	private final String[] collections;
+	private final PanlRequestMetrics[] collectionRequestMetrics;
+	private final PanlRequestMetrics defaultRequestMetrics;
+	private final PanlConcurrencyLimiter[] collectionConcurrencyLimiters;
+	private final PanlConcurrencyLimiter defaultConcurrencyLimiter;
+	private final PanlSlowRequestLog panlSlowRequestLog;
+
+	/**
+	 * <p>Instantiate the instrumented handler.</p>
+	 *
+	 * @param handlerName The name of the handler
+	 * @param httpRequestHandler The handler to wrap
+	 * @param collections The Panl collection URIs that may appear as the
+	 *   second path segment of the request URI
+	 * @param collectionRequestMetrics The request metrics for each of the
+	 *   collections (in the same order)
+	 * @param defaultRequestMetrics The request metrics for requests that are
+	 *   not for one of the collections (or for all requests if there are no
+	 *   collections to match against)
+	 * @param collectionConcurrencyLimiters The concurrency limiters for each of
+	 *   the collections (in the same order), an entry may be null if the
+	 *   requests for the collection are not limited
+	 * @param defaultConcurrencyLimiter The concurrency limiter for requests that
+	 *   are not for one of the collections, or null if they are not limited
+	 * @param panlSlowRequestLog The slow request log
+	 */
+	PanlInstrumentedHandler(
+			String handlerName,
+			HttpRequestHandler httpRequestHandler,
+			String[] collections,
+			PanlRequestMetrics[] collectionRequestMetrics,
+			PanlRequestMetrics defaultRequestMetrics,
+			PanlConcurrencyLimiter[] collectionConcurrencyLimiters,
+			PanlConcurrencyLimiter defaultConcurrencyLimiter,
+			PanlSlowRequestLog panlSlowRequestLog) {
+		this.handlerName = handlerName;
+		this.httpRequestHandler = httpRequestHandler;
+		this.collections = collections;
+		this.collectionRequestMetrics = collectionRequestMetrics;
+		this.defaultRequestMetrics = defaultRequestMetrics;
+		this.collectionConcurrencyLimiters = collectionConcurrencyLimiters;
+		this.defaultConcurrencyLimiter = defaultConcurrencyLimiter;
+		this.panlSlowRequestLog = panlSlowRequestLog;
+	}
+
+	@Override
+	public void handle(HttpRequest request, HttpResponse response, HttpContext context) throws HttpException, IOException {
+		String uri = request.getRequestLine().getUri();
+		int collectionIndex = getCollectionIndex(uri);
+		PanlRequestMetrics panlRequestMetrics = getRequestMetrics(collectionIndex);
+		long startNanos = System.nanoTime();
+		panlRequestMetrics.markStart();
+
+		PanlConcurrencyPermit panlConcurrencyPermit = startPermit(context, getConcurrencyLimiter(collectionIndex));
+		PanlRequestTrace panlRequestTrace = startTrace(context);
+		int statusCode = HttpStatus.SC_INTERNAL_SERVER_ERROR;
+		try {
+			httpRequestHandler.handle(request, response, context);
+			statusCode = response.getStatusLine().getStatusCode();
+		} finally {
+			markEnd(panlRequestMetrics, panlConcurrencyPermit, panlRequestTrace, uri, response, startNanos, statusCode);
+		}
+	}
+
+	@Override
+	public CompletableFuture<Void> handleAsync(HttpRequest request, HttpResponse response, HttpContext context) {
+		if (!(httpRequestHandler instanceof PanlAsyncRequestHandler)) {
+			try {
+				handle(request, response, context);
+				return (CompletableFuture.completedFuture(null));
+			} catch (Exception e) {
+				return (CompletableFuture.failedFuture(e));
+			}
+		}
+
+		String uri = request.getRequestLine().getUri();
+		int collectionIndex = getCollectionIndex(uri);
+		PanlRequestMetrics panlRequestMetrics = getRequestMetrics(collectionIndex);
+		long startNanos = System.nanoTime();
+		panlRequestMetrics.markStart();
+
+		PanlConcurrencyPermit panlConcurrencyPermit = startPermit(context, getConcurrencyLimiter(collectionIndex));
+		PanlRequestTrace panlRequestTrace = startTrace(context);
+		CompletableFuture<Void> completableFuture;
+		try {
+			completableFuture = ((PanlAsyncRequestHandler) httpRequestHandler).handleAsync(request, response, context);
+		} catch (RuntimeException e) {
+			markEnd(panlRequestMetrics, panlConcurrencyPermit, panlRequestTrace, uri, response, startNanos, HttpStatus.SC_INTERNAL_SERVER_ERROR);
+			throw e;
+		}
+
+		return (completableFuture.whenComplete((unused, throwable) -> markEnd(
+				panlRequestMetrics,
+				panlConcurrencyPermit,
+				panlRequestTrace,
+				uri,
+				response,
+				startNanos,
+				(null == throwable) ? response.getStatusLine().getStatusCode() : HttpStatus.SC_INTERNAL_SERVER_ERROR)));
+	}
+
+	/**
+	 * <p>Start tracing the request, if the slow request log is enabled.</p>
+	 *
+	 * @param context The HTTP context to place the trace in
+	 *
+	 * @return The request trace, or null if requests are not traced
+	 */
+	private PanlRequestTrace startTrace(HttpContext context) {
+		if (!panlSlowRequestLog.getIsEnabled()) {
+			return (null);
+		}
+
+		PanlRequestTrace panlRequestTrace = new PanlRequestTrace();
+		context.setAttribute(Constants.Context.Panl.REQUEST_TRACE, panlRequestTrace);
+		return (panlRequestTrace);
+	}
+
+	/**
+	 * <p>Place a concurrency permit in the HTTP context for the wrapped handler
+	 * to acquire, if the requests are concurrency limited.</p>
+	 *
+	 * @param context The HTTP context to place the permit in
+	 * @param panlConcurrencyLimiter The concurrency limiter, or null if the
+	 *   requests are not limited
+	 *
+	 * @return The concurrency permit, or null if the requests are not limited
+	 */
+	private PanlConcurrencyPermit startPermit(HttpContext context, PanlConcurrencyLimiter panlConcurrencyLimiter) {
+		if (null == panlConcurrencyLimiter) {
+			return (null);
+		}
+
+		PanlConcurrencyPermit panlConcurrencyPermit = new PanlConcurrencyPermit(panlConcurrencyLimiter);
+		context.setAttribute(Constants.Context.Panl.CONCURRENCY_PERMIT, panlConcurrencyPermit);
+		return (panlConcurrencyPermit);
+	}
+
+	/**
+	 * <p>Mark the end of the request, recording the request metrics, releasing
+	 * the concurrency permit, and passing the request trace to the slow
+	 * request log if the request was slow.  If the response is streamed (so the
+	 * size is not yet known), the trace is logged once the response has been
+	 * written.</p>
+	 *
+	 * @param panlRequestMetrics The request metrics to record to
+	 * @param panlConcurrencyPermit The concurrency permit to release, or null
+	 *   if the request is not limited
+	 * @param panlRequestTrace The request trace, or null if not tracing
+	 * @param uri The request URI
+	 * @param response The HTTP response
+	 * @param startNanos The nano time that the request was started
+	 * @param statusCode The HTTP status code of the response
+	 */
+	private void markEnd(
+			PanlRequestMetrics panlRequestMetrics,
+			PanlConcurrencyPermit panlConcurrencyPermit,
+			PanlRequestTrace panlRequestTrace,
+			String uri,
+			HttpResponse response,
+			long startNanos,
+			int statusCode) {
+
+		long wallNanos = System.nanoTime() - startNanos;
+		panlRequestMetrics.markEnd(wallNanos, statusCode);
+		if (null != panlConcurrencyPermit) {
+			panlConcurrencyPermit.release();
+		}
+
+		if (null == panlRequestTrace || !panlSlowRequestLog.getIsSlow(handlerName, wallNanos, panlRequestTrace)) {
+			return;
+		}
+
+		panlRequestTrace.setRequest(handlerName, panlRequestMetrics.getCollection(), uri, statusCode, wallNanos);
+		HttpEntity httpEntity = response.getEntity();
+		if (null == httpEntity || httpEntity.getContentLength() >= 0) {
+			panlRequestTrace.setResponseBytes((null == httpEntity) ? 0 : httpEntity.getContentLength());
+			panlSlowRequestLog.log(panlRequestTrace);
+		} else {
+			response.setEntity(new PanlCountingHttpEntity(httpEntity, numBytes -> {
+				panlRequestTrace.setResponseBytes(numBytes);
+				panlSlowRequestLog.log(panlRequestTrace);
+			}));
+		}
+	}
+
+	/**
+	 * <p>Return the request metrics for the URI.</p>
+	 *
+	 * @param uri The request URI
+	 *
+	 * @return The request metrics for the collection, or the default request
+	 *   metrics if the URI is not for one of the collections
+	 */
+	PanlRequestMetrics getRequestMetrics(String uri) {
+		return (getRequestMetrics(getCollectionIndex(uri)));
+	}
+
+	private PanlRequestMetrics getRequestMetrics(int collectionIndex) {
+		return ((collectionIndex == -1) ? defaultRequestMetrics : collectionRequestMetrics[collectionIndex]);
+	}
+
+	private PanlConcurrencyLimiter getConcurrencyLimiter(int collectionIndex) {
+		return ((collectionIndex == -1) ? defaultConcurrencyLimiter : collectionConcurrencyLimiters[collectionIndex]);
+	}
+
+	/**
+	 * <p>Return the index of the collection for the URI, by matching the second
+	 * path segment against the collection URIs, without allocating.</p>
+	 *
+	 * @param uri The request URI
+	 *
+	 * @return The index of the collection, or -1 if the URI is not for one of
+	 *   the collections
+	 */
+	private int getCollectionIndex(String uri) {
+		int startOfSegment = uri.indexOf('/', 1) + 1;
+		if (startOfSegment > 0) {
+			for (int i = 0; i < collections.length; i++) {
+				String collection = collections[i];
+				if (uri.startsWith(collection, startOfSegment)) {
+					int endOfSegment = startOfSegment + collection.length();
+					if (endOfSegment == uri.length() || uri.charAt(endOfSegment) == '/' || uri.charAt(endOfSegment) == '?') {
+						return (i);
+					}
+				}
+			}
+		}
+		return (-1);
+	}
+}
@@ -0,0 +1,587 @@
+package com.synapticloop.panl.server.metrics;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import com.synapticloop.panl.server.cache.PanlLpseTokenCache;
+import com.synapticloop.panl.server.cache.PanlResponseCache;
+import com.synapticloop.panl.server.cache.PanlSnapshotCache;
+import com.synapticloop.panl.server.client.PanlCircuitBreaker;
+import com.synapticloop.panl.server.client.PanlRequestCoalescer;
+import com.synapticloop.panl.server.handler.CollectionRequestHandler;
+import com.synapticloop.panl.server.handler.properties.PanlProperties;
+import com.synapticloop.panl.server.http.BaseHttpServer;
+import com.synapticloop.panl.server.limiter.PanlConcurrencyLimiter;
+import org.apache.http.entity.ContentType;
+import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.protocol.HttpRequestHandler;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * <p>The registry of all the Panl server metrics, which renders them in the
+ * Prometheus text exposition format.</p>
+ *
+ * <p>The request metrics are registered when the handlers are instrumented
+ * on server start up, the phase metrics are owned by each of the
+ * <code>CollectionRequestHandler</code> instances, and the cache and
+ * request coalescer values are read from the collection request handlers
+ * when the metrics are rendered.  Nothing is created or looked up on the
+ * request path, so recording is lock-free.</p>
+ *
+ * <p>The exported metrics are:</p>
+ *
+ * <ul>
+ *   <li><code>panl_requests_total</code>,
+ *   <code>panl_request_errors_total</code>,
+ *   <code>panl_requests_in_flight</code>, and
+ *   <code>panl_request_duration_seconds</code> - by handler and
+ *   collection</li>
+ *   <li><code>panl_phase_duration_seconds</code> - by handler, collection,
+ *   and phase</li>
+ *   <li><code>panl_cache_*</code> - by collection and cache</li>
+ *   <li><code>panl_solr_*</code> - the request coalescer and circuit breaker
+ *   values, by collection</li>
+ *   <li><code>panl_slow_requests_*</code> - the slow request log counts</li>
+ *   <li><code>panl_limiter_*</code> - the concurrency limiter values, by
+ *   handler and collection</li>
+ *   <li><code>panl_http_*</code> - the HTTP server connection and worker
+ *   pool values</li>
+ * </ul>
+ *
+ * @author synapticloop
+ */
+public class PanlMetrics {
+	public static final String HANDLER_COLLECTION = "collection";
+	public static final String HANDLER_DEFAULT = "default";
+	public static final String HANDLER_LOOKAHEAD = "lookahead";
+	public static final String HANDLER_MORE_FACETS = "more_facets";
+	public static final String HANDLER_MORE_LIKE_THIS = "more_like_this";
+	public static final String HANDLER_SINGLE_PAGE = "single_page";
+	public static final String HANDLER_TESTING = "testing";
+
+	/**
+	 * <p>The handlers that send requests through to the Solr server, and so
+	 * have phase metrics for each collection.</p>
+	 */
+	public static final List<String> SOLR_HANDLER_NAMES = List.of(
+			HANDLER_COLLECTION,
+			HANDLER_LOOKAHEAD,
+			HANDLER_MORE_FACETS,
+			HANDLER_MORE_LIKE_THIS,
+			HANDLER_SINGLE_PAGE);
+
+	public static final ContentType CONTENT_TYPE_PROMETHEUS = ContentType.create(
+			"text/plain",
+			new BasicNameValuePair("version", "0.0.4"),
+			new BasicNameValuePair("charset", "utf-8"));
+
+	private static final String CACHE_RESPONSE = "response";
+	private static final String CACHE_SNAPSHOT = "snapshot";
+	private static final String CACHE_LPSE_TOKEN = "lpse_token";
+
+	private final List<CollectionRequestHandler> collectionRequestHandlers;
+	private final PanlSlowRequestLog panlSlowRequestLog;
+	private final PanlProperties panlProperties;
+	private final Map<String, PanlRequestMetrics> requestMetricsMap = new ConcurrentHashMap<>();
+	private final List<PanlRequestMetrics> requestMetricsList = new CopyOnWriteArrayList<>();
+	private final Map<String, PanlConcurrencyLimiter> concurrencyLimiterMap = new ConcurrentHashMap<>();
+	private final List<PanlConcurrencyLimiter> concurrencyLimiterList = new CopyOnWriteArrayList<>();
+
+	private volatile BaseHttpServer httpServer = null;
+
+	/**
+	 * <p>Instantiate the metrics registry.</p>
+	 *
+	 * @param collectionRequestHandlers The collection request handlers to read
+	 *   the phase, cache, and request coalescer metrics from
+	 * @param panlSlowRequestLog The slow request log that the instrumented
+	 *   handlers will pass slow requests to
+	 * @param panlProperties The Panl properties, which configure the
+	 *   concurrency limiters
+	 */
+	public PanlMetrics(
+			List<CollectionRequestHandler> collectionRequestHandlers,
+			PanlSlowRequestLog panlSlowRequestLog,
+			PanlProperties panlProperties) {
+		this.collectionRequestHandlers = collectionRequestHandlers;
+		this.panlSlowRequestLog = panlSlowRequestLog;
+		this.panlProperties = panlProperties;
+	}
+
+	/**
+	 * <p>Set the HTTP server to read the connection and worker pool metrics
+	 * from - the HTTP server is created after the handlers are
+	 * instrumented.</p>
+	 *
+	 * @param httpServer The HTTP server
+	 */
+	public void setHttpServer(BaseHttpServer httpServer) {
+		this.httpServer = httpServer;
+	}
+
+	/**
+	 * <p>Instrument a handler that may serve requests for any of the
+	 * collections, where the collection is the second path segment of the URI
+	 * (e.g. <code>/panl-more-facets/&lt;panl_collection_uri&gt;/...</code>).
+	 * Requests that are not for a collection are recorded with an empty
+	 * collection label.</p>
+	 *
+	 * @param handlerName The name of the handler (the <code>handler</code>
+	 *   label)
+	 * @param httpRequestHandler The handler to instrument
+	 *
+	 * @return The instrumented handler
+	 */
+	public PanlInstrumentedHandler instrument(String handlerName, HttpRequestHandler httpRequestHandler) {
+		String[] collections = new String[collectionRequestHandlers.size()];
+		PanlRequestMetrics[] collectionRequestMetrics = new PanlRequestMetrics[collections.length];
+		PanlConcurrencyLimiter[] collectionConcurrencyLimiters = new PanlConcurrencyLimiter[collections.length];
+		for (int i = 0; i < collections.length; i++) {
+			collections[i] = collectionRequestHandlers.get(i).getPanlCollectionUri();
+			collectionRequestMetrics[i] = getRequestMetrics(handlerName, collections[i]);
+			collectionConcurrencyLimiters[i] = getConcurrencyLimiter(handlerName, collections[i]);
+		}
+
+		return (new PanlInstrumentedHandler(
+				handlerName,
+				httpRequestHandler,
+				collections,
+				collectionRequestMetrics,
+				getRequestMetrics(handlerName, ""),
+				collectionConcurrencyLimiters,
+				null,
+				panlSlowRequestLog));
+	}
+
+	/**
+	 * <p>Instrument a handler that only serves requests for a single
+	 * collection.</p>
+	 *
+	 * @param handlerName The name of the handler (the <code>handler</code>
+	 *   label)
+	 * @param collection The Panl collection URI (the <code>collection</code>
+	 *   label)
+	 * @param httpRequestHandler The handler to instrument
+	 *
+	 * @return The instrumented handler
+	 */
+	public PanlInstrumentedHandler instrument(String handlerName, String collection, HttpRequestHandler httpRequestHandler) {
+		return (new PanlInstrumentedHandler(
+				handlerName,
+				httpRequestHandler,
+				new String[0],
+				new PanlRequestMetrics[0],
+				getRequestMetrics(handlerName, collection),
+				new PanlConcurrencyLimiter[0],
+				getConcurrencyLimiter(handlerName, collection),
+				panlSlowRequestLog));
+	}
+
+	/**
+	 * <p>Return the request metrics for the handler and collection, creating
+	 * and registering them if they do not exist - handlers that are
+	 * instrumented with the same name share the same request metrics.</p>
+	 *
+	 * @param handlerName The name of the handler
+	 * @param collection The Panl collection URI
+	 *
+	 * @return The request metrics
+	 */
+	private PanlRequestMetrics getRequestMetrics(String handlerName, String collection) {
+		return (requestMetricsMap.computeIfAbsent(handlerName + "/" + collection, key -> {
+			PanlRequestMetrics panlRequestMetrics = new PanlRequestMetrics(handlerName, collection);
+			requestMetricsList.add(panlRequestMetrics);
+			return (panlRequestMetrics);
+		}));
+	}
+
+	/**
+	 * <p>Return the concurrency limiter for the handler and collection,
+	 * creating and registering it if it does not exist.  Only the handlers that
+	 * send requests to the Solr server are limited, and only if the limiter is
+	 * enabled.</p>
+	 *
+	 * @param handlerName The name of the handler
+	 * @param collection The Panl collection URI
+	 *
+	 * @return The concurrency limiter, or null if the requests are not limited
+	 */
+	private PanlConcurrencyLimiter getConcurrencyLimiter(String handlerName, String collection) {
+		if (!panlProperties.getHasLimiter() || !SOLR_HANDLER_NAMES.contains(handlerName)) {
+			return (null);
+		}
+
+		return (concurrencyLimiterMap.computeIfAbsent(handlerName + "/" + collection, key -> {
+			PanlConcurrencyLimiter panlConcurrencyLimiter = new PanlConcurrencyLimiter(
+					handlerName,
+					collection,
+					panlProperties.getLimiterInitialLimit(),
+					panlProperties.getLimiterMinLimit(),
+					panlProperties.getLimiterMaxLimit(),
+					panlProperties.getLimiterLatencyTolerance() / 100.0d);
+			concurrencyLimiterList.add(panlConcurrencyLimiter);
+			return (panlConcurrencyLimiter);
+		}));
+	}
+
+	/**
+	 * <p>Render all the metrics in the Prometheus text exposition format
+	 * (version 0.0.4).</p>
+	 *
+	 * @return The metrics text
+	 */
+	public String toPrometheusText() {
+		StringBuilder sb = new StringBuilder(16384);
+
+		appendHeader(sb, "panl_requests_total", "counter", "The number of requests that were handled.");
+		for (PanlRequestMetrics panlRequestMetrics : requestMetricsList) {
+			appendSample(sb, "panl_requests_total", getRequestLabels(panlRequestMetrics), panlRequestMetrics.getNumRequests());
+		}
+
+		appendHeader(sb, "panl_request_errors_total", "counter", "The number of requests that returned a 4xx or 5xx HTTP status code.");
+		for (PanlRequestMetrics panlRequestMetrics : requestMetricsList) {
+			String labels = getRequestLabels(panlRequestMetrics);
+			appendSample(sb, "panl_request_errors_total", labels + ",status_class=\"4xx\"", panlRequestMetrics.getNumClientErrors());
+			appendSample(sb, "panl_request_errors_total", labels + ",status_class=\"5xx\"", panlRequestMetrics.getNumServerErrors());
+		}
+
+		appendHeader(sb, "panl_requests_in_flight", "gauge", "The number of requests that are currently being handled.");
+		for (PanlRequestMetrics panlRequestMetrics : requestMetricsList) {
+			appendSample(sb, "panl_requests_in_flight", getRequestLabels(panlRequestMetrics), panlRequestMetrics.getNumInFlight());
+		}
+
+		appendHeader(sb, "panl_request_duration_seconds", "histogram", "The time taken to handle the request.");
+		for (PanlRequestMetrics panlRequestMetrics : requestMetricsList) {
+			panlRequestMetrics.getLatencyHistogram().appendTo(sb, "panl_request_duration_seconds", getRequestLabels(panlRequestMetrics));
+		}
+
+		appendHeader(sb, "panl_phase_duration_seconds", "histogram", "The time taken for each phase of a request that is sent to the Solr server.");
+		for (CollectionRequestHandler collectionRequestHandler : collectionRequestHandlers) {
+			for (String handlerName : SOLR_HANDLER_NAMES) {
+				PanlPhaseMetrics panlPhaseMetrics = collectionRequestHandler.getPhaseMetrics(handlerName);
+				String labels = "handler=\"" + escape(handlerName) + "\",collection=\"" + escape(panlPhaseMetrics.getCollection()) + "\",phase=\"";
+				panlPhaseMetrics.getParseRequestHistogram().appendTo(sb, "panl_phase_duration_seconds", labels + PanlPhaseMetrics.PHASE_PARSE_REQUEST + "\"");
+				panlPhaseMetrics.getBuildRequestHistogram().appendTo(sb, "panl_phase_duration_seconds", labels + PanlPhaseMetrics.PHASE_BUILD_REQUEST + "\"");
+				panlPhaseMetrics.getSendRequestHistogram().appendTo(sb, "panl_phase_duration_seconds", labels + PanlPhaseMetrics.PHASE_SEND_REQUEST + "\"");
+				panlPhaseMetrics.getBuildResponseHistogram().appendTo(sb, "panl_phase_duration_seconds", labels + PanlPhaseMetrics.PHASE_BUILD_RESPONSE + "\"");
+				panlPhaseMetrics.getCacheHitHistogram().appendTo(sb, "panl_phase_duration_seconds", labels + PanlPhaseMetrics.PHASE_CACHE_HIT + "\"");
+			}
+		}
+
+		appendCacheMetrics(sb);
+		appendSolrMetrics(sb);
+
+		appendHeader(sb, "panl_slow_requests_logged_total", "counter", "The number of requests that were written to the slow request log.");
+		sb.append("panl_slow_requests_logged_total ").append(panlSlowRequestLog.getNumLogged()).append('\n');
+		appendHeader(sb, "panl_slow_requests_dropped_total", "counter", "The number of slow requests that were not logged as the slow request log queue was full.");
+		sb.append("panl_slow_requests_dropped_total ").append(panlSlowRequestLog.getNumDropped()).append('\n');
+
+		appendLimiterMetrics(sb);
+		appendHttpServerMetrics(sb);
+
+		return (sb.toString());
+	}
+
+	/**
+	 * <p>Append the concurrency limiter metrics (if the limiters are
+	 * enabled).</p>
+	 *
+	 * @param sb The string builder to append to
+	 */
+	private void appendLimiterMetrics(StringBuilder sb) {
+		if (concurrencyLimiterList.isEmpty()) {
+			return;
+		}
+
+		appendHeader(sb, "panl_limiter_limit", "gauge", "The current adaptive concurrency limit.");
+		for (PanlConcurrencyLimiter panlConcurrencyLimiter : concurrencyLimiterList) {
+			appendSample(sb, "panl_limiter_limit", getLimiterLabels(panlConcurrencyLimiter), panlConcurrencyLimiter.getLimit());
+		}
+
+		appendHeader(sb, "panl_limiter_in_flight", "gauge", "The number of admitted requests that are in flight.");
+		for (PanlConcurrencyLimiter panlConcurrencyLimiter : concurrencyLimiterList) {
+			appendSample(sb, "panl_limiter_in_flight", getLimiterLabels(panlConcurrencyLimiter), panlConcurrencyLimiter.getNumInFlight());
+		}
+
+		appendHeader(sb, "panl_limiter_rejected_total", "counter", "The number of requests that were rejected as the concurrency limit was reached.");
+		for (PanlConcurrencyLimiter panlConcurrencyLimiter : concurrencyLimiterList) {
+			appendSample(sb, "panl_limiter_rejected_total", getLimiterLabels(panlConcurrencyLimiter), panlConcurrencyLimiter.getNumRejected());
+		}
+	}
+
+	/**
+	 * <p>Append the connection and worker pool metrics of the HTTP server (if
+	 * it has been set).</p>
+	 *
+	 * @param sb The string builder to append to
+	 */
+	private void appendHttpServerMetrics(StringBuilder sb) {
+		BaseHttpServer httpServerTemp = this.httpServer;
+		if (null == httpServerTemp) {
+			return;
+		}
+
+		appendHeader(sb, "panl_http_connections_open", "gauge", "The number of open HTTP connections.");
+		sb.append("panl_http_connections_open ").append(httpServerTemp.getNumOpenConnections()).append('\n');
+		appendHeader(sb, "panl_http_connections_queued", "gauge", "The number of accepted HTTP connections waiting for a worker thread.");
+		sb.append("panl_http_connections_queued ").append(httpServerTemp.getNumQueuedConnections()).append('\n');
+		appendHeader(sb, "panl_http_connections_rejected_total", "counter", "The number of HTTP connections that were rejected with a 503 response.");
+		sb.append("panl_http_connections_rejected_total ").append(httpServerTemp.getNumRejectedConnections()).append('\n');
+		appendHeader(sb, "panl_http_workers_active", "gauge", "The number of HTTP worker threads that are servicing a connection.");
+		sb.append("panl_http_workers_active ").append(httpServerTemp.getNumActiveWorkers()).append('\n');
+		appendHeader(sb, "panl_http_responses_compressed_total", "counter", "The number of HTTP responses that were sent compressed.");
+		sb.append("panl_http_responses_compressed_total ").append(httpServerTemp.getNumCompressedResponses()).append('\n');
+	}
+
+	/**
+	 * <p>Append the cache metrics for all the collections that have caches
+	 * enabled.</p>
+	 *
+	 * @param sb The string builder to append to
+	 */
+	private void appendCacheMetrics(StringBuilder sb) {
+		appendHeader(sb, "panl_cache_hits_total", "counter", "The number of cache lookups that were found.");
+		for (CollectionRequestHandler collectionRequestHandler : collectionRequestHandlers) {
+			PanlResponseCache panlResponseCache = collectionRequestHandler.getPanlResponseCache();
+			if (null != panlResponseCache) {
+				appendSample(sb, "panl_cache_hits_total", getCacheLabels(collectionRequestHandler, CACHE_RESPONSE), panlResponseCache.getNumHits());
+			}
+			PanlSnapshotCache panlSnapshotCache = collectionRequestHandler.getPanlSnapshotCache();
+			if (null != panlSnapshotCache) {
+				appendSample(sb, "panl_cache_hits_total", getCacheLabels(collectionRequestHandler, CACHE_SNAPSHOT), panlSnapshotCache.getNumHits());
+			}
+			PanlLpseTokenCache panlLpseTokenCache = collectionRequestHandler.getPanlLpseTokenCache();
+			if (null != panlLpseTokenCache) {
+				appendSample(sb, "panl_cache_hits_total", getCacheLabels(collectionRequestHandler, CACHE_LPSE_TOKEN), panlLpseTokenCache.getNumHits());
+			}
+		}
+
+		appendHeader(sb, "panl_cache_misses_total", "counter", "The number of cache lookups that were not found.");
+		for (CollectionRequestHandler collectionRequestHandler : collectionRequestHandlers) {
+			PanlResponseCache panlResponseCache = collectionRequestHandler.getPanlResponseCache();
+			if (null != panlResponseCache) {
+				appendSample(sb, "panl_cache_misses_total", getCacheLabels(collectionRequestHandler, CACHE_RESPONSE), panlResponseCache.getNumMisses());
+			}
+			PanlSnapshotCache panlSnapshotCache = collectionRequestHandler.getPanlSnapshotCache();
+			if (null != panlSnapshotCache) {
+				appendSample(sb, "panl_cache_misses_total", getCacheLabels(collectionRequestHandler, CACHE_SNAPSHOT), panlSnapshotCache.getNumMisses());
+			}
+			PanlLpseTokenCache panlLpseTokenCache = collectionRequestHandler.getPanlLpseTokenCache();
+			if (null != panlLpseTokenCache) {
+				appendSample(sb, "panl_cache_misses_total", getCacheLabels(collectionRequestHandler, CACHE_LPSE_TOKEN), panlLpseTokenCache.getNumMisses());
+			}
+		}
+
+		appendHeader(sb, "panl_cache_hit_ratio", "gauge", "The ratio of cache lookups that were found since the server was started.");
+		for (CollectionRequestHandler collectionRequestHandler : collectionRequestHandlers) {
+			PanlResponseCache panlResponseCache = collectionRequestHandler.getPanlResponseCache();
+			if (null != panlResponseCache) {
+				appendSample(sb, "panl_cache_hit_ratio", getCacheLabels(collectionRequestHandler, CACHE_RESPONSE), getRatio(panlResponseCache.getNumHits(), panlResponseCache.getNumMisses()));
+			}
+			PanlSnapshotCache panlSnapshotCache = collectionRequestHandler.getPanlSnapshotCache();
+			if (null != panlSnapshotCache) {
+				appendSample(sb, "panl_cache_hit_ratio", getCacheLabels(collectionRequestHandler, CACHE_SNAPSHOT), getRatio(panlSnapshotCache.getNumHits(), panlSnapshotCache.getNumMisses()));
+			}
+			PanlLpseTokenCache panlLpseTokenCache = collectionRequestHandler.getPanlLpseTokenCache();
+			if (null != panlLpseTokenCache) {
+				appendSample(sb, "panl_cache_hit_ratio", getCacheLabels(collectionRequestHandler, CACHE_LPSE_TOKEN), getRatio(panlLpseTokenCache.getNumHits(), panlLpseTokenCache.getNumMisses()));
+			}
+		}
+
+		appendHeader(sb, "panl_cache_entries", "gauge", "The number of entries that are currently cached.");
+		for (CollectionRequestHandler collectionRequestHandler : collectionRequestHandlers) {
+			PanlResponseCache panlResponseCache = collectionRequestHandler.getPanlResponseCache();
+			if (null != panlResponseCache) {
+				appendSample(sb, "panl_cache_entries", getCacheLabels(collectionRequestHandler, CACHE_RESPONSE), panlResponseCache.getNumEntries());
+			}
+			PanlSnapshotCache panlSnapshotCache = collectionRequestHandler.getPanlSnapshotCache();
+			if (null != panlSnapshotCache) {
+				appendSample(sb, "panl_cache_entries", getCacheLabels(collectionRequestHandler, CACHE_SNAPSHOT), panlSnapshotCache.getNumSnapshots());
+			}
+			PanlLpseTokenCache panlLpseTokenCache = collectionRequestHandler.getPanlLpseTokenCache();
+			if (null != panlLpseTokenCache) {
+				appendSample(sb, "panl_cache_entries", getCacheLabels(collectionRequestHandler, CACHE_LPSE_TOKEN), panlLpseTokenCache.getNumEntries());
+			}
+		}
+
+		appendHeader(sb, "panl_cache_evictions_total", "counter", "The number of entries that were evicted to make room for new entries.");
+		for (CollectionRequestHandler collectionRequestHandler : collectionRequestHandlers) {
+			PanlResponseCache panlResponseCache = collectionRequestHandler.getPanlResponseCache();
+			if (null != panlResponseCache) {
+				appendSample(sb, "panl_cache_evictions_total", getCacheLabels(collectionRequestHandler, CACHE_RESPONSE), panlResponseCache.getNumEvictions());
+			}
+			PanlLpseTokenCache panlLpseTokenCache = collectionRequestHandler.getPanlLpseTokenCache();
+			if (null != panlLpseTokenCache) {
+				appendSample(sb, "panl_cache_evictions_total", getCacheLabels(collectionRequestHandler, CACHE_LPSE_TOKEN), panlLpseTokenCache.getNumEvictions());
+			}
+		}
+
+		appendHeader(sb, "panl_cache_expirations_total", "counter", "The number of response cache entries that were removed as they had expired.");
+		for (CollectionRequestHandler collectionRequestHandler : collectionRequestHandlers) {
+			PanlResponseCache panlResponseCache = collectionRequestHandler.getPanlResponseCache();
+			if (null != panlResponseCache) {
+				appendSample(sb, "panl_cache_expirations_total", getCacheLabels(collectionRequestHandler, CACHE_RESPONSE), panlResponseCache.getNumExpirations());
+			}
+		}
+
+		appendHeader(sb, "panl_cache_stale_hits_total", "counter", "The number of expired responses that were served as the Solr server could not be queried.");
+		for (CollectionRequestHandler collectionRequestHandler : collectionRequestHandlers) {
+			PanlResponseCache panlResponseCache = collectionRequestHandler.getPanlResponseCache();
+			if (null != panlResponseCache) {
+				appendSample(sb, "panl_cache_stale_hits_total", getCacheLabels(collectionRequestHandler, CACHE_RESPONSE), panlResponseCache.getNumStaleHits());
+			}
+		}
+
+		appendHeader(sb, "panl_cache_bytes", "gauge", "The approximate number of bytes that are used by the response cache.");
+		for (CollectionRequestHandler collectionRequestHandler : collectionRequestHandlers) {
+			PanlResponseCache panlResponseCache = collectionRequestHandler.getPanlResponseCache();
+			if (null != panlResponseCache) {
+				appendSample(sb, "panl_cache_bytes", getCacheLabels(collectionRequestHandler, CACHE_RESPONSE), panlResponseCache.getCurrentBytes());
+			}
+		}
+
+		appendHeader(sb, "panl_snapshot_refreshes_total", "counter", "The number of snapshots that were refreshed in the background.");
+		for (CollectionRequestHandler collectionRequestHandler : collectionRequestHandlers) {
+			PanlSnapshotCache panlSnapshotCache = collectionRequestHandler.getPanlSnapshotCache();
+			if (null != panlSnapshotCache) {
+				appendSample(sb, "panl_snapshot_refreshes_total", getCacheLabels(collectionRequestHandler, CACHE_SNAPSHOT), panlSnapshotCache.getNumRefreshes());
+			}
+		}
+
+		appendHeader(sb, "panl_snapshot_refresh_failures_total", "counter", "The number of snapshot refreshes that failed.");
+		for (CollectionRequestHandler collectionRequestHandler : collectionRequestHandlers) {
+			PanlSnapshotCache panlSnapshotCache = collectionRequestHandler.getPanlSnapshotCache();
+			if (null != panlSnapshotCache) {
+				appendSample(sb, "panl_snapshot_refresh_failures_total", getCacheLabels(collectionRequestHandler, CACHE_SNAPSHOT), panlSnapshotCache.getNumRefreshFailures());
+			}
+		}
+	}
+
+	/**
+	 * <p>Append the request coalescer and circuit breaker (if enabled) metrics
+	 * for all the collections.</p>
+	 *
+	 * @param sb The string builder to append to
+	 */
+	private void appendSolrMetrics(StringBuilder sb) {
+		appendHeader(sb, "panl_solr_requests_in_flight", "gauge", "The number of distinct Solr requests that are currently in flight (when requests are coalesced).");
+		for (CollectionRequestHandler collectionRequestHandler : collectionRequestHandlers) {
+			PanlRequestCoalescer panlRequestCoalescer = collectionRequestHandler.getPanlClient().getPanlRequestCoalescer();
+			appendSample(sb, "panl_solr_requests_in_flight", getCollectionLabels(collectionRequestHandler), panlRequestCoalescer.getNumInFlightRequests());
+		}
+
+		appendHeader(sb, "panl_solr_coalescer_requests_total", "counter", "The number of Solr requests that were passed to the request coalescer.");
+		for (CollectionRequestHandler collectionRequestHandler : collectionRequestHandlers) {
+			PanlRequestCoalescer panlRequestCoalescer = collectionRequestHandler.getPanlClient().getPanlRequestCoalescer();
+			appendSample(sb, "panl_solr_coalescer_requests_total", getCollectionLabels(collectionRequestHandler), panlRequestCoalescer.getNumRequests());
+		}
+
+		appendHeader(sb, "panl_solr_coalesced_requests_total", "counter", "The number of Solr requests that shared an identical in-flight request.");
+		for (CollectionRequestHandler collectionRequestHandler : collectionRequestHandlers) {
+			PanlRequestCoalescer panlRequestCoalescer = collectionRequestHandler.getPanlClient().getPanlRequestCoalescer();
+			appendSample(sb, "panl_solr_coalesced_requests_total", getCollectionLabels(collectionRequestHandler), panlRequestCoalescer.getNumCoalescedRequests());
+		}
+
+		appendHeader(sb, "panl_solr_circuit_breaker_state", "gauge", "The state of the circuit breaker (0 - closed, 1 - open, 2 - half open).");
+		for (CollectionRequestHandler collectionRequestHandler : collectionRequestHandlers) {
+			PanlCircuitBreaker panlCircuitBreaker = collectionRequestHandler.getPanlClient().getPanlCircuitBreaker();
+			if (null != panlCircuitBreaker) {
+				appendSample(sb, "panl_solr_circuit_breaker_state", getCollectionLabels(collectionRequestHandler), panlCircuitBreaker.getState());
+			}
+		}
+
+		appendHeader(sb, "panl_solr_circuit_breaker_opened_total", "counter", "The number of times that the circuit breaker has opened.");
+		for (CollectionRequestHandler collectionRequestHandler : collectionRequestHandlers) {
+			PanlCircuitBreaker panlCircuitBreaker = collectionRequestHandler.getPanlClient().getPanlCircuitBreaker();
+			if (null != panlCircuitBreaker) {
+				appendSample(sb, "panl_solr_circuit_breaker_opened_total", getCollectionLabels(collectionRequestHandler), panlCircuitBreaker.getNumOpened());
+			}
+		}
+
+		appendHeader(sb, "panl_solr_circuit_breaker_rejected_total", "counter", "The number of Solr requests that were not sent as the circuit breaker was open.");
+		for (CollectionRequestHandler collectionRequestHandler : collectionRequestHandlers) {
+			PanlCircuitBreaker panlCircuitBreaker = collectionRequestHandler.getPanlClient().getPanlCircuitBreaker();
+			if (null != panlCircuitBreaker) {
+				appendSample(sb, "panl_solr_circuit_breaker_rejected_total", getCollectionLabels(collectionRequestHandler), panlCircuitBreaker.getNumRejected());
+			}
+		}
+	}
+
+	private static void appendHeader(StringBuilder sb, String name, String type, String help) {
+		sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+	}
+
+	private static void appendSample(StringBuilder sb, String name, String labels, long value) {
+		sb.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+	}
+
+	private static void appendSample(StringBuilder sb, String name, String labels, double value) {
+		sb.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+	}
+
+	private static String getRequestLabels(PanlRequestMetrics panlRequestMetrics) {
+		return ("handler=\"" + escape(panlRequestMetrics.getHandlerName()) +
+				"\",collection=\"" + escape(panlRequestMetrics.getCollection()) + "\"");
+	}
+
+	private static String getLimiterLabels(PanlConcurrencyLimiter panlConcurrencyLimiter) {
+		return ("handler=\"" + escape(panlConcurrencyLimiter.getHandlerName()) +
+				"\",collection=\"" + escape(panlConcurrencyLimiter.getCollection()) + "\"");
+	}
+
+	private static String getCollectionLabels(CollectionRequestHandler collectionRequestHandler) {
+		return ("collection=\"" + escape(collectionRequestHandler.getPanlCollectionUri()) + "\"");
+	}
+
+	private static String getCacheLabels(CollectionRequestHandler collectionRequestHandler, String cache) {
+		return (getCollectionLabels(collectionRequestHandler) + ",cache=\"" + cache + "\"");
+	}
+
+	private static double getRatio(long numHits, long numMisses) {
+		long total = numHits + numMisses;
+		if (total == 0) {
+			return (0.0d);
+		}
+		return ((double) numHits / total);
+	}
+
+	/**
+	 * <p>Escape a label value for the Prometheus text format.</p>
+	 *
+	 * @param value The label value
+	 *
+	 * @return The escaped label value
+	 */
+	static String escape(String value) {
+		if (value.indexOf('\\') == -1 && value.indexOf('"') == -1 && value.indexOf('\n') == -1) {
+			return (value);
+		}
+		return (value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"));
+	}
+}
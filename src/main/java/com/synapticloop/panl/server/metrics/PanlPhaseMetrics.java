@@ -0,0 +1,132 @@
+package com.synapticloop.panl.server.metrics;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * <p>The latency histograms for each of the phases of a request that is sent
+ * through to the Solr server, for a single handler and collection.  The
+ * phases match the timings that are returned in the Panl JSON response:</p>
+ *
+ * <ul>
+ *   <li><code>parse_request</code> - parsing the inbound Panl request</li>
+ *   <li><code>build_request</code> - building the Solr query</li>
+ *   <li><code>send_request</code> - sending the query to, and receiving the
+ *   response from, the Solr server</li>
+ *   <li><code>build_response</code> - building the Panl response</li>
+ *   <li><code>cache_hit</code> - looking up a response that was served from
+ *   the response cache, in which case the request was not sent to the Solr
+ *   server</li>
+ * </ul>
+ *
+ * @author synapticloop
+ */
+public class PanlPhaseMetrics {
+	public static final String PHASE_PARSE_REQUEST = "parse_request";
+	public static final String PHASE_BUILD_REQUEST = "build_request";
+	public static final String PHASE_SEND_REQUEST = "send_request";
+	public static final String PHASE_BUILD_RESPONSE = "build_response";
+	public static final String PHASE_CACHE_HIT = "cache_hit";
+
+	private final String handlerName;
+	private final String collection;
+
+	private final PanlHistogram parseRequestHistogram = new PanlHistogram();
+	private final PanlHistogram buildRequestHistogram = new PanlHistogram();
+	private final PanlHistogram sendRequestHistogram = new PanlHistogram();
+	private final PanlHistogram buildResponseHistogram = new PanlHistogram();
+	private final PanlHistogram cacheHitHistogram = new PanlHistogram();
+
+	/**
+	 * <p>Instantiate the phase metrics.</p>
+	 *
+	 * @param handlerName The name of the handler (the <code>handler</code>
+	 *   label)
+	 * @param collection The Panl collection URI (the <code>collection</code>
+	 *   label)
+	 */
+	public PanlPhaseMetrics(String handlerName, String collection) {
+		this.handlerName = handlerName;
+		this.collection = collection;
+	}
+
+	/**
+	 * <p>Record the durations of all the phases of a single request.</p>
+	 *
+	 * @param parseRequestNanos The nanoseconds taken to parse the request
+	 * @param buildRequestNanos The nanoseconds taken to build the Solr query
+	 * @param sendRequestNanos The nanoseconds taken to send the query and
+	 *   receive the Solr response
+	 * @param buildResponseNanos The nanoseconds taken to build the response
+	 */
+	public void record(long parseRequestNanos, long buildRequestNanos, long sendRequestNanos, long buildResponseNanos) {
+		parseRequestHistogram.record(parseRequestNanos);
+		buildRequestHistogram.record(buildRequestNanos);
+		sendRequestHistogram.record(sendRequestNanos);
+		buildResponseHistogram.record(buildResponseNanos);
+	}
+
+	/**
+	 * <p>Record the durations of the phases of a single request that was served
+	 * from the response cache.</p>
+	 *
+	 * @param parseRequestNanos The nanoseconds taken to parse the request
+	 * @param buildRequestNanos The nanoseconds taken to build the Solr query
+	 *   (which generates the cache key)
+	 * @param cacheHitNanos The nanoseconds taken to look up the cached response
+	 */
+	public void recordCacheHit(long parseRequestNanos, long buildRequestNanos, long cacheHitNanos) {
+		parseRequestHistogram.record(parseRequestNanos);
+		buildRequestHistogram.record(buildRequestNanos);
+		cacheHitHistogram.record(cacheHitNanos);
+	}
+
+	public String getHandlerName() {
+		return (handlerName);
+	}
+
+	public String getCollection() {
+		return (collection);
+	}
+
+	public PanlHistogram getParseRequestHistogram() {
+		return (parseRequestHistogram);
+	}
+
+	public PanlHistogram getBuildRequestHistogram() {
+		return (buildRequestHistogram);
+	}
+
+	public PanlHistogram getSendRequestHistogram() {
+		return (sendRequestHistogram);
+	}
+
+	public PanlHistogram getBuildResponseHistogram() {
+		return (buildResponseHistogram);
+	}
+
+	public PanlHistogram getCacheHitHistogram() {
+		return (cacheHitHistogram);
+	}
+}
@@ -0,0 +1,114 @@
+package com.synapticloop.panl.server.metrics;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>The request metrics for a single handler and collection - the number of
+ * requests, the number of client (4xx) and server (5xx) errors, the number of
+ * requests that are currently in flight, and the latency histogram.</p>
+ *
+ * <p>All the counters are <code>LongAdder</code> instances, so recording never
+ * takes a lock.</p>
+ *
+ * @author synapticloop
+ */
+public class PanlRequestMetrics {
+	private final String handlerName;
+	private final String collection;
+
+	private final LongAdder numRequests = new LongAdder();
+	private final LongAdder numClientErrors = new LongAdder();
+	private final LongAdder numServerErrors = new LongAdder();
+	private final LongAdder numInFlight = new LongAdder();
+	private final PanlHistogram latencyHistogram = new PanlHistogram();
+
+	/**
+	 * <p>Instantiate the request metrics.</p>
+	 *
+	 * @param handlerName The name of the handler (the <code>handler</code>
+	 *   label)
+	 * @param collection The Panl collection URI (the <code>collection</code>
+	 *   label), or an empty string if the request is not for a collection
+	 */
+	public PanlRequestMetrics(String handlerName, String collection) {
+		this.handlerName = handlerName;
+		this.collection = collection;
+	}
+
+	/**
+	 * <p>Mark the start of a request.</p>
+	 */
+	public void markStart() {
+		numInFlight.increment();
+	}
+
+	/**
+	 * <p>Mark the end of a request, recording the latency and the HTTP status
+	 * code.</p>
+	 *
+	 * @param nanos The number of nanoseconds that the request took
+	 * @param statusCode The HTTP status code of the response
+	 */
+	public void markEnd(long nanos, int statusCode) {
+		numInFlight.decrement();
+		numRequests.increment();
+		if (statusCode >= 500) {
+			numServerErrors.increment();
+		} else if (statusCode >= 400) {
+			numClientErrors.increment();
+		}
+		latencyHistogram.record(nanos);
+	}
+
+	public String getHandlerName() {
+		return (handlerName);
+	}
+
+	public String getCollection() {
+		return (collection);
+	}
+
+	public long getNumRequests() {
+		return (numRequests.sum());
+	}
+
+	public long getNumClientErrors() {
+		return (numClientErrors.sum());
+	}
+
+	public long getNumServerErrors() {
+		return (numServerErrors.sum());
+	}
+
+	public long getNumInFlight() {
+		return (numInFlight.sum());
+	}
+
+	public PanlHistogram getLatencyHistogram() {
+		return (latencyHistogram);
+	}
+}
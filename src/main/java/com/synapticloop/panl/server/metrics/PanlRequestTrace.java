@@ -0,0 +1,193 @@
+package com.synapticloop.panl.server.metrics;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import com.synapticloop.panl.util.Constants;
+import org.apache.http.protocol.HttpContext;
+import org.apache.solr.client.solrj.SolrQuery;
+
+/**
+ * <p>The trace of a single request, which is only created when the slow
+ * request log is enabled.  It is placed in the HTTP context by the
+ * instrumented handler, and the request handlers add the canonical URI, the
+ * Solr query, the Solr QTime, and the phase timings as the request is
+ * handled.  If the request turns out to be slow, the trace is passed to the
+ * slow request log, which formats and writes it on a background thread.</p>
+ *
+ * <p>A trace is only ever updated by the thread that is currently handling
+ * the request, and is handed to the slow request log through a blocking
+ * queue, so it does not need to be synchronised.</p>
+ *
+ * @author synapticloop
+ *
+ * @see PanlSlowRequestLog
+ */
+public class PanlRequestTrace {
+	private String canonicalUri;
+	private SolrQuery solrQuery;
+	private int solrQTime = -1;
+
+	private boolean hasPhases = false;
+	private long parseRequestNanos;
+	private long buildRequestNanos;
+	private long sendRequestNanos;
+	private long buildResponseNanos;
+
+	private String handlerName;
+	private String collection;
+	private String uri;
+	private int statusCode;
+	private long wallNanos;
+	private long responseBytes = -1;
+
+	/**
+	 * <p>Return the request trace from the HTTP context.</p>
+	 *
+	 * @param context The HTTP context for the request
+	 *
+	 * @return The request trace, or null if the request is not being traced
+	 */
+	public static PanlRequestTrace get(HttpContext context) {
+		if (null == context) {
+			return (null);
+		}
+		return ((PanlRequestTrace) context.getAttribute(Constants.Context.Panl.REQUEST_TRACE));
+	}
+
+	/**
+	 * <p>Set the Solr request that was built for this request.</p>
+	 *
+	 * @param canonicalUri The canonical URI, or null if there isn't one
+	 * @param solrQuery The Solr query that was sent to the Solr server
+	 */
+	public void setSolrRequest(String canonicalUri, SolrQuery solrQuery) {
+		this.canonicalUri = canonicalUri;
+		this.solrQuery = solrQuery;
+	}
+
+	/**
+	 * <p>Set the QTime that the Solr server reported for the query.</p>
+	 *
+	 * @param solrQTime The Solr QTime in milliseconds
+	 */
+	public void setSolrQTime(int solrQTime) {
+		this.solrQTime = solrQTime;
+	}
+
+	/**
+	 * <p>Set the phase timings for this request, replacing any that were
+	 * previously set (i.e. the outermost handler sets them last).</p>
+	 *
+	 * @param parseRequestNanos The nanos taken to parse the inbound request
+	 * @param buildRequestNanos The nanos taken to build the Solr request
+	 * @param sendRequestNanos The nanos taken to send the request to, and
+	 *   receive the response from, the Solr server
+	 * @param buildResponseNanos The nanos taken to build the response
+	 */
+	public void setPhases(long parseRequestNanos, long buildRequestNanos, long sendRequestNanos, long buildResponseNanos) {
+		this.hasPhases = true;
+		this.parseRequestNanos = parseRequestNanos;
+		this.buildRequestNanos = buildRequestNanos;
+		this.sendRequestNanos = sendRequestNanos;
+		this.buildResponseNanos = buildResponseNanos;
+	}
+
+	/**
+	 * <p>Set the details of the request once it has been handled.</p>
+	 *
+	 * @param handlerName The name of the handler
+	 * @param collection The Panl collection URI, or an empty String
+	 * @param uri The inbound request URI
+	 * @param statusCode The HTTP status code of the response
+	 * @param wallNanos The wall clock nanos taken to handle the request
+	 */
+	void setRequest(String handlerName, String collection, String uri, int statusCode, long wallNanos) {
+		this.handlerName = handlerName;
+		this.collection = collection;
+		this.uri = uri;
+		this.statusCode = statusCode;
+		this.wallNanos = wallNanos;
+	}
+
+	void setResponseBytes(long responseBytes) {
+		this.responseBytes = responseBytes;
+	}
+
+	public String getCanonicalUri() {
+		return (canonicalUri);
+	}
+
+	public SolrQuery getSolrQuery() {
+		return (solrQuery);
+	}
+
+	public int getSolrQTime() {
+		return (solrQTime);
+	}
+
+	public boolean getHasPhases() {
+		return (hasPhases);
+	}
+
+	public long getParseRequestNanos() {
+		return (parseRequestNanos);
+	}
+
+	public long getBuildRequestNanos() {
+		return (buildRequestNanos);
+	}
+
+	public long getSendRequestNanos() {
+		return (sendRequestNanos);
+	}
+
+	public long getBuildResponseNanos() {
+		return (buildResponseNanos);
+	}
+
+	public String getHandlerName() {
+		return (handlerName);
+	}
+
+	public String getCollection() {
+		return (collection);
+	}
+
+	public String getUri() {
+		return (uri);
+	}
+
+	public int getStatusCode() {
+		return (statusCode);
+	}
+
+	public long getWallNanos() {
+		return (wallNanos);
+	}
+
+	public long getResponseBytes() {
+		return (responseBytes);
+	}
+}
@@ -0,0 +1,284 @@
+package com.synapticloop.panl.server.metrics;
+
+/*
+ * Copyright (c) 2008-2025 synapticloop.
+ *
+ * https://github.com/synapticloop/panl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>The slow request log, which writes a single JSON line for every request
+ * that took longer than the configured threshold for its handler, or where
+ * any of the phases took longer than the configured threshold for that
+ * phase.</p>
+ *
+ * <p>Each line contains the inbound URI, the canonical URI, the Solr
+ * parameters that were sent, the Solr QTime against the wall clock time, the
+ * response size, and the phase breakdown.</p>
+ *
+ * <p>The request thread only hands the request trace to a bounded queue, the
+ * formatting and logging is done on a single background thread, so the slow
+ * request log never adds latency to the request.  If the queue is full (i.e.
+ * the logging cannot keep up), the trace is dropped and counted, rather than
+ * blocking the request thread.</p>
+ *
+ * <p>The lines are logged at WARN level to the logger for this class, so that
+ * they can be routed to a separate file in the <code>log4j2.xml</code>
+ * configuration.</p>
+ *
+ * @author synapticloop
+ */
+public class PanlSlowRequestLog implements AutoCloseable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(PanlSlowRequestLog.class);
+
+	public static final int MAX_QUEUED_REQUESTS = 1024;
+
+	private static final long NO_THRESHOLD = Long.MAX_VALUE;
+
+	private final long defaultThresholdNanos;
+	private final Map<String, Long> handlerThresholdNanos;
+	private final long parseRequestThresholdNanos;
+	private final long buildRequestThresholdNanos;
+	private final long sendRequestThresholdNanos;
+	private final long buildResponseThresholdNanos;
+	private final boolean isEnabled;
+
+	private final BlockingQueue<PanlRequestTrace> requestTraceQueue = new ArrayBlockingQueue<>(MAX_QUEUED_REQUESTS);
+	private final LongAdder numLogged = new LongAdder();
+	private final LongAdder numDropped = new LongAdder();
+	private final Thread loggingThread;
+
+	/**
+	 * <p>Instantiate the slow request log.  A threshold that is null, or less
+	 * than or equal to zero is not applied, and if no thresholds are applied,
+	 * the slow request log is disabled and no background thread is
+	 * started.</p>
+	 *
+	 * @param defaultThresholdMillis The request threshold in milliseconds for
+	 *   handlers which do not have their own threshold
+	 * @param handlerThresholdMillis The request thresholds in milliseconds,
+	 *   keyed on the handler name
+	 * @param phaseThresholdMillis The phase thresholds in milliseconds, keyed on
+	 *   the phase name
+	 *
+	 * @see PanlMetrics#SOLR_HANDLER_NAMES
+	 * @see PanlPhaseMetrics#PHASE_PARSE_REQUEST
+	 */
+	public PanlSlowRequestLog(
+			Integer defaultThresholdMillis,
+			Map<String, Integer> handlerThresholdMillis,
+			Map<String, Integer> phaseThresholdMillis) {
+
+		this.defaultThresholdNanos = getThresholdNanos(defaultThresholdMillis);
+
+		Map<String, Long> handlerThresholdNanosTemp = new HashMap<>();
+		for (Map.Entry<String, Integer> entry : handlerThresholdMillis.entrySet()) {
+			handlerThresholdNanosTemp.put(entry.getKey(), getThresholdNanos(entry.getValue()));
+		}
+		this.handlerThresholdNanos = Map.copyOf(handlerThresholdNanosTemp);
+
+		this.parseRequestThresholdNanos = getThresholdNanos(phaseThresholdMillis.get(PanlPhaseMetrics.PHASE_PARSE_REQUEST));
+		this.buildRequestThresholdNanos = getThresholdNanos(phaseThresholdMillis.get(PanlPhaseMetrics.PHASE_BUILD_REQUEST));
+		this.sendRequestThresholdNanos = getThresholdNanos(phaseThresholdMillis.get(PanlPhaseMetrics.PHASE_SEND_REQUEST));
+		this.buildResponseThresholdNanos = getThresholdNanos(phaseThresholdMillis.get(PanlPhaseMetrics.PHASE_BUILD_RESPONSE));
+
+		boolean isEnabledTemp = defaultThresholdNanos != NO_THRESHOLD ||
+				parseRequestThresholdNanos != NO_THRESHOLD ||
+				buildRequestThresholdNanos != NO_THRESHOLD ||
+				sendRequestThresholdNanos != NO_THRESHOLD ||
+				buildResponseThresholdNanos != NO_THRESHOLD;
+		for (Long thresholdNanos : handlerThresholdNanos.values()) {
+			if (thresholdNanos != NO_THRESHOLD) {
+				isEnabledTemp = true;
+			}
+		}
+		this.isEnabled = isEnabledTemp;
+
+		if (isEnabled) {
+			this.loggingThread = new Thread(this::writeRequestTraces, "panl-slow-request-log");
+			this.loggingThread.setDaemon(true);
+			this.loggingThread.start();
+		} else {
+			this.loggingThread = null;
+		}
+	}
+
+	private static long getThresholdNanos(Integer thresholdMillis) {
+		if (null == thresholdMillis || thresholdMillis <= 0) {
+			return (NO_THRESHOLD);
+		}
+		return (TimeUnit.MILLISECONDS.toNanos(thresholdMillis));
+	}
+
+	/**
+	 * <p>Return whether any thresholds are configured, i.e. whether requests
+	 * need to be traced.</p>
+	 *
+	 * @return Whether the slow request log is enabled
+	 */
+	public boolean getIsEnabled() {
+		return (isEnabled);
+	}
+
+	/**
+	 * <p>Return whether the request was slow, either in total, or for any of
+	 * the traced phases.</p>
+	 *
+	 * @param handlerName The name of the handler
+	 * @param wallNanos The wall clock nanos that the request took
+	 * @param panlRequestTrace The request trace
+	 *
+	 * @return Whether the request was slow
+	 */
+	public boolean getIsSlow(String handlerName, long wallNanos, PanlRequestTrace panlRequestTrace) {
+		if (wallNanos > handlerThresholdNanos.getOrDefault(handlerName, defaultThresholdNanos)) {
+			return (true);
+		}
+
+		return (panlRequestTrace.getHasPhases() &&
+				(panlRequestTrace.getParseRequestNanos() > parseRequestThresholdNanos ||
+						panlRequestTrace.getBuildRequestNanos() > buildRequestThresholdNanos ||
+						panlRequestTrace.getSendRequestNanos() > sendRequestThresholdNanos ||
+						panlRequestTrace.getBuildResponseNanos() > buildResponseThresholdNanos));
+	}
+
+	/**
+	 * <p>Queue the request trace to be logged, this never blocks - if the queue
+	 * is full, the trace is dropped.</p>
+	 *
+	 * @param panlRequestTrace The trace of the slow request
+	 */
+	public void log(PanlRequestTrace panlRequestTrace) {
+		if (!requestTraceQueue.offer(panlRequestTrace)) {
+			numDropped.increment();
+		}
+	}
+
+	/**
+	 * <p>Take the request traces from the queue and log them, until the
+	 * logging thread is interrupted, after which any remaining traces are
+	 * logged.</p>
+	 */
+	private void writeRequestTraces() {
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				writeRequestTrace(requestTraceQueue.take());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		PanlRequestTrace panlRequestTrace;
+		while (null != (panlRequestTrace = requestTraceQueue.poll())) {
+			writeRequestTrace(panlRequestTrace);
+		}
+	}
+
+	private void writeRequestTrace(PanlRequestTrace panlRequestTrace) {
+		try {
+			LOGGER.warn(toJsonString(panlRequestTrace));
+			numLogged.increment();
+		} catch (Exception e) {
+			// never let a badly formed trace stop the logging thread
+			LOGGER.error("Could not log the slow request, message was: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * <p>Format the request trace as a single line of JSON.</p>
+	 *
+	 * @param panlRequestTrace The request trace
+	 *
+	 * @return The JSON String
+	 */
+	static String toJsonString(PanlRequestTrace panlRequestTrace) {
+		JSONObject jsonObject = new JSONObject();
+		jsonObject.put("handler", panlRequestTrace.getHandlerName());
+		jsonObject.put("collection", panlRequestTrace.getCollection());
+		jsonObject.put("uri", panlRequestTrace.getUri());
+		jsonObject.put("status", panlRequestTrace.getStatusCode());
+		jsonObject.put("wall_time_micros", TimeUnit.NANOSECONDS.toMicros(panlRequestTrace.getWallNanos()));
+		jsonObject.put("response_bytes", panlRequestTrace.getResponseBytes());
+
+		if (null != panlRequestTrace.getCanonicalUri()) {
+			jsonObject.put("canonical_uri", panlRequestTrace.getCanonicalUri());
+		}
+
+		if (panlRequestTrace.getSolrQTime() != -1) {
+			jsonObject.put("solr_qtime_millis", panlRequestTrace.getSolrQTime());
+		}
+
+		if (panlRequestTrace.getHasPhases()) {
+			JSONObject phasesObject = new JSONObject();
+			phasesObject.put(PanlPhaseMetrics.PHASE_PARSE_REQUEST, TimeUnit.NANOSECONDS.toMicros(panlRequestTrace.getParseRequestNanos()));
+			phasesObject.put(PanlPhaseMetrics.PHASE_BUILD_REQUEST, TimeUnit.NANOSECONDS.toMicros(panlRequestTrace.getBuildRequestNanos()));
+			phasesObject.put(PanlPhaseMetrics.PHASE_SEND_REQUEST, TimeUnit.NANOSECONDS.toMicros(panlRequestTrace.getSendRequestNanos()));
+			phasesObject.put(PanlPhaseMetrics.PHASE_BUILD_RESPONSE, TimeUnit.NANOSECONDS.toMicros(panlRequestTrace.getBuildResponseNanos()));
+			jsonObject.put("phases_micros", phasesObject);
+		}
+
+		if (null != panlRequestTrace.getSolrQuery()) {
+			jsonObject.put("solr_params", panlRequestTrace.getSolrQuery().toString());
+		}
+
+		return (jsonObject.toString());
+	}
+
+	/**
+	 * <p>Return the number of slow requests that were logged.</p>
+	 *
+	 * @return The number of slow requests that were logged
+	 */
+	public long getNumLogged() {
+		return (numLogged.sum());
+	}
+
+	/**
+	 * <p>Return the number of slow requests that were not logged as the queue
+	 * was full.</p>
+	 *
+	 * @return The number of dropped slow requests
+	 */
+	public long getNumDropped() {
+		return (numDropped.sum());
+	}
+
+	/**
+	 * <p>Stop the logging thread, logging any slow requests that are still
+	 * queued.</p>
+	 */
+	@Override public void close() {
+		if (null != loggingThread) {
+			loggingThread.interrupt();
+		}
+	}
+}
@@ -0,0 +1,11 @@
+/**
+ * <p>The package for the lock-free request, phase, and cache metrics, which
+ * are exposed in the Prometheus text format on the
+ * <code>/panl-metrics</code> endpoint, and the asynchronous slow request
+ * log.</p>
+ *
+ * @since 1.0
+ * @author synapticloop
+ * @version 1.0
+ */
+package com.synapticloop.panl.server.metrics;
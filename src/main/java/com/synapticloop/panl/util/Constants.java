@@ -45,6 +45,13 @@ public class Constants {
 	public static final int DEFAULT_VALUE_NUM_RESULTS_MORELIKETHIS = 5;
 	public static final int DEFAULT_VALUE_NUM_RESULTS_PER_PAGE = 10;
 	public static final int DEFAULT_VALUE_SOLR_FACET_LIMIT = 100;
+	public static final int DEFAULT_VALUE_RESPONSE_CACHE_MAX_BYTES = 0;
+	public static final int DEFAULT_VALUE_RESPONSE_CACHE_TTL_SECONDS = 60;
+	public static final int DEFAULT_VALUE_RESPONSE_CACHE_STALE_SECONDS = 0;
+	public static final int DEFAULT_VALUE_SNAPSHOT_REFRESH_SECONDS = 0;
+	public static final int DEFAULT_VALUE_MAX_NUM_SNAPSHOTS = 256;
+	public static final int DEFAULT_VALUE_LPSE_TOKEN_CACHE_MAX_ENTRIES = 4096;
+	public static final int DEFAULT_VALUE_BOUNDED_SERVER_SOCKET_TIMEOUT = 30000;
 
 	public static final String DEFAULT_MLT_HANDLER = "/select";
 	public static final String DEFAULT_MLT_TYPE_SELECT = "select";
@@ -97,7 +104,12 @@ public class Constants {
 			public static final String BEFORE = "before";
 			public static final String BEFORE_MIN_VALUE = "before_min_value";
 			public static final String BUILD_REQUEST_TIME = "panl_build_request_time";
+			public static final String BUILD_REQUEST_TIME_MICROS = "panl_build_request_time_micros";
 			public static final String BUILD_RESPONSE_TIME = "panl_build_response_time";
+			public static final String BUILD_RESPONSE_TIME_MICROS = "panl_build_response_time_micros";
+			public static final String CACHED = "panl_cached";
+			public static final String CACHE_LOOKUP_TIME = "panl_cache_lookup_time";
+			public static final String CACHE_LOOKUP_TIME_MICROS = "panl_cache_lookup_time_micros";
 			public static final String CANONICAL_URI = "canonical_uri";
 			public static final String CHECKBOX_VALUE = "checkbox_value";
 			public static final String COUNT = "count";
@@ -113,6 +125,7 @@ public class Constants {
 			public static final String EXTRA = "extra";
 			public static final String FACETORDER = "facetorder";
 			public static final String FACETS = "facets";
+			public static final String CONCURRENCY_PERMIT = "concurrency_permit";
 			public static final String FACET_LIMIT = "facet_limit";
 			public static final String FACET_NAME = "facet_name";
 			public static final String FIELDS = "fields";
@@ -149,6 +162,7 @@ public class Constants {
 			public static final String PANL = "panl";
 			public static final String PANL_CODE = "panl_code";
 			public static final String PARSE_REQUEST_TIME = "panl_parse_request_time";
+			public static final String PARSE_REQUEST_TIME_MICROS = "panl_parse_request_time_micros";
 			public static final String PREFIX = "prefix";
 			public static final String PREVIOUS = "previous";
 			public static final String PREVIOUS_NEXT = "previous_next";
@@ -162,6 +176,7 @@ public class Constants {
 			public static final String REMOVE_URI = "remove_uri";
 			public static final String SEARCH = "search";
 			public static final String SEND_REQUEST_TIME = "panl_send_request_time";
+			public static final String SEND_REQUEST_TIME_MICROS = "panl_send_request_time_micros";
 			public static final String SET_URI_ASC = "set_uri_asc";
 			public static final String SET_URI_DESC = "set_uri_desc";
 			public static final String SOLR_DESIGNATOR = "solr_range_designator";
@@ -170,6 +185,7 @@ public class Constants {
 			public static final String SUFFIX = "suffix";
 			public static final String TIMINGS = "timings";
 			public static final String TOTAL_TIME = "panl_total_time";
+			public static final String TOTAL_TIME_MICROS = "panl_total_time_micros";
 			public static final String TYPE = "type";
 			public static final String URIS = "uris";
 			public static final String VALUE = "value";
@@ -213,6 +229,7 @@ public class Constants {
 		public static class Panl {
 			public static final String CODE = "code";
 			public static final String LIMIT = "limit";
+			public static final String SECTIONS = "sections";
 		}
 	}
 
@@ -225,8 +242,10 @@ public class Constants {
 		 * <p>Context keys for the Panl server</p>
 		 */
 		public static class Panl {
+			public static final String CONCURRENCY_PERMIT = "concurrency_permit";
 			public static final String FACET_LIMIT = "facet_limit";
 			public static final String LPSE_CODE = "lpse_code";
+			public static final String REQUEST_TRACE = "request_trace";
 		}
 	}
 
@@ -250,6 +269,13 @@ public class Constants {
 			public static final String PANL_BOOL_CHECKBOX = "panl.bool.checkbox.";
 			public static final String PANL_COLLECTION = "panl.collection.";
 			public static final String PANL_COLLECTION_EXTRA = "panl.collection.extra";
+			public static final String PANL_CIRCUIT_BREAKER = "panl.circuit.breaker";
+			public static final String PANL_CIRCUIT_BREAKER_FAILURE_RATE = "panl.circuit.breaker.failure.rate";
+			public static final String PANL_CIRCUIT_BREAKER_MINIMUM_CALLS = "panl.circuit.breaker.minimum.calls";
+			public static final String PANL_CIRCUIT_BREAKER_OPEN_SECONDS = "panl.circuit.breaker.open.seconds";
+			public static final String PANL_CIRCUIT_BREAKER_SLOW_CALL_MILLIS = "panl.circuit.breaker.slow.call.millis";
+			public static final String PANL_CIRCUIT_BREAKER_SLOW_CALL_RATE = "panl.circuit.breaker.slow.call.rate";
+			public static final String PANL_CIRCUIT_BREAKER_WINDOW_SIZE = "panl.circuit.breaker.window.size";
 			public static final String PANL_DATE = "panl.date.";
 			public static final String PANL_DECIMAL_POINT = "panl.decimal.point";
 			public static final String PANL_EXTRA = "panl.extra.";
@@ -260,10 +286,16 @@ public class Constants {
 			public static final String PANL_FORM_QUERY_OPERAND_RESPONDTO = "panl.form.query.operand.respondto";
 			public static final String PANL_INCLUDE_SAME_NUMBER_FACETS = "panl.include.same.number.facets";
 			public static final String PANL_INCLUDE_SINGLE_FACETS = "panl.include.single.facets";
+			public static final String PANL_LIMITER = "panl.limiter";
+			public static final String PANL_LIMITER_INITIAL_LIMIT = "panl.limiter.initial.limit";
+			public static final String PANL_LIMITER_LATENCY_TOLERANCE = "panl.limiter.latency.tolerance";
+			public static final String PANL_LIMITER_MAX_LIMIT = "panl.limiter.max.limit";
+			public static final String PANL_LIMITER_MIN_LIMIT = "panl.limiter.min.limit";
 			public static final String PANL_LPSE_FACETORDER = "panl.lpse.facetorder";
 			public static final String PANL_LPSE_IGNORE = "panl.lpse.ignore";
 			public static final String PANL_LPSE_LENGTH = "panl.lpse.length";
 			public static final String PANL_LPSE_ORDER = "panl.lpse.order";
+			public static final String PANL_METRICS = "panl.metrics";
 			public static final String PANL_MULTIVALUE = "panl.multivalue.";
 			public static final String PANL_MULTIVALUE_SEPARATOR = "panl.multivalue.separator.";
 			public static final String PANL_NAME = "panl.name.";
@@ -288,13 +320,33 @@ public class Constants {
 			public static final String PANL_RANGE_MIN_WILDCARD = "panl.range.min.wildcard.";
 			public static final String PANL_RANGE_PREFIX = "panl.range.prefix.";
 			public static final String PANL_RANGE_SUFFIX = "panl.range.suffix.";
+			public static final String PANL_LPSE_TOKEN_CACHE_MAX_ENTRIES = "panl.lpse.token.cache.max.entries";
 			public static final String PANL_RANGE_SUPPRESS = "panl.range.suppress.";
 			public static final String PANL_REMOVE_SOLR_JSON_KEYS = "panl.remove.solr.json.keys";
+			public static final String PANL_REQUEST_COALESCING = "panl.request.coalescing";
+			public static final String PANL_RESPONSE_CACHE_MAX_BYTES = "panl.response.cache.max.bytes";
+			public static final String PANL_RESPONSE_CACHE_STALE_SECONDS = "panl.response.cache.stale.seconds";
+			public static final String PANL_RESPONSE_CACHE_TTL_SECONDS = "panl.response.cache.ttl.seconds";
 			public static final String PANL_RESULTS_FIELDS = "panl.results.fields.";
 			public static final String PANL_RESULTS_TESTING_URLS = "panl.results.testing.urls";
 			public static final String PANL_SEARCH = "panl.search.";
 			public static final String PANL_SEARCH_FIELDS = "panl.search.fields";
+			public static final String PANL_SERVER_BACKLOG = "panl.server.backlog";
+			public static final String PANL_SERVER_COMPRESSION = "panl.server.compression";
+			public static final String PANL_SERVER_COMPRESSION_MIN_BYTES = "panl.server.compression.min.bytes";
 			public static final String PANL_SERVER_EXTRA = "panl.server.extra";
+			public static final String PANL_SERVER_IO_THREADS = "panl.server.io.threads";
+			public static final String PANL_SERVER_KEEP_ALIVE = "panl.server.keep.alive";
+			public static final String PANL_SERVER_MAX_CONNECTIONS = "panl.server.max.connections";
+			public static final String PANL_SERVER_MODE = "panl.server.mode";
+			public static final String PANL_SERVER_QUEUE_SIZE = "panl.server.queue.size";
+			public static final String PANL_SERVER_SOCKET_TIMEOUT = "panl.server.socket.timeout";
+			public static final String PANL_SERVER_TCP_NODELAY = "panl.server.tcp.nodelay";
+			public static final String PANL_SERVER_WORKER_THREADS = "panl.server.worker.threads";
+			public static final String PANL_SLOW_REQUEST_HANDLER_MILLIS = "panl.slow.request.handler.millis.";
+			public static final String PANL_SLOW_REQUEST_MILLIS = "panl.slow.request.millis";
+			public static final String PANL_SLOW_REQUEST_PHASE_MILLIS = "panl.slow.request.phase.millis.";
+			public static final String PANL_SNAPSHOT_REFRESH_SECONDS = "panl.snapshot.refresh.seconds";
 			public static final String PANL_SORT_FIELDS = "panl.sort.fields";
 			public static final String PANL_STATUS_404_VERBOSE = "panl.status.404.verbose";
 			public static final String PANL_STATUS_500_VERBOSE = "panl.status.500.verbose";
@@ -319,7 +371,12 @@ public class Constants {
 			public static final String SOLR_VALUE_INDEX = "index";
 			public static final String SOLR_VALUE_INDEX_DESC = "indexdesc";
 
+			public static final String SOLRJ_ASYNC = "solrj.async";
 			public static final String SOLRJ_CLIENT = "solrj.client";
+			public static final String SOLRJ_CONNECTION_TIMEOUT = "solrj.connection.timeout";
+			public static final String SOLRJ_IDLE_TIMEOUT = "solrj.idle.timeout";
+			public static final String SOLRJ_MAX_CONNECTIONS_PER_HOST = "solrj.max.connections.per.host";
+			public static final String SOLRJ_REQUEST_TIMEOUT = "solrj.request.timeout";
 			public static final String SOLR_SEARCH_SERVER_URL = "solr.search.server.url";
 
 			public static final String DEFAULT_CLOUD_SOLR_CLIENT = "CloudSolrClient";
@@ -134,11 +134,11 @@ function populatePanlResults(panlJsonData) {
 	const timings = panlJsonData.panl.timings;
 	$("#timings")
 			.append("<strong>Solr:</strong> query time " + panlJsonData.responseHeader.QTime +
-					"ms.<br /><strong>Panl:</strong> parse request " + timings.panl_parse_request_time +
-					"ms, build request " + timings.panl_build_request_time +
-					"ms, send and receive request " + timings.panl_send_request_time +
-					"ms, parse response " + timings.panl_build_response_time +
-					"ms. Total time " + timings.panl_total_time + "ms.");
+					"ms.<br /><strong>Panl:</strong> parse request " + microsToMillis(timings.panl_parse_request_time_micros) +
+					"ms, build request " + microsToMillis(timings.panl_build_request_time_micros) +
+					"ms, send and receive request " + microsToMillis(timings.panl_send_request_time_micros) +
+					"ms, parse response " + microsToMillis(timings.panl_build_response_time_micros) +
+					"ms. Total time " + microsToMillis(timings.panl_total_time_micros) + "ms.");
 
 	// Solr previous to 9 has a different structure
 	var documents = [];
@@ -185,6 +185,10 @@ function populatePanlResults(panlJsonData) {
 	addMoreLikeThis(documents);
 }
 
+function microsToMillis(micros) {
+	return((micros / 1000).toFixed(3));
+}
+
 function addSearchFieldCheckboxes(searchJson) {
 	console.log("[ RETURNED PANL SEARCH FIELDS ]")
 	console.log(searchJson);
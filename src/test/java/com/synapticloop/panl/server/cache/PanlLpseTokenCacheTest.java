@@ -0,0 +1,39 @@
+package com.synapticloop.panl.server.cache;
+
+import com.synapticloop.panl.server.handler.tokeniser.token.LpseToken;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PanlLpseTokenCacheTest {
+	@Test public void testHitAndMiss() {
+		PanlLpseTokenCache panlLpseTokenCache = new PanlLpseTokenCache(16);
+		assertNull(panlLpseTokenCache.get("/default/a/?"));
+
+		List<LpseToken> lpseTokens = Collections.emptyList();
+		panlLpseTokenCache.put("/default/a/?", lpseTokens);
+		assertSame(lpseTokens, panlLpseTokenCache.get("/default/a/?"));
+
+		assertEquals(1, panlLpseTokenCache.getNumHits());
+		assertEquals(1, panlLpseTokenCache.getNumMisses());
+	}
+
+	@Test public void testLeastRecentlyUsedIsEvicted() {
+		PanlLpseTokenCache panlLpseTokenCache = new PanlLpseTokenCache(2);
+		panlLpseTokenCache.put("k1", Collections.emptyList());
+		panlLpseTokenCache.put("k2", Collections.emptyList());
+
+		// access k1 so that k2 is the least recently used
+		assertNotNull(panlLpseTokenCache.get("k1"));
+
+		panlLpseTokenCache.put("k3", Collections.emptyList());
+		assertEquals(2, panlLpseTokenCache.getNumEntries());
+		assertEquals(1, panlLpseTokenCache.getNumEvictions());
+		assertNotNull(panlLpseTokenCache.get("k1"));
+		assertNull(panlLpseTokenCache.get("k2"));
+		assertNotNull(panlLpseTokenCache.get("k3"));
+	}
+}
@@ -0,0 +1,96 @@
+package com.synapticloop.panl.server.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PanlResponseCacheTest {
+	@Test public void testHitAndMiss() {
+		PanlResponseCache panlResponseCache = new PanlResponseCache(1024, 60);
+		assertNull(panlResponseCache.get("/default/a/"));
+
+		panlResponseCache.put("/default/a/", "{}");
+		assertEquals("{}", panlResponseCache.get("/default/a/"));
+
+		assertEquals(1, panlResponseCache.getNumHits());
+		assertEquals(1, panlResponseCache.getNumMisses());
+	}
+
+	@Test public void testLeastRecentlyUsedIsEvicted() {
+		// each entry is 2 * (2 + 8) = 20 bytes
+		PanlResponseCache panlResponseCache = new PanlResponseCache(40, 60);
+		panlResponseCache.put("k1", "12345678");
+		panlResponseCache.put("k2", "12345678");
+
+		// access k1 so that k2 is the least recently used
+		assertNotNull(panlResponseCache.get("k1"));
+
+		panlResponseCache.put("k3", "12345678");
+		assertEquals(2, panlResponseCache.getNumEntries());
+		assertEquals(40, panlResponseCache.getCurrentBytes());
+		assertEquals(1, panlResponseCache.getNumEvictions());
+
+		assertNull(panlResponseCache.get("k2"));
+		assertNotNull(panlResponseCache.get("k1"));
+		assertNotNull(panlResponseCache.get("k3"));
+	}
+
+	@Test public void testTooLargeIsNotCached() {
+		PanlResponseCache panlResponseCache = new PanlResponseCache(10, 60);
+		panlResponseCache.put("key", "a value that is far too large");
+		assertEquals(0, panlResponseCache.getNumEntries());
+		assertNull(panlResponseCache.get("key"));
+	}
+
+	@Test public void testExpiredEntryIsRemoved() {
+		PanlResponseCache panlResponseCache = new PanlResponseCache(1024, 0);
+		panlResponseCache.put("key", "value");
+		assertNull(panlResponseCache.get("key"));
+		assertEquals(1, panlResponseCache.getNumExpirations());
+		assertEquals(0, panlResponseCache.getCurrentBytes());
+	}
+
+	@Test public void testStaleEntryIsKept() {
+		PanlResponseCache panlResponseCache = new PanlResponseCache(1024, 0, 60);
+		panlResponseCache.put("key", "value");
+		assertNull(panlResponseCache.get("key"));
+		assertEquals(0, panlResponseCache.getNumExpirations());
+
+		assertEquals("value", panlResponseCache.getStale("key"));
+		assertEquals(1, panlResponseCache.getNumStaleHits());
+	}
+
+	@Test public void testStaleIsNotServedWithoutStalePeriod() {
+		PanlResponseCache panlResponseCache = new PanlResponseCache(1024, 0);
+		panlResponseCache.put("key", "value");
+		assertNull(panlResponseCache.getStale("key"));
+		assertEquals(0, panlResponseCache.getNumStaleHits());
+	}
+
+	@Test public void testConcurrentPutsStayWithinMaximum() throws Exception {
+		// each entry is 2 * (3 + 7) = 20 bytes, so at most 10 entries
+		PanlResponseCache panlResponseCache = new PanlResponseCache(200, 60);
+		Thread[] threads = new Thread[8];
+		for (int i = 0; i < threads.length; i++) {
+			final int offset = i * 100;
+			threads[i] = new Thread(() -> {
+				for (int j = 0; j < 100; j++) {
+					String key = String.format("%03d", (offset + j) % 1000);
+					panlResponseCache.put(key, "1234567");
+					panlResponseCache.get(key);
+				}
+			});
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertTrue(panlResponseCache.getCurrentBytes() <= 200);
+		assertEquals(20L * panlResponseCache.getNumEntries(), panlResponseCache.getCurrentBytes());
+
+		panlResponseCache.clear();
+		assertEquals(0, panlResponseCache.getNumEntries());
+		assertEquals(0, panlResponseCache.getCurrentBytes());
+	}
+}
@@ -0,0 +1,85 @@
+package com.synapticloop.panl.server.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PanlSnapshotCacheTest {
+	@Test public void testSnapshotIsServedAndRefreshed() throws Exception {
+		AtomicInteger numCalls = new AtomicInteger(0);
+		try (PanlSnapshotCache panlSnapshotCache = new PanlSnapshotCache("test", 3600, 10)) {
+			assertEquals("1", panlSnapshotCache.get("key", () -> "" + numCalls.incrementAndGet()));
+			assertEquals("1", panlSnapshotCache.get("key", () -> "" + numCalls.incrementAndGet()));
+			assertEquals(1, panlSnapshotCache.getNumHits());
+			assertEquals(1, panlSnapshotCache.getNumSnapshots());
+
+			panlSnapshotCache.refresh();
+			assertEquals("2", panlSnapshotCache.get("key", () -> "unused"));
+		}
+	}
+
+	@Test public void testFailedRefreshKeepsPreviousSnapshot() throws Exception {
+		AtomicInteger numCalls = new AtomicInteger(0);
+		try (PanlSnapshotCache panlSnapshotCache = new PanlSnapshotCache("test", 3600, 10)) {
+			panlSnapshotCache.get("key", () -> {
+				if (numCalls.incrementAndGet() > 1) {
+					throw new Exception("Solr is down");
+				}
+				return ("snapshot");
+			});
+
+			panlSnapshotCache.refresh();
+			assertEquals(1, panlSnapshotCache.getNumRefreshFailures());
+			assertEquals("snapshot", panlSnapshotCache.get("key", () -> "unused"));
+		}
+	}
+
+	@Test public void testExceptionIsNotRegistered() {
+		try (PanlSnapshotCache panlSnapshotCache = new PanlSnapshotCache("test", 3600, 10)) {
+			assertThrows(Exception.class, () -> panlSnapshotCache.get("key", () -> {
+				throw new Exception("Unknown LPSE code");
+			}));
+			assertEquals(0, panlSnapshotCache.getNumSnapshots());
+		}
+	}
+
+	@Test public void testMaximumNumberOfSnapshots() throws Exception {
+		try (PanlSnapshotCache panlSnapshotCache = new PanlSnapshotCache("test", 3600, 1)) {
+			panlSnapshotCache.get("one", () -> "one");
+			panlSnapshotCache.get("two", () -> "two");
+			assertEquals(1, panlSnapshotCache.getNumSnapshots());
+		}
+	}
+
+	@Test public void testConcurrentRegistrationsDoNotExceedMaximum() throws Exception {
+		ExecutorService executorService = Executors.newFixedThreadPool(8);
+		try (PanlSnapshotCache panlSnapshotCache = new PanlSnapshotCache("test", 3600, 4)) {
+			CountDownLatch countDownLatch = new CountDownLatch(1);
+			for (int i = 0; i < 64; i++) {
+				final String key = "key-" + i;
+				executorService.execute(() -> {
+					try {
+						countDownLatch.await();
+						if (key.hashCode() % 2 == 0) {
+							panlSnapshotCache.register(key, () -> key);
+						} else {
+							panlSnapshotCache.get(key, () -> key);
+						}
+					} catch (Exception e) {
+						// ignored, the number of snapshots is checked
+					}
+				});
+			}
+			countDownLatch.countDown();
+			executorService.shutdown();
+			assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+			assertEquals(4, panlSnapshotCache.getNumSnapshots());
+		}
+	}
+}
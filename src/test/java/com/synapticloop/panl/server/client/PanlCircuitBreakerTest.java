@@ -0,0 +1,96 @@
+package com.synapticloop.panl.server.client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PanlCircuitBreakerTest {
+	private static final long MILLIS = 1_000_000L;
+
+	private static void record(PanlCircuitBreaker panlCircuitBreaker, int numCalls, long durationNanos, boolean isFailed) {
+		for (int i = 0; i < numCalls; i++) {
+			long startNanos = System.nanoTime();
+			assertTrue(panlCircuitBreaker.tryAcquirePermission());
+			panlCircuitBreaker.onResult(startNanos, durationNanos, isFailed);
+		}
+	}
+
+	@Test public void testOpensOnFailureRate() {
+		PanlCircuitBreaker panlCircuitBreaker = new PanlCircuitBreaker("book-store", 50, 100, 5000, 10, 4, 60);
+		record(panlCircuitBreaker, 2, 10 * MILLIS, false);
+		record(panlCircuitBreaker, 1, 10 * MILLIS, true);
+		assertEquals(PanlCircuitBreaker.STATE_CLOSED, panlCircuitBreaker.getState());
+
+		record(panlCircuitBreaker, 1, 10 * MILLIS, true);
+		assertEquals(PanlCircuitBreaker.STATE_OPEN, panlCircuitBreaker.getState());
+		assertEquals(1, panlCircuitBreaker.getNumOpened());
+
+		assertFalse(panlCircuitBreaker.tryAcquirePermission());
+		assertEquals(1, panlCircuitBreaker.getNumRejected());
+		assertTrue(panlCircuitBreaker.getRetryAfterSeconds() > 1);
+	}
+
+	@Test public void testDoesNotOpenBelowMinimumCalls() {
+		PanlCircuitBreaker panlCircuitBreaker = new PanlCircuitBreaker("book-store", 50, 100, 5000, 10, 4, 60);
+		record(panlCircuitBreaker, 3, 10 * MILLIS, true);
+		assertEquals(PanlCircuitBreaker.STATE_CLOSED, panlCircuitBreaker.getState());
+	}
+
+	@Test public void testOpensOnSlowCallRate() {
+		PanlCircuitBreaker panlCircuitBreaker = new PanlCircuitBreaker("book-store", 50, 50, 100, 4, 4, 60);
+		record(panlCircuitBreaker, 2, 10 * MILLIS, false);
+		record(panlCircuitBreaker, 2, 200 * MILLIS, false);
+		assertEquals(PanlCircuitBreaker.STATE_OPEN, panlCircuitBreaker.getState());
+	}
+
+	@Test public void testOldOutcomesLeaveTheWindow() {
+		PanlCircuitBreaker panlCircuitBreaker = new PanlCircuitBreaker("book-store", 50, 100, 5000, 4, 4, 60);
+		record(panlCircuitBreaker, 1, 10 * MILLIS, true);
+		record(panlCircuitBreaker, 3, 10 * MILLIS, false);
+		record(panlCircuitBreaker, 1, 10 * MILLIS, true);
+		// the first failure has left the window, so only 1 of 4 failed
+		assertEquals(PanlCircuitBreaker.STATE_CLOSED, panlCircuitBreaker.getState());
+	}
+
+	@Test public void testHalfOpenProbeCloses() {
+		PanlCircuitBreaker panlCircuitBreaker = new PanlCircuitBreaker("book-store", 50, 100, 5000, 2, 2, 0);
+		record(panlCircuitBreaker, 2, 10 * MILLIS, true);
+		assertEquals(PanlCircuitBreaker.STATE_OPEN, panlCircuitBreaker.getState());
+
+		// the open period is 0 seconds, so the next request is the probe, and
+		// any other request is rejected whilst it is in flight
+		long startNanos = System.nanoTime();
+		assertTrue(panlCircuitBreaker.tryAcquirePermission());
+		assertEquals(PanlCircuitBreaker.STATE_HALF_OPEN, panlCircuitBreaker.getState());
+		assertFalse(panlCircuitBreaker.tryAcquirePermission());
+
+		panlCircuitBreaker.onResult(startNanos, 10 * MILLIS, false);
+		assertEquals(PanlCircuitBreaker.STATE_CLOSED, panlCircuitBreaker.getState());
+		assertTrue(panlCircuitBreaker.tryAcquirePermission());
+	}
+
+	@Test public void testHalfOpenProbeFailureReopens() {
+		PanlCircuitBreaker panlCircuitBreaker = new PanlCircuitBreaker("book-store", 50, 100, 5000, 2, 2, 0);
+		record(panlCircuitBreaker, 2, 10 * MILLIS, true);
+
+		long startNanos = System.nanoTime();
+		assertTrue(panlCircuitBreaker.tryAcquirePermission());
+		panlCircuitBreaker.onResult(startNanos, 10 * MILLIS, true);
+		assertEquals(PanlCircuitBreaker.STATE_OPEN, panlCircuitBreaker.getState());
+		assertEquals(2, panlCircuitBreaker.getNumOpened());
+	}
+
+	@Test public void testRequestSentBeforeOpeningIsNotTheProbe() {
+		PanlCircuitBreaker panlCircuitBreaker = new PanlCircuitBreaker("book-store", 50, 100, 5000, 2, 2, 0);
+		long oldStartNanos = System.nanoTime();
+		assertTrue(panlCircuitBreaker.tryAcquirePermission());
+		record(panlCircuitBreaker, 2, 10 * MILLIS, true);
+
+		assertTrue(panlCircuitBreaker.tryAcquirePermission());
+		assertEquals(PanlCircuitBreaker.STATE_HALF_OPEN, panlCircuitBreaker.getState());
+
+		// the request that was in flight when the breaker opened completes
+		panlCircuitBreaker.onResult(oldStartNanos, 10 * MILLIS, false);
+		assertEquals(PanlCircuitBreaker.STATE_HALF_OPEN, panlCircuitBreaker.getState());
+	}
+}
@@ -0,0 +1,86 @@
+package com.synapticloop.panl.server.client;
+
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PanlRequestCoalescerTest {
+	@Test public void testIdenticalInFlightRequestsAreCoalesced() {
+		PanlRequestCoalescer panlRequestCoalescer = new PanlRequestCoalescer();
+		AtomicInteger numSent = new AtomicInteger(0);
+		CompletableFuture<QueryResponse> solrFuture = new CompletableFuture<>();
+
+		CompletableFuture<QueryResponse> first = panlRequestCoalescer.execute("collection", new SolrQuery("*:*"), () -> {
+			numSent.incrementAndGet();
+			return (solrFuture);
+		});
+
+		CompletableFuture<QueryResponse> second = panlRequestCoalescer.execute("collection", new SolrQuery("*:*"), () -> {
+			numSent.incrementAndGet();
+			return (new CompletableFuture<>());
+		});
+
+		assertSame(first, second);
+		assertEquals(1, numSent.get());
+		assertEquals(1, panlRequestCoalescer.getNumInFlightRequests());
+		assertEquals(1, panlRequestCoalescer.getNumCoalescedRequests());
+
+		QueryResponse queryResponse = new QueryResponse();
+		solrFuture.complete(queryResponse);
+
+		assertSame(queryResponse, first.join());
+		assertSame(queryResponse, second.join());
+		assertEquals(0, panlRequestCoalescer.getNumInFlightRequests());
+
+		// now that it has completed, the next request will be sent
+		panlRequestCoalescer.execute("collection", new SolrQuery("*:*"), () -> {
+			numSent.incrementAndGet();
+			return (CompletableFuture.completedFuture(queryResponse));
+		});
+
+		assertEquals(2, numSent.get());
+	}
+
+	@Test public void testDifferentRequestsAreNotCoalesced() {
+		PanlRequestCoalescer panlRequestCoalescer = new PanlRequestCoalescer();
+
+		CompletableFuture<QueryResponse> first = panlRequestCoalescer.execute("collection", new SolrQuery("one"), CompletableFuture::new);
+		CompletableFuture<QueryResponse> second = panlRequestCoalescer.execute("collection", new SolrQuery("two"), CompletableFuture::new);
+		CompletableFuture<QueryResponse> third = panlRequestCoalescer.execute("another", new SolrQuery("one"), CompletableFuture::new);
+
+		assertNotSame(first, second);
+		assertNotSame(first, third);
+		assertEquals(3, panlRequestCoalescer.getNumInFlightRequests());
+		assertEquals(0, panlRequestCoalescer.getNumCoalescedRequests());
+	}
+
+	@Test public void testKeyIsNormalised() {
+		SolrQuery one = new SolrQuery("*:*");
+		one.setRows(10);
+		one.setStart(0);
+
+		SolrQuery two = new SolrQuery("*:*");
+		two.setStart(0);
+		two.setRows(10);
+
+		assertEquals(PanlRequestCoalescer.getKey("collection", one), PanlRequestCoalescer.getKey("collection", two));
+
+		two.setRows(11);
+		assertNotEquals(PanlRequestCoalescer.getKey("collection", one), PanlRequestCoalescer.getKey("collection", two));
+	}
+
+	@Test public void testExceptionsArePropagated() {
+		PanlRequestCoalescer panlRequestCoalescer = new PanlRequestCoalescer();
+		CompletableFuture<QueryResponse> failed = panlRequestCoalescer.execute("collection", new SolrQuery("*:*"), () -> {
+			throw new IllegalStateException("Solr has gone away");
+		});
+
+		assertTrue(failed.isCompletedExceptionally());
+		assertEquals(0, panlRequestCoalescer.getNumInFlightRequests());
+	}
+}
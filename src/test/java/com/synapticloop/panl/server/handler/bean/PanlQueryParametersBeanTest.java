@@ -0,0 +1,23 @@
+package com.synapticloop.panl.server.handler.bean;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PanlQueryParametersBeanTest {
+	@Test public void testDecodedOnce() {
+		PanlQueryParametersBean queryParameters = new PanlQueryParametersBean("q=100%25+cotton&q.b=");
+		assertEquals("100% cotton", queryParameters.getValue("q"));
+		assertTrue(queryParameters.hasParameter("q.b"));
+		assertFalse(queryParameters.hasParameter("q.c"));
+		assertTrue(queryParameters.getHasQueryParameters());
+		assertEquals("q=100%25+cotton&q.b=", queryParameters.getQueryString());
+	}
+
+	@Test public void testSectionsIsNotAQueryParameter() {
+		assertFalse(new PanlQueryParametersBean("sections=available").getHasQueryParameters());
+		assertFalse(new PanlQueryParametersBean(null).getHasQueryParameters());
+		assertSame(PanlQueryParametersBean.EMPTY, PanlQueryParametersBean.fromUri("/panl-more-facets/book/"));
+		assertEquals("a", PanlQueryParametersBean.fromUri("/panl-more-facets/book/?code=a&limit=5").getValue("code"));
+	}
+}
@@ -0,0 +1,38 @@
+package com.synapticloop.panl.server.handler.bean;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PanlRequestPathBeanTest {
+	@Test public void testSegmentsMatchSplit() {
+		String[] uris = new String[] {
+				"",
+				"/",
+				"/book/",
+				"/book/default/",
+				"/book/default/value/another+value/ab/",
+				"/book//value//",
+				"no/leading/slash"
+		};
+
+		for (String uri : uris) {
+			PanlRequestPathBean requestPath = new PanlRequestPathBean(uri);
+			String[] split = uri.split("/");
+			assertEquals(split.length, requestPath.getNumSegments(), uri);
+			for (int i = 0; i < split.length; i++) {
+				assertEquals(split[i], requestPath.getSegment(i), uri);
+			}
+		}
+	}
+
+	@Test public void testQueryString() {
+		PanlRequestPathBean requestPath = new PanlRequestPathBean("/book/default/value/ab/?q=a/b");
+		assertEquals("/book/default/value/ab/", requestPath.getPath());
+		assertEquals("q=a/b", requestPath.getQueryString());
+		assertEquals("default", requestPath.getSegment(2));
+		assertEquals("ab", requestPath.getLastSegment());
+		assertEquals("value/ab", requestPath.getPathFromSegment(3));
+		assertNull(requestPath.getSegment(5));
+	}
+}
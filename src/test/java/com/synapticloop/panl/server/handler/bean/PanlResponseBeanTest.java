@@ -0,0 +1,133 @@
+package com.synapticloop.panl.server.handler.bean;
+
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.util.NamedList;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PanlResponseBeanTest {
+	private NamedList<Object> getSolrResponse() {
+		NamedList<Object> params = new NamedList<>();
+		params.add("q", "*:*");
+
+		NamedList<Object> responseHeader = new NamedList<>();
+		responseHeader.add("status", 0);
+		responseHeader.add("params", params);
+
+		SolrDocumentList solrDocuments = new SolrDocumentList();
+		solrDocuments.setNumFound(1);
+		SolrDocument solrDocument = new SolrDocument();
+		solrDocument.addField("id", "one");
+		solrDocuments.add(solrDocument);
+
+		NamedList<Object> solrResponse = new NamedList<>();
+		solrResponse.add("responseHeader", responseHeader);
+		solrResponse.add("response", solrDocuments);
+		solrResponse.add("stats", new NamedList<>());
+		return (solrResponse);
+	}
+
+	@Test public void testWriteResponse() {
+		JSONObject panlJsonObject = new JSONObject();
+		panlJsonObject.put("canonical_uri", "/");
+
+		JSONObject jsonObject = new JSONObject(new PanlResponseBean(getSolrResponse(), panlJsonObject, 1_000L, 1_000L, 2_000L, 1_000L, false).toJsonString());
+
+		assertFalse(jsonObject.getBoolean("error"));
+		assertFalse(jsonObject.has("stats"));
+		assertEquals("/", jsonObject.getJSONObject("panl").getString("canonical_uri"));
+		assertEquals(2, jsonObject.getJSONObject("panl").getJSONObject("timings").getLong("panl_send_request_time_micros"));
+		assertEquals("*:*", jsonObject.getJSONObject("responseHeader").getJSONObject("params").getString("q"));
+		assertEquals(1, jsonObject.getJSONObject("response").getLong("numFound"));
+		assertEquals("one", jsonObject.getJSONObject("response").getJSONArray("docs").getJSONObject(0).getString("id"));
+	}
+
+	@Test public void testRemoveSolrJsonKeys() {
+		NamedList<Object> solrResponse = getSolrResponse();
+		JSONObject jsonObject = new JSONObject(new PanlResponseBean(solrResponse, new JSONObject(), 1_000L, 1_000L, 2_000L, 1_000L, true).toJsonString());
+
+		assertFalse(jsonObject.getJSONObject("responseHeader").has("params"));
+		// the Solr response itself must not be modified
+		assertNotNull(((NamedList<?>) solrResponse.get("responseHeader")).get("params"));
+	}
+
+	@Test public void testCachedResponseIsCompletedWithNewTimings() {
+		JSONObject panlJsonObject = new JSONObject();
+		panlJsonObject.put("canonical_uri", "/");
+		PanlResponseBean panlResponseBean = new PanlResponseBean(getSolrResponse(), panlJsonObject, 1_000L, 1_000L, 2_000L, 1_000L, false);
+
+		String cacheableJsonString = panlResponseBean.toCacheableJsonString();
+		assertFalse(cacheableJsonString.contains("timings"));
+		assertEquals(panlResponseBean.toJsonString(), panlResponseBean.toJsonString(cacheableJsonString));
+
+		JSONObject jsonObject = new JSONObject(PanlResponseBean.toCachedJsonString(
+				cacheableJsonString,
+				1_000L,
+				1_000L,
+				3_000L));
+		JSONObject timingsObject = jsonObject.getJSONObject("panl").getJSONObject("timings");
+		assertTrue(timingsObject.getBoolean("panl_cached"));
+		assertEquals(0, timingsObject.getLong("panl_send_request_time_micros"));
+		assertEquals(3, timingsObject.getLong("panl_cache_lookup_time_micros"));
+		assertEquals("/", jsonObject.getJSONObject("panl").getString("canonical_uri"));
+	}
+
+	@Test public void testWrittenTimingsMatchTheTimingsObject() {
+		PanlResponseBean panlResponseBean = new PanlResponseBean(null, new JSONObject(), 1_000L, 1_000L, 2_000L, 1_000L, false);
+		JSONObject jsonObject = new JSONObject(panlResponseBean.toJsonString());
+		assertTrue(panlResponseBean.getTimings().similar(jsonObject.getJSONObject("panl").getJSONObject("timings")));
+	}
+
+	@Test public void testEmptyPanlObjectIsCompleted() {
+		JSONObject jsonObject = new JSONObject(new PanlResponseBean(null, new JSONObject(), 1_000L, 1_000L, 2_000L, 1_000L, false).toJsonString());
+		assertEquals(1, jsonObject.getJSONObject("panl").length());
+		assertTrue(jsonObject.getJSONObject("panl").has("timings"));
+	}
+
+	@Test public void testSnapshotIsCompletedWithNewTimings() {
+		JSONObject responseObject = new JSONObject();
+		responseObject.put("error", false);
+		responseObject.put("status", 200);
+		JSONObject panlJsonObject = new JSONObject();
+		panlJsonObject.put("facet", new JSONObject().put("panl_code", "b"));
+
+		String snapshot = PanlResponseBean.toCacheableJsonString(responseObject, panlJsonObject);
+		assertFalse(snapshot.contains("timings"));
+
+		JSONObject jsonObject = new JSONObject(PanlResponseBean.toCachedJsonString(snapshot, 0L, 0L, 1_000L));
+		assertFalse(jsonObject.getBoolean("error"));
+		assertEquals(200, jsonObject.getInt("status"));
+		assertEquals("b", jsonObject.getJSONObject("panl").getJSONObject("facet").getString("panl_code"));
+		assertTrue(jsonObject.getJSONObject("panl").getJSONObject("timings").getBoolean("panl_cached"));
+	}
+
+	@Test public void testResponseIsWrittenWithTimings() {
+		JSONObject responseObject = new JSONObject();
+		responseObject.put("error", false);
+		responseObject.put("status", 200);
+		JSONObject panlJsonObject = new JSONObject();
+		panlJsonObject.put("num_retries", 0);
+
+		JSONObject jsonObject = new JSONObject(PanlResponseBean.toJsonString(responseObject, panlJsonObject, 1_000_000L, 2_000_000L, 3_000_000L, 4_000_000L));
+		assertFalse(jsonObject.getBoolean("error"));
+		assertEquals(200, jsonObject.getInt("status"));
+		assertEquals(0, jsonObject.getJSONObject("panl").getInt("num_retries"));
+
+		JSONObject timingsObject = jsonObject.getJSONObject("panl").getJSONObject("timings");
+		assertEquals(3, timingsObject.getLong("panl_send_request_time"));
+		assertEquals(10, timingsObject.getLong("panl_total_time"));
+	}
+
+	@Test public void testEmptyPanlObjectIsWrittenWithTimings() {
+		JSONObject responseObject = new JSONObject();
+		responseObject.put("response", new JSONObject().put("numFound", 1));
+
+		JSONObject jsonObject = new JSONObject(PanlResponseBean.toJsonString(responseObject, new JSONObject(), 0L, 0L, 0L, 0L));
+		assertEquals(1, jsonObject.getJSONObject("response").getInt("numFound"));
+		assertEquals(1, jsonObject.getJSONObject("panl").length());
+		assertTrue(jsonObject.getJSONObject("panl").has("timings"));
+	}
+}
@@ -0,0 +1,26 @@
+package com.synapticloop.panl.server.handler.helper;
+
+import org.junit.jupiter.api.Test;
+
+import static com.synapticloop.panl.server.handler.helper.ResponseSectionHelper.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseSectionHelperTest {
+	@Test public void testNoSections() {
+		assertEquals(ALL, getResponseSections(null));
+		assertEquals(ALL, getResponseSections(""));
+		assertEquals(ALL, getResponseSections("  "));
+	}
+
+	@Test public void testSections() {
+		int responseSections = getResponseSections("response, pagination,unknown");
+		assertTrue(hasSection(responseSections, SOLR_RESPONSE));
+		assertTrue(hasSection(responseSections, PAGINATION));
+		assertFalse(hasSection(responseSections, AVAILABLE));
+		assertFalse(hasSection(responseSections, CANONICAL_URI));
+	}
+
+	@Test public void testUnknownSectionsOnly() {
+		assertEquals(0, getResponseSections("unknown"));
+	}
+}
@@ -0,0 +1,69 @@
+package com.synapticloop.panl.server.handler.helper;
+
+import com.synapticloop.panl.util.Constants;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimingsHelperTest {
+	@Test public void testTimingsObject() {
+		JSONObject timingsObject = TimingsHelper.getTimingsObject(
+				250_000L,
+				1_500_000L,
+				12_345_678L,
+				999_999L);
+
+		assertEquals(0, timingsObject.getLong(Constants.Json.Panl.PARSE_REQUEST_TIME));
+		assertEquals(250, timingsObject.getLong(Constants.Json.Panl.PARSE_REQUEST_TIME_MICROS));
+		assertEquals(1, timingsObject.getLong(Constants.Json.Panl.BUILD_REQUEST_TIME));
+		assertEquals(1500, timingsObject.getLong(Constants.Json.Panl.BUILD_REQUEST_TIME_MICROS));
+		assertEquals(12, timingsObject.getLong(Constants.Json.Panl.SEND_REQUEST_TIME));
+		assertEquals(12345, timingsObject.getLong(Constants.Json.Panl.SEND_REQUEST_TIME_MICROS));
+		assertEquals(0, timingsObject.getLong(Constants.Json.Panl.BUILD_RESPONSE_TIME));
+		assertEquals(999, timingsObject.getLong(Constants.Json.Panl.BUILD_RESPONSE_TIME_MICROS));
+		assertEquals(15, timingsObject.getLong(Constants.Json.Panl.TOTAL_TIME));
+		assertEquals(15095, timingsObject.getLong(Constants.Json.Panl.TOTAL_TIME_MICROS));
+	}
+
+	@Test public void testWrittenTimingsMatchTimingsObject() throws IOException {
+		StringWriter stringWriter = new StringWriter();
+		TimingsHelper.writeTimingsTo(stringWriter, 250_000L, 1_500_000L, 12_345_678L, 999_999L);
+
+		assertTrue(TimingsHelper.getTimingsObject(250_000L, 1_500_000L, 12_345_678L, 999_999L)
+				.similar(new JSONObject(stringWriter.toString())));
+	}
+
+	@Test public void testWrittenCachedTimings() throws IOException {
+		StringWriter stringWriter = new StringWriter();
+		TimingsHelper.writeCachedTimingsTo(stringWriter, 250_000L, 1_500_000L, 20_000L);
+		JSONObject timingsObject = new JSONObject(stringWriter.toString());
+
+		assertTrue(timingsObject.getBoolean(Constants.Json.Panl.CACHED));
+		assertEquals(250, timingsObject.getLong(Constants.Json.Panl.PARSE_REQUEST_TIME_MICROS));
+		assertEquals(1500, timingsObject.getLong(Constants.Json.Panl.BUILD_REQUEST_TIME_MICROS));
+		assertEquals(0, timingsObject.getLong(Constants.Json.Panl.SEND_REQUEST_TIME_MICROS));
+		assertEquals(0, timingsObject.getLong(Constants.Json.Panl.BUILD_RESPONSE_TIME_MICROS));
+		assertEquals(20, timingsObject.getLong(Constants.Json.Panl.CACHE_LOOKUP_TIME_MICROS));
+		assertEquals(0, timingsObject.getLong(Constants.Json.Panl.CACHE_LOOKUP_TIME));
+		assertEquals(1770, timingsObject.getLong(Constants.Json.Panl.TOTAL_TIME_MICROS));
+		assertEquals(1, timingsObject.getLong(Constants.Json.Panl.TOTAL_TIME));
+	}
+
+	@Test public void testPhasesAddUpToTotal() {
+		TimingsHelper timingsHelper = new TimingsHelper();
+		timingsHelper.markParseInboundRequestEnd();
+		timingsHelper.markBuildOutboundRequestEnd();
+		timingsHelper.markSendOutboundRequestEnd();
+		timingsHelper.markBuildInboundResponseEnd();
+
+		assertEquals(timingsHelper.getTotalNanos(),
+				timingsHelper.getParseRequestNanos() +
+						timingsHelper.getBuildRequestNanos() +
+						timingsHelper.getSendRequestNanos() +
+						timingsHelper.getBuildResponseNanos());
+	}
+}
@@ -0,0 +1,56 @@
+package com.synapticloop.panl.server.handler.tokeniser;
+
+import com.synapticloop.panl.server.handler.CollectionRequestHandler;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LpseCodeTrieTest {
+	private LpseCodeTrie<String> getLpseCodeTrie() {
+		LpseCodeTrie<String> lpseCodeTrie = new LpseCodeTrie<>();
+		lpseCodeTrie.put("q", "query");
+		lpseCodeTrie.put("ab", "facet-ab");
+		lpseCodeTrie.put("ac", "facet-ac");
+		return (lpseCodeTrie);
+	}
+
+	@Test public void testGet() {
+		LpseCodeTrie<String> lpseCodeTrie = getLpseCodeTrie();
+		assertEquals("query", lpseCodeTrie.get("q"));
+		assertEquals("facet-ab", lpseCodeTrie.get("ab"));
+		assertEquals("facet-ac", lpseCodeTrie.get("ac"));
+		assertNull(lpseCodeTrie.get("a"));
+		assertNull(lpseCodeTrie.get("ad"));
+		assertNull(lpseCodeTrie.get("abc"));
+	}
+
+	@Test public void testFindConsumesTokens() {
+		LpseCodeTrie<String> lpseCodeTrie = getLpseCodeTrie();
+		LpseTokeniser lpseTokeniser = new LpseTokeniser("acq", CollectionRequestHandler.CODES_AND_METADATA, true);
+
+		String lpseCode = lpseTokeniser.nextToken();
+		assertEquals("facet-ac", lpseCodeTrie.find(lpseCode, lpseTokeniser, 2));
+		assertEquals("q", lpseTokeniser.nextToken());
+		assertFalse(lpseTokeniser.hasMoreTokens());
+	}
+
+	@Test public void testFindRewindsOnNoMatch() {
+		LpseCodeTrie<String> lpseCodeTrie = getLpseCodeTrie();
+		LpseTokeniser lpseTokeniser = new LpseTokeniser("ad_q", CollectionRequestHandler.CODES_AND_METADATA, true);
+
+		String lpseCode = lpseTokeniser.nextToken();
+		assertNull(lpseCodeTrie.find(lpseCode, lpseTokeniser, 2));
+		assertEquals("d", lpseTokeniser.nextToken());
+		assertEquals("_", lpseTokeniser.nextToken());
+		assertEquals("q", lpseTokeniser.nextToken());
+	}
+
+	@Test public void testSingleCharacterTokensAreShared() {
+		LpseTokeniser first = new LpseTokeniser("ab", CollectionRequestHandler.CODES_AND_METADATA, true);
+		LpseTokeniser second = new LpseTokeniser("ba", CollectionRequestHandler.CODES_AND_METADATA, true);
+
+		String a = first.nextToken();
+		second.nextToken();
+		assertSame(a, second.nextToken());
+	}
+}
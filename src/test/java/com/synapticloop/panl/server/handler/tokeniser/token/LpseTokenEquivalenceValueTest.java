@@ -1,6 +1,7 @@
 package com.synapticloop.panl.server.handler.tokeniser.token;
 
 import com.synapticloop.panl.TestHelper;
+import com.synapticloop.panl.server.handler.bean.PanlQueryParametersBean;
 import com.synapticloop.panl.server.handler.properties.CollectionProperties;
 import com.synapticloop.panl.server.handler.tokeniser.LpseTokeniser;
 import org.junit.jupiter.api.Test;
@@ -18,7 +19,7 @@ public class LpseTokenEquivalenceValueTest {
 		StringTokenizer stringTokenizer = new StringTokenizer(uri, "/", false);
 		LpseTokeniser lpseTokeniser = getLpseTokeniser(lpseUri);
 		String lpseCode = lpseTokeniser.nextToken();
-		return(LpseToken.getLpseTokens(collectionProperties, lpseCode, "", stringTokenizer, lpseTokeniser));
+		return(LpseToken.getLpseTokens(collectionProperties, lpseCode, PanlQueryParametersBean.EMPTY, stringTokenizer, lpseTokeniser));
 	}
 
 	@Test public void testQueryOperandEquivalence() {
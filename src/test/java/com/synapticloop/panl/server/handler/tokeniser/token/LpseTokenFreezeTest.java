@@ -0,0 +1,47 @@
+package com.synapticloop.panl.server.handler.tokeniser.token;
+
+import com.synapticloop.panl.exception.PanlServerException;
+import com.synapticloop.panl.server.handler.properties.CollectionProperties;
+import com.synapticloop.panl.server.handler.tokeniser.token.param.NumRowsLpseToken;
+import com.synapticloop.panl.server.handler.tokeniser.token.param.PageNumLpseToken;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.StringTokenizer;
+
+import static com.synapticloop.panl.TestHelper.getCollectionProperties;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LpseTokenFreezeTest {
+	@Test public void testTokenCanBeChangedBeforeFreezing() throws PanlServerException, IOException {
+		CollectionProperties collectionProperties = getCollectionProperties("/default.properties");
+		NumRowsLpseToken numRowsLpseToken = new NumRowsLpseToken(collectionProperties, "n", new StringTokenizer("20", "/"));
+		PageNumLpseToken pageNumLpseToken = new PageNumLpseToken(collectionProperties, "p", new StringTokenizer("4", "/"));
+
+		assertFalse(numRowsLpseToken.getIsFrozen());
+		numRowsLpseToken.setNumRows(10);
+		numRowsLpseToken.setIsValid(false);
+		pageNumLpseToken.setPageNum(1);
+
+		assertEquals(10, numRowsLpseToken.getNumRows());
+		assertFalse(numRowsLpseToken.getIsValid());
+		assertEquals(1, pageNumLpseToken.getPageNum());
+	}
+
+	@Test public void testFrozenTokenCannotBeChanged() throws PanlServerException, IOException {
+		CollectionProperties collectionProperties = getCollectionProperties("/default.properties");
+		NumRowsLpseToken numRowsLpseToken = new NumRowsLpseToken(collectionProperties, "n", new StringTokenizer("20", "/"));
+		PageNumLpseToken pageNumLpseToken = new PageNumLpseToken(collectionProperties, "p", new StringTokenizer("4", "/"));
+		numRowsLpseToken.freeze();
+		pageNumLpseToken.freeze();
+
+		assertTrue(numRowsLpseToken.getIsFrozen());
+		assertThrows(IllegalStateException.class, () -> numRowsLpseToken.setNumRows(10));
+		assertThrows(IllegalStateException.class, () -> numRowsLpseToken.setIsValid(false));
+		assertThrows(IllegalStateException.class, () -> pageNumLpseToken.setPageNum(1));
+
+		assertEquals(20, numRowsLpseToken.getNumRows());
+		assertTrue(numRowsLpseToken.getIsValid());
+		assertEquals(4, pageNumLpseToken.getPageNum());
+	}
+}
@@ -1,6 +1,7 @@
 package com.synapticloop.panl.server.handler.tokeniser.token;
 
 import com.synapticloop.panl.TestHelper;
+import com.synapticloop.panl.server.handler.bean.PanlQueryParametersBean;
 import com.synapticloop.panl.server.handler.CollectionRequestHandler;
 import com.synapticloop.panl.server.handler.properties.CollectionProperties;
 import com.synapticloop.panl.server.handler.tokeniser.LpseTokeniser;
@@ -21,7 +22,7 @@ public class RangeFacetLpseTokenTest {
 		RangeFacetLpseToken rangeFacetLpseToken = (RangeFacetLpseToken) LpseToken.getLpseTokens(
 			collectionProperties,
 			"w",
-			"",
+			PanlQueryParametersBean.EMPTY,
 			stringTokenizer,
 			getLpseTokeniser("-")).get(0);
 
@@ -73,7 +74,7 @@ public class RangeFacetLpseTokenTest {
 		RangeFacetLpseToken rangeFacetLpseToken = (RangeFacetLpseToken) LpseToken.getLpseTokens(
 				collectionProperties,
 				lpseToken,
-				"",
+				PanlQueryParametersBean.EMPTY,
 				stringTokenizer,
 				lpseTokeniser).get(0);
 
@@ -0,0 +1,133 @@
+package com.synapticloop.panl.server.http;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.EntityTemplate;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpRequest;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.nio.entity.NByteArrayEntity;
+import org.apache.http.nio.entity.NStringEntity;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PanlAsyncRequestHandlerAdapterTest {
+	private static final String BODY = "{\"error\":false,\"panl\":{\"canonical_uri\":\"/\"}}";
+
+	private HttpResponse getResponse(HttpEntity httpEntity) {
+		HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+		response.setEntity(httpEntity);
+		return (response);
+	}
+
+	private EntityTemplate getEntityTemplate(List<Thread> writingThreads) {
+		EntityTemplate entityTemplate = new EntityTemplate(outputStream -> {
+			writingThreads.add(Thread.currentThread());
+			outputStream.write(BODY.getBytes(StandardCharsets.UTF_8));
+		});
+		entityTemplate.setContentType(ContentType.APPLICATION_JSON.toString());
+		return (entityTemplate);
+	}
+
+	private byte[] getBytes(HttpEntity httpEntity) throws Exception {
+		ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+		httpEntity.writeTo(byteArrayOutputStream);
+		return (byteArrayOutputStream.toByteArray());
+	}
+
+	@Test public void testEntityTemplateIsBuffered() throws Exception {
+		List<Thread> writingThreads = new ArrayList<>();
+		EntityTemplate entityTemplate = getEntityTemplate(writingThreads);
+		assertFalse(entityTemplate.isStreaming());
+
+		HttpResponse response = getResponse(entityTemplate);
+		PanlAsyncRequestHandlerAdapter.bufferEntity(response);
+
+		assertEquals(List.of(Thread.currentThread()), writingThreads);
+		HttpEntity httpEntity = response.getEntity();
+		assertTrue(httpEntity instanceof NByteArrayEntity);
+		assertEquals(BODY.length(), httpEntity.getContentLength());
+		assertEquals(ContentType.APPLICATION_JSON.toString(), httpEntity.getContentType().getValue());
+		assertEquals(BODY, new String(getBytes(httpEntity), StandardCharsets.UTF_8));
+	}
+
+	@Test public void testCompressingEntityIsBuffered() throws Exception {
+		List<Thread> writingThreads = new ArrayList<>();
+		PanlCompressingEntity panlCompressingEntity = new PanlCompressingEntity(
+				getEntityTemplate(writingThreads),
+				PanlResponseCompressor.ENCODING_GZIP);
+		assertFalse(panlCompressingEntity.isStreaming());
+
+		HttpResponse response = getResponse(panlCompressingEntity);
+		PanlAsyncRequestHandlerAdapter.bufferEntity(response);
+
+		assertEquals(List.of(Thread.currentThread()), writingThreads);
+		HttpEntity httpEntity = response.getEntity();
+		assertTrue(httpEntity instanceof NByteArrayEntity);
+		assertTrue(httpEntity.getContentLength() > 0);
+		assertEquals(PanlResponseCompressor.ENCODING_GZIP, httpEntity.getContentEncoding().getValue());
+		assertEquals(ContentType.APPLICATION_JSON.toString(), httpEntity.getContentType().getValue());
+
+		GZIPInputStream gzipInputStream = new GZIPInputStream(new ByteArrayInputStream(getBytes(httpEntity)));
+		assertEquals(BODY, new String(gzipInputStream.readAllBytes(), StandardCharsets.UTF_8));
+	}
+
+	@Test public void testContentProducerIsNotBuffered() throws Exception {
+		NStringEntity nStringEntity = new NStringEntity(BODY, ContentType.APPLICATION_JSON);
+		HttpResponse response = getResponse(nStringEntity);
+		PanlAsyncRequestHandlerAdapter.bufferEntity(response);
+
+		assertSame(nStringEntity, response.getEntity());
+	}
+
+	@Test public void testKnownLengthEntityIsBuffered() throws Exception {
+		HttpResponse response = getResponse(new StringEntity(BODY, ContentType.APPLICATION_JSON));
+		assertNull(PanlAsyncRequestHandlerAdapter.prepareEntity(new BasicHttpRequest("GET", "/"), response));
+
+		HttpEntity httpEntity = response.getEntity();
+		assertTrue(httpEntity instanceof NByteArrayEntity);
+		assertEquals(BODY.length(), httpEntity.getContentLength());
+		assertEquals(BODY, new String(getBytes(httpEntity), StandardCharsets.UTF_8));
+	}
+
+	@Test public void testEntityTemplateIsPiped() throws Exception {
+		List<Thread> writingThreads = new ArrayList<>();
+		EntityTemplate entityTemplate = getEntityTemplate(writingThreads);
+		HttpResponse response = getResponse(entityTemplate);
+		PanlPipedEntity panlPipedEntity = PanlAsyncRequestHandlerAdapter.prepareEntity(new BasicHttpRequest("GET", "/"), response);
+
+		// nothing is written until the response has been submitted
+		assertNotNull(panlPipedEntity);
+		assertSame(panlPipedEntity, response.getEntity());
+		assertTrue(writingThreads.isEmpty());
+		assertTrue(panlPipedEntity.isChunked());
+		assertEquals(ContentType.APPLICATION_JSON.toString(), panlPipedEntity.getContentType().getValue());
+	}
+
+	@Test public void testHeadEntityIsBuffered() throws Exception {
+		List<Thread> writingThreads = new ArrayList<>();
+		HttpResponse response = getResponse(getEntityTemplate(writingThreads));
+		assertNull(PanlAsyncRequestHandlerAdapter.prepareEntity(new BasicHttpRequest("HEAD", "/"), response));
+
+		assertEquals(List.of(Thread.currentThread()), writingThreads);
+		assertTrue(response.getEntity() instanceof NByteArrayEntity);
+	}
+
+	@Test public void testNoEntity() throws Exception {
+		HttpResponse response = getResponse(null);
+		PanlAsyncRequestHandlerAdapter.bufferEntity(response);
+
+		assertNull(response.getEntity());
+	}
+}
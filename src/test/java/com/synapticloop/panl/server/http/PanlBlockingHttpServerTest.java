@@ -0,0 +1,140 @@
+package com.synapticloop.panl.server.http;
+
+import com.synapticloop.panl.server.handler.properties.PanlProperties;
+import com.synapticloop.panl.util.Constants;
+import org.apache.http.HttpStatus;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.protocol.UriHttpRequestHandlerMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PanlBlockingHttpServerTest {
+	private PanlBlockingHttpServer getPanlHttpServer(Properties properties) throws Exception {
+		UriHttpRequestHandlerMapper uriHttpRequestHandlerMapper = new UriHttpRequestHandlerMapper();
+		uriHttpRequestHandlerMapper.register("*", (request, response, context) -> {
+			response.setStatusCode(HttpStatus.SC_OK);
+			response.setEntity(new StringEntity("OK"));
+		});
+		return (new PanlBlockingHttpServer(0, new PanlProperties(properties), uriHttpRequestHandlerMapper));
+	}
+
+	private String getStatusLine(Socket socket) throws Exception {
+		socket.setSoTimeout(5000);
+		return (new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII)).readLine());
+	}
+
+	@Test public void testRequestIsServiced() throws Exception {
+		PanlBlockingHttpServer panlHttpServer = getPanlHttpServer(new Properties());
+		panlHttpServer.start();
+		try (Socket socket = new Socket("localhost", panlHttpServer.getLocalPort())) {
+			socket.getOutputStream().write("GET / HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+			assertEquals("HTTP/1.1 200 OK", getStatusLine(socket));
+		} finally {
+			panlHttpServer.stop();
+		}
+	}
+
+	@Test public void testBusyWorkersAreRejected() throws Exception {
+		Properties properties = new Properties();
+		properties.setProperty(Constants.Property.Panl.PANL_SERVER_WORKER_THREADS, "1");
+		properties.setProperty(Constants.Property.Panl.PANL_SERVER_QUEUE_SIZE, "0");
+
+		PanlBlockingHttpServer panlHttpServer = getPanlHttpServer(properties);
+		panlHttpServer.start();
+		try (Socket idleSocket = new Socket("localhost", panlHttpServer.getLocalPort())) {
+			// the idle connection holds the only worker thread
+			long endMillis = System.currentTimeMillis() + 5000;
+			while (panlHttpServer.getNumOpenConnections() == 0 && System.currentTimeMillis() < endMillis) {
+				Thread.sleep(10);
+			}
+
+			try (Socket socket = new Socket("localhost", panlHttpServer.getLocalPort())) {
+				assertEquals("HTTP/1.1 503 Service Unavailable", getStatusLine(socket));
+			}
+			assertEquals(1, panlHttpServer.getNumRejectedConnections());
+		} finally {
+			panlHttpServer.stop();
+			panlHttpServer.awaitTermination(5, TimeUnit.SECONDS);
+		}
+		assertEquals(0, panlHttpServer.getNumOpenConnections());
+	}
+
+	@Test public void testSocketTimeoutDefaultsWithWorkerThreads() throws Exception {
+		assertNull(new PanlProperties(new Properties()).getServerSocketTimeout());
+
+		Properties properties = new Properties();
+		properties.setProperty(Constants.Property.Panl.PANL_SERVER_WORKER_THREADS, "1");
+		assertEquals(Constants.DEFAULT_VALUE_BOUNDED_SERVER_SOCKET_TIMEOUT, new PanlProperties(properties).getServerSocketTimeout());
+
+		properties.setProperty(Constants.Property.Panl.PANL_SERVER_SOCKET_TIMEOUT, "500");
+		assertEquals(500, new PanlProperties(properties).getServerSocketTimeout());
+	}
+
+	@Test public void testIdleConnectionReleasesTheWorker() throws Exception {
+		Properties properties = new Properties();
+		properties.setProperty(Constants.Property.Panl.PANL_SERVER_WORKER_THREADS, "1");
+		properties.setProperty(Constants.Property.Panl.PANL_SERVER_QUEUE_SIZE, "0");
+		properties.setProperty(Constants.Property.Panl.PANL_SERVER_SOCKET_TIMEOUT, "200");
+
+		PanlBlockingHttpServer panlHttpServer = getPanlHttpServer(properties);
+		panlHttpServer.start();
+		try (Socket idleSocket = new Socket("localhost", panlHttpServer.getLocalPort())) {
+			// the idle connection holds the only worker thread until it times out
+			long endMillis = System.currentTimeMillis() + 5000;
+			while (panlHttpServer.getNumOpenConnections() == 0 && System.currentTimeMillis() < endMillis) {
+				Thread.sleep(10);
+			}
+			while (panlHttpServer.getNumOpenConnections() != 0 && System.currentTimeMillis() < endMillis) {
+				Thread.sleep(10);
+			}
+
+			try (Socket socket = new Socket("localhost", panlHttpServer.getLocalPort())) {
+				socket.getOutputStream().write("GET / HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+				assertEquals("HTTP/1.1 200 OK", getStatusLine(socket));
+			}
+		} finally {
+			panlHttpServer.stop();
+			panlHttpServer.awaitTermination(5, TimeUnit.SECONDS);
+		}
+	}
+
+	@Test public void testWorkerExecutorRejectsTasksWhenSaturated() throws Exception {
+		Properties properties = new Properties();
+		properties.setProperty(Constants.Property.Panl.PANL_SERVER_WORKER_THREADS, "1");
+		properties.setProperty(Constants.Property.Panl.PANL_SERVER_QUEUE_SIZE, "0");
+
+		PanlBlockingHttpServer panlHttpServer = getPanlHttpServer(properties);
+		Executor executor = panlHttpServer.getWorkerExecutor();
+		CountDownLatch countDownLatch = new CountDownLatch(1);
+		AtomicReference<Thread> thread = new AtomicReference<>();
+		try {
+			// the only worker thread is busy, so the second task is rejected
+			executor.execute(() -> {
+				try {
+					countDownLatch.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+			assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> thread.set(Thread.currentThread())));
+			assertNull(thread.get());
+			assertEquals(1, panlHttpServer.getNumRejectedConnections());
+		} finally {
+			countDownLatch.countDown();
+			panlHttpServer.stop();
+			panlHttpServer.awaitTermination(5, TimeUnit.SECONDS);
+		}
+	}
+}
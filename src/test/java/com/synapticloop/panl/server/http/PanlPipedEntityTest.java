@@ -0,0 +1,120 @@
+package com.synapticloop.panl.server.http;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.EntityTemplate;
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.IOControl;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PanlPipedEntityTest {
+	private static final String BODY = "{\"panl\":{\"facets\":[" + "{\"uris\":{\"before\":\"/mechanical-pencils/brandandname/\"}},".repeat(100) + "{}]}}";
+
+	private static class TestContentEncoder implements ContentEncoder {
+		private final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+		private boolean isCompleted = false;
+
+		@Override public int write(ByteBuffer byteBuffer) {
+			int length = byteBuffer.remaining();
+			byte[] bytes = new byte[length];
+			byteBuffer.get(bytes);
+			byteArrayOutputStream.write(bytes, 0, length);
+			return (length);
+		}
+
+		@Override public void complete() {
+			isCompleted = true;
+		}
+
+		@Override public boolean isCompleted() {
+			return (isCompleted);
+		}
+	}
+
+	private static class TestIOControl implements IOControl {
+		private volatile boolean isShutdown = false;
+
+		@Override public void requestInput() {}
+
+		@Override public void suspendInput() {}
+
+		@Override public void requestOutput() {}
+
+		@Override public void suspendOutput() {}
+
+		@Override public void shutdown() {
+			isShutdown = true;
+		}
+	}
+
+	private EntityTemplate getEntityTemplate(String body) {
+		EntityTemplate entityTemplate = new EntityTemplate(outputStream -> {
+			if (null == body) {
+				throw new IOException("Could not serialise the response");
+			}
+			outputStream.write(body.getBytes(StandardCharsets.UTF_8));
+		});
+		entityTemplate.setContentType(ContentType.APPLICATION_JSON.toString());
+		return (entityTemplate);
+	}
+
+	@Test public void testContentLargerThanTheBufferIsPiped() throws Exception {
+		PanlPipedEntity panlPipedEntity = new PanlPipedEntity(getEntityTemplate(BODY), 64);
+		CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+			try {
+				panlPipedEntity.writeContent();
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		});
+
+		TestContentEncoder testContentEncoder = new TestContentEncoder();
+		TestIOControl testIOControl = new TestIOControl();
+		long endNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (!testContentEncoder.isCompleted() && System.nanoTime() < endNanos) {
+			panlPipedEntity.produceContent(testContentEncoder, testIOControl);
+			Thread.yield();
+		}
+
+		writer.get(10, TimeUnit.SECONDS);
+		assertTrue(testContentEncoder.isCompleted());
+		assertFalse(testIOControl.isShutdown);
+		assertEquals(BODY, testContentEncoder.byteArrayOutputStream.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test public void testFailedContentShutsDownTheConnection() throws Exception {
+		PanlPipedEntity panlPipedEntity = new PanlPipedEntity(getEntityTemplate(null), 64);
+		assertThrows(IOException.class, panlPipedEntity::writeContent);
+
+		TestContentEncoder testContentEncoder = new TestContentEncoder();
+		TestIOControl testIOControl = new TestIOControl();
+		panlPipedEntity.produceContent(testContentEncoder, testIOControl);
+
+		assertTrue(testIOControl.isShutdown);
+		assertFalse(testContentEncoder.isCompleted());
+	}
+
+	@Test public void testClosedEntityReleasesTheWriter() throws Exception {
+		PanlPipedEntity panlPipedEntity = new PanlPipedEntity(getEntityTemplate(BODY), 64);
+		CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+			try {
+				panlPipedEntity.writeContent();
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		});
+
+		// the client goes away without reading anything
+		panlPipedEntity.close();
+		Exception exception = assertThrows(Exception.class, () -> writer.get(10, TimeUnit.SECONDS));
+		assertTrue(exception.getCause() instanceof RuntimeException);
+	}
+}
@@ -0,0 +1,198 @@
+package com.synapticloop.panl.server.http;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.EntityTemplate;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpRequest;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PanlResponseCompressorTest {
+	private static final String BODY = "{\"panl\":{\"facets\":[" + "{\"uris\":{\"before\":\"/mechanical-pencils/brandandname/\"}},".repeat(100) + "{}]}}";
+
+	private BasicHttpRequest getRequest(String acceptEncoding) {
+		BasicHttpRequest request = new BasicHttpRequest("GET", "/mechanical-pencils/brandandname/");
+		if (null != acceptEncoding) {
+			request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+		}
+		return (request);
+	}
+
+	private HttpResponse getResponse(HttpEntity httpEntity) {
+		HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+		response.setEntity(httpEntity);
+		return (response);
+	}
+
+	private byte[] getBytes(HttpEntity httpEntity) throws Exception {
+		ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+		httpEntity.writeTo(byteArrayOutputStream);
+		return (byteArrayOutputStream.toByteArray());
+	}
+
+	private String getDecompressed(HttpEntity httpEntity) throws Exception {
+		byte[] content = getBytes(httpEntity);
+		InputStream inputStream;
+		if (PanlResponseCompressor.ENCODING_GZIP.equals(httpEntity.getContentEncoding().getValue())) {
+			inputStream = new GZIPInputStream(new ByteArrayInputStream(content));
+		} else {
+			inputStream = new InflaterInputStream(new ByteArrayInputStream(content));
+		}
+		return (new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+	}
+
+	@Test public void testGzipIsNegotiated() throws Exception {
+		PanlResponseCompressor panlResponseCompressor = new PanlResponseCompressor(1024);
+		HttpResponse response = getResponse(new StringEntity(BODY, ContentType.APPLICATION_JSON));
+		panlResponseCompressor.compress(getRequest("gzip, deflate, br"), response);
+
+		HttpEntity httpEntity = response.getEntity();
+		assertEquals(PanlResponseCompressor.ENCODING_GZIP, httpEntity.getContentEncoding().getValue());
+		assertTrue(httpEntity.getContentLength() < BODY.length());
+		assertEquals(BODY, getDecompressed(httpEntity));
+		assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getFirstHeader(HttpHeaders.VARY).getValue());
+		assertEquals(1, panlResponseCompressor.getNumCompressed());
+	}
+
+	@Test public void testDeflateIsNegotiatedByQuality() throws Exception {
+		PanlResponseCompressor panlResponseCompressor = new PanlResponseCompressor(1024);
+		HttpResponse response = getResponse(new StringEntity(BODY, ContentType.APPLICATION_JSON));
+		panlResponseCompressor.compress(getRequest("gzip;q=0.5, deflate"), response);
+
+		assertEquals(PanlResponseCompressor.ENCODING_DEFLATE, response.getEntity().getContentEncoding().getValue());
+		assertEquals(BODY, getDecompressed(response.getEntity()));
+	}
+
+	@Test public void testEncodingNegotiation() {
+		assertEquals(PanlResponseCompressor.ENCODING_GZIP, PanlResponseCompressor.getEncoding(getRequest("x-gzip")));
+		assertEquals(PanlResponseCompressor.ENCODING_GZIP, PanlResponseCompressor.getEncoding(getRequest("*")));
+		assertEquals(PanlResponseCompressor.ENCODING_DEFLATE, PanlResponseCompressor.getEncoding(getRequest("gzip;q=0, *")));
+		assertNull(PanlResponseCompressor.getEncoding(getRequest("gzip;q=0, deflate;q=0")));
+		assertNull(PanlResponseCompressor.getEncoding(getRequest("identity")));
+		assertNull(PanlResponseCompressor.getEncoding(getRequest(null)));
+	}
+
+	@Test public void testNotAcceptedIsNotCompressed() throws Exception {
+		PanlResponseCompressor panlResponseCompressor = new PanlResponseCompressor(1024);
+		StringEntity stringEntity = new StringEntity(BODY, ContentType.APPLICATION_JSON);
+		HttpResponse response = getResponse(stringEntity);
+		panlResponseCompressor.compress(getRequest("gzip;q=0"), response);
+
+		assertTrue(stringEntity == response.getEntity());
+		assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getFirstHeader(HttpHeaders.VARY).getValue());
+		assertEquals(0, panlResponseCompressor.getNumCompressed());
+	}
+
+	@Test public void testSmallBodyIsNotCompressed() throws Exception {
+		PanlResponseCompressor panlResponseCompressor = new PanlResponseCompressor(1024);
+		StringEntity stringEntity = new StringEntity("{\"error\":false}", ContentType.APPLICATION_JSON);
+		HttpResponse response = getResponse(stringEntity);
+		panlResponseCompressor.compress(getRequest("gzip"), response);
+
+		assertTrue(stringEntity == response.getEntity());
+		assertNull(response.getFirstHeader(HttpHeaders.VARY));
+	}
+
+	@Test public void testBinaryBodyIsNotCompressed() throws Exception {
+		PanlResponseCompressor panlResponseCompressor = new PanlResponseCompressor(1024);
+		ByteArrayEntity byteArrayEntity = new ByteArrayEntity(new byte[4096], ContentType.create("image/png"));
+		HttpResponse response = getResponse(byteArrayEntity);
+		panlResponseCompressor.compress(getRequest("gzip"), response);
+
+		assertTrue(byteArrayEntity == response.getEntity());
+	}
+
+	@Test public void testPrecompressedEntityIsSwapped() throws Exception {
+		PanlResponseCompressor panlResponseCompressor = new PanlResponseCompressor(1024);
+		byte[] content = BODY.getBytes(StandardCharsets.UTF_8);
+		byte[] gzipContent = PanlResponseCompressor.gzip(content);
+		HttpResponse response = getResponse(new PanlPrecompressedEntity(content, gzipContent, ContentType.APPLICATION_JSON));
+		panlResponseCompressor.compress(getRequest("gzip"), response);
+
+		assertEquals(gzipContent.length, response.getEntity().getContentLength());
+		assertEquals(BODY, getDecompressed(response.getEntity()));
+
+		// a client that only accepts deflate gets the content compressed on the fly
+		response = getResponse(new PanlPrecompressedEntity(content, gzipContent, ContentType.APPLICATION_JSON));
+		panlResponseCompressor.compress(getRequest("deflate"), response);
+		assertEquals(PanlResponseCompressor.ENCODING_DEFLATE, response.getEntity().getContentEncoding().getValue());
+		assertEquals(BODY, getDecompressed(response.getEntity()));
+	}
+
+	@Test public void testStreamingEntityIsWrapped() throws Exception {
+		PanlResponseCompressor panlResponseCompressor = new PanlResponseCompressor(1024);
+		BasicHttpEntity basicHttpEntity = new BasicHttpEntity();
+		basicHttpEntity.setContent(new ByteArrayInputStream(BODY.getBytes(StandardCharsets.UTF_8)));
+		basicHttpEntity.setContentType(ContentType.APPLICATION_JSON.toString());
+		HttpResponse response = getResponse(basicHttpEntity);
+		panlResponseCompressor.compress(getRequest("gzip"), response);
+
+		HttpEntity httpEntity = response.getEntity();
+		assertTrue(httpEntity instanceof PanlCompressingEntity);
+		assertEquals(-1, httpEntity.getContentLength());
+		assertTrue(httpEntity.isChunked());
+		assertEquals(BODY, getDecompressed(httpEntity));
+	}
+
+	@Test public void testSmallStreamingEntityIsNotCompressed() throws Exception {
+		PanlResponseCompressor panlResponseCompressor = new PanlResponseCompressor(1024);
+		EntityTemplate entityTemplate = new EntityTemplate(outputStream -> outputStream.write("{\"error\":false}".getBytes(StandardCharsets.UTF_8)));
+		entityTemplate.setContentType(ContentType.APPLICATION_JSON.toString());
+		HttpResponse response = getResponse(entityTemplate);
+		panlResponseCompressor.compress(getRequest("gzip"), response);
+
+		HttpEntity httpEntity = response.getEntity();
+		assertNull(httpEntity.getContentEncoding());
+		assertEquals(15, httpEntity.getContentLength());
+		assertEquals(ContentType.APPLICATION_JSON.toString(), httpEntity.getContentType().getValue());
+		assertEquals("{\"error\":false}", new String(getBytes(httpEntity), StandardCharsets.UTF_8));
+		assertEquals(0, panlResponseCompressor.getNumCompressed());
+	}
+
+	@Test public void testLargeStreamingEntityIsCompressed() throws Exception {
+		PanlResponseCompressor panlResponseCompressor = new PanlResponseCompressor(1024);
+		EntityTemplate entityTemplate = new EntityTemplate(outputStream -> outputStream.write(BODY.getBytes(StandardCharsets.UTF_8)));
+		entityTemplate.setContentType(ContentType.APPLICATION_JSON.toString());
+		HttpResponse response = getResponse(entityTemplate);
+		panlResponseCompressor.compress(getRequest("gzip"), response);
+
+		HttpEntity httpEntity = response.getEntity();
+		assertTrue(httpEntity instanceof PanlCompressingEntity);
+		assertEquals(BODY, getDecompressed(httpEntity));
+		assertEquals(1, panlResponseCompressor.getNumCompressed());
+	}
+
+	@Test public void testHeadRequestIsNotCompressed() throws Exception {
+		PanlResponseCompressor panlResponseCompressor = new PanlResponseCompressor(1024);
+		StringEntity stringEntity = new StringEntity(BODY, ContentType.APPLICATION_JSON);
+		HttpResponse response = getResponse(stringEntity);
+		BasicHttpRequest request = new BasicHttpRequest("HEAD", "/");
+		request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+		panlResponseCompressor.compress(request, response);
+
+		assertTrue(stringEntity == response.getEntity());
+	}
+
+	@Test public void testCompressibleContentTypes() {
+		assertTrue(PanlResponseCompressor.getIsCompressibleContentType("application/json; charset=UTF-8"));
+		assertTrue(PanlResponseCompressor.getIsCompressibleContentType("text/javascript ; charset=UTF-8"));
+		assertTrue(PanlResponseCompressor.getIsCompressibleContentType("TEXT/HTML"));
+		assertFalse(PanlResponseCompressor.getIsCompressibleContentType("image/png"));
+	}
+}
@@ -0,0 +1,84 @@
+package com.synapticloop.panl.server.limiter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PanlConcurrencyLimiterTest {
+	private static final long MILLIS = 1_000_000L;
+
+	@Test public void testRequestsOverLimitAreRejected() {
+		PanlConcurrencyLimiter panlConcurrencyLimiter = new PanlConcurrencyLimiter("collection", "book-store", 2, 1, 10, 2.0d);
+		assertTrue(panlConcurrencyLimiter.tryAcquire());
+		assertTrue(panlConcurrencyLimiter.tryAcquire());
+		assertFalse(panlConcurrencyLimiter.tryAcquire());
+		assertEquals(2, panlConcurrencyLimiter.getNumInFlight());
+		assertEquals(1, panlConcurrencyLimiter.getNumRejected());
+
+		panlConcurrencyLimiter.release(System.nanoTime(), 10 * MILLIS, false);
+		assertTrue(panlConcurrencyLimiter.tryAcquire());
+	}
+
+	@Test public void testLimitIsBoundedByMinAndMax() {
+		assertEquals(5, new PanlConcurrencyLimiter("collection", "book-store", 100, 1, 5, 2.0d).getLimit());
+		assertEquals(3, new PanlConcurrencyLimiter("collection", "book-store", 0, 3, 5, 2.0d).getLimit());
+	}
+
+	@Test public void testLimitBacksOffOnFailure() {
+		PanlConcurrencyLimiter panlConcurrencyLimiter = new PanlConcurrencyLimiter("collection", "book-store", 20, 1, 200, 2.0d);
+		panlConcurrencyLimiter.tryAcquire();
+		panlConcurrencyLimiter.release(System.nanoTime(), 10 * MILLIS, true);
+		assertEquals(18, panlConcurrencyLimiter.getLimit());
+	}
+
+	@Test public void testLimitBacksOffOnceForEachGeneration() {
+		PanlConcurrencyLimiter panlConcurrencyLimiter = new PanlConcurrencyLimiter("collection", "book-store", 20, 1, 200, 2.0d);
+		long startNanos = System.nanoTime();
+		for (int i = 0; i < 5; i++) {
+			panlConcurrencyLimiter.tryAcquire();
+		}
+
+		// all of these requests were admitted before the first back off
+		for (int i = 0; i < 5; i++) {
+			panlConcurrencyLimiter.release(startNanos, 10 * MILLIS, true);
+		}
+
+		assertEquals(18, panlConcurrencyLimiter.getLimit());
+	}
+
+	@Test public void testLimitBacksOffOnSlowRequest() {
+		PanlConcurrencyLimiter panlConcurrencyLimiter = new PanlConcurrencyLimiter("collection", "book-store", 20, 1, 200, 2.0d);
+		panlConcurrencyLimiter.tryAcquire();
+		panlConcurrencyLimiter.release(System.nanoTime(), 10 * MILLIS, false);
+		assertEquals(20, panlConcurrencyLimiter.getLimit());
+
+		panlConcurrencyLimiter.tryAcquire();
+		panlConcurrencyLimiter.release(System.nanoTime(), 50 * MILLIS, false);
+		assertEquals(18, panlConcurrencyLimiter.getLimit());
+	}
+
+	@Test public void testLimitIncreasesWhenInUse() {
+		PanlConcurrencyLimiter panlConcurrencyLimiter = new PanlConcurrencyLimiter("collection", "book-store", 4, 1, 200, 2.0d);
+		for (int i = 0; i < 4; i++) {
+			assertTrue(panlConcurrencyLimiter.tryAcquire());
+		}
+
+		// each release while the limit is in use adds 1 / limit
+		for (int i = 0; i < 5; i++) {
+			panlConcurrencyLimiter.release(System.nanoTime(), 10 * MILLIS, false);
+			panlConcurrencyLimiter.tryAcquire();
+		}
+
+		assertEquals(5, panlConcurrencyLimiter.getLimit());
+	}
+
+	@Test public void testLimitDoesNotIncreaseWhenIdle() {
+		PanlConcurrencyLimiter panlConcurrencyLimiter = new PanlConcurrencyLimiter("collection", "book-store", 10, 1, 200, 2.0d);
+		for (int i = 0; i < 100; i++) {
+			panlConcurrencyLimiter.tryAcquire();
+			panlConcurrencyLimiter.release(System.nanoTime(), 10 * MILLIS, false);
+		}
+
+		assertEquals(10, panlConcurrencyLimiter.getLimit());
+	}
+}
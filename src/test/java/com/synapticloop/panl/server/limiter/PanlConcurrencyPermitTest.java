@@ -0,0 +1,61 @@
+package com.synapticloop.panl.server.limiter;
+
+import com.synapticloop.panl.exception.PanlConcurrencyLimitException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PanlConcurrencyPermitTest {
+	private static final long MILLIS = 1_000_000L;
+
+	@Test public void testPermitIsOnlyAcquiredOnce() throws Exception {
+		PanlConcurrencyLimiter panlConcurrencyLimiter = new PanlConcurrencyLimiter("collection", "book-store", 1, 1, 10, 2.0d);
+		PanlConcurrencyPermit panlConcurrencyPermit = new PanlConcurrencyPermit(panlConcurrencyLimiter);
+		panlConcurrencyPermit.acquire();
+		panlConcurrencyPermit.acquire();
+		assertEquals(1, panlConcurrencyLimiter.getNumInFlight());
+
+		assertThrows(PanlConcurrencyLimitException.class, () -> new PanlConcurrencyPermit(panlConcurrencyLimiter).acquire());
+		assertEquals(1, panlConcurrencyLimiter.getNumRejected());
+
+		panlConcurrencyPermit.release();
+		panlConcurrencyPermit.release();
+		assertEquals(0, panlConcurrencyLimiter.getNumInFlight());
+	}
+
+	@Test public void testPermitThatWasNotAcquiredIsNotReleased() {
+		PanlConcurrencyLimiter panlConcurrencyLimiter = new PanlConcurrencyLimiter("collection", "book-store", 1, 1, 10, 2.0d);
+		assertTrue(panlConcurrencyLimiter.tryAcquire());
+
+		new PanlConcurrencyPermit(panlConcurrencyLimiter).release();
+		assertEquals(1, panlConcurrencyLimiter.getNumInFlight());
+	}
+
+	@Test public void testLimitIsNotAdjustedWithoutSolrRequest() throws Exception {
+		PanlConcurrencyLimiter panlConcurrencyLimiter = new PanlConcurrencyLimiter("collection", "book-store", 20, 1, 200, 2.0d);
+		PanlConcurrencyPermit panlConcurrencyPermit = new PanlConcurrencyPermit(panlConcurrencyLimiter);
+		panlConcurrencyPermit.acquire();
+		panlConcurrencyPermit.release();
+
+		assertEquals(20, panlConcurrencyLimiter.getLimit());
+		assertEquals(0, panlConcurrencyLimiter.getNumInFlight());
+	}
+
+	@Test public void testLimitIsAdjustedFromSolrRequest() throws Exception {
+		PanlConcurrencyLimiter panlConcurrencyLimiter = new PanlConcurrencyLimiter("collection", "book-store", 20, 1, 200, 2.0d);
+
+		PanlConcurrencyPermit panlConcurrencyPermit = new PanlConcurrencyPermit(panlConcurrencyLimiter);
+		panlConcurrencyPermit.acquire();
+		panlConcurrencyPermit.recordSolrRequest(System.nanoTime(), 10 * MILLIS, false);
+		panlConcurrencyPermit.release();
+		assertEquals(20, panlConcurrencyLimiter.getLimit());
+
+		// the retried Solr requests are added together, so this is too slow
+		panlConcurrencyPermit = new PanlConcurrencyPermit(panlConcurrencyLimiter);
+		panlConcurrencyPermit.acquire();
+		panlConcurrencyPermit.recordSolrRequest(System.nanoTime(), 15 * MILLIS, false);
+		panlConcurrencyPermit.recordSolrRequest(System.nanoTime(), 15 * MILLIS, false);
+		panlConcurrencyPermit.release();
+		assertEquals(18, panlConcurrencyLimiter.getLimit());
+	}
+}
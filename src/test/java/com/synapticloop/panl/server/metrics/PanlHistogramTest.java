@@ -0,0 +1,49 @@
+package com.synapticloop.panl.server.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PanlHistogramTest {
+	@Test public void testCumulativeCounts() {
+		PanlHistogram panlHistogram = new PanlHistogram();
+		// 0.1ms is on the first bucket bound, so is in the first bucket
+		panlHistogram.record(100_000L);
+		// 3ms is in the 0.005 bucket
+		panlHistogram.record(3_000_000L);
+		// 20 seconds is only in the +Inf bucket
+		panlHistogram.record(20_000_000_000L);
+
+		long[] cumulativeCounts = panlHistogram.getCumulativeCounts();
+		assertEquals(1, cumulativeCounts[0]);
+		assertEquals(1, cumulativeCounts[4]);
+		assertEquals(2, cumulativeCounts[5]);
+		assertEquals(2, cumulativeCounts[cumulativeCounts.length - 2]);
+		assertEquals(3, cumulativeCounts[cumulativeCounts.length - 1]);
+
+		assertEquals(3, panlHistogram.getCount());
+		assertEquals(20_003_100_000L, panlHistogram.getSumNanos());
+	}
+
+	@Test public void testNegativeIsRecordedAsZero() {
+		PanlHistogram panlHistogram = new PanlHistogram();
+		panlHistogram.record(-1L);
+		assertEquals(1, panlHistogram.getCumulativeCounts()[0]);
+		assertEquals(0, panlHistogram.getSumNanos());
+	}
+
+	@Test public void testPrometheusFormat() {
+		PanlHistogram panlHistogram = new PanlHistogram();
+		panlHistogram.record(500_000_000L);
+
+		StringBuilder stringBuilder = new StringBuilder();
+		panlHistogram.appendTo(stringBuilder, "panl_test_seconds", "handler=\"collection\"");
+		String text = stringBuilder.toString();
+
+		assertTrue(text.contains("panl_test_seconds_bucket{handler=\"collection\",le=\"0.25\"} 0\n"));
+		assertTrue(text.contains("panl_test_seconds_bucket{handler=\"collection\",le=\"0.5\"} 1\n"));
+		assertTrue(text.contains("panl_test_seconds_bucket{handler=\"collection\",le=\"+Inf\"} 1\n"));
+		assertTrue(text.contains("panl_test_seconds_sum{handler=\"collection\"} 0.5\n"));
+		assertTrue(text.contains("panl_test_seconds_count{handler=\"collection\"} 1\n"));
+	}
+}
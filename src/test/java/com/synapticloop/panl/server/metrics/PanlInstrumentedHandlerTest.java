@@ -0,0 +1,138 @@
+package com.synapticloop.panl.server.metrics;
+
+import com.synapticloop.panl.exception.PanlConcurrencyLimitException;
+import com.synapticloop.panl.server.limiter.PanlConcurrencyLimiter;
+import com.synapticloop.panl.server.limiter.PanlConcurrencyPermit;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.message.BasicHttpRequest;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.BasicHttpContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PanlInstrumentedHandlerTest {
+	private static final PanlRequestMetrics BOOK_STORE = new PanlRequestMetrics("more_facets", "book-store");
+	private static final PanlRequestMetrics BOOK = new PanlRequestMetrics("more_facets", "book");
+	private static final PanlRequestMetrics NONE = new PanlRequestMetrics("more_facets", "");
+	private static final PanlSlowRequestLog DISABLED = new PanlSlowRequestLog(null, Map.of(), Map.of());
+
+	private PanlInstrumentedHandler getPanlInstrumentedHandler() {
+		return (new PanlInstrumentedHandler(
+				"more_facets",
+				(request, response, context) -> response.setStatusCode(HttpStatus.SC_NOT_FOUND),
+				new String[] { "book-store", "book" },
+				new PanlRequestMetrics[] { BOOK_STORE, BOOK },
+				NONE,
+				new PanlConcurrencyLimiter[] { null, null },
+				null,
+				DISABLED));
+	}
+
+	@Test public void testCollectionIsMatched() {
+		PanlInstrumentedHandler panlInstrumentedHandler = getPanlInstrumentedHandler();
+		assertSame(BOOK_STORE, panlInstrumentedHandler.getRequestMetrics("/panl-more-facets/book-store/default/"));
+		assertSame(BOOK_STORE, panlInstrumentedHandler.getRequestMetrics("/panl-more-facets/book-store?code=a"));
+		assertSame(BOOK_STORE, panlInstrumentedHandler.getRequestMetrics("/panl-more-facets/book-store"));
+		assertSame(BOOK, panlInstrumentedHandler.getRequestMetrics("/panl-more-facets/book/default/"));
+		assertSame(NONE, panlInstrumentedHandler.getRequestMetrics("/panl-more-facets/books/default/"));
+		assertSame(NONE, panlInstrumentedHandler.getRequestMetrics("/panl-more-facets"));
+	}
+
+	@Test public void testRequestIsRecorded() throws Exception {
+		PanlRequestMetrics panlRequestMetrics = new PanlRequestMetrics("collection", "book-store");
+		PanlInstrumentedHandler panlInstrumentedHandler = new PanlInstrumentedHandler(
+				"collection",
+				(request, response, context) -> response.setStatusCode(HttpStatus.SC_SERVICE_UNAVAILABLE),
+				new String[0],
+				new PanlRequestMetrics[0],
+				panlRequestMetrics,
+				new PanlConcurrencyLimiter[0],
+				null,
+				DISABLED);
+
+		HttpResponse httpResponse = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+		panlInstrumentedHandler.handleAsync(
+				new BasicHttpRequest("GET", "/book-store/default/"),
+				httpResponse,
+				new BasicHttpContext()).join();
+
+		assertEquals(1, panlRequestMetrics.getNumRequests());
+		assertEquals(0, panlRequestMetrics.getNumClientErrors());
+		assertEquals(1, panlRequestMetrics.getNumServerErrors());
+		assertEquals(0, panlRequestMetrics.getNumInFlight());
+		assertEquals(1, panlRequestMetrics.getLatencyHistogram().getCount());
+	}
+
+	private PanlInstrumentedHandler getLimitedPanlInstrumentedHandler(PanlConcurrencyLimiter panlConcurrencyLimiter, boolean isCached) {
+		return (new PanlInstrumentedHandler(
+				"collection",
+				(request, response, context) -> {
+					if (!isCached) {
+						try {
+							PanlConcurrencyPermit.get(context).acquire();
+						} catch (PanlConcurrencyLimitException e) {
+							response.setStatusCode(HttpStatus.SC_SERVICE_UNAVAILABLE);
+							return;
+						}
+					}
+					response.setStatusCode(HttpStatus.SC_OK);
+				},
+				new String[0],
+				new PanlRequestMetrics[0],
+				new PanlRequestMetrics("collection", "book-store"),
+				new PanlConcurrencyLimiter[0],
+				panlConcurrencyLimiter,
+				DISABLED));
+	}
+
+	@Test public void testRequestOverLimitIsRejected() throws Exception {
+		PanlConcurrencyLimiter panlConcurrencyLimiter = new PanlConcurrencyLimiter("collection", "book-store", 1, 1, 1, 2.0d);
+		PanlInstrumentedHandler panlInstrumentedHandler = getLimitedPanlInstrumentedHandler(panlConcurrencyLimiter, false);
+
+		// take the only slot, so the next request is over the limit
+		assertTrue(panlConcurrencyLimiter.tryAcquire());
+
+		HttpResponse httpResponse = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+		panlInstrumentedHandler.handle(
+				new BasicHttpRequest("GET", "/book-store/default/"),
+				httpResponse,
+				new BasicHttpContext());
+
+		assertEquals(HttpStatus.SC_SERVICE_UNAVAILABLE, httpResponse.getStatusLine().getStatusCode());
+		assertEquals(1, panlConcurrencyLimiter.getNumRejected());
+		assertEquals(1, panlConcurrencyLimiter.getNumInFlight());
+
+		panlConcurrencyLimiter.release();
+		httpResponse = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+		panlInstrumentedHandler.handle(
+				new BasicHttpRequest("GET", "/book-store/default/"),
+				httpResponse,
+				new BasicHttpContext());
+
+		assertEquals(HttpStatus.SC_OK, httpResponse.getStatusLine().getStatusCode());
+		assertEquals(0, panlConcurrencyLimiter.getNumInFlight());
+		assertEquals(1, panlConcurrencyLimiter.getLimit());
+	}
+
+	@Test public void testCachedRequestIsNotLimited() throws Exception {
+		PanlConcurrencyLimiter panlConcurrencyLimiter = new PanlConcurrencyLimiter("collection", "book-store", 1, 1, 1, 2.0d);
+		PanlInstrumentedHandler panlInstrumentedHandler = getLimitedPanlInstrumentedHandler(panlConcurrencyLimiter, true);
+
+		assertTrue(panlConcurrencyLimiter.tryAcquire());
+
+		HttpResponse httpResponse = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+		panlInstrumentedHandler.handle(
+				new BasicHttpRequest("GET", "/book-store/default/"),
+				httpResponse,
+				new BasicHttpContext());
+
+		assertEquals(HttpStatus.SC_OK, httpResponse.getStatusLine().getStatusCode());
+		assertEquals(0, panlConcurrencyLimiter.getNumRejected());
+		assertEquals(1, panlConcurrencyLimiter.getNumInFlight());
+	}
+}
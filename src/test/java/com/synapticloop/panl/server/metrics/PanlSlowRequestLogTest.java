@@ -0,0 +1,66 @@
+package com.synapticloop.panl.server.metrics;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PanlSlowRequestLogTest {
+	private static final long MILLIS_50 = TimeUnit.MILLISECONDS.toNanos(50);
+	private static final long MILLIS_150 = TimeUnit.MILLISECONDS.toNanos(150);
+
+	@Test public void testNoThresholdsIsDisabled() {
+		try (PanlSlowRequestLog panlSlowRequestLog = new PanlSlowRequestLog(null, Map.of("lookahead", 0), Map.of())) {
+			assertFalse(panlSlowRequestLog.getIsEnabled());
+		}
+	}
+
+	@Test public void testHandlerThresholds() {
+		try (PanlSlowRequestLog panlSlowRequestLog = new PanlSlowRequestLog(100, Map.of("lookahead", 40), Map.of())) {
+			assertTrue(panlSlowRequestLog.getIsEnabled());
+			PanlRequestTrace panlRequestTrace = new PanlRequestTrace();
+
+			assertFalse(panlSlowRequestLog.getIsSlow("collection", MILLIS_50, panlRequestTrace));
+			assertTrue(panlSlowRequestLog.getIsSlow("collection", MILLIS_150, panlRequestTrace));
+			assertTrue(panlSlowRequestLog.getIsSlow("lookahead", MILLIS_50, panlRequestTrace));
+		}
+	}
+
+	@Test public void testPhaseThresholds() {
+		try (PanlSlowRequestLog panlSlowRequestLog = new PanlSlowRequestLog(null, Map.of(), Map.of(PanlPhaseMetrics.PHASE_SEND_REQUEST, 100))) {
+			assertTrue(panlSlowRequestLog.getIsEnabled());
+
+			PanlRequestTrace panlRequestTrace = new PanlRequestTrace();
+			assertFalse(panlSlowRequestLog.getIsSlow("collection", MILLIS_150, panlRequestTrace));
+
+			panlRequestTrace.setPhases(MILLIS_150, MILLIS_150, MILLIS_50, MILLIS_150);
+			assertFalse(panlSlowRequestLog.getIsSlow("collection", MILLIS_150, panlRequestTrace));
+
+			panlRequestTrace.setPhases(0, 0, MILLIS_150, 0);
+			assertTrue(panlSlowRequestLog.getIsSlow("collection", MILLIS_150, panlRequestTrace));
+		}
+	}
+
+	@Test public void testJsonString() {
+		PanlRequestTrace panlRequestTrace = new PanlRequestTrace();
+		panlRequestTrace.setRequest("collection", "book-store", "/book-store/default/", 200, MILLIS_150);
+		panlRequestTrace.setResponseBytes(1024);
+		panlRequestTrace.setSolrQTime(12);
+		panlRequestTrace.setPhases(1000, 2000, 3000, 4000);
+
+		JSONObject jsonObject = new JSONObject(PanlSlowRequestLog.toJsonString(panlRequestTrace));
+		assertEquals("collection", jsonObject.getString("handler"));
+		assertEquals("book-store", jsonObject.getString("collection"));
+		assertEquals("/book-store/default/", jsonObject.getString("uri"));
+		assertEquals(200, jsonObject.getInt("status"));
+		assertEquals(150000, jsonObject.getLong("wall_time_micros"));
+		assertEquals(1024, jsonObject.getLong("response_bytes"));
+		assertEquals(12, jsonObject.getInt("solr_qtime_millis"));
+		assertEquals(3, jsonObject.getJSONObject("phases_micros").getLong(PanlPhaseMetrics.PHASE_SEND_REQUEST));
+		assertFalse(jsonObject.has("canonical_uri"));
+		assertFalse(jsonObject.has("solr_params"));
+	}
+}
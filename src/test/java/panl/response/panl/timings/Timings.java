@@ -54,4 +54,12 @@ public class Timings {
 	public int panl_build_request_time; //	50
 	public int panl_send_request_time; //	105
 	public int panl_build_response_time; //	1
+	public int panl_total_time_micros; //	157305
+	public int panl_parse_request_time_micros; //	212
+	public int panl_build_request_time_micros; //	50110
+	public int panl_send_request_time_micros; //	105923
+	public int panl_build_response_time_micros; //	1060
+	public boolean panl_cached; //	true (only for a cached response)
+	public int panl_cache_lookup_time; //	0 (only for a cached response)
+	public int panl_cache_lookup_time_micros; //	12 (only for a cached response)
 }